@@ -0,0 +1,287 @@
+/*
+ * Copyright (c) 2021-2023, Azul Systems
+ * 
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * 
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * 
+ * * Neither the name of [project] nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+
+package org.tussleframework.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+
+import org.HdrHistogram.AbstractHistogram;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogReader;
+import org.HdrHistogram.HistogramLogWriter;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.tussleframework.RunArgs;
+import org.tussleframework.metrics.HdrData;
+import org.tussleframework.metrics.HdrResult;
+import org.tussleframework.metrics.MetricData;
+import org.tussleframework.metrics.MetricInfo;
+import org.tussleframework.metrics.MovingWindowHistogram;
+import org.tussleframework.metrics.MovingWindowSLE;
+import org.tussleframework.tools.Analyzer;
+import org.tussleframework.tools.AnalyzerConfig;
+import org.tussleframework.tools.FormatTool;
+import org.tussleframework.tools.processors.SamplesProcessor;
+
+/**
+ * Throughput of the analysis pipeline stages on synthetic in-memory hlog and samples data of configurable size.
+ * Besides the score (invocations per second) each stage reports 'records' (recorded values per second)
+ * and 'megabytes' (MB of input per second) counters.
+ *
+ *   hlogDecode               - HistogramLogReader decoding only, baseline for the hlog stages
+ *   hdrResultLoad            - HdrResult.loadHdrData with moving window SLE evaluation
+ *   analyzerProcessHdrStream - Analyzer.processHdrStream including metrics calculation
+ *   samplesProcessor         - SamplesProcessor parsing samples text into HdrData
+ *   hdrDataRecordValues      - HdrData.recordValues on already parsed samples
+ *   movingWindowAdd          - MovingWindowHistogram.add and SLE check per interval histogram
+ *   parseValue               - FormatTool.parseValue of values with unit suffixes
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnalysisBenchmark {
+
+    static final long START_TIME = 1_600_000_000_000L;
+    static final MovingWindowSLE[] SLE = {
+            new MovingWindowSLE(90, 10, 10),
+            new MovingWindowSLE(99, 50, 60),
+            new MovingWindowSLE(99.9, 200, 300),
+    };
+
+    /**
+     * Latency in microseconds (ms with default hdrFactor), log-normal like with rare outliers
+     */
+    static long latency(Random random) {
+        long value = (long) (500 * Math.exp(random.nextGaussian() * 0.6));
+        return random.nextInt(1000) == 0 ? value * 100 : value;
+    }
+
+    static AnalyzerConfig analyzerConfig() {
+        AnalyzerConfig config = new AnalyzerConfig();
+        config.sleConfig = SLE;
+        return config;
+    }
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Counters {
+        public double records;
+        public double megabytes;
+
+        @Setup(Level.Iteration)
+        public void clean() {
+            records = 0;
+            megabytes = 0;
+        }
+
+        void add(long recordsCount, int bytes) {
+            records += recordsCount;
+            megabytes += bytes / 1e6;
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class HlogData {
+        @Param({ "600", "3600" })
+        public int intervals;
+
+        @Param({ "1000" })
+        public int recordsPerInterval;
+
+        byte[] data;
+        long records;
+        List<AbstractHistogram> histograms = new ArrayList<>();
+
+        @Setup(Level.Trial)
+        public void generate() {
+            LogManager.getLogManager().reset();
+            Random random = new Random(intervals);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            HistogramLogWriter writer = new HistogramLogWriter(new PrintStream(bytes));
+            writer.outputLogFormatVersion();
+            writer.outputStartTime(START_TIME);
+            writer.outputLegend();
+            for (int i = 0; i < intervals; i++) {
+                Histogram histogram = new Histogram(3);
+                for (int j = 0; j < recordsPerInterval; j++) {
+                    histogram.recordValue(latency(random));
+                }
+                histogram.setStartTimeStamp(START_TIME + i * 1000L);
+                histogram.setEndTimeStamp(START_TIME + (i + 1) * 1000L);
+                writer.outputIntervalHistogram(histogram);
+                histograms.add(histogram);
+                records += recordsPerInterval;
+            }
+            writer.close();
+            data = bytes.toByteArray();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class SamplesData {
+        @Param({ "100000", "1000000" })
+        public int samples;
+
+        byte[] data;
+        long[] stamps;
+        long[] values;
+
+        @Setup(Level.Trial)
+        public void generate() {
+            LogManager.getLogManager().reset();
+            Random random = new Random(samples);
+            StringBuilder sb = new StringBuilder();
+            stamps = new long[samples];
+            values = new long[samples];
+            long stampUs = START_TIME * 1000;
+            for (int i = 0; i < samples; i++) {
+                stampUs += 1 + random.nextInt(2000);
+                stamps[i] = stampUs / 1000;
+                values[i] = latency(random);
+                sb.append(stampUs / 1_000_000).append('.').append(String.format("%06d", stampUs % 1_000_000)).append(',').append(values[i]).append('\n');
+            }
+            data = sb.toString().getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class ValuesData {
+        String[] values;
+
+        @Setup(Level.Trial)
+        public void generate() {
+            Random random = new Random(0);
+            String[] suffixes = { "", "k", "K", "m", "M", "g" };
+            values = new String[1000];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = (random.nextBoolean() ? random.nextInt(1000) : random.nextInt(100000) / 100.0) + suffixes[random.nextInt(suffixes.length)];
+            }
+        }
+    }
+
+    @Benchmark
+    public long hlogDecode(HlogData hlog, Counters counters) {
+        long count = 0;
+        try (HistogramLogReader reader = new HistogramLogReader(new ByteArrayInputStream(hlog.data))) {
+            AbstractHistogram histogram;
+            while ((histogram = (AbstractHistogram) reader.nextIntervalHistogram(0.0, Double.MAX_VALUE)) != null) {
+                count += histogram.getTotalCount();
+            }
+        }
+        counters.add(count, hlog.data.length);
+        return count;
+    }
+
+    @Benchmark
+    public HdrResult hdrResultLoad(HlogData hlog, Counters counters) {
+        HdrResult result = new HdrResult("op_response_time.hlog", analyzerConfig());
+        result.loadHdrData(new ByteArrayInputStream(hlog.data), SLE, null);
+        counters.add(hlog.records, hlog.data.length);
+        return result;
+    }
+
+    @Benchmark
+    public Analyzer analyzerProcessHdrStream(HlogData hlog, Counters counters) {
+        Analyzer analyzer = new Analyzer();
+        analyzer.init(analyzerConfig());
+        analyzer.processHdrStream(new ByteArrayInputStream(hlog.data), "op_response_time.hlog");
+        counters.add(hlog.records, hlog.data.length);
+        return analyzer;
+    }
+
+    @Benchmark
+    public HdrData samplesProcessor(SamplesData samples, Counters counters) {
+        AnalyzerConfig config = analyzerConfig();
+        HdrData hdrData = new HdrData(new MetricInfo("op", "", "op/s", "ms", ""), new RunArgs(), config, SLE);
+        new SamplesProcessor().processData(new MetricData(), hdrData, null, new ByteArrayInputStream(samples.data), "", Logger.getGlobal());
+        counters.add(samples.samples, samples.data.length);
+        return hdrData;
+    }
+
+    @Benchmark
+    public HdrData hdrDataRecordValues(SamplesData samples, Counters counters) {
+        HdrData hdrData = new HdrData(new MetricInfo("op", "", "op/s", "ms", ""), new RunArgs(), analyzerConfig(), SLE);
+        for (int i = 0; i < samples.samples; i++) {
+            hdrData.recordValues(samples.stamps[i], samples.values[i], -1);
+        }
+        counters.add(samples.samples, samples.samples * 16);
+        return hdrData;
+    }
+
+    @Benchmark
+    public int movingWindowAdd(HlogData hlog, Counters counters) {
+        int broken = 0;
+        for (MovingWindowSLE sle : SLE) {
+            MovingWindowHistogram mwh = new MovingWindowHistogram(sle, 1000d);
+            for (AbstractHistogram histogram : hlog.histograms) {
+                mwh.add(histogram);
+                broken += mwh.checkSLE() ? 0 : 1;
+            }
+        }
+        counters.add(hlog.records * SLE.length, 0);
+        return broken;
+    }
+
+    @Benchmark
+    public void parseValue(ValuesData values, Counters counters, Blackhole bh) {
+        int bytes = 0;
+        for (String value : values.values) {
+            bh.consume(FormatTool.parseValue(value));
+            bytes += value.length();
+        }
+        counters.add(values.values.length, bytes);
+    }
+}
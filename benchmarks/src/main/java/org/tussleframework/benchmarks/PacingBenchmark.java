@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2021-2023, Azul Systems
+ * 
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * 
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * 
+ * * Neither the name of [project] nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+
+package org.tussleframework.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.tussleframework.Globals;
+import org.tussleframework.tools.Pacer;
+import org.tussleframework.tools.SleepTool;
+
+/**
+ * Pacing accuracy: sampled duration of waiting for a deadline delay microseconds ahead,
+ * anything above the delay is the lateness added to the schedule lag of every paced operation.
+ * SleepTool is the HYBRID strategy used by default, the Pacer is measured with each of its modes.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+@State(Scope.Thread)
+public class PacingBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    public long delay;
+
+    @State(Scope.Thread)
+    public static class PacerState {
+        @Param({ "HYBRID", "PARK", "SPIN", "SPIN_YIELD", "CALIBRATED", "BATCH" })
+        public String mode;
+
+        Pacer pacer;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            pacer = new Pacer(Pacer.Mode.parse(mode), 0);
+            pacer.start(System.nanoTime());
+        }
+    }
+
+    @Benchmark
+    public long sleepTool() {
+        SleepTool.sleep(delay * Globals.NS_IN_US);
+        return delay;
+    }
+
+    @Benchmark
+    public long pacer(PacerState state) {
+        return state.pacer.awaitUntil(System.nanoTime() + delay * Globals.NS_IN_US);
+    }
+}
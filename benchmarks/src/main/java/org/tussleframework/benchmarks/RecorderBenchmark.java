@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2021-2023, Azul Systems
+ * 
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * 
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * 
+ * * Neither the name of [project] nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+
+package org.tussleframework.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.tussleframework.Globals;
+import org.tussleframework.RunArgs;
+import org.tussleframework.TimeRecorder;
+import org.tussleframework.metrics.HdrTimeRecorder;
+import org.tussleframework.metrics.HdrWriter;
+import org.tussleframework.metrics.MetricInfo;
+import org.tussleframework.metrics.ResultsRecorder;
+import org.tussleframework.runners.RunnerConfig;
+
+/**
+ * Per call cost of recording one operation's times by each TimeRecorder implementation under contention:
+ *
+ *   hdr        - HdrTimeRecorder, bare HdrHistogram recorders
+ *   results    - ResultsRecorder as used by runners, hdr files are not written
+ *   results-raw - ResultsRecorder with rawData capture of every request
+ *
+ * HdrWriter.recordTime is measured separately as the innermost part of ResultsRecorder.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RecorderBenchmark {
+
+    static final String OPERATION = "op";
+
+    @Param({ "hdr", "results", "results-raw" })
+    public String recorderType;
+
+    private Path histogramsDir;
+    private TimeRecorder recorder;
+    private HdrWriter hdrWriter;
+    private ResultsRecorder resultsRecorder;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        RunnerConfig runnerConfig = new RunnerConfig();
+        histogramsDir = Files.createTempDirectory("recorder_benchmark");
+        runnerConfig.histogramsDir = histogramsDir.toString();
+        runnerConfig.progressInterval = Integer.MAX_VALUE;
+        RunArgs runArgs = new RunArgs(1000, 100, 0, 60, 0, "benchmark");
+        if (recorderType.equals("hdr")) {
+            recorder = new HdrTimeRecorder();
+        } else {
+            runnerConfig.rawData = recorderType.equals("results-raw");
+            resultsRecorder = new ResultsRecorder(runnerConfig, runArgs, false, true);
+            recorder = resultsRecorder;
+        }
+        recorder.startRecording(OPERATION, "op/s", "ms");
+        hdrWriter = new HdrWriter(new MetricInfo(OPERATION, "service_time", "op/s", "ms", ""), false, runnerConfig.progressInterval, runArgs, runnerConfig, runnerConfig.histogramsDir);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (resultsRecorder != null) {
+            resultsRecorder.cancel();
+        }
+        hdrWriter.cancel();
+        try (Stream<Path> files = Files.walk(histogramsDir)) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    private void record() {
+        long finishTime = System.nanoTime() + Globals.NANO_TIME_OFFSET;
+        recorder.recordTimes(OPERATION, finishTime - 200_000, finishTime - 250_000, finishTime, 1, true);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void recordTimes1() {
+        record();
+    }
+
+    @Benchmark
+    @Threads(2)
+    public void recordTimes2() {
+        record();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void recordTimes4() {
+        record();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void recordTimesMax() {
+        record();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void hdrWriterRecordTime1() {
+        hdrWriter.recordTime(200, 1);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void hdrWriterRecordTimeMax() {
+        hdrWriter.recordTime(200, 1);
+    }
+}
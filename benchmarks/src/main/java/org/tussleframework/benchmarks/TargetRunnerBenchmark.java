@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2021-2023, Azul Systems
+ * 
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * 
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * 
+ * * Neither the name of [project] nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+
+package org.tussleframework.benchmarks;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.tussleframework.RunResult;
+import org.tussleframework.TussleException;
+import org.tussleframework.metrics.HdrTimeRecorder;
+import org.tussleframework.tools.TargetRunner;
+import org.tussleframework.tools.TargetRunnerAsync;
+import org.tussleframework.tools.TargetRunnerMT;
+import org.tussleframework.tools.TargetRunnerST;
+
+/**
+ * Maximum dispatch rate of each TargetRunner path for an empty workload, i.e. the framework's own cost per operation.
+ * Every invocation runs the workload for runTime milliseconds at an unreachable target rate,
+ * 'actualRate' counter reports the rate achieved by the runner (op/s), 'errors' should stay zero.
+ * The score itself includes runner's fixed startup and finishing delays and is not of interest.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TargetRunnerBenchmark {
+
+    @Param({ "st", "mt", "async" })
+    public String runnerType;
+
+    @Param({ "1", "4" })
+    public int threads;
+
+    @Param({ "1000" })
+    public int runTime;
+
+    private final HdrTimeRecorder recorder = new HdrTimeRecorder();
+    private final Callable<Boolean> workload = () -> true;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Counters {
+        public double actualRate;
+        public long errors;
+
+        @Setup(Level.Iteration)
+        public void clean() {
+            actualRate = 0;
+            errors = 0;
+        }
+    }
+
+    private TargetRunner createRunner() {
+        if (runnerType.equals("st")) {
+            return new TargetRunnerST();
+        } else if (runnerType.equals("mt")) {
+            return new TargetRunnerMT(threads);
+        } else {
+            return new TargetRunnerAsync(threads);
+        }
+    }
+
+    @Benchmark
+    public RunResult runWorkload(Counters counters) throws TussleException {
+        RunResult result = createRunner().runWorkload("noop", 1e9, runTime, workload, recorder);
+        counters.actualRate = result.actualRate;
+        counters.errors = result.errors;
+        return result;
+    }
+}
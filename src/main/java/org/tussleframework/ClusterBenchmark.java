@@ -0,0 +1,399 @@
+/*
+ * Copyright (c) 2021-2023, Azul Systems
+ * 
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * 
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * 
+ * * Neither the name of [project] nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+
+package org.tussleframework;
+
+import static org.tussleframework.tools.FormatTool.roundFormat;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DataFormatException;
+
+import org.HdrHistogram.AbstractHistogram;
+import org.HdrHistogram.Histogram;
+import org.tussleframework.metrics.HdrMerger;
+import org.tussleframework.tools.ClusterWorker;
+import org.tussleframework.tools.ConfigLoader;
+import org.tussleframework.tools.FormatTool;
+import org.tussleframework.tools.JsonTool;
+import org.tussleframework.tools.LoggerTool;
+import org.tussleframework.tools.ProcSession;
+
+/**
+ * Coordinator which runs a benchmark on several worker JVMs (see ClusterWorker) to produce more load than a single JVM can:
+ * each step's target rate is split evenly between workers, the step is started on all workers at the same time
+ * and interval histograms streamed back by workers are merged into per-operation hlog files passed to the runner's recorder.
+ * Workers are spawned as local processes talking over loopback or started externally and connected to the configured port.
+ */
+public class ClusterBenchmark implements Benchmark {
+
+    private static void log(String format, Object... args) {
+        LoggerTool.log(ClusterBenchmark.class.getSimpleName(), format, args);
+    }
+
+    private final List<WorkerLink> links = new ArrayList<>();
+    private final List<Process> procs = new ArrayList<>();
+    private final Map<String, List<AbstractHistogram>> histograms = new TreeMap<>();
+    private ServerSocket server;
+    private ClusterConfig config;
+    private int runStep;
+
+    public ClusterBenchmark() {
+    }
+
+    public ClusterBenchmark(String[] args) throws TussleException {
+        init(args);
+    }
+
+    public ClusterBenchmark(ClusterConfig config) throws TussleException {
+        config.validate(true);
+        this.config = config;
+        startWorkers();
+    }
+
+    @Override
+    public String getName() {
+        return config.name;
+    }
+
+    @Override
+    public BenchmarkConfig getConfig() {
+        return config;
+    }
+
+    @Override
+    public void init(String[] args) throws TussleException {
+        config = ConfigLoader.loadConfig(args, true, ClusterConfig.class);
+        startWorkers();
+    }
+
+    protected void startWorkers() throws TussleException {
+        try {
+            server = new ServerSocket(config.port, config.workers, InetAddress.getByName(config.host));
+            server.setSoTimeout(config.connectTimeout * 1000);
+            log("Coordinator listening on %s:%d, waiting for %d workers", config.host, server.getLocalPort(), config.workers);
+            if (config.spawnWorkers) {
+                for (int i = 0; i < config.workers; i++) {
+                    spawnWorker(i);
+                }
+            }
+            while (links.size() < config.workers) {
+                Socket socket = server.accept();
+                links.add(new WorkerLink(socket, links.size()));
+                log("Worker %d connected from %s", links.size() - 1, socket.getRemoteSocketAddress());
+            }
+        } catch (SocketTimeoutException e) {
+            cleanup();
+            throw new TussleException(String.format("Only %d of %d workers connected during %d seconds", links.size(), config.workers, config.connectTimeout));
+        } catch (IOException e) {
+            cleanup();
+            throw new TussleException(e);
+        }
+    }
+
+    protected void spawnWorker(int id) throws IOException {
+        List<String> cmd = new ArrayList<>();
+        cmd.add(String.format("%s%sbin%sjava", System.getProperty("java.home"), File.separator, File.separator));
+        cmd.addAll(Arrays.asList(config.workerJvmArgs));
+        cmd.add("-cp");
+        cmd.add(System.getProperty("java.class.path"));
+        cmd.add(ClusterWorker.class.getName());
+        cmd.add(config.host);
+        cmd.add(String.valueOf(server.getLocalPort()));
+        cmd.add(config.benchmark);
+        cmd.addAll(Arrays.asList(config.benchmarkArgs));
+        ProcessBuilder pb = new ProcessBuilder(cmd);
+        pb.redirectErrorStream(true);
+        Process proc = pb.start();
+        procs.add(proc);
+        OutputStream procLog = config.printLog ? new LoggerTool.LogOutputStream(String.format("[worker-%d] ", id), "") : LoggerTool.nullOutputStream();
+        Thread pump = new Thread(() -> pumpOutput(proc.getInputStream(), procLog), "worker-output-" + id);
+        pump.setDaemon(true);
+        pump.start();
+    }
+
+    private static void pumpOutput(InputStream in, OutputStream out) {
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            PrintStream ps = new PrintStream(out, true);
+            String line;
+            while ((line = br.readLine()) != null) {
+                ps.println(line);
+            }
+        } catch (IOException e) {
+            ///
+        }
+    }
+
+    @Override
+    public void reset() throws TussleException {
+        log(" --- CLUSTER RESET --- ");
+        callAll("reset", config.runDelay);
+    }
+
+    @Override
+    public void cleanup() {
+        for (WorkerLink link : links) {
+            link.close();
+        }
+        links.clear();
+        if (server != null) {
+            try {
+                server.close();
+            } catch (IOException e) {
+                ///
+            }
+            server = null;
+        }
+        for (Process proc : procs) {
+            try {
+                if (!proc.waitFor(10, TimeUnit.SECONDS)) {
+                    log("Worker process has not exited, destroying...");
+                    proc.destroyForcibly();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                proc.destroyForcibly();
+            }
+        }
+        procs.clear();
+    }
+
+    @Override
+    public RunResult run(double targetRate, int warmupTime, int runTime, TimeRecorder recorder) throws TussleException {
+        log(" --- CLUSTER RUN --- ");
+        try {
+            synchronized (histograms) {
+                histograms.clear();
+            }
+            double workerRate = targetRate / links.size();
+            log("Starting step %d on %d workers: targetRate %s (%s per worker), warmup %ds, duration %ds", runStep, links.size(), roundFormat(targetRate), roundFormat(workerRate), warmupTime, runTime);
+            String command = String.format("run %s %d %d %d %d %d", FormatTool.format(workerRate), warmupTime, runTime, runStep, config.startDelay, config.hdrInterval);
+            List<String> replies = callAll(command, config.startDelay / 1000 + warmupTime + runTime + config.runDelay);
+            recorder.addResults(mergeHistograms(), config.rateUnits, config.timeUnits);
+            return mergeResults(replies);
+        } finally {
+            runStep++;
+        }
+    }
+
+    /**
+     * Sends command to all workers and waits for all replies, so workers run concurrently
+     */
+    protected List<String> callAll(String command, int timeout) throws TussleException {
+        for (WorkerLink link : links) {
+            link.send(command);
+        }
+        List<String> replies = new ArrayList<>();
+        TussleException error = null;
+        for (WorkerLink link : links) {
+            try {
+                replies.add(link.await(command, timeout));
+            } catch (TussleException e) {
+                error = error != null ? error : e;
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+        return replies;
+    }
+
+    protected Collection<File> mergeHistograms() throws TussleException {
+        HdrMerger merger = new HdrMerger(config.hdrInterval, false);
+        File stepDir = new File(config.resultsDir, String.format("step%d", runStep));
+        Collection<File> files = new ArrayList<>();
+        synchronized (histograms) {
+            for (Map.Entry<String, List<AbstractHistogram>> entry : histograms.entrySet()) {
+                File file = new File(stepDir, entry.getKey() + ".hlog");
+                merger.merge(entry.getValue(), file);
+                files.add(file);
+            }
+        }
+        return files;
+    }
+
+    protected RunResult mergeResults(List<String> replies) throws TussleException {
+        RunResult total = new RunResult();
+        for (String reply : replies) {
+            if (reply.isEmpty()) {
+                continue;
+            }
+            RunResult result = JsonTool.readJson(new ByteArrayInputStream(reply.getBytes(StandardCharsets.UTF_8)), RunResult.class, false, false);
+            total.rateUnits = result.rateUnits;
+            total.timeUnits = result.timeUnits;
+            total.actualRate += result.actualRate;
+            total.errors += result.errors;
+            if (result.errorCategories != null) {
+                if (total.errorCategories == null) {
+                    total.errorCategories = new LinkedHashMap<>();
+                }
+                result.errorCategories.forEach((category, count) -> total.errorCategories.merge(category, count, Long::sum));
+            }
+            total.count += result.count;
+            total.time = Math.max(total.time, result.time);
+            total.warmupTime = Math.max(total.warmupTime, result.warmupTime);
+        }
+        log("Step result: actualRate %s, count %d, errors %d", roundFormat(total.actualRate), total.count, total.errors);
+        return total;
+    }
+
+    protected void addHistogram(String line) {
+        String[] parts = line.split(" ");
+        if (parts.length != 6) {
+            log("Ignoring malformed histogram line: %s", line);
+            return;
+        }
+        try {
+            Histogram histogram = Histogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(Base64.getDecoder().decode(parts[5])), 0);
+            histogram.setStartTimeStamp(Long.parseLong(parts[3]));
+            histogram.setEndTimeStamp(Long.parseLong(parts[4]));
+            synchronized (histograms) {
+                histograms.computeIfAbsent(parts[1] + "_" + parts[2], key -> new ArrayList<>()).add(histogram);
+            }
+        } catch (DataFormatException | IllegalArgumentException e) {
+            log("Ignoring malformed histogram line: %s", e.getMessage());
+        }
+    }
+
+    class WorkerLink {
+        private final int id;
+        private final Socket socket;
+        private final Writer commands;
+        private final BlockingQueue<String> replies = new LinkedBlockingQueue<>();
+        private volatile boolean connected = true;
+
+        WorkerLink(Socket socket, int id) throws IOException {
+            this.id = id;
+            this.socket = socket;
+            socket.setTcpNoDelay(true);
+            commands = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+            Thread reader = new Thread(this::readReplies, "cluster-worker-" + id);
+            reader.setDaemon(true);
+            reader.start();
+        }
+
+        private void readReplies() {
+            try (BufferedReader br = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = br.readLine()) != null) {
+                    if (line.startsWith(ClusterWorker.HIST)) {
+                        addHistogram(line);
+                    } else if (line.startsWith(ProcSession.DONE) || line.startsWith(ProcSession.ERROR)) {
+                        replies.add(line);
+                    }
+                }
+            } catch (IOException e) {
+                log("Worker %d connection: %s", id, e.getMessage());
+            } finally {
+                connected = false;
+            }
+        }
+
+        synchronized void send(String command) throws TussleException {
+            if (!connected) {
+                throw new TussleException(String.format("Worker %d is not connected", id));
+            }
+            try {
+                commands.write(command);
+                commands.write('\n');
+                commands.flush();
+            } catch (IOException e) {
+                throw new TussleException(e);
+            }
+        }
+
+        String await(String command, int timeout) throws TussleException {
+            long deadline = System.currentTimeMillis() + timeout * 1000L;
+            try {
+                while (true) {
+                    String reply = replies.poll(100, TimeUnit.MILLISECONDS);
+                    if (reply != null) {
+                        if (reply.startsWith(ProcSession.ERROR)) {
+                            throw new TussleException(String.format("Worker %d command '%s' failed: %s", id, command, reply.substring(ProcSession.ERROR.length()).trim()));
+                        }
+                        return reply.substring(ProcSession.DONE.length()).trim();
+                    }
+                    if (!connected) {
+                        throw new TussleException(String.format("Worker %d disconnected during command '%s'", id, command));
+                    }
+                    if (System.currentTimeMillis() > deadline) {
+                        throw new TussleTimeoutException(String.format("Worker %d command '%s' has not finished during expected time %d seconds", id, command, timeout));
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new TussleException(e);
+            }
+        }
+
+        void close() {
+            try {
+                if (connected) {
+                    send("exit");
+                }
+            } catch (TussleException e) {
+                ///
+            }
+            try {
+                socket.close();
+            } catch (IOException e) {
+                ///
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2021-2023, Azul Systems
+ * 
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * 
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * 
+ * * Neither the name of [project] nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+
+package org.tussleframework;
+
+/**
+ * Coordinator configuration for running a benchmark on several worker JVMs
+ */
+public class ClusterConfig extends BenchmarkConfig {
+    public String benchmark;                  // benchmark class name run by each worker
+    public String[] benchmarkArgs = {};       // args passed to the benchmark init on each worker
+    public int workers = 2;                   // number of workers sharing each step's target rate
+    public boolean spawnWorkers = true;       // start workers as local JVM processes, otherwise wait for externally started workers
+    public String[] workerJvmArgs = {};       // additional JVM options for spawned workers
+    public String host = "127.0.0.1";         // coordinator listen address
+    public int port = 0;                      // coordinator listen port, 0 - any free port (requires spawnWorkers)
+    public int connectTimeout = 60;           // time in seconds to wait for all workers to connect
+    public int startDelay = 500;              // time in milliseconds between sending run command and the synchronised step start
+    public int runDelay = 60;                 // additional time in seconds to wait for workers after warmupTime + runTime
+    public int hdrInterval = 1000;            // interval in milliseconds of the histograms streamed by workers
+    public String resultsDir = "./cluster_results"; // location for merged per-step hlog files
+    public boolean printLog = true;           // pass spawned workers' output to the log
+
+    public ClusterConfig() {
+        name = "cluster";
+    }
+
+    @Override
+    public void validate(boolean runMode) {
+        super.validate(runMode);
+        if (benchmark == null || benchmark.isEmpty()) {
+            throw new IllegalArgumentException("Missing or empty required parameter: benchmark");
+        }
+        if (workers <= 0) {
+            throw new IllegalArgumentException(String.format("Invalid workers(%d) - should be positive", workers));
+        }
+        if (port < 0 || (port == 0 && !spawnWorkers)) {
+            throw new IllegalArgumentException(String.format("Invalid port(%d) - should be positive when workers are not spawned", port));
+        }
+        if (connectTimeout <= 0) {
+            throw new IllegalArgumentException(String.format("Invalid connectTimeout(%d) - should be positive", connectTimeout));
+        }
+        if (startDelay < 0) {
+            throw new IllegalArgumentException(String.format("Invalid startDelay(%d) - should be non-negative", startDelay));
+        }
+        if (hdrInterval <= 0) {
+            throw new IllegalArgumentException(String.format("Invalid hdrInterval(%d) - should be positive", hdrInterval));
+        }
+        if (benchmarkArgs == null) {
+            benchmarkArgs = new String[0];
+        }
+        if (workerJvmArgs == null) {
+            workerJvmArgs = new String[0];
+        }
+    }
+}
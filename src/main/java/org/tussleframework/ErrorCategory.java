@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2021-2023, Azul Systems
+ * 
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * 
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * 
+ * * Neither the name of [project] nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+
+package org.tussleframework;
+
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.tussleframework.tools.LoggerTool;
+
+/**
+ * Category of a failed operation, each category is recorded to its own 'errors-{name}' histogram
+ * in addition to the common 'errors' one
+ */
+public enum ErrorCategory {
+    TIMEOUT("timeout"),         // operation timed out
+    REJECTED("rejected"),       // request rejected by the service, e.g. overload or throttling
+    CONNECTION("connection"),   // service is not reachable
+    SERVER("server"),           // service failed to process valid request, e.g. HTTP 5xx
+    CLIENT("client"),           // request is not accepted by the service, e.g. HTTP 4xx
+    FAILED("failed"),           // workload returned false
+    EXCEPTION("exception");     // workload thrown an exception of any other type
+
+    public static final String ERRORS = "errors";
+
+    private static final ErrorCategory[] VALUES = values();
+    private static final long LOG_INTERVAL_MS = 10_000;
+
+    private final String categoryName;
+    private final String metricName;
+    private final AtomicLong nextLogTime = new AtomicLong();
+    private final AtomicLong suppressed = new AtomicLong();
+
+    ErrorCategory(String categoryName) {
+        this.categoryName = categoryName;
+        this.metricName = ERRORS + "-" + categoryName;
+    }
+
+    public String categoryName() {
+        return categoryName;
+    }
+
+    public String metricName() {
+        return metricName;
+    }
+
+    public static int count() {
+        return VALUES.length;
+    }
+
+    public static ErrorCategory get(int ordinal) {
+        return VALUES[ordinal];
+    }
+
+    public static ErrorCategory parse(String name) {
+        for (ErrorCategory category : VALUES) {
+            if (category.categoryName.equalsIgnoreCase(name) || category.name().equalsIgnoreCase(name)) {
+                return category;
+            }
+        }
+        throw new IllegalArgumentException(String.format("Unknown error category '%s'", name));
+    }
+
+    public static boolean isErrorsMetric(String metricName) {
+        return metricName != null && (metricName.equals(ERRORS) || metricName.startsWith(ERRORS + "-"));
+    }
+
+    /**
+     * Maps workload exception to error category
+     */
+    public static ErrorCategory of(Throwable e) {
+        if (e instanceof TimeoutException || e instanceof InterruptedIOException || e instanceof TussleTimeoutException) {
+            return TIMEOUT;
+        } else if (e instanceof RejectedExecutionException) {
+            return REJECTED;
+        } else if (e instanceof ConnectException || e instanceof NoRouteToHostException || e instanceof UnknownHostException) {
+            return CONNECTION;
+        } else {
+            return EXCEPTION;
+        }
+    }
+
+    /**
+     * Calls workload without throwing on failures, the first exception of each category is logged
+     * with its stack trace and later ones are summarized at most once per LOG_INTERVAL_MS
+     *
+     * @return null on success, error category otherwise
+     * @throws InterruptedException - so that runner can stop
+     */
+    public static ErrorCategory call(Callable<Boolean> workload) throws InterruptedException {
+        try {
+            if (workload instanceof CategorizedWorkload) {
+                return ((CategorizedWorkload) workload).execute();
+            }
+            return Boolean.TRUE.equals(workload.call()) ? null : FAILED;
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            ErrorCategory category = of(e);
+            category.logFailure(e);
+            return category;
+        }
+    }
+
+    private void logFailure(Exception e) {
+        long now = System.currentTimeMillis();
+        long next = nextLogTime.get();
+        if ((next != 0 && now - next < 0) || !nextLogTime.compareAndSet(next, now + LOG_INTERVAL_MS)) {
+            suppressed.incrementAndGet();
+            return;
+        }
+        try {
+            if (next == 0) {
+                Logger.getGlobal().log(Level.WARNING, e, () -> String.format("[%s] first '%s' error: %s", ErrorCategory.class.getSimpleName(), categoryName, e));
+            } else {
+                LoggerTool.log(ErrorCategory.class.getSimpleName(), "%d more '%s' errors, last: %s", suppressed.getAndSet(0) + 1, categoryName, e);
+            }
+        } catch (RuntimeException ignored) {
+            // logging must never fail the workload call
+        }
+    }
+
+    /**
+     * @return non-zero counts by category name
+     */
+    public static Map<String, Long> toMap(long[] counts) {
+        Map<String, Long> map = new LinkedHashMap<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                map.put(VALUES[i].categoryName, counts[i]);
+            }
+        }
+        return map;
+    }
+}
@@ -44,6 +44,8 @@ public class HdrConfig implements AbstractConfig {
     public int hdrCutTime = 0;                    // initial hdr records to be excluded during this time in seconds
     public int hdrInterval = 1000;                // time interval in milliseconds used for writing histogram bunch of compressed data to hdr files 
     public int reportInterval = 3000;             // time interval in milliseconds used for reporting histogram results
+    public int reportMaxPoints = 2000;            // series longer than this get pre-aggregated lower resolution levels for the report, 0 - disabled
+    public int reportLevelFactor = 4;             // number of intervals merged into one point of the next lower resolution level
     public int progressInterval = 5000;           // time interval in milliseconds used for writing progress in the log output
     public double hdrFactor = 1000d;              // histogram's units divider to milliseconds, e.g. for ns-to-ms it is 1000000
     public boolean includeWarmup = false;
@@ -55,11 +57,14 @@ public class HdrConfig implements AbstractConfig {
     public String[] operationsExclude;
     public RunProperties runProperties;
     public String runPropertiesFile;
+    public String calibrationFile;                // load generator calibration results made by Calibrator, steps above its capacity are flagged
 
     public HdrConfig copy(HdrConfig c) {
         hdrCutTime = c.hdrCutTime;
         hdrInterval = c.hdrInterval; 
         reportInterval = c.reportInterval;
+        reportMaxPoints = c.reportMaxPoints;
+        reportLevelFactor = c.reportLevelFactor;
         progressInterval = c.progressInterval;
         hdrFactor = c.hdrFactor;
         includeWarmup = c.includeWarmup;
@@ -71,6 +76,7 @@ public class HdrConfig implements AbstractConfig {
         operationsExclude = c.operationsExclude;
         runProperties = c.runProperties;
         runPropertiesFile = c.runPropertiesFile;
+        calibrationFile = c.calibrationFile;
         return this;
     }
 
@@ -91,6 +97,12 @@ public class HdrConfig implements AbstractConfig {
         if (reportInterval < hdrInterval) {
             throw new IllegalArgumentException(String.format("Invalid reportInterval(%d) - should be >= hdrInterval(%d)", reportInterval, hdrInterval));
         }
+        if (reportMaxPoints < 0) {
+            throw new IllegalArgumentException(String.format("Invalid reportMaxPoints(%d) - should be >= 0", reportMaxPoints));
+        }
+        if (reportLevelFactor < 2) {
+            throw new IllegalArgumentException(String.format("Invalid reportLevelFactor(%d) - should be >= 2", reportLevelFactor));
+        }
         if (progressInterval < 0) {
             throw new IllegalArgumentException(String.format("Invalid progressInterval(%d) - should be >= 0", progressInterval));
         }
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2021-2023, Azul Systems
+ * 
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * 
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * 
+ * * Neither the name of [project] nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+
+package org.tussleframework;
+
+/**
+ * Benchmark driving several isolated SUT instances (e.g. one per NUMA node or container),
+ * runs on different instances can go concurrently, e.g. StepRater tests several target rates at once
+ */
+public interface MultiInstanceBenchmark extends Benchmark {
+
+    /**
+     * @return number of SUT instances
+     */
+    int getInstances();
+
+    /**
+     * Resets the SUT instance only
+     */
+    void reset(int instance) throws TussleException;
+
+    /**
+     * Runs Benchmark against the SUT instance, runs on different instances can be invoked concurrently
+     */
+    RunResult run(int instance, double targetRate, int warmupTime, int runTime, TimeRecorder recorder) throws TussleException;
+
+    /**
+     * @return Benchmark bound to the SUT instance, its reset and run use the instance only
+     */
+    default Benchmark instance(int instance) {
+        MultiInstanceBenchmark benchmark = this;
+        return new Benchmark() {
+            @Override
+            public void init(String[] args) throws TussleException {
+                benchmark.init(args);
+            }
+
+            @Override
+            public void reset() throws TussleException {
+                benchmark.reset(instance);
+            }
+
+            @Override
+            public void cleanup() throws TussleException {
+                benchmark.cleanup();
+            }
+
+            @Override
+            public String getName() {
+                return benchmark.getName();
+            }
+
+            @Override
+            public BenchmarkConfig getConfig() {
+                return benchmark.getConfig();
+            }
+
+            @Override
+            public RunResult run(double targetRate, int warmupTime, int runTime, TimeRecorder recorder) throws TussleException {
+                return benchmark.run(instance, targetRate, warmupTime, runTime, recorder);
+            }
+        };
+    }
+}
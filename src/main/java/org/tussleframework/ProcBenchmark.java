@@ -35,30 +35,37 @@ package org.tussleframework;
 import static org.tussleframework.tools.FormatTool.applyArgs;
 import static org.tussleframework.tools.FormatTool.roundFormat;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
+import org.tussleframework.metrics.ResultsTailer;
 import org.tussleframework.tools.ConfigLoader;
 import org.tussleframework.tools.FileTool;
 import org.tussleframework.tools.FormatTool;
 import org.tussleframework.tools.JsonTool;
 import org.tussleframework.tools.LoggerTool;
+import org.tussleframework.tools.ProcSession;
 import org.tussleframework.tools.ProcTool;
 import org.tussleframework.tools.ProcTool.CmdVars;
 
-public class ProcBenchmark implements Benchmark {
+public class ProcBenchmark implements MultiInstanceBenchmark {
 
     private static void log(String format, Object... args) {
         LoggerTool.log(ProcBenchmark.class.getSimpleName(), format, args);
     }
 
-    private OutputStream procLog;
+    private OutputStream[] procLogs;
+    private ProcSession[] sessions;
     private ProcConfig config;
-    private int runStep;
+    private final AtomicInteger runStep = new AtomicInteger();
 
     public ProcBenchmark() {
     }
@@ -89,62 +96,179 @@ public class ProcBenchmark implements Benchmark {
         initCmd();
     }
 
+    /**
+     * Init and session commands are run for each SUT instance
+     */
     protected void initCmd() throws TussleException {
-        if (config.printLog)
-            procLog = new LoggerTool.LogOutputStream(config.logPrefix != null ? config.logPrefix : String.format("[%s] ", config.name), config.logSuffix != null ? config.logSuffix : "");
-        else
-            procLog = LoggerTool.nullOutputStream();
+        procLogs = new OutputStream[config.instances];
+        for (int instance = 0; instance < config.instances; instance++) {
+            String prefix = config.instances > 1 ? String.format("[%s#%d] ", config.name, instance) : String.format("[%s] ", config.name);
+            if (config.printLog)
+                procLogs[instance] = new LoggerTool.LogOutputStream(config.logPrefix != null ? config.logPrefix : prefix, config.logSuffix != null ? config.logSuffix : "");
+            else
+                procLogs[instance] = LoggerTool.nullOutputStream();
+        }
         if (config.init != null && !config.init.isEmpty()) {
-            log(" --- BENCHMARK PROCESS INIT --- ");
-            ProcTool.runProcess("init", config.makeCmd(config.init, config.getArgs(new RunArgs())), procLog);
+            for (int instance = 0; instance < config.instances; instance++) {
+                log(" --- BENCHMARK PROCESS INIT %s--- ", instanceName(instance));
+                ProcTool.runProcess("init", config.makeCmd(config.init, config.getArgs(new RunArgs(), instance)), procLogs[instance]);
+            }
+        }
+        if (config.session != null && !config.session.isEmpty()) {
+            sessions = new ProcSession[config.instances];
+            for (int instance = 0; instance < config.instances; instance++) {
+                log(" --- BENCHMARK SESSION START %s--- ", instanceName(instance));
+                sessions[instance] = new ProcSession("session", config.makeCmd(config.session, config.getArgs(new RunArgs(), instance)), procLogs[instance]);
+                sessions[instance].start();
+            }
         }
     }
 
+    protected String instanceName(int instance) {
+        return config.instances > 1 ? String.format("(instance %d) ", instance) : "";
+    }
+
+    protected ProcSession getSession(int instance) throws TussleException {
+        ProcSession session = sessions[instance];
+        if (!session.isAlive()) {
+            log("Session process is not running, restarting...");
+            session.close();
+            session.start();
+        }
+        return session;
+    }
+
+    @Override
+    public int getInstances() {
+        return config.instances;
+    }
+
     @Override
     public void reset() throws TussleException {
-        if (config.reset != null && !config.reset.isEmpty()) {
-            log(" --- BENCHMARK PROCESS RESET --- ");
-            ProcTool.runProcess("reset", config.makeCmd(config.reset, config.getArgs(new RunArgs())), procLog);
+        for (int instance = 0; instance < config.instances; instance++) {
+            reset(instance);
+        }
+    }
+
+    @Override
+    public void reset(int instance) throws TussleException {
+        if (sessions != null) {
+            log(" --- BENCHMARK SESSION RESET %s--- ", instanceName(instance));
+            getSession(instance).call("reset", FormatTool.parseTimeLength(config.reset.delay));
+        } else if (config.reset != null && !config.reset.isEmpty()) {
+            log(" --- BENCHMARK PROCESS RESET %s--- ", instanceName(instance));
+            ProcTool.runProcess("reset", config.makeCmd(config.reset, config.getArgs(new RunArgs(), instance)), procLogs[instance]);
         }
     }
 
     @Override
     public void cleanup() throws TussleException {
-        if (config.cleanup != null && !config.cleanup.isEmpty()) {
-            log(" --- BENCHMARK PROCESS CLEANUP --- ");
-            ProcTool.runProcess("cleanup", config.makeCmd(config.cleanup, config.getArgs(new RunArgs())), procLog);
+        for (int instance = 0; instance < config.instances; instance++) {
+            if (sessions != null) {
+                log(" --- BENCHMARK SESSION STOP %s--- ", instanceName(instance));
+                sessions[instance].close();
+            }
+            if (config.cleanup != null && !config.cleanup.isEmpty()) {
+                log(" --- BENCHMARK PROCESS CLEANUP %s--- ", instanceName(instance));
+                ProcTool.runProcess("cleanup", config.makeCmd(config.cleanup, config.getArgs(new RunArgs(), instance)), procLogs[instance]);
+            }
         }
     }
 
     @Override
     public RunResult run(double targetRate, int warmupTime, int runTime, TimeRecorder recorder) throws TussleException {
-        log(" --- BENCHMARK PROCESS RUN --- ");
-        RunArgs runArgs = new RunArgs(targetRate, 0, warmupTime, runTime, runStep, config.runName);
-        try {
-            int delay = FormatTool.parseTimeLength(config.run.delay);
-            log("Starting process run command targetRate %s, warmup %ds, duration %ds, delay %ds, step %d", roundFormat(targetRate), warmupTime, runTime, delay, runStep);
-            Map<String, String> params = config.getArgs(runArgs);
-            CmdVars runCmd = config.makeCmd(config.run, params).setDelay(warmupTime + runTime + delay);
+        return run(0, targetRate, warmupTime, runTime, recorder);
+    }
+
+    @Override
+    public RunResult run(int instance, double targetRate, int warmupTime, int runTime, TimeRecorder recorder) throws TussleException {
+        log(" --- BENCHMARK PROCESS RUN %s--- ", instanceName(instance));
+        int step = runStep.getAndIncrement();
+        RunArgs runArgs = new RunArgs(targetRate, 0, warmupTime, runTime, step, config.runName);
+        OutputStream procLog = procLogs[instance];
+        ProcSession session = sessions != null ? getSession(instance) : null;
+        int delay = FormatTool.parseTimeLength(config.run.delay);
+        log("Starting process run command targetRate %s, warmup %ds, duration %ds, delay %ds, step %d", roundFormat(targetRate), warmupTime, runTime, delay, step);
+        Map<String, String> params = config.getArgs(runArgs, instance);
+        CmdVars runCmd = session != null ? new CmdVars() : config.makeCmd(config.run, params).setDelay(warmupTime + runTime + delay);
+        if (session != null) {
+            runCmd.dir = session.getDir();
+            params.put("runDir", runCmd.dir);
+        }
+        Collection<String> resultFileNames = applyArgs(Arrays.asList(config.resultFiles.clone()), params);
+        ResultsTailer tailer = null;
+        if (config.tailResults && resultFileNames != null && !resultFileNames.isEmpty()) {
+            tailer = recorder.tailResults(runCmd.dir, resultFileNames, config.rateUnits, config.timeUnits, config.tailInterval);
+        }
+        String sessionResult = null;
+        if (session != null) {
+            String command = String.format("run %s %d %d %d", FormatTool.format(targetRate), warmupTime, runTime, step);
+            sessionResult = runSession(session, command, warmupTime + runTime + delay, tailer);
+        } else if (tailer != null) {
+            runTailed(runCmd, tailer, procLog);
+        } else {
             ProcTool.runProcess("run", runCmd, procLog);
-            Collection<String> resultFileNames = applyArgs(Arrays.asList(config.resultFiles.clone()), params);
-            if (resultFileNames != null && !resultFileNames.isEmpty()) {
-                resultFileNames.forEach(fileName -> log("Looking for result file(s) '%s', runDir '%s'", fileName, runCmd.dir));
-                Collection<File> resultFiles = FileTool.listFiles(runCmd.dir, resultFileNames);
-                resultFiles.forEach(file -> log("Found file '%s'", file));
-                recorder.addResults(resultFiles, config.rateUnits, config.timeUnits);
+        }
+        if (tailer == null && resultFileNames != null && !resultFileNames.isEmpty()) {
+            resultFileNames.forEach(fileName -> log("Looking for result file(s) '%s', runDir '%s'", fileName, runCmd.dir));
+            Collection<File> resultFiles = FileTool.listFiles(runCmd.dir, resultFileNames);
+            resultFiles.forEach(file -> log("Found file '%s'", file));
+            recorder.addResults(resultFiles, config.rateUnits, config.timeUnits);
+        }
+        if (sessionResult != null && !sessionResult.isEmpty()) {
+            return JsonTool.readJson(new ByteArrayInputStream(sessionResult.getBytes(StandardCharsets.UTF_8)), RunResult.class, false, false);
+        }
+        RunResult runResult = new RunResult();
+        if (config.runResult != null && !config.runResult.isEmpty()) {
+            File resultFile = runCmd.dir != null ? new File(runCmd.dir, config.runResult) : new File(config.runResult);
+            try (FileInputStream inputStream = new FileInputStream(resultFile)) {
+                runResult = JsonTool.readJson(inputStream, RunResult.class, false, false);
+            } catch (Exception e) {
+                throw new TussleException(e);
             }
-            RunResult runResult = new RunResult();
-            if (config.runResult != null && !config.runResult.isEmpty()) {
-                File resultFile = runCmd.dir != null ? new File(runCmd.dir, config.runResult) : new File(config.runResult);
-                try (FileInputStream inputStream = new FileInputStream(resultFile)) {
-                    runResult = JsonTool.readJson(inputStream, RunResult.class, false, false);
-                } catch (Exception e) {
-                    throw new TussleException(e);
+        }
+        return runResult;
+    }
+
+    protected String runSession(ProcSession runSession, String command, int timeout, ResultsTailer tailer) throws TussleException {
+        if (tailer != null && config.abortOnSle) {
+            tailer.setOnSleBroken(() -> {
+                log("Stopping session run earlier - SLE broken: %s", tailer.getBrokenSle());
+                try {
+                    runSession.send("stop");
+                } catch (TussleException e) {
+                    LoggerTool.logException(null, e);
                 }
-            }
-            return runResult;
+            });
+        }
+        try {
+            return runSession.call(command, timeout);
         } finally {
-            runStep++;
+            if (tailer != null) {
+                tailer.finish();
+            }
+        }
+    }
+
+    protected void runTailed(CmdVars runCmd, ResultsTailer tailer, OutputStream procLog) throws TussleException {
+        AtomicReference<Process> process = new AtomicReference<>();
+        if (config.abortOnSle) {
+            tailer.setOnSleBroken(() -> {
+                Process proc = process.get();
+                if (proc != null) {
+                    log("Stopping process run command earlier - SLE broken: %s", tailer.getBrokenSle());
+                    proc.destroy();
+                }
+            });
+        }
+        try {
+            ProcTool.runProcess("run", runCmd, procLog, process::set);
+        } catch (TussleException e) {
+            if (!config.abortOnSle || tailer.getBrokenSle() == null) {
+                tailer.finish();
+                throw e;
+            }
         }
+        tailer.finish();
     }
 }
@@ -37,6 +37,7 @@ import static org.tussleframework.tools.FormatTool.applyArgs;
 
 import java.util.Arrays;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Properties;
 import java.util.regex.Pattern;
 
@@ -55,7 +56,12 @@ public class ProcConfig extends BenchmarkConfig {
     public CmdVars init = new CmdVars();
     public CmdVars reset = new CmdVars();
     public CmdVars cleanup = new CmdVars();
+    public CmdVars session = new CmdVars(); // optional long-lived process started once and driven by run/reset commands over stdin instead of run/reset processes
     public String[] resultFiles = { ".*.hlog" };
+    public boolean tailResults = false; // ingest result files while the process runs: live progress and no post-run loading
+    public int tailInterval = 1000;     // poll interval in milliseconds for tailed result files
+    public boolean abortOnSle = false;  // stop the process early when a moving window SLE is broken (requires tailResults)
+    public int instances = 1;           // isolated SUT instances, commands get their index as {instance}, StepRater runs up to this many rate steps concurrently
     public Properties vars = new Properties();
 
     public ProcConfig() {
@@ -64,8 +70,17 @@ public class ProcConfig extends BenchmarkConfig {
 
     @Override
     public void validate(boolean runMode) {
-        if (run == null || run.isEmpty()) {
-            throw new IllegalArgumentException("Missing or empty required parameter: run command");
+        if ((run == null || run.isEmpty()) && (session == null || session.isEmpty())) {
+            throw new IllegalArgumentException("Missing or empty required parameter: run or session command");
+        }
+        if (instances <= 0) {
+            throw new IllegalArgumentException(String.format("Invalid instances(%d) - should be positive", instances));
+        }
+        if (instances > 1 && !hasInstanceResults()) {
+            throw new IllegalArgumentException(String.format("Instances(%d) would pick up result files of each other - run dir (session dir) or resultFiles should contain {instance}", instances));
+        }
+        if (tailInterval <= 0) {
+            throw new IllegalArgumentException(String.format("Invalid tailInterval(%d) - should be positive", tailInterval));
         }
         if (resultFiles != null) {
             Map<String, String> params = getArgs(new RunArgs());
@@ -76,8 +91,42 @@ public class ProcConfig extends BenchmarkConfig {
         }
     }
 
+    /**
+     * Instances running concurrently should not share result files: either their run dir or each result file pattern depends on {instance},
+     * runResult file is read from the run dir so it needs own run dirs unless results come from the session
+     */
+    protected boolean hasInstanceResults() {
+        boolean hasSession = session != null && !session.isEmpty();
+        String dir = hasSession ? session.dir : run.dir;
+        Map<String, String> params0 = getArgs(new RunArgs(), 0);
+        Map<String, String> params1 = getArgs(new RunArgs(), 1);
+        String dir0 = applyArg(dir, params0);
+        String dir1 = applyArg(dir, params1);
+        if (!Objects.equals(dir0, dir1)) {
+            return true;
+        }
+        if (!hasSession && runResult != null && !runResult.isEmpty()) {
+            return false;
+        }
+        if (resultFiles != null) {
+            params0.put("runDir", dir0);
+            params1.put("runDir", dir1);
+            for (String pattern : resultFiles) {
+                if (Objects.equals(applyArg(pattern, params0), applyArg(pattern, params1))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
     public Map<String, String> getArgs(RunArgs runArgs) {
+        return getArgs(runArgs, 0);
+    }
+
+    public Map<String, String> getArgs(RunArgs runArgs, int instance) {
         Map<String, String> pairs = FormatTool.getSysMap(vars);
+        pairs.put("instance", String.valueOf(instance));
         pairs.put("targetRate", FormatTool.format(runArgs.targetRate));
         pairs.put("warmupTime", String.valueOf(runArgs.warmupTime));
         pairs.put("runTime", String.valueOf(runArgs.runTime));
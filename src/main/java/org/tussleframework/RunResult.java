@@ -32,6 +32,8 @@
 
 package org.tussleframework;
 
+import java.util.Map;
+
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -48,6 +50,8 @@ public class RunResult {
     public String timeUnits;
     public double actualRate;
     public long errors;
+    public Map<String, Long> errorCategories;
     public long count;
     public long time;
+    public long warmupTime;
 }
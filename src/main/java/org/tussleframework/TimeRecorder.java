@@ -34,9 +34,35 @@ package org.tussleframework;
 
 import java.util.Collection;
 
+import org.tussleframework.metrics.ResultsTailer;
+import org.tussleframework.metrics.RunClock;
+
 public interface TimeRecorder {
     void startRecording(String operationName, String rateUnits, String timeUnits);
     void stopRecording();
     void recordTimes(String operationName, long startTime, long intendedStartTime, long finishTime, long count, boolean success);
     void addResults(Collection<?> results, String rateUnits, String timeUnits) throws TussleException;
+
+    /**
+     * Records failed operation with its error category, by default it is recorded just as a failure
+     */
+    default void recordError(String operationName, ErrorCategory category, long startTime, long intendedStartTime, long finishTime, long count) {
+        recordTimes(operationName, startTime, intendedStartTime, finishTime, count, false);
+    }
+
+    /**
+     * Starts live ingestion of result files matching fileMatches under dir while they are being written,
+     * returns null if not supported so results should be added by addResults after the run
+     */
+    default ResultsTailer tailResults(String dir, Collection<String> fileMatches, String rateUnits, String timeUnits, int pollInterval) {
+        return null;
+    }
+
+    /**
+     * Returns run clock shared with target runners so that the measured phase starts and ends on the recorder's interval boundaries,
+     * null if the recorder has no fixed intervals
+     */
+    default RunClock getClock() {
+        return null;
+    }
 }
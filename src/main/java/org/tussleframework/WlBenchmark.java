@@ -32,12 +32,19 @@
 
 package org.tussleframework;
 
+import static org.tussleframework.Globals.NS_IN_MS;
+
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 
+import org.tussleframework.metrics.WarmupDetector;
 import org.tussleframework.tools.ConfigLoader;
+import org.tussleframework.tools.Pacer;
+import org.tussleframework.tools.SleepTool;
 import org.tussleframework.tools.TargetRunner;
 import org.tussleframework.tools.TargetRunnerAsync;
 import org.tussleframework.tools.TargetRunnerMT;
+import org.tussleframework.tools.TargetRunnerReplay;
 import org.tussleframework.tools.TargetRunnerST;
 
 /**
@@ -85,10 +92,46 @@ public abstract class WlBenchmark implements Benchmark {
 
     @Override
     public RunResult run(double targetRate, int warmupTime, int runTime, TimeRecorder recorder) throws TussleException {
+        long actualWarmupTime = 0;
         if (warmupTime > 0) {
-            doWork(targetRate, warmupTime, null);
+            RunResult warmupResult = config.adaptiveWarmup ? doAdaptiveWarmup(targetRate, warmupTime) : doWork(targetRate, warmupTime, null);
+            actualWarmupTime = warmupResult != null ? warmupResult.time : 0;
+        }
+        RunResult result = doWork(targetRate, runTime, recorder);
+        if (result != null) {
+            result.warmupTime = actualWarmupTime;
+        }
+        return result;
+    }
+
+    /**
+     * Runs warmup until throughput and latency stabilise, but not shorter than warmupMinTime and not longer than maxWarmupTime
+     *
+     * @param maxWarmupTime - in seconds
+     */
+    protected RunResult doAdaptiveWarmup(double targetRate, int maxWarmupTime) throws TussleException {
+        log("Adaptive warmup: tolerance %s, %d stable intervals of %d ms, min %d s, max %d s", config.warmupTolerance, config.warmupStableIntervals, config.warmupInterval, config.warmupMinTime, maxWarmupTime);
+        final WarmupDetector detector = new WarmupDetector(config.warmupTolerance, config.warmupStableIntervals, (long) (config.warmupLatencyFloor * NS_IN_MS));
+        final TargetRunner runner = getTargetRunner();
+        final long minFinishTime = System.currentTimeMillis() + config.warmupMinTime * 1000L;
+        final AtomicBoolean finished = new AtomicBoolean();
+        Thread watcher = new Thread(() -> {
+            while (!finished.get()) {
+                SleepTool.sleep(config.warmupInterval * NS_IN_MS);
+                if (detector.sample() && System.currentTimeMillis() >= minFinishTime) {
+                    log("Adaptive warmup: converged");
+                    runner.stop();
+                    break;
+                }
+            }
+        }, "warmup-detector");
+        watcher.setDaemon(true);
+        watcher.start();
+        try {
+            return doWork(runner, targetRate, maxWarmupTime, detector);
+        } finally {
+            finished.set(true);
         }
-        return doWork(targetRate, runTime, recorder);
     }
 
     public Class<? extends WlConfig> getConfigClass() {
@@ -96,20 +139,26 @@ public abstract class WlBenchmark implements Benchmark {
     }
 
     public TargetRunner getTargetRunner() {
-        if (config.async) {
+        if (config.replayTrace != null) {
+            return new TargetRunnerReplay(config.replayTrace, config.replaySpeed, config.threads, config.replayOperations);
+        } else if (config.async) {
             return new TargetRunnerAsync(config.threads);
         } else if (config.threads > 1) {
-            return new TargetRunnerMT(config.threads);
+            return new TargetRunnerMT(config.threads, config.pacing, config.pacingTick);
         } else {
-            return new TargetRunnerST();
+            return new TargetRunnerST(Pacer.create(config.pacing, config.pacingTick));
         }
     }
 
     protected RunResult doWork(double targetRate, int runTime, TimeRecorder recorder) throws TussleException {
+        return doWork(getTargetRunner(), targetRate, runTime, recorder);
+    }
+
+    protected RunResult doWork(TargetRunner runner, double targetRate, int runTime, TimeRecorder recorder) throws TussleException {
         if (recorder != null) {
             recorder.startRecording(getOperationName(), "op/s", "ms");
         }
-        RunResult result = getTargetRunner().runWorkload(getOperationName(), targetRate, runTime * 1000, getWorkload(), recorder);
+        RunResult result = runner.runWorkload(getOperationName(), targetRate, runTime * 1000, getWorkload(), recorder);
         if (recorder != null) {
             recorder.stopRecording();
         }
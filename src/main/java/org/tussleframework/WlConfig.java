@@ -32,6 +32,11 @@
 
 package org.tussleframework;
 
+import java.io.File;
+import java.util.Arrays;
+
+import org.tussleframework.tools.Pacer;
+
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
@@ -42,6 +47,17 @@ import lombok.ToString;
 public class WlConfig extends BenchmarkConfig {
     public int threads = 1;
     public boolean async = false;
+    public String pacing = "hybrid";        // pacing strategy: hybrid, park, spin, spin_yield, calibrated, batch
+    public long pacingTick = 100;           // batch pacing tick in microseconds
+    public boolean adaptiveWarmup = false;  // finish warmup once throughput and latency stabilise, warmupTime is used as the upper bound
+    public int warmupMinTime = 0;           // adaptive warmup minimal time in seconds
+    public int warmupInterval = 1000;       // adaptive warmup sampling interval in milliseconds
+    public double warmupTolerance = 0.1;    // adaptive warmup allowed relative deviation of rate, p50 and p99 from their mean
+    public int warmupStableIntervals = 3;   // adaptive warmup number of consecutive stable intervals
+    public double warmupLatencyFloor = 0.1; // adaptive warmup latency deviations below this value in ms are ignored
+    public String replayTrace;              // optional trace file with recorded operation times to be replayed instead of target rate pacing
+    public double replaySpeed = 0;          // trace replay speed factor, 0 - derive from target rate if it is set
+    public String[] replayOperations;       // if set replay only specified trace operations
 
     @Override
     public void validate(boolean runMode) {
@@ -49,5 +65,34 @@ public class WlConfig extends BenchmarkConfig {
         if (threads < 1) {
             throw new IllegalArgumentException(String.format("Invalid threads(%d) - should be non-negative", threads));
         }
+        try {
+            Pacer.Mode.parse(pacing);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new IllegalArgumentException(String.format("Invalid pacing(%s) - should be one of %s", pacing, Arrays.toString(Pacer.Mode.values())));
+        }
+        if (pacingTick <= 0) {
+            throw new IllegalArgumentException(String.format("Invalid pacingTick(%d) - should be positive", pacingTick));
+        }
+        if (warmupMinTime < 0) {
+            throw new IllegalArgumentException(String.format("Invalid warmupMinTime(%d) - should be non-negative", warmupMinTime));
+        }
+        if (warmupInterval <= 0) {
+            throw new IllegalArgumentException(String.format("Invalid warmupInterval(%d) - should be positive", warmupInterval));
+        }
+        if (warmupTolerance <= 0) {
+            throw new IllegalArgumentException(String.format("Invalid warmupTolerance(%s) - should be positive", warmupTolerance));
+        }
+        if (warmupLatencyFloor < 0) {
+            throw new IllegalArgumentException(String.format("Invalid warmupLatencyFloor(%s) - should be non-negative", warmupLatencyFloor));
+        }
+        if (warmupStableIntervals < 2) {
+            throw new IllegalArgumentException(String.format("Invalid warmupStableIntervals(%d) - should be at least 2", warmupStableIntervals));
+        }
+        if (replaySpeed < 0) {
+            throw new IllegalArgumentException(String.format("Invalid replaySpeed(%s) - should be non-negative", replaySpeed));
+        }
+        if (replayTrace != null && runMode && !new File(replayTrace).exists()) {
+            throw new IllegalArgumentException(String.format("Invalid replayTrace(%s) - file not found", replayTrace));
+        }
     }
 }
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2021-2023, Azul Systems
+ * 
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * 
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * 
+ * * Neither the name of [project] nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+
+package org.tussleframework.metrics;
+
+import static org.tussleframework.tools.FormatTool.format;
+
+import org.tussleframework.ErrorCategory;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ErrorRateSLE implements ServiceLevelExpectation {
+    public double maxErrorRate;     // max percent of failed operations
+    public int movingWindow;        // in seconds
+    public String category = "";    // error category (timeout, rejected, connection, server, client, failed, exception), empty - all errors
+
+    public boolean isAllErrors() {
+        return category == null || category.isEmpty();
+    }
+
+    /**
+     * @return name of the errors metric the SLE is checked against
+     */
+    public String errorsMetricName() {
+        return isAllErrors() ? ErrorCategory.ERRORS : ErrorCategory.parse(category).metricName();
+    }
+
+    /**
+     * @return errorRate SLE rule, error rate limits are checked by SleEngine along with sleRules
+     */
+    public SleRule toRule() {
+        SleRule rule = new SleRule();
+        rule.type = "errorRate";
+        rule.maxErrorRate = maxErrorRate;
+        rule.category = category;
+        rule.movingWindow = movingWindow;
+        return rule;
+    }
+
+    public void validate() {
+        if (maxErrorRate < 0 || maxErrorRate > 100) {
+            throw new IllegalArgumentException(String.format("Invalid maxErrorRate(%s) - should be in [0, 100] range", maxErrorRate));
+        }
+        if (movingWindow <= 0) {
+            throw new IllegalArgumentException(String.format("Invalid movingWindow(%d) - should be positive", movingWindow));
+        }
+        if (!isAllErrors()) {
+            ErrorCategory.parse(category);
+        }
+    }
+
+    @Override
+    public double markerValue() {
+        return maxErrorRate;
+    }
+
+    @Override
+    public String toString() {
+        return (isAllErrors() ? "" : category + " ") + "error rate " + format(maxErrorRate) + "% in moving window " + movingWindow + "s";
+    }
+
+    // Format:
+    // errors-le1%-mw10s, errors-timeout-le1%-mw10s
+    @Override
+    public String longName() {
+        return errorsMetricName() + "-le" + format(maxErrorRate) + "%-mw" + movingWindow + "s";
+    }
+
+    // Format:
+    // errors-le1%
+    @Override
+    public String markerName() {
+        return errorsMetricName() + "-le" + format(maxErrorRate) + "%";
+    }
+}
@@ -74,6 +74,7 @@ public class HdrIntervalResult {
     private HdrConfig config;
     private Interval interval;
     private Histogram histogram;
+    private HdrLevels levels;
     private double[] movingWindowMaxValues;
     private MovingWindowSLE[] sleConfig;
     private DoubleStream.Builder[] metricValues;
@@ -84,6 +85,7 @@ public class HdrIntervalResult {
     public HdrIntervalResult(Interval interval, HdrConfig config, MovingWindowSLE[] sleConfig) {
         this.config = config;
         this.histogram = new Histogram(3);
+        this.levels = new HdrLevels(config.reportLevelFactor, config.reportMaxPoints, config.hdrFactor, metricTypes);
         this.interval = new Interval(interval);
         metricValues = new DoubleStream.Builder[metricTypes.length];
         for (int i = 0; i < metricValues.length; i++) {
@@ -137,6 +139,14 @@ public class HdrIntervalResult {
         return metric;
     }
 
+    /**
+     * Restores histogram and metric saved by an analysis cache
+     */
+    public void restore(Histogram histogram, Metric metric) {
+        this.histogram = histogram;
+        this.metric = metric;
+    }
+
     public void adjustInterval(long stamp) {
         interval.adjust(stamp);
     }
@@ -172,6 +182,7 @@ public class HdrIntervalResult {
             for (int i = 0; i < metricTypes.length; i++) {
                 metricValues[i].add(metricTypes[i].getValue(inputHistogramsSum, config.hdrFactor));
             }
+            levels.add(inputHistogramsSum);
         }
     }
 
@@ -193,6 +204,7 @@ public class HdrIntervalResult {
                 .name(metricIntervalName)
                 .units(hdrResult.timeUnits())
                 .operation(hdrResult.operationName())
+                .host(hdrResult.hostName() != null && !hdrResult.hostName().isEmpty() ? hdrResult.hostName() : null)
                 .delay(config.reportInterval)
                 .totalValues(totalCount)
                 .retry(hdrResult.runArgs.runStep)
@@ -206,6 +218,7 @@ public class HdrIntervalResult {
         for (int i = 0; i < metricTypes.length; i++) {
             metric.add(new MetricValue(metricTypes[i].name(), metricValues[i].build().toArray()));
         }
+        metric.addLevels(levels.getLevels(config.reportInterval));
         DoubleStream.Builder buffPercentileValues = DoubleStream.builder();
         DoubleStream.Builder buffPercentileCounts = DoubleStream.builder();
         long highValue = histogram.getValueAtPercentile(100);
@@ -246,6 +259,7 @@ public class HdrIntervalResult {
                     .build();
             mwMetric.add(new MetricValue(MetricType.VALUES, values));
             mwMetric.add(new MetricValue(MetricType.COUNTS, counts));
+            mwMetric.addLevels(HdrLevels.getLevels(config.reportInterval, config.reportLevelFactor, config.reportMaxPoints, MetricType.VALUES, values, counts));
             if (sleConfig[i].markerValue() > 0) {
                 mwMetric.addMarker(new Marker(sleConfig[i].markerName(), null, sleConfig[i].markerValue()));
             }
@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2021-2023, Azul Systems
+ * 
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * 
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * 
+ * * Neither the name of [project] nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+package org.tussleframework.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.DoubleStream;
+
+import org.HdrHistogram.AbstractHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Builds coarser resolution levels of interval series by merging interval histograms,
+ * so percentiles on every level are exact for the level interval, not averages of averages.
+ * Level N point covers factor^N report intervals, level N+1 is fed by completed level N buckets.
+ */
+public class HdrLevels {
+
+    public static final int MAX_LEVELS = 12;
+
+    private final int factor;
+    private final int maxPoints;
+    private final double hdrFactor;
+    private final MetricType[] metricTypes;
+    private final ArrayList<Level> levels = new ArrayList<>();
+    private int basePoints;
+
+    class Level {
+        final int size;
+        final Histogram histogram = new Histogram(3);
+        final DoubleStream.Builder[] values = new DoubleStream.Builder[metricTypes.length];
+        int added;
+        int points;
+
+        Level(int size) {
+            this.size = size;
+            for (int i = 0; i < values.length; i++) {
+                values[i] = DoubleStream.builder();
+            }
+        }
+
+        void flush() {
+            for (int i = 0; i < metricTypes.length; i++) {
+                values[i].add(metricTypes[i].getValue(histogram, hdrFactor));
+            }
+            points++;
+            added = 0;
+        }
+    }
+
+    public HdrLevels(int factor, int maxPoints, double hdrFactor, MetricType[] metricTypes) {
+        this.factor = factor;
+        this.maxPoints = maxPoints;
+        this.hdrFactor = hdrFactor;
+        this.metricTypes = metricTypes;
+    }
+
+    public boolean isEnabled() {
+        return factor > 1 && maxPoints > 0;
+    }
+
+    /**
+     * Adds next report interval histogram
+     */
+    public void add(AbstractHistogram intervalHistogram) {
+        if (!isEnabled()) {
+            return;
+        }
+        basePoints++;
+        add(0, intervalHistogram);
+    }
+
+    private void add(int idx, AbstractHistogram histogram) {
+        if (idx == levels.size()) {
+            if (idx == MAX_LEVELS) {
+                return;
+            }
+            levels.add(new Level(idx == 0 ? factor : levels.get(idx - 1).size * factor));
+        }
+        Level level = levels.get(idx);
+        level.histogram.add(histogram);
+        if (++level.added == factor) {
+            level.flush();
+            add(idx + 1, level.histogram);
+            level.histogram.reset();
+        }
+    }
+
+    /**
+     * Flushes incomplete buckets and returns levels required to fit series into maxPoints,
+     * empty list if full resolution series already fits
+     */
+    public List<MetricLevel> getLevels(int reportInterval) {
+        ArrayList<MetricLevel> res = new ArrayList<>();
+        if (!isEnabled() || basePoints <= maxPoints) {
+            return res;
+        }
+        for (int idx = 0; idx < levels.size(); idx++) {
+            Level level = levels.get(idx);
+            if (level.added > 0) {
+                level.flush();
+                if (idx + 1 < levels.size()) {
+                    Level next = levels.get(idx + 1);
+                    next.histogram.add(level.histogram);
+                    next.added++;
+                }
+                level.histogram.reset();
+            }
+        }
+        for (Level level : levels) {
+            MetricLevel metricLevel = new MetricLevel(reportInterval * level.size);
+            for (int i = 0; i < metricTypes.length; i++) {
+                metricLevel.add(new MetricValue(metricTypes[i], level.values[i].build().toArray()));
+            }
+            res.add(metricLevel);
+            if (level.points <= maxPoints) {
+                break;
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Makes min, max and mean levels for plain value series which cannot be merged as histograms,
+     * max is kept under the original type so SLE breaches are never smoothed out
+     */
+    public static List<MetricLevel> getLevels(int reportInterval, int factor, int maxPoints, MetricType type, double[] values, double[] counts) {
+        ArrayList<MetricLevel> res = new ArrayList<>();
+        if (factor <= 1 || maxPoints <= 0 || values.length <= maxPoints) {
+            return res;
+        }
+        double[] mins = values;
+        double[] maxs = values;
+        double[] means = values;
+        int size = 1;
+        while (maxs.length > maxPoints && res.size() < MAX_LEVELS) {
+            size *= factor;
+            mins = MetricLevel.downsample(mins, factor)[0];
+            maxs = MetricLevel.downsample(maxs, factor)[1];
+            means = MetricLevel.downsample(means, factor)[2];
+            counts = MetricLevel.downsample(counts, factor)[2];
+            MetricLevel metricLevel = new MetricLevel(reportInterval * size);
+            metricLevel.add(new MetricValue(MetricType.MIN_VALUES, mins));
+            metricLevel.add(new MetricValue(type, maxs));
+            metricLevel.add(new MetricValue(MetricType.MEAN_VALUES, means));
+            metricLevel.add(new MetricValue(MetricType.COUNTS, counts));
+            res.add(metricLevel);
+        }
+        return res;
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2021-2023, Azul Systems
+ * 
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * 
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * 
+ * * Neither the name of [project] nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+
+package org.tussleframework.metrics;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.HdrHistogram.AbstractHistogram;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogReader;
+import org.HdrHistogram.HistogramLogWriter;
+import org.tussleframework.TussleException;
+
+/**
+ * Merges time-aligned interval histograms of the same operation, metric and step collected on several hosts
+ * into a single cluster-wide hlog file.
+ * With alignStarts each host's timeline is shifted so that its first interval starts with the earliest host's first interval,
+ * this removes clock offsets between load generator hosts which are started together.
+ * Without alignStarts absolute timestamps are trusted (e.g. hosts are NTP synchronized).
+ */
+public class HdrMerger {
+
+    private final int hdrInterval;
+    private final boolean alignStarts;
+
+    public HdrMerger(int hdrInterval, boolean alignStarts) {
+        this.hdrInterval = hdrInterval;
+        this.alignStarts = alignStarts;
+    }
+
+    /**
+     * @param results - per-host results, their hdrFile should be regular hlog files
+     * @param outFile - merged hlog file
+     * @return per-host clock offsets in ms which were removed
+     */
+    public long[] merge(List<HdrResult> results, File outFile) throws TussleException {
+        long[] bases = new long[results.size()];
+        long refBase = Long.MAX_VALUE;
+        for (int i = 0; i < results.size(); i++) {
+            bases[i] = firstStartTime(results.get(i).hdrFile());
+            refBase = Math.min(refBase, bases[i]);
+        }
+        long[] offsets = new long[results.size()];
+        TreeMap<Long, Histogram> buckets = new TreeMap<>();
+        for (int i = 0; i < results.size(); i++) {
+            offsets[i] = alignStarts ? bases[i] - refBase : 0;
+            addHistograms(results.get(i).hdrFile(), refBase + offsets[i], buckets);
+        }
+        write(buckets, refBase, outFile);
+        return offsets;
+    }
+
+    /**
+     * Merges interval histograms received from several load generators during the same run,
+     * histograms are bucketed by their start timestamps relative to the earliest one
+     *
+     * @param histograms - interval histograms with start timestamps
+     * @param outFile - merged hlog file
+     */
+    public void merge(Collection<? extends AbstractHistogram> histograms, File outFile) throws TussleException {
+        long refBase = Long.MAX_VALUE;
+        for (AbstractHistogram histogram : histograms) {
+            refBase = Math.min(refBase, histogram.getStartTimeStamp());
+        }
+        TreeMap<Long, Histogram> buckets = new TreeMap<>();
+        for (AbstractHistogram histogram : histograms) {
+            addHistogram(histogram, refBase, buckets);
+        }
+        write(buckets, refBase, outFile);
+    }
+
+    private void write(TreeMap<Long, Histogram> buckets, long refBase, File outFile) throws TussleException {
+        File dir = outFile.getParentFile();
+        if (dir != null && !dir.exists() && !dir.mkdirs()) {
+            throw new TussleException("Failed to create dir " + dir);
+        }
+        try {
+            HistogramLogWriter writer = new HistogramLogWriter(outFile);
+            try {
+                for (Map.Entry<Long, Histogram> bucket : buckets.entrySet()) {
+                    Histogram histogram = bucket.getValue();
+                    histogram.setStartTimeStamp(refBase + bucket.getKey() * hdrInterval);
+                    histogram.setEndTimeStamp(refBase + (bucket.getKey() + 1) * hdrInterval);
+                    writer.outputIntervalHistogram(histogram);
+                }
+            } finally {
+                writer.close();
+            }
+        } catch (FileNotFoundException e) {
+            throw new TussleException(e);
+        }
+    }
+
+    private static long firstStartTime(String hdrFile) throws TussleException {
+        try (HistogramLogReader reader = new HistogramLogReader(hdrFile)) {
+            AbstractHistogram histogram = (AbstractHistogram) reader.nextIntervalHistogram(0.0, Double.MAX_VALUE);
+            if (histogram == null) {
+                throw new TussleException("No histograms in " + hdrFile);
+            }
+            return histogram.getStartTimeStamp();
+        } catch (FileNotFoundException e) {
+            throw new TussleException(e);
+        }
+    }
+
+    private void addHistograms(String hdrFile, long base, TreeMap<Long, Histogram> buckets) throws TussleException {
+        try (HistogramLogReader reader = new HistogramLogReader(hdrFile)) {
+            AbstractHistogram histogram;
+            while ((histogram = (AbstractHistogram) reader.nextIntervalHistogram(0.0, Double.MAX_VALUE)) != null) {
+                addHistogram(histogram, base, buckets);
+            }
+        } catch (FileNotFoundException e) {
+            throw new TussleException(e);
+        }
+    }
+
+    private void addHistogram(AbstractHistogram histogram, long base, TreeMap<Long, Histogram> buckets) {
+        long idx = Math.max(0, Math.round((histogram.getStartTimeStamp() - base) / (double) hdrInterval));
+        buckets.computeIfAbsent(idx, key -> new Histogram(3)).add(histogram);
+    }
+}
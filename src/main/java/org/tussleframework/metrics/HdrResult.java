@@ -40,6 +40,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 
 import org.HdrHistogram.AbstractHistogram;
@@ -57,6 +58,10 @@ interface HdrIterator {
     AbstractHistogram next();
 }
 
+interface HdrIntervalVisitor {
+    boolean visit(long start, long end, AbstractHistogram[] histograms);
+}
+
 interface HdrIteratorSource {
     HdrIterator get();
 }
@@ -67,6 +72,7 @@ public class HdrResult {
 
     public static final String RESPONSE_TIME = "response_time";
     public static final String SERVICE_TIME = "service_time";
+    public static final String SCHEDULE_LAG = "schedule_lag";
 
     public static final String RESPONSE_TIME2 = "response-time";
     public static final String SERVICE_TIME2 = "service-time";
@@ -82,7 +88,7 @@ public class HdrResult {
     public static RunResult getSummaryResult(Collection<HdrResult> hdrResults) {
         RunResult runResult = new RunResult();
         HashMap<String, HdrResult> hdrMap = new HashMap<>();
-        hdrResults.forEach(hdr -> hdrMap.put(hdr.operationName(), hdr));
+        hdrResults.stream().filter(hdr -> !SCHEDULE_LAG.equals(hdr.metricName())).forEach(hdr -> hdrMap.put(hdr.operationName(), hdr));
         for (HdrResult hdrResult : hdrMap.values()) {
             runResult.actualRate += hdrResult.getRate();
             runResult.count += hdrResult.getCount();
@@ -99,6 +105,8 @@ public class HdrResult {
     protected RunArgs runArgs;
     protected String hdrFile;
     protected int recordsCount;
+    private ArrayList<AbstractHistogram> pendingHistos;
+    private int pendingHistoCount;
 
     public HdrResult() {
         ///
@@ -188,10 +196,22 @@ public class HdrResult {
         return hdrFile;
     }
 
+    public String hostName() {
+        return metricInfo.hostName;
+    }
+
+    public void setHostName(String hostName) {
+        metricInfo.hostName = hostName;
+    }
+
     public double targetRate() {
         return runArgs.targetRate;
     }
 
+    public double ratePercent() {
+        return runArgs.ratePercent;
+    }
+
     public int runTime() {
         return runArgs.runTime;
     }
@@ -290,6 +310,14 @@ public class HdrResult {
         }
     }
 
+    /**
+     * Restores summary state saved by an analysis cache instead of loading hdr data
+     */
+    public void restore(int recordsCount, Histogram primeHistogram, Metric primeMetric) {
+        this.recordsCount = recordsCount;
+        getPrimeResult().restore(primeHistogram, primeMetric);
+    }
+
     public void unloadHdrData() {
         hdrIntervalResults.clear();
     }
@@ -331,6 +359,50 @@ public class HdrResult {
                 , recordsCount, metricInfo.operationName, metricInfo.metricName, FormatTool.format(config.hdrFactor), config.reportInterval, config.hdrInterval, mergeHistos);
     }
 
+    /**
+     * Prepares incremental loading by addIntervalHistogram, e.g. while hdr file is still being written
+     */
+    public void startLoading(MovingWindowSLE[] sleConfig, Interval[] intervals) {
+        if (intervals == null || intervals.length == 0) {
+            intervals = new Interval[] { new Interval() };
+        }
+        hdrIntervalResults = new ArrayList<>();
+        for (Interval interval : intervals) {
+            hdrIntervalResults.add(new HdrIntervalResult(interval.scale(1000L), config, sleConfig));
+        }
+        pendingHistos = new ArrayList<>();
+        pendingHistoCount = 0;
+        recordsCount = 0;
+    }
+
+    public void addIntervalHistogram(AbstractHistogram intervalHistogram) {
+        if (pendingHistoCount == 0) {
+            hdrIntervalResults.forEach(sh -> sh.adjustInterval(intervalHistogram.getStartTimeStamp()));
+        }
+        pendingHistoCount++;
+        pendingHistos.add(intervalHistogram);
+        if (pendingHistos.size() >= config.reportInterval / config.hdrInterval) {
+            flushPending();
+        }
+    }
+
+    public void finishLoading() {
+        if (pendingHistos != null) {
+            flushPending();
+            pendingHistos = null;
+        }
+        log("Loaded %d HDR records incrementally, operation %s, metricName %s", recordsCount, metricInfo.operationName, metricInfo.metricName);
+    }
+
+    private void flushPending() {
+        if (!pendingHistos.isEmpty()) {
+            recordsCount++;
+            ArrayList<AbstractHistogram> histos = pendingHistos;
+            hdrIntervalResults.forEach(sh -> sh.addHistograms(histos));
+            pendingHistos = new ArrayList<>();
+        }
+    }
+
     public boolean checkSLE(ServiceLevelExpectation aSLE, Interval interval) {
         if (!(aSLE instanceof MovingWindowSLE)) {
             return false;
@@ -359,4 +431,91 @@ public class HdrResult {
         }
         return true;
     }
+
+    /**
+     * Checks SLE rules of the engine against operations of this result and errors results of the same run in one pass,
+     * stops reading as soon as all the rules are broken
+     *
+     * @param errorsResults - errors results by metric name, see SleEngine.errorsMetrics
+     */
+    public void checkSLE(SleEngine engine, Map<String, HdrResult> errorsResults, Interval interval) {
+        String[] errorsMetrics = engine.errorsMetrics();
+        HdrResult[] results = new HdrResult[errorsMetrics.length + 1];
+        results[0] = this;
+        for (int i = 0; i < errorsMetrics.length; i++) {
+            results[i + 1] = errorsResults.get(errorsMetrics[i]);
+        }
+        long[] errors = new long[errorsMetrics.length];
+        visitIntervals(results, interval, (start, end, histograms) -> {
+            for (int i = 0; i < errors.length; i++) {
+                errors[i] = totalCount(histograms[i + 1]);
+            }
+            return engine.add(start, end, histograms[0], errors);
+        });
+    }
+
+    static long totalCount(AbstractHistogram histogram) {
+        return histogram != null ? histogram.getTotalCount() : 0;
+    }
+
+    /**
+     * Visits intervals of several hdr files merged by interval start time stamps, results can contain nulls for absent files
+     *
+     * @return false if stopped by the visitor
+     */
+    static boolean visitIntervals(HdrResult[] results, Interval interval, HdrIntervalVisitor visitor) {
+        ArrayList<HistogramLogReader> readers = new ArrayList<>();
+        try {
+            HdrIterator[] iters = new HdrIterator[results.length];
+            for (int i = 0; i < results.length; i++) {
+                if (results[i] != null) {
+                    HistogramLogReader reader = new HistogramLogReader(results[i].hdrFile);
+                    readers.add(reader);
+                    iters[i] = () -> (AbstractHistogram) reader.nextIntervalHistogram(0.0, Double.MAX_VALUE);
+                }
+            }
+            return visitIntervals(iters, interval.scale(1000L), visitor);
+        } catch (Exception e) {
+            LoggerTool.logException(null, e);
+            return true;
+        } finally {
+            readers.forEach(HistogramLogReader::close);
+        }
+    }
+
+    /**
+     * Intervals having the same start time stamp are visited together, histograms[i] is null when i-th stream has no such interval
+     */
+    static boolean visitIntervals(HdrIterator[] iters, Interval interval, HdrIntervalVisitor visitor) {
+        AbstractHistogram[] heads = new AbstractHistogram[iters.length];
+        AbstractHistogram[] histograms = new AbstractHistogram[iters.length];
+        for (int i = 0; i < iters.length; i++) {
+            heads[i] = iters[i] != null ? iters[i].next() : null;
+        }
+        while (true) {
+            long start = Long.MAX_VALUE;
+            for (AbstractHistogram head : heads) {
+                if (head != null && head.getStartTimeStamp() < start) {
+                    start = head.getStartTimeStamp();
+                }
+            }
+            if (start == Long.MAX_VALUE) {
+                return true;
+            }
+            long end = start;
+            for (int i = 0; i < heads.length; i++) {
+                if (heads[i] != null && heads[i].getStartTimeStamp() == start) {
+                    histograms[i] = heads[i];
+                    end = Math.max(end, heads[i].getEndTimeStamp());
+                    heads[i] = iters[i].next();
+                } else {
+                    histograms[i] = null;
+                }
+            }
+            interval.adjust(start);
+            if (interval.contains(start, end) && !visitor.visit(start, end, histograms)) {
+                return false;
+            }
+        }
+    }
 }
@@ -35,6 +35,7 @@ package org.tussleframework.metrics;
 import java.util.Collection;
 
 import org.HdrHistogram.Recorder;
+import org.tussleframework.ErrorCategory;
 import org.tussleframework.TimeRecorder;
 import org.tussleframework.TussleRuntimeException;
 
@@ -42,6 +43,24 @@ public class HdrTimeRecorder implements TimeRecorder {
     public final Recorder serviceTimeRecorder = new Recorder(Long.MAX_VALUE, 3);
     public final Recorder responseTimeRecorder = new Recorder(Long.MAX_VALUE, 3);
     public final Recorder errorsRecorder = new Recorder(Long.MAX_VALUE, 3);
+    public final Recorder scheduleLagRecorder = new Recorder(Long.MAX_VALUE, 3);
+    public final Recorder[] errorCategoryRecorders = new Recorder[ErrorCategory.count()];
+
+    public HdrTimeRecorder() {
+        for (int i = 0; i < errorCategoryRecorders.length; i++) {
+            errorCategoryRecorders[i] = new Recorder(Long.MAX_VALUE, 3);
+        }
+    }
+
+    public Recorder getErrorRecorder(ErrorCategory category) {
+        return errorCategoryRecorders[category.ordinal()];
+    }
+
+    @Override
+    public void recordError(String operation, ErrorCategory category, long startTime, long intendedStartTime, long finishTime, long count) {
+        errorCategoryRecorders[category.ordinal()].recordValueWithCount(finishTime - (intendedStartTime > 0 ? intendedStartTime : startTime), count);
+        recordTimes(operation, startTime, intendedStartTime, finishTime, count, false);
+    }
 
     @Override
     public void recordTimes(String operation, long startTime, long intendedStartTime, long finishTime, long count, boolean success) {
@@ -63,6 +82,9 @@ public class HdrTimeRecorder implements TimeRecorder {
         } else {
             errorsRecorder.recordValue(finishTime - intendedStartTime);
         }
+        if (intendedStartTime > 0 && startTime > 0) {
+            scheduleLagRecorder.recordValueWithCount(startTime > intendedStartTime ? startTime - intendedStartTime : 0, count);
+        }
     }
 
     @Override
@@ -64,8 +64,9 @@ public class HdrWriter extends TimerTask {
     }
 
     private Path hdrFile;
-    private Recorder recorder;
+    private Recorder[] recorders;
     private HdrResult hdrResult;
+    private Histogram[] intervalHistograms = new Histogram[2];
     private Histogram intervalHistogram;
     private Histogram progressHistogram;
     private HistogramLogWriter writer;
@@ -75,18 +76,23 @@ public class HdrWriter extends TimerTask {
     private int progressDelay;
     private int progressCount;
     private volatile long startTime;
+    private volatile RunClock clock;
+    private long partialCount;
+    private long droppedCount;
+    private double warnLimit;
+    private String warnName;
+    private long overLimitCount;
+    private long lastWarnTime;
 
     public HdrWriter(MetricInfo metricInfo, boolean writeHdr, int progressInterval, RunArgs runArgs, HdrConfig config, String histogramsDir) throws IOException {
         String respHdrFile = String.format("%s/%s", histogramsDir, metricInfo.formatFileName(runArgs, "hlog"));
         this.hdrResult = new HdrResult(metricInfo, respHdrFile, runArgs, config);
-        this.recorder = new Recorder(Long.MAX_VALUE, 3);
+        this.recorders = new Recorder[] { new Recorder(Long.MAX_VALUE, 3), new Recorder(Long.MAX_VALUE, 3) };
         this.progressHistogram = new Histogram(3);
         this.hdrFile = Paths.get(hdrResult.hdrFile);
         this.totalTime = runArgs.runTime;
         this.progressDelay = progressInterval / 1000;
-        shortName = " " + (hdrResult.metricName().length() > 4 ? hdrResult.metricName().substring(0, 4) : hdrResult.metricName());
-        int remaining = 14 - shortName.length();
-        shortName = (hdrResult.operationName().length() > remaining ? hdrResult.operationName().substring(0, remaining) : hdrResult.operationName()) + shortName;
+        shortName = shortName(hdrResult);
         if (writeHdr) {
             Files.createDirectories(this.hdrFile.getParent());
             this.writer = new HistogramLogWriter(this.hdrFile.toFile());
@@ -94,12 +100,25 @@ public class HdrWriter extends TimerTask {
         /// log("Starting %s - %s", shortName, hdrResult.metricName)
     }
 
-    public void recordingStarted(long startTime) {
-        this.startTime = startTime;
+    /**
+     * Stamps interval histograms with the run clock boundaries instead of the times they were taken by the timer,
+     * values recorded with interval index go to alternating recorders so a late timer tick does not move them to the previous interval
+     */
+    public void recordingStarted(RunClock clock) {
+        this.clock = clock;
+        this.startTime = clock.getStartTimeMs();
     }
 
     public void recordTime(long value, long count) {
+        recordTime(value, count, 0);
+    }
+
+    /**
+     * @param intervalIndex - run clock interval index of the operation finish time
+     */
+    public void recordTime(long value, long count, long intervalIndex) {
         if (value > 0) {
+            Recorder recorder = recorders[(int) (intervalIndex & 1)];
             if (count == 1) {
                 recorder.recordValue(value);
             } else {
@@ -108,6 +127,53 @@ public class HdrWriter extends TimerTask {
         }
     }
 
+    /**
+     * Records value including zero ones, e.g. for metrics where zero is a regular value like schedule lag
+     */
+    public void recordValue(long value, long count) {
+        recordValue(value, count, 0);
+    }
+
+    public void recordValue(long value, long count, long intervalIndex) {
+        if (value >= 0) {
+            Recorder recorder = recorders[(int) (intervalIndex & 1)];
+            if (count == 1) {
+                recorder.recordValue(value);
+            } else {
+                recorder.recordValueWithCount(value, count);
+            }
+        }
+    }
+
+    /**
+     * Enables warning when p99 of an interval histogram exceeds the limit
+     *
+     * @param limit - limit in time units, 0 - disabled
+     * @param name - name of the limit used in warnings
+     */
+    public void setWarnLimit(double limit, String name) {
+        this.warnLimit = limit;
+        this.warnName = name;
+    }
+
+    public long getOverLimitCount() {
+        return overLimitCount;
+    }
+
+    /**
+     * @return number of written intervals shorter than the clock interval, i.e. cut at the measured phase end
+     */
+    public long getPartialCount() {
+        return partialCount;
+    }
+
+    /**
+     * @return number of values dropped as recorded by operations finished after the measured phase end
+     */
+    public long getDroppedCount() {
+        return droppedCount;
+    }
+
     public HdrResult getHdrResult() {
         return hdrResult;
     }
@@ -118,8 +184,53 @@ public class HdrWriter extends TimerTask {
 
     @Override
     public synchronized void run() {
-        intervalHistogram = recorder.getIntervalHistogram(intervalHistogram);
+        RunClock c = this.clock;
+        writeInterval(c != null ? c.completedIndex(System.nanoTime()) : 0, 0);
+        if (startTime == 0) {
+            return;
+        }
+        progressCount++;
+        if (progressCount < progressDelay) {
+            return;
+        }
+        if (progressHistogram.getTotalCount() == 0) {
+            return;
+        }
+        printProgress();
+        progressCount = 0;
+        progressHistogram.reset();
+    }
+
+    /**
+     * Writes values recorded after the last timer tick as the trailing interval ending now or at the measured phase end, should be called once the timer is cancelled
+     */
+    public synchronized void flush() {
+        RunClock c = this.clock;
+        long now = System.nanoTime();
+        if (c != null) {
+            long index = c.indexAt(now);
+            writeInterval(index - 1, now);
+            writeInterval(index, now);
+        } else {
+            writeInterval(0, now);
+        }
+    }
+
+    private void writeInterval(long index, long limitNs) {
+        int slot = clock != null ? (int) (index & 1) : 0;
+        intervalHistogram = recorders[slot].getIntervalHistogram(intervalHistograms[slot]);
+        intervalHistograms[slot] = intervalHistogram;
         if (intervalHistogram.getTotalCount() != 0) {
+            RunClock c = this.clock;
+            if (c != null) {
+                if (!c.stamp(intervalHistogram, index, limitNs)) {
+                    droppedCount += intervalHistogram.getTotalCount();
+                    return;
+                }
+                if (c.isPartial(intervalHistogram)) {
+                    partialCount++;
+                }
+            }
             hdrResult.add(intervalHistogram);
             if (progressDelay > 0) {
                 progressHistogram.add(intervalHistogram);
@@ -129,23 +240,36 @@ public class HdrWriter extends TimerTask {
                 w.outputIntervalHistogram(intervalHistogram);
                 countWrites.incrementAndGet();
             }
+            if (warnLimit > 0) {
+                checkWarnLimit();
+            }
         }
-        if (startTime == 0) {
-            return;
-        }
-        progressCount++;
-        if (progressCount < progressDelay) {
+    }
+
+    private void checkWarnLimit() {
+        double p99 = intervalHistogram.getValueAtPercentile(99.0) / hdrResult.hdrFactor();
+        if (p99 <= warnLimit) {
             return;
         }
-        if (progressHistogram.getTotalCount() == 0) {
-            return;
+        overLimitCount++;
+        long now = System.currentTimeMillis();
+        if (now - lastWarnTime >= Math.max(progressDelay * 1000L, 10_000L)) {
+            lastWarnTime = now;
+            logger.warning(String.format("[%s] %s: p99 %s %s exceeds %s %s (%d intervals so far) - load generator is falling behind schedule", HdrWriter.class.getSimpleName(), shortName.trim(), roundFormat(p99), hdrResult.timeUnits(), warnName, roundFormat(warnLimit), overLimitCount));
         }
-        printProgress();
-        progressCount = 0;
-        progressHistogram.reset();
     }
 
     private void printProgress() {
+        printProgress(shortName, startTime, totalTime, hdrResult.getCount(), progressHistogram, hdrResult.hdrFactor());
+    }
+
+    static String shortName(HdrResult hdrResult) {
+        String shortName = " " + (hdrResult.metricName().length() > 4 ? hdrResult.metricName().substring(0, 4) : hdrResult.metricName());
+        int remaining = 14 - shortName.length();
+        return (hdrResult.operationName().length() > remaining ? hdrResult.operationName().substring(0, remaining) : hdrResult.operationName()) + shortName;
+    }
+
+    static void printProgress(String shortName, long startTime, int totalTime, long totalCount, Histogram progressHistogram, double hdrFactor) {
         printProgressHeader();
         long spentTime = System.currentTimeMillis() - startTime;
         double progress = spentTime / 10.0 / totalTime;
@@ -153,19 +277,18 @@ public class HdrWriter extends TimerTask {
             progress = 100;
         }
         long time = spentTime / 1000;
-        long totalCount = hdrResult.getCount();
         long count = progressHistogram.getTotalCount();
         double histoTime = (progressHistogram.getEndTimeStamp() - progressHistogram.getStartTimeStamp()) / 1000.0;
         double rate = histoTime > 0 ? count / histoTime : 0;
-        double p50 = progressHistogram.getValueAtPercentile(50.0) / hdrResult.hdrFactor();
-        double p90 = progressHistogram.getValueAtPercentile(90.0) / hdrResult.hdrFactor();
-        double p99 = progressHistogram.getValueAtPercentile(99.0) / hdrResult.hdrFactor();
-        double p100 = progressHistogram.getValueAtPercentile(100.0) / hdrResult.hdrFactor();
-        double mean = progressHistogram.getMean() / hdrResult.hdrFactor();
+        double p50 = progressHistogram.getValueAtPercentile(50.0) / hdrFactor;
+        double p90 = progressHistogram.getValueAtPercentile(90.0) / hdrFactor;
+        double p99 = progressHistogram.getValueAtPercentile(99.0) / hdrFactor;
+        double p100 = progressHistogram.getValueAtPercentile(100.0) / hdrFactor;
+        double mean = progressHistogram.getMean() / hdrFactor;
         log("%14s | %6d | %5s%% | %8s | %8s | %8s | %8s | %8s | %8d | %8s | %8d", shortName, time, String.format("%2.1f", progress), roundFormat(p50), roundFormat(p90), roundFormat(p99), roundFormat(p100), roundFormat(mean), count, roundFormat(rate), totalCount);
     }
 
-    private void printProgressHeader() {
+    private static void printProgressHeader() {
         if (!progressHeaderPrinted) {
             synchronized (logger) {
                 if (!progressHeaderPrinted) {
@@ -181,6 +304,7 @@ public class HdrWriter extends TimerTask {
     @Override
     public boolean cancel() {
         boolean result = super.cancel();
+        flush();
         HistogramLogWriter w = this.writer;
         this.writer = null;
         if (w != null) {
@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) 2021-2023, Azul Systems
+ * 
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * 
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * 
+ * * Neither the name of [project] nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+
+package org.tussleframework.metrics;
+
+import java.lang.management.CompilationMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryUsage;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.tussleframework.RunArgs;
+import org.tussleframework.tools.LoggerTool;
+
+/**
+ * In-process JVM telemetry sampler, reads GC, heap, allocation and JIT counters via MXBeans and safepoint counters
+ * from HotSpot performance counters (see PerfCounters) on each timer tick and appends one CSV row to the jvm_stats file.
+ * Scheduled on the same timer and with the same start time as HDR writers so rows line up with HDR intervals.
+ * Counters which are not available in the running JVM are written as -1.
+ */
+public class JvmStatsSampler extends StatsSampler {
+
+    public static final String FILE_PREFIX = "jvm_stats";
+    public static final String[] COLUMNS = { "time", "gc_count", "gc_time", "alloc_rate", "heap_used", "heap_committed", "jit_time", "safepoint_count", "safepoint_time" };
+
+    private static final double MB = 1024.0 * 1024.0;
+
+    private final List<GarbageCollectorMXBean> pauseCollectors = new ArrayList<>();
+    private final MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+    private final CompilationMXBean compilationBean = ManagementFactory.getCompilationMXBean();
+    private final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    private ThreadBytes threadAllocated = new ThreadBytes();
+    private ThreadBytes currentAllocated = new ThreadBytes();
+    private final PerfCounters perfCounters;
+    private final int safepointCount;
+    private final int safepointTime;
+    private final double ticksPerMs;
+    private long gcCount;
+    private long gcTime;
+    private long allocated;
+    private long jitTime;
+    private long spCount;
+    private long spTime;
+    private long prevGcCount;
+    private long prevGcTime;
+    private long prevJitTime;
+    private long prevSpCount;
+    private long prevSpTime;
+    private MemoryUsage heap;
+
+    public JvmStatsSampler(String outDir, RunArgs runArgs, int interval) {
+        super(FILE_PREFIX, COLUMNS, outDir, runArgs, interval);
+        for (GarbageCollectorMXBean gcBean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            // concurrent cycle beans (G1 Concurrent GC, ZGC Cycles, Shenandoah Cycles) don't report pauses
+            String name = gcBean.getName();
+            if (!name.contains("Cycles") && !name.contains("Concurrent")) {
+                pauseCollectors.add(gcBean);
+            }
+        }
+        perfCounters = PerfCounters.open();
+        int frequency = -1;
+        if (perfCounters != null) {
+            safepointCount = perfCounters.find("sun.rt.safepoints");
+            safepointTime = perfCounters.find("sun.rt.safepointTime");
+            frequency = perfCounters.find("sun.os.hrt.frequency");
+        } else {
+            safepointCount = -1;
+            safepointTime = -1;
+        }
+        ticksPerMs = frequency >= 0 ? perfCounters.get(frequency) / 1000.0 : 0;
+        if (safepointCount < 0 || safepointTime < 0 || ticksPerMs <= 0) {
+            LoggerTool.log(getClass().getSimpleName(), "Safepoint stats are not available - no HotSpot performance counters (-XX:+UsePerfData)");
+        }
+    }
+
+    /**
+     * @return true if safepoint_count and safepoint_time columns are sampled, otherwise they are -1
+     */
+    public boolean hasSafepointStats() {
+        return safepointCount >= 0 && safepointTime >= 0 && ticksPerMs > 0;
+    }
+
+    @Override
+    protected void readValues() {
+        gcCount = 0;
+        gcTime = 0;
+        for (GarbageCollectorMXBean gcBean : pauseCollectors) {
+            gcCount += Math.max(gcBean.getCollectionCount(), 0);
+            gcTime += Math.max(gcBean.getCollectionTime(), 0);
+        }
+        heap = memoryBean.getHeapMemoryUsage();
+        jitTime = compilationBean != null && compilationBean.isCompilationTimeMonitoringSupported() ? compilationBean.getTotalCompilationTime() : -1;
+        if (hasSafepointStats()) {
+            spCount = perfCounters.get(safepointCount);
+            spTime = (long) (perfCounters.get(safepointTime) / ticksPerMs);
+        } else {
+            spCount = -1;
+            spTime = -1;
+        }
+        readAllocated();
+    }
+
+    /**
+     * Sums per-thread allocated bytes deltas, threads died since the previous sample are dropped.
+     * Previous and current per-thread values are kept in two reused primitive maps swapped on each sample.
+     */
+    private void readAllocated() {
+        if (!(threadBean instanceof com.sun.management.ThreadMXBean) || !((com.sun.management.ThreadMXBean) threadBean).isThreadAllocatedMemoryEnabled()) {
+            allocated = -1;
+            return;
+        }
+        long[] ids = threadBean.getAllThreadIds();
+        long[] bytes = ((com.sun.management.ThreadMXBean) threadBean).getThreadAllocatedBytes(ids);
+        allocated = 0;
+        currentAllocated.clear();
+        for (int i = 0; i < ids.length; i++) {
+            if (bytes[i] >= 0) {
+                long prev = threadAllocated.get(ids[i]);
+                allocated += prev >= 0 ? bytes[i] - prev : bytes[i];
+                currentAllocated.put(ids[i], bytes[i]);
+            }
+        }
+        ThreadBytes swap = threadAllocated;
+        threadAllocated = currentAllocated;
+        currentAllocated = swap;
+    }
+
+    /**
+     * Open addressing map of thread ids (positive, 0 marks a free slot) to allocated bytes, grows only when the number of threads does
+     */
+    private static final class ThreadBytes {
+        private long[] keys = new long[16];
+        private long[] values = new long[16];
+        private int size;
+
+        /**
+         * @return allocated bytes of the thread, -1 if absent
+         */
+        long get(long id) {
+            for (int i = index(id, keys.length); keys[i] != 0; i = (i + 1) & (keys.length - 1)) {
+                if (keys[i] == id) {
+                    return values[i];
+                }
+            }
+            return -1;
+        }
+
+        void put(long id, long value) {
+            if ((size + 1) * 2 > keys.length) {
+                grow();
+            }
+            int i = index(id, keys.length);
+            while (keys[i] != 0 && keys[i] != id) {
+                i = (i + 1) & (keys.length - 1);
+            }
+            if (keys[i] == 0) {
+                keys[i] = id;
+                size++;
+            }
+            values[i] = value;
+        }
+
+        void clear() {
+            if (size > 0) {
+                Arrays.fill(keys, 0);
+                size = 0;
+            }
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            long[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new long[oldKeys.length * 2];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private static int index(long id, int capacity) {
+            long h = id * 0x9E3779B97F4A7C15L;
+            return (int) (h >>> 32) & (capacity - 1);
+        }
+    }
+
+    @Override
+    protected void putValues(double timeSec) {
+        putColumn(gcCount - prevGcCount);
+        putColumn(gcTime - prevGcTime);
+        putDelta(allocated, 0, MB * timeSec);
+        putFixed(heap.getUsed() / MB);
+        putFixed(heap.getCommitted() / MB);
+        putDelta(jitTime, prevJitTime, 1);
+        putDelta(spCount, prevSpCount, 1);
+        putDelta(spTime, prevSpTime, 1);
+    }
+
+    private void putDelta(long value, long prevValue, double divider) {
+        if (value < 0) {
+            putColumn(-1);
+        } else {
+            putFixed((value - prevValue) / divider);
+        }
+    }
+
+    @Override
+    protected void storeValues() {
+        prevGcCount = gcCount;
+        prevGcTime = gcTime;
+        prevJitTime = jitTime;
+        prevSpCount = spCount;
+        prevSpTime = spTime;
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2021-2023, Azul Systems
+ * 
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * 
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * 
+ * * Neither the name of [project] nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+
+package org.tussleframework.metrics;
+
+import static org.tussleframework.tools.FormatTool.matchFilters;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Finds intervals where moving window SLE metrics are violated and ranks concurrent time series
+ * (hiccups, cpu, disk, network, GC, etc.) by how much they deviated upwards from their own baseline in that time.
+ * Deviation is a robust z-score: (max value in the episode - median outside the episode) / (MAD / 0.6745),
+ * standard deviation of the whole series is used when MAD is zero.
+ */
+public class LatencyAttribution {
+
+    public static class Cause {
+        public String series;
+        public double score;
+        public double value;
+        public double baseline;
+    }
+
+    public static class Episode {
+        public String sle;
+        public String operation;
+        public String latencyMetric;
+        public long start;
+        public long finish;
+        public double maxValue;
+        public List<Cause> causes = new ArrayList<>();
+    }
+
+    private final MovingWindowSLE[] sleConfig;
+    private final String[] seriesInclude;
+    private final int top;
+
+    /**
+     * @param sleConfig - moving window SLEs, SLE metrics are matched by SLE long name
+     * @param seriesInclude - regexps for names of metrics considered as possible causes
+     * @param top - max number of causes kept per episode
+     */
+    public LatencyAttribution(MovingWindowSLE[] sleConfig, String[] seriesInclude, int top) {
+        this.sleConfig = sleConfig;
+        this.seriesInclude = seriesInclude;
+        this.top = top;
+    }
+
+    public List<Episode> analyze(MetricData metricData) {
+        List<Metric> candidates = new ArrayList<>();
+        for (Metric m : metricData.getMetrics()) {
+            if (isSeries(m) && matchFilters(m.getName(), seriesInclude, null)) {
+                candidates.add(m);
+            }
+        }
+        List<Episode> episodes = new ArrayList<>();
+        for (MovingWindowSLE sle : sleConfig) {
+            for (Metric m : metricData.getMetrics()) {
+                if (isSeries(m) && m.getName().contains(sle.longName())) {
+                    findEpisodes(sle, m, episodes);
+                }
+            }
+        }
+        episodes.forEach(episode -> rankCauses(episode, candidates));
+        return episodes;
+    }
+
+    public static Metric toMetric(Episode episode) {
+        return Metric.builder()
+                .name("sle_attribution " + episode.sle)
+                .operation(episode.operation)
+                .units("z-score")
+                .start(episode.start)
+                .finish(episode.finish)
+                .xValues(episode.causes.stream().map(c -> c.series).toArray(String[]::new))
+                .build()
+                .add(new MetricValue(MetricType.VALUES, episode.causes.stream().mapToDouble(c -> c.score).toArray()));
+    }
+
+    private static boolean isSeries(Metric m) {
+        MetricValue mv = m.byType(MetricType.VALUES);
+        return m.getName() != null && m.getStart() != null && m.getStart() > 0 && m.getDelay() != null && m.getDelay() > 0
+                && mv != null && mv.getValues() != null && mv.getValues().length > 1 && m.getXValues() == null;
+    }
+
+    private static String label(Metric m) {
+        String label = m.getName();
+        if (m.getOperation() != null && !m.getOperation().isEmpty()) {
+            label += " " + m.getOperation();
+        }
+        if (m.getHost() != null && !m.getHost().isEmpty()) {
+            label += "@" + m.getHost();
+        }
+        return label;
+    }
+
+    private void findEpisodes(MovingWindowSLE sle, Metric m, List<Episode> episodes) {
+        double[] values = m.byType(MetricType.VALUES).getValues();
+        long start = m.getStart();
+        long delay = m.getDelay();
+        Episode episode = null;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] > sle.maxValue) {
+                long windowFinish = start + (i + 1) * delay;
+                if (episode == null) {
+                    episode = new Episode();
+                    episode.sle = sle.longName();
+                    episode.operation = m.getOperation();
+                    episode.latencyMetric = m.getName();
+                    episode.start = Math.max(start, windowFinish - sle.movingWindow * 1000L);
+                    episodes.add(episode);
+                }
+                episode.finish = windowFinish;
+                episode.maxValue = Math.max(episode.maxValue, values[i]);
+            } else {
+                episode = null;
+            }
+        }
+    }
+
+    private void rankCauses(Episode episode, List<Metric> candidates) {
+        for (Metric m : candidates) {
+            Cause cause = score(m, episode.start, episode.finish);
+            if (cause != null && cause.score > 0) {
+                episode.causes.add(cause);
+            }
+        }
+        episode.causes.sort(Comparator.comparingDouble((Cause c) -> c.score).reversed());
+        if (episode.causes.size() > top) {
+            episode.causes = new ArrayList<>(episode.causes.subList(0, top));
+        }
+    }
+
+    private static Cause score(Metric m, long start, long finish) {
+        double[] values = m.byType(MetricType.VALUES).getValues();
+        long mStart = m.getStart();
+        long delay = m.getDelay();
+        double max = Double.NEGATIVE_INFINITY;
+        double[] outside = new double[values.length];
+        int outsideCount = 0;
+        for (int j = 0; j < values.length; j++) {
+            long pStart = mStart + j * delay;
+            if (pStart < finish && pStart + delay > start) {
+                max = Math.max(max, values[j]);
+            } else {
+                outside[outsideCount++] = values[j];
+            }
+        }
+        if (max == Double.NEGATIVE_INFINITY) {
+            return null;
+        }
+        double[] baseline = outsideCount >= 3 ? Arrays.copyOf(outside, outsideCount) : values;
+        double median = RepetitionStats.median(baseline);
+        double[] deviations = new double[baseline.length];
+        for (int i = 0; i < baseline.length; i++) {
+            deviations[i] = Math.abs(baseline[i] - median);
+        }
+        double scale = RepetitionStats.median(deviations) / 0.6745;
+        if (scale == 0) {
+            scale = RepetitionStats.stddev(values, RepetitionStats.mean(values));
+        }
+        if (scale == 0) {
+            return null;
+        }
+        Cause cause = new Cause();
+        cause.series = label(m);
+        cause.value = max;
+        cause.baseline = median;
+        cause.score = (max - median) / scale;
+        return cause;
+    }
+}
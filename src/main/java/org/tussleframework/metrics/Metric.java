@@ -77,6 +77,7 @@ public class Metric {
     protected String[] xValues;  // alternative metric X-axis values or labels
     protected ArrayList<Marker> markers;
     protected ArrayList<MetricValue> metricValues; // measured metric values
+    protected ArrayList<MetricLevel> levels;       // optional lower resolution copies of metricValues for long runs
 
     public Metric add(MetricValue mv) {
         if (metricValues == null) {
@@ -86,6 +87,17 @@ public class Metric {
         return this;
     }
 
+    public Metric addLevels(Collection<MetricLevel> metricLevels) {
+        if (metricLevels.isEmpty()) {
+            return this;
+        }
+        if (levels == null) {
+            levels = new ArrayList<>();
+        }
+        levels.addAll(metricLevels);
+        return this;
+    }
+
     public Metric addMarker(Marker marker) {
         if (markers == null) {
             markers = new ArrayList<>();
@@ -57,7 +57,14 @@ public class MetricInfo {
     }
 
     public String formatFileName(RunArgs runArgs, String ext) {
-        return String.format("%s_%s_%s_%s_%d.%s", operationName, metricName, FormatTool.roundFormatPercent(runArgs.ratePercent), FormatTool.format(runArgs.targetRate), runArgs.runStep, ext);
+        return String.format("%s_%s%s", operationName, metricName, formatStepSuffix(runArgs, ext));
+    }
+
+    /**
+     * @return file name part common for all metrics of the step: _ percent-of-high-bound _ target-rate _ step . ext
+     */
+    public static String formatStepSuffix(RunArgs runArgs, String ext) {
+        return String.format("_%s_%s_%d.%s", FormatTool.roundFormatPercent(runArgs.ratePercent), FormatTool.format(runArgs.targetRate), runArgs.runStep, ext);
     }
 
     public void fillValues(String[] parts, int filledParts, HdrConfig c) {
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2021-2023, Azul Systems
+ * 
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * 
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * 
+ * * Neither the name of [project] nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+package org.tussleframework.metrics;
+
+import java.util.ArrayList;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Pre-aggregated lower resolution copy of metric series used by the report
+ * for long runs, each point covers 'delay' ms instead of the metric's own delay
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MetricLevel {
+    protected Integer delay;     // level point interval length in ms
+    protected Integer points;    // number of points in level series
+    protected ArrayList<MetricValue> metricValues;
+
+    public MetricLevel(int delay) {
+        this.delay = delay;
+    }
+
+    public MetricLevel add(MetricValue mv) {
+        if (metricValues == null) {
+            metricValues = new ArrayList<>();
+        }
+        metricValues.add(mv);
+        if (mv.values != null) {
+            points = points != null ? Math.max(points, mv.values.length) : mv.values.length;
+        }
+        return this;
+    }
+
+    /**
+     * Splits values into buckets of 'factor' points and returns min, max and mean of each bucket
+     */
+    public static double[][] downsample(double[] values, int factor) {
+        int count = (values.length + factor - 1) / factor;
+        double[][] res = new double[3][count];
+        for (int b = 0; b < count; b++) {
+            int from = b * factor;
+            int to = Math.min(from + factor, values.length);
+            double min = values[from];
+            double max = values[from];
+            double sum = 0;
+            for (int i = from; i < to; i++) {
+                min = Math.min(min, values[i]);
+                max = Math.max(max, values[i]);
+                sum += values[i];
+            }
+            res[0][b] = min;
+            res[1][b] = max;
+            res[2][b] = sum / (to - from);
+        }
+        return res;
+    }
+}
@@ -37,6 +37,8 @@ import org.HdrHistogram.AbstractHistogram;
 public enum MetricType {
     COUNTS,
     VALUES,
+    MIN_VALUES,
+    MEAN_VALUES,
     P0_VALUES,
     P50_VALUES,
     P90_VALUES,
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2021-2023, Azul Systems
+ * 
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * 
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * 
+ * * Neither the name of [project] nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+
+package org.tussleframework.metrics;
+
+import java.util.ArrayDeque;
+
+/**
+ * Counts of successful and failed operations in a moving window of interval histograms
+ */
+public class MovingWindowCounts {
+    private final ArrayDeque<long[]> movingWindowQueue = new ArrayDeque<>();
+    private final long movingWindowMs;
+    private long okCount;
+    private long errorsCount;
+
+    /**
+     * @param movingWindow - in seconds
+     */
+    public MovingWindowCounts(int movingWindow) {
+        this.movingWindowMs = movingWindow * 1000L;
+    }
+
+    public void add(long startTimeStamp, long endTimeStamp, long ok, long errors) {
+        long windowCutOffTimeStamp = endTimeStamp - movingWindowMs;
+        long[] head = movingWindowQueue.peek();
+        while (head != null && head[1] <= windowCutOffTimeStamp) {
+            movingWindowQueue.remove();
+            okCount -= head[2];
+            errorsCount -= head[3];
+            head = movingWindowQueue.peek();
+        }
+        movingWindowQueue.add(new long[] { startTimeStamp, endTimeStamp, ok, errors });
+        okCount += ok;
+        errorsCount += errors;
+    }
+
+    /**
+     * @return percent of failed operations in the window
+     */
+    public double getErrorRate() {
+        long total = okCount + errorsCount;
+        return total > 0 ? errorsCount * 100.0 / total : 0;
+    }
+
+    /**
+     * @return successful operations per second over the time covered by the window
+     */
+    public double getOkRate() {
+        if (movingWindowQueue.isEmpty()) {
+            return 0;
+        }
+        long time = movingWindowQueue.peekLast()[1] - movingWindowQueue.peekFirst()[0];
+        return time > 0 ? okCount * 1000.0 / time : 0;
+    }
+
+    public long getCount() {
+        return okCount + errorsCount;
+    }
+}
@@ -0,0 +1,313 @@
+/*
+ * Copyright (c) 2021-2023, Azul Systems
+ * 
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * 
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * 
+ * * Neither the name of [project] nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+
+package org.tussleframework.metrics;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+import org.tussleframework.RunArgs;
+
+/**
+ * In-process OS metrics sampler, reads /proc/stat, /proc/diskstats, /proc/net/dev and /proc/self/status
+ * on each timer tick and appends one CSV row to the os_stats file.
+ * Scheduled on the same timer and with the same start time as HDR writers so rows line up with HDR intervals.
+ * Sampling reuses byte buffers and doesn't create Strings.
+ */
+public class OsStatsSampler extends StatsSampler {
+
+    public static final String FILE_PREFIX = "os_stats";
+    public static final String[] COLUMNS = { "time", "cpu_user", "cpu_system", "cpu_iowait", "cpu_busy", "disk_read", "disk_write", "net_rx", "net_tx", "rss" };
+
+    private static final int CPU_FIELDS = 8;
+    private static final long SECTOR_SIZE = 512;
+
+    public static boolean isSupported(String procDir) {
+        return new File(procDir, "stat").canRead();
+    }
+
+    private final File statFile;
+    private final File diskstatsFile;
+    private final File netdevFile;
+    private final File statusFile;
+    private final byte[][] diskNames; // whole disk names from /sys/block, null - count all devices
+    private final long[] cpu = new long[CPU_FIELDS];
+    private final long[] prevCpu = new long[CPU_FIELDS];
+    private byte[] buf = new byte[16 * 1024];
+    private int len;
+    private int pos;
+    private long diskRead;
+    private long diskWrite;
+    private long netRx;
+    private long netTx;
+    private long rss;
+    private long prevDiskRead;
+    private long prevDiskWrite;
+    private long prevNetRx;
+    private long prevNetTx;
+
+    public OsStatsSampler(String procDir, String sysBlockDir, String outDir, RunArgs runArgs, int interval) {
+        super(FILE_PREFIX, COLUMNS, outDir, runArgs, interval);
+        this.statFile = new File(procDir, "stat");
+        this.diskstatsFile = new File(procDir, "diskstats");
+        this.netdevFile = new File(procDir, "net/dev");
+        this.statusFile = new File(procDir, "self/status");
+        this.diskNames = listDisks(sysBlockDir);
+    }
+
+    @Override
+    protected void readValues() {
+        readCpu();
+        readDisks();
+        readNet();
+        readRss();
+    }
+
+    @Override
+    protected void storeValues() {
+        System.arraycopy(cpu, 0, prevCpu, 0, CPU_FIELDS);
+        prevDiskRead = diskRead;
+        prevDiskWrite = diskWrite;
+        prevNetRx = netRx;
+        prevNetTx = netTx;
+    }
+
+    @Override
+    protected void putValues(double timeSec) {
+        // cpu fields: user nice system idle iowait irq softirq steal
+        long total = 0;
+        for (int i = 0; i < CPU_FIELDS; i++) {
+            total += cpu[i] - prevCpu[i];
+        }
+        long user = cpu[0] - prevCpu[0] + cpu[1] - prevCpu[1];
+        long system = cpu[2] - prevCpu[2] + cpu[5] - prevCpu[5] + cpu[6] - prevCpu[6];
+        long iowait = cpu[4] - prevCpu[4];
+        long idle = cpu[3] - prevCpu[3];
+        putPercent(user, total);
+        putPercent(system, total);
+        putPercent(iowait, total);
+        putPercent(total - idle - iowait, total);
+        putFixed((diskRead - prevDiskRead) / 1024.0 / timeSec);
+        putFixed((diskWrite - prevDiskWrite) / 1024.0 / timeSec);
+        putFixed((netRx - prevNetRx) / 1024.0 / timeSec);
+        putFixed((netTx - prevNetTx) / 1024.0 / timeSec);
+        putColumn(rss);
+    }
+
+    /**
+     * cpu  user nice system idle iowait irq softirq steal guest guest_nice
+     */
+    private void readCpu() {
+        if (!readFile(statFile) || !startsWith("cpu ")) {
+            return;
+        }
+        pos += 4;
+        for (int i = 0; i < CPU_FIELDS; i++) {
+            cpu[i] = parseLong();
+        }
+    }
+
+    /**
+     * major minor name reads reads_merged sectors_read ms_reading writes writes_merged sectors_written ...
+     */
+    private void readDisks() {
+        if (!readFile(diskstatsFile)) {
+            return;
+        }
+        long sectorsRead = 0;
+        long sectorsWritten = 0;
+        while (pos < len) {
+            parseLong();
+            parseLong();
+            skipSpaces();
+            int nameStart = pos;
+            while (pos < len && buf[pos] > ' ') {
+                pos++;
+            }
+            if (isDisk(nameStart, pos)) {
+                parseLong();
+                parseLong();
+                sectorsRead += parseLong();
+                parseLong();
+                parseLong();
+                parseLong();
+                sectorsWritten += parseLong();
+            }
+            nextLine();
+        }
+        diskRead = sectorsRead * SECTOR_SIZE;
+        diskWrite = sectorsWritten * SECTOR_SIZE;
+    }
+
+    /**
+     * iface: rx_bytes rx_packets rx_errs rx_drop rx_fifo rx_frame rx_compressed rx_multicast tx_bytes ...
+     */
+    private void readNet() {
+        if (!readFile(netdevFile)) {
+            return;
+        }
+        long rx = 0;
+        long tx = 0;
+        while (pos < len) {
+            skipSpaces();
+            int nameStart = pos;
+            while (pos < len && buf[pos] != ':' && buf[pos] != '\n') {
+                pos++;
+            }
+            if (pos < len && buf[pos] == ':' && !(pos - nameStart == 2 && buf[nameStart] == 'l' && buf[nameStart + 1] == 'o')) {
+                pos++;
+                rx += parseLong();
+                for (int i = 0; i < 7; i++) {
+                    parseLong();
+                }
+                tx += parseLong();
+            }
+            nextLine();
+        }
+        netRx = rx;
+        netTx = tx;
+    }
+
+    /**
+     * VmRSS:     12345 kB
+     */
+    private void readRss() {
+        if (!readFile(statusFile)) {
+            return;
+        }
+        while (pos < len) {
+            if (startsWith("VmRSS:")) {
+                pos += 6;
+                rss = parseLong();
+                return;
+            }
+            nextLine();
+        }
+    }
+
+    private boolean readFile(File file) {
+        len = 0;
+        pos = 0;
+        try (InputStream in = new FileInputStream(file)) {
+            int n;
+            while ((n = in.read(buf, len, buf.length - len)) > 0) {
+                len += n;
+                if (len == buf.length) {
+                    byte[] newBuf = new byte[buf.length * 2];
+                    System.arraycopy(buf, 0, newBuf, 0, len);
+                    buf = newBuf;
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private boolean startsWith(String prefix) {
+        if (len - pos < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (buf[pos + i] != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void skipSpaces() {
+        while (pos < len && (buf[pos] == ' ' || buf[pos] == '\t')) {
+            pos++;
+        }
+    }
+
+    private void nextLine() {
+        while (pos < len && buf[pos] != '\n') {
+            pos++;
+        }
+        pos++;
+    }
+
+    private long parseLong() {
+        skipSpaces();
+        long value = 0;
+        while (pos < len && buf[pos] >= '0' && buf[pos] <= '9') {
+            value = value * 10 + (buf[pos++] - '0');
+        }
+        return value;
+    }
+
+    private boolean isDisk(int start, int end) {
+        if (diskNames == null) {
+            return true;
+        }
+        for (byte[] name : diskNames) {
+            if (name.length == end - start) {
+                int i = 0;
+                while (i < name.length && name[i] == buf[start + i]) {
+                    i++;
+                }
+                if (i == name.length) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whole disks are listed in /sys/block, partitions are not - counting only them avoids double counting,
+     * loop and ram devices are skipped
+     */
+    private static byte[][] listDisks(String sysBlockDir) {
+        if (sysBlockDir == null) {
+            return null;
+        }
+        String[] names = new File(sysBlockDir).list();
+        if (names == null) {
+            return null;
+        }
+        ArrayList<byte[]> disks = new ArrayList<>();
+        for (String name : names) {
+            if (!name.startsWith("loop") && !name.startsWith("ram")) {
+                disks.add(name.getBytes(StandardCharsets.US_ASCII));
+            }
+        }
+        return disks.toArray(new byte[0][]);
+    }
+}
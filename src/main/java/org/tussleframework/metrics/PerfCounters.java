@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2021-2023, Azul Systems
+ * 
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * 
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * 
+ * * Neither the name of [project] nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+package org.tussleframework.metrics;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Read-only view of the running JVM's own HotSpot performance counters (hsperfdata file, -XX:+UsePerfData is the default),
+ * gives counters like sun.rt.safepoints which are not exposed by exported MXBeans on JDK 9+ without --add-opens.
+ * Counter values are read from the memory mapped file without allocations.
+ */
+public class PerfCounters {
+
+    private static final int MAGIC = 0xcafec0c0;
+    private static final byte TYPE_LONG = 'J';
+
+    private final ByteBuffer buffer;
+
+    protected PerfCounters(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * @return counters of this JVM, null if the hsperfdata file is not available (e.g. -XX:-UsePerfData or not a HotSpot JVM)
+     */
+    public static PerfCounters open() {
+        String name = ManagementFactory.getRuntimeMXBean().getName();
+        int pos = name.indexOf('@');
+        if (pos <= 0) {
+            return null;
+        }
+        String pid = name.substring(0, pos);
+        String dirName = "hsperfdata_" + System.getProperty("user.name");
+        for (String tmpDir : new String[] { System.getProperty("java.io.tmpdir"), "/tmp" }) {
+            File file = new File(new File(tmpDir, dirName), pid);
+            if (file.isFile()) {
+                try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+                    ByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+                    if (buffer.getInt(0) == MAGIC) {
+                        buffer.order(buffer.get(4) == 0 ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+                        return new PerfCounters(buffer);
+                    }
+                } catch (Exception e) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds long counter by name, e.g. sun.rt.safepoints
+     *
+     * @return counter offset for get, -1 if there is no such counter
+     */
+    public int find(String counterName) {
+        byte[] nameBytes = counterName.getBytes(StandardCharsets.US_ASCII);
+        int entryOffset = buffer.getInt(24);
+        int numEntries = buffer.getInt(28);
+        for (int i = 0; i < numEntries && entryOffset > 0 && entryOffset < buffer.limit(); i++) {
+            int entryLength = buffer.getInt(entryOffset);
+            int nameOffset = entryOffset + buffer.getInt(entryOffset + 4);
+            int vectorLength = buffer.getInt(entryOffset + 8);
+            byte dataType = buffer.get(entryOffset + 12);
+            if (dataType == TYPE_LONG && vectorLength == 0 && nameEquals(nameOffset, nameBytes)) {
+                return entryOffset + buffer.getInt(entryOffset + 16);
+            }
+            if (entryLength <= 0) {
+                break;
+            }
+            entryOffset += entryLength;
+        }
+        return -1;
+    }
+
+    private boolean nameEquals(int offset, byte[] name) {
+        if (offset + name.length >= buffer.limit()) {
+            return false;
+        }
+        for (int i = 0; i < name.length; i++) {
+            if (buffer.get(offset + i) != name[i]) {
+                return false;
+            }
+        }
+        return buffer.get(offset + name.length) == 0;
+    }
+
+    /**
+     * @param offset - counter offset returned by find
+     * @return counter value, -1 if the counter was not found
+     */
+    public long get(int offset) {
+        return offset >= 0 ? buffer.getLong(offset) : -1;
+    }
+}
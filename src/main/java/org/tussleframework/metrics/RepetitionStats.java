@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2021-2023, Azul Systems
+ * 
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * 
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * 
+ * * Neither the name of [project] nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+package org.tussleframework.metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * Statistics across repeated runs of the same target rate: mean, standard deviation,
+ * percentile bootstrap confidence interval and MAD-based outlier detection.
+ * Throughput is taken per run, latency percentiles are taken from per-run histograms
+ * and additionally from the merged histogram of all runs.
+ */
+public class RepetitionStats {
+
+    public static class Estimate {
+        public double mean;
+        public double stddev;
+        public double ciLow;
+        public double ciHigh;
+        public double merged;   // value computed over all runs together
+    }
+
+    public static class Result {
+        public double targetRate;
+        public int runs;
+        public Estimate rate;
+        public Estimate[] percentiles;
+        public List<Integer> outlierSteps = new ArrayList<>();
+        public List<Double> outlierRates = new ArrayList<>();
+    }
+
+    private final double[] percentiles;
+    private final int bootstrapSamples;
+    private final double confidence;
+    private final double outlierThreshold;
+    private final long seed;
+
+    /**
+     * @param percentiles - latency percentiles to be estimated
+     * @param bootstrapSamples - number of bootstrap resamples
+     * @param confidence - confidence level in percents, e.g. 95
+     * @param outlierThreshold - modified z-score above which a run is flagged as outlier
+     */
+    public RepetitionStats(double[] percentiles, int bootstrapSamples, double confidence, double outlierThreshold) {
+        this(percentiles, bootstrapSamples, confidence, outlierThreshold, 42);
+    }
+
+    public RepetitionStats(double[] percentiles, int bootstrapSamples, double confidence, double outlierThreshold, long seed) {
+        this.percentiles = percentiles;
+        this.bootstrapSamples = bootstrapSamples;
+        this.confidence = confidence;
+        this.outlierThreshold = outlierThreshold;
+        this.seed = seed;
+    }
+
+    public double[] getPercentiles() {
+        return percentiles;
+    }
+
+    /**
+     * @param runs - results of the same operation, metric and target rate
+     */
+    public Result compute(List<HdrResult> runs) {
+        Random random = new Random(seed);
+        Result result = new Result();
+        result.runs = runs.size();
+        result.targetRate = runs.get(0).targetRate();
+        double hdrFactor = runs.get(0).hdrFactor();
+        double[] rates = new double[runs.size()];
+        double[][] values = new double[percentiles.length][runs.size()];
+        Histogram merged = new Histogram(3);
+        long totalCount = 0;
+        long totalTime = 0;
+        for (int r = 0; r < runs.size(); r++) {
+            HdrResult run = runs.get(r);
+            rates[r] = run.getRate();
+            for (int p = 0; p < percentiles.length; p++) {
+                values[p][r] = run.getValueAtPercentile(percentiles[p]);
+            }
+            merged.add(run.getPrimeHistogram());
+            totalCount += run.getCount();
+            totalTime += run.getTimeMs();
+        }
+        result.rate = estimate(rates, random);
+        result.rate.merged = totalTime > 0 ? totalCount * 1000.0 / totalTime : 0;
+        result.percentiles = new Estimate[percentiles.length];
+        for (int p = 0; p < percentiles.length; p++) {
+            result.percentiles[p] = estimate(values[p], random);
+            result.percentiles[p].merged = merged.getValueAtPercentile(percentiles[p]) / hdrFactor;
+        }
+        for (int r = 0; r < runs.size(); r++) {
+            boolean outlier = isOutlier(rates, r);
+            for (int p = 0; p < percentiles.length && !outlier; p++) {
+                outlier = isOutlier(values[p], r);
+            }
+            if (outlier) {
+                result.outlierSteps.add(runs.get(r).step());
+                result.outlierRates.add(rates[r]);
+            }
+        }
+        return result;
+    }
+
+    protected Estimate estimate(double[] values, Random random) {
+        Estimate e = new Estimate();
+        e.mean = mean(values);
+        e.stddev = stddev(values, e.mean);
+        double[] means = new double[bootstrapSamples];
+        for (int b = 0; b < bootstrapSamples; b++) {
+            double sum = 0;
+            for (int i = 0; i < values.length; i++) {
+                sum += values[random.nextInt(values.length)];
+            }
+            means[b] = sum / values.length;
+        }
+        Arrays.sort(means);
+        double alpha = (100 - confidence) / 200;
+        e.ciLow = quantile(means, alpha);
+        e.ciHigh = quantile(means, 1 - alpha);
+        return e;
+    }
+
+    protected boolean isOutlier(double[] values, int index) {
+        if (values.length < 3) {
+            return false;
+        }
+        double median = median(values);
+        double[] deviations = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            deviations[i] = Math.abs(values[i] - median);
+        }
+        double mad = median(deviations);
+        if (mad == 0) {
+            return false;
+        }
+        // modified z-score, see Iglewicz and Hoaglin
+        return 0.6745 * Math.abs(values[index] - median) / mad > outlierThreshold;
+    }
+
+    public static double mean(double[] values) {
+        double sum = 0;
+        for (double v : values) {
+            sum += v;
+        }
+        return values.length > 0 ? sum / values.length : 0;
+    }
+
+    public static double stddev(double[] values, double mean) {
+        if (values.length < 2) {
+            return 0;
+        }
+        double sum = 0;
+        for (double v : values) {
+            sum += (v - mean) * (v - mean);
+        }
+        return Math.sqrt(sum / (values.length - 1));
+    }
+
+    public static double median(double[] values) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return quantile(sorted, 0.5);
+    }
+
+    /**
+     * @param sorted - sorted values
+     * @param q - quantile in 0..1 range, linear interpolation between the closest ranks
+     */
+    public static double quantile(double[] sorted, double q) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        double pos = q * (sorted.length - 1);
+        int lo = (int) Math.floor(pos);
+        int hi = Math.min(lo + 1, sorted.length - 1);
+        return sorted[lo] + (sorted[hi] - sorted[lo]) * (pos - lo);
+    }
+}
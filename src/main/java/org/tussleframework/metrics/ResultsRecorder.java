@@ -51,6 +51,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.Timer;
 
+import org.tussleframework.ErrorCategory;
 import org.tussleframework.RunArgs;
 import org.tussleframework.TimeRecorder;
 import org.tussleframework.TussleException;
@@ -62,6 +63,9 @@ import org.tussleframework.tools.LoggerTool;
 
 public class ResultsRecorder implements TimeRecorder {
 
+    private static final String PROC_DIR = "/proc";
+    private static final String SYS_BLOCK_DIR = "/sys/block";
+
     public static long timeLen0(long startTime, long finishTime) {
         if (startTime >= 0) {
             return finishTime > startTime ? (finishTime - startTime) / NS_IN_US : 0;
@@ -80,7 +84,11 @@ public class ResultsRecorder implements TimeRecorder {
         private HdrWriter responseTimeWriter;
         private HdrWriter serviceTimeWriter;
         private HdrWriter errorsWriter;
+        private HdrWriter scheduleLagWriter;
+        private HdrWriter[] errorCategoryWriters = new HdrWriter[ErrorCategory.count()];
         private boolean serviceTimeOnly;
+        private boolean partialLogged;
+        private boolean droppedLogged;
         private long startTime0;
         private int hdrInterval;
 
@@ -89,7 +97,12 @@ public class ResultsRecorder implements TimeRecorder {
             hdrInterval = runnerConfig.hdrInterval;
             responseTimeWriter = new HdrWriter(metricInfo.replaceMetricName(HdrResult.RESPONSE_TIME), writeHdr, runnerConfig.progressInterval, runArgs, runnerConfig, runnerConfig.histogramsDir);
             serviceTimeWriter = new HdrWriter(metricInfo.replaceMetricName(HdrResult.SERVICE_TIME), writeHdr, runnerConfig.progressInterval, runArgs, runnerConfig, runnerConfig.histogramsDir);
-            errorsWriter = new HdrWriter(metricInfo.replaceMetricName("errors"), writeHdr, runnerConfig.progressInterval, runArgs, runnerConfig, runnerConfig.histogramsDir);
+            errorsWriter = new HdrWriter(metricInfo.replaceMetricName(ErrorCategory.ERRORS), writeHdr, runnerConfig.progressInterval, runArgs, runnerConfig, runnerConfig.histogramsDir);
+            scheduleLagWriter = new HdrWriter(metricInfo.replaceMetricName(HdrResult.SCHEDULE_LAG), writeHdr, runnerConfig.progressInterval, runArgs, runnerConfig, runnerConfig.histogramsDir);
+            scheduleLagWriter.setWarnLimit(runnerConfig.scheduleLagBudget, "scheduleLagBudget");
+            for (int i = 0; i < errorCategoryWriters.length; i++) {
+                errorCategoryWriters[i] = new HdrWriter(metricInfo.replaceMetricName(ErrorCategory.get(i).metricName()), writeHdr, 0, runArgs, runnerConfig, runnerConfig.histogramsDir);
+            }
             if (runnerConfig.rawData) {
                 String rawFile = String.format("%s/%s", runnerConfig.histogramsDir, metricInfo.replaceMetricName("samples-data").formatFileName(runArgs, "raw"));
                 rawDataOutputStream = new BufferedOutputStream(new FileOutputStream(new File(rawFile)), 128 * 1024 * 1024);
@@ -100,15 +113,19 @@ public class ResultsRecorder implements TimeRecorder {
         }
 
         void recordTimes(long startTime, long intendedStartTime, long finishTime, long count, boolean success) {
+            long index = clock.indexAtEpochNs(finishTime);
             if (success) {
                 if (startTime > 0) {
-                    serviceTimeWriter.recordTime(timeLen1(startTime, finishTime), count);
+                    serviceTimeWriter.recordTime(timeLen1(startTime, finishTime), count, index);
                 }
                 if (intendedStartTime > 0 && !serviceTimeOnly) {
-                    responseTimeWriter.recordTime(timeLen1(intendedStartTime, finishTime), count);
+                    responseTimeWriter.recordTime(timeLen1(intendedStartTime, finishTime), count, index);
                 }
             } else {
-                errorsWriter.recordTime(timeLen1(startTime, finishTime), count);
+                errorsWriter.recordTime(timeLen1(startTime, finishTime), count, index);
+            }
+            if (intendedStartTime > 0 && startTime > 0) {
+                scheduleLagWriter.recordValue(startTime > intendedStartTime ? (startTime - intendedStartTime) / NS_IN_US : 0, count, index);
             }
             OutputStream rawStream = this.rawDataOutputStream;
             if (rawStream != null) {
@@ -133,13 +150,25 @@ public class ResultsRecorder implements TimeRecorder {
             }
         }
 
-        void startRecording(Timer timer, long startTime) {
-            responseTimeWriter.recordingStarted(startTime);
-            serviceTimeWriter.recordingStarted(startTime);
-            errorsWriter.recordingStarted(startTime);
-            timer.scheduleAtFixedRate(responseTimeWriter, hdrInterval, hdrInterval);
-            timer.scheduleAtFixedRate(serviceTimeWriter, hdrInterval, hdrInterval);
-            timer.scheduleAtFixedRate(errorsWriter, hdrInterval, hdrInterval);
+        void recordError(ErrorCategory category, long startTime, long intendedStartTime, long finishTime, long count) {
+            errorCategoryWriters[category.ordinal()].recordValue(Math.max(timeLen1(startTime, finishTime), 0), count, clock.indexAtEpochNs(finishTime));
+            recordTimes(startTime, intendedStartTime, finishTime, count, false);
+        }
+
+        void startRecording(Timer timer, RunClock clock) {
+            responseTimeWriter.recordingStarted(clock);
+            serviceTimeWriter.recordingStarted(clock);
+            errorsWriter.recordingStarted(clock);
+            scheduleLagWriter.recordingStarted(clock);
+            long delay = clock.delayToNextBoundaryMs(System.nanoTime());
+            timer.scheduleAtFixedRate(responseTimeWriter, delay, hdrInterval);
+            timer.scheduleAtFixedRate(serviceTimeWriter, delay, hdrInterval);
+            timer.scheduleAtFixedRate(errorsWriter, delay, hdrInterval);
+            timer.scheduleAtFixedRate(scheduleLagWriter, delay, hdrInterval);
+            for (HdrWriter errorCategoryWriter : errorCategoryWriters) {
+                errorCategoryWriter.recordingStarted(clock);
+                timer.scheduleAtFixedRate(errorCategoryWriter, delay, hdrInterval);
+            }
         }
 
         void cancel() {
@@ -155,6 +184,23 @@ public class ResultsRecorder implements TimeRecorder {
             responseTimeWriter.cancel();
             serviceTimeWriter.cancel();
             errorsWriter.cancel();
+            scheduleLagWriter.cancel();
+            for (HdrWriter errorCategoryWriter : errorCategoryWriters) {
+                errorCategoryWriter.cancel();
+            }
+            long partialCount = Math.max(responseTimeWriter.getPartialCount(), serviceTimeWriter.getPartialCount());
+            if (partialCount > 0 && !partialLogged) {
+                partialLogged = true;
+                LoggerTool.log(ResultsRecorder.class.getSimpleName(), "Trailing interval cut to the measured phase end: %d partial interval(s), phase time %d ms", partialCount, clock.getPhaseTimeMs());
+            }
+            long droppedCount = responseTimeWriter.getDroppedCount();
+            if (droppedCount > 0 && !droppedLogged) {
+                droppedLogged = true;
+                LoggerTool.log(ResultsRecorder.class.getSimpleName(), "Dropped %d operation(s) finished after the measured phase end", droppedCount);
+            }
+            if (scheduleLagWriter.getOverLimitCount() > 0) {
+                LoggerTool.log(ResultsRecorder.class.getSimpleName(), "WARNING: schedule lag exceeded scheduleLagBudget %s %s in %d intervals", roundFormat(runnerConfig.scheduleLagBudget), runnerConfig.timeUnits, scheduleLagWriter.getOverLimitCount());
+            }
         }
 
         void getResults(Collection<HdrResult> hdrResults) {
@@ -170,6 +216,14 @@ public class ResultsRecorder implements TimeRecorder {
             if (!errorsWriter.isEmpty()) {
                 hdrResults.add(errorsWriter.getHdrResult());
             }
+            if (!scheduleLagWriter.isEmpty()) {
+                hdrResults.add(scheduleLagWriter.getHdrResult());
+            }
+            for (HdrWriter errorCategoryWriter : errorCategoryWriters) {
+                if (!errorCategoryWriter.isEmpty()) {
+                    hdrResults.add(errorCategoryWriter.getHdrResult());
+                }
+            }
         }
     }
 
@@ -181,6 +235,8 @@ public class ResultsRecorder implements TimeRecorder {
     private RunArgs runArgs;
     private boolean writeHdr;
     private boolean cancelOnStop;
+    private Collection<StatsSampler> statsSamplers;
+    private volatile RunClock clock;
 
     @Override
     public void startRecording(String operationName, String rateUnits, String timeUnits) {
@@ -191,18 +247,32 @@ public class ResultsRecorder implements TimeRecorder {
             return;
         }
         try {
+            if (clock == null) {
+                clock = new RunClock(runnerConfig.hdrInterval);
+            }
             OperationsRecorder opRecorder = new OperationsRecorder(new MetricInfo(operationName, null, rateUnits, timeUnits, null));
             recordingsMap.put(operationName, opRecorder);
-            opRecorder.startRecording(timer, System.currentTimeMillis());
+            startStats(clock.getStartTimeMs());
+            opRecorder.startRecording(timer, clock);
         } catch (IOException e) {
             throw new TussleRuntimeException(e);
         }
     }
 
+    /**
+     * @return run clock started with the first recorded operation, null before that
+     */
+    @Override
+    public RunClock getClock() {
+        return clock;
+    }
+
     @Override
     public void stopRecording() {
         if (cancelOnStop) {
             cancel();
+        } else {
+            cancelStats();
         }
     }
 
@@ -214,6 +284,14 @@ public class ResultsRecorder implements TimeRecorder {
         }
     }
 
+    @Override
+    public void recordError(String operation, ErrorCategory category, long startTime, long intendedStartTime, long finishTime, long count) {
+        OperationsRecorder opRecorder = recordingsMap.get(operation);
+        if (opRecorder != null) {
+            opRecorder.recordError(category, startTime, intendedStartTime, finishTime, count);
+        }
+    }
+
     public ResultsRecorder(RunnerConfig runnerConfig, RunArgs runArgs, boolean writeHdr, boolean cancelOnStop) {
         this.runnerConfig = runnerConfig;
         this.runArgs = runArgs;
@@ -225,8 +303,40 @@ public class ResultsRecorder implements TimeRecorder {
         HdrWriter.resetProgressHeader();
     }
 
+    /**
+     * Starts OS and JVM stats sampling along with the first recorded operation so samples share HDR intervals start time
+     */
+    protected void startStats(long startTime) throws IOException {
+        if (!writeHdr || statsSamplers != null) {
+            return;
+        }
+        statsSamplers = new ArrayList<>();
+        int interval = runnerConfig.statsInterval > 0 ? runnerConfig.statsInterval : runnerConfig.hdrInterval;
+        if (runnerConfig.osStats) {
+            if (OsStatsSampler.isSupported(PROC_DIR)) {
+                statsSamplers.add(new OsStatsSampler(PROC_DIR, SYS_BLOCK_DIR, runnerConfig.histogramsDir, runArgs, interval));
+            } else {
+                LoggerTool.log(getClass().getSimpleName(), "WARNING: osStats is not supported - %s/stat is not available", PROC_DIR);
+            }
+        }
+        if (runnerConfig.jvmStats) {
+            statsSamplers.add(new JvmStatsSampler(runnerConfig.histogramsDir, runArgs, interval));
+        }
+        for (StatsSampler sampler : statsSamplers) {
+            sampler.start(startTime);
+            timer.scheduleAtFixedRate(sampler, interval, interval);
+        }
+    }
+
+    protected void cancelStats() {
+        if (statsSamplers != null) {
+            statsSamplers.forEach(StatsSampler::cancel);
+        }
+    }
+
     public void cancel() {
         timer.cancel();
+        cancelStats();
         recordingsMap.forEach((s, r) -> r.cancel());
     }
 
@@ -263,6 +373,13 @@ public class ResultsRecorder implements TimeRecorder {
         }
     }
 
+    @Override
+    public ResultsTailer tailResults(String dir, Collection<String> fileMatches, String rateUnits, String timeUnits, int pollInterval) {
+        ResultsTailer tailer = new ResultsTailer(this, runnerConfig, runArgs, dir, fileMatches, rateUnits, timeUnits, pollInterval);
+        tailer.start();
+        return tailer;
+    }
+
     protected void loadCustomHdrResult(Collection<File> resultFiles, RunArgs runArgs, String rateUnits, String timeUnits) throws TussleException {
         if (resultFiles == null || resultFiles.isEmpty()) {
             return;
@@ -0,0 +1,509 @@
+/*
+ * Copyright (c) 2021-2023, Azul Systems
+ * 
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * 
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * 
+ * * Neither the name of [project] nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+package org.tussleframework.metrics;
+
+import static org.tussleframework.tools.FormatTool.matchFilters;
+import static org.tussleframework.tools.FormatTool.roundFormat;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.zip.DataFormatException;
+
+import org.HdrHistogram.Histogram;
+import org.tussleframework.ErrorCategory;
+import org.tussleframework.RunArgs;
+import org.tussleframework.TussleException;
+import org.tussleframework.runners.RunnerConfig;
+import org.tussleframework.tools.Analyzer;
+import org.tussleframework.tools.FileTool;
+import org.tussleframework.tools.LoggerTool;
+
+/**
+ * Live ingestion of result files (hlog or samples) which are still being written, e.g. by an external benchmark process.
+ * Regular files are polled for appended data, named pipes are read by a dedicated thread.
+ * Interval histograms are fed into incrementally loaded HdrResults, progress is printed in HdrWriter format
+ * and moving window SLEs are checked as data arrives so the run can be stopped early.
+ */
+public class ResultsTailer {
+
+    private static void log(String format, Object... args) {
+        LoggerTool.log(ResultsTailer.class.getSimpleName(), format, args);
+    }
+
+    private static final double MAX_RELATIVE_STAMP = 365 * 24 * 3600.0;
+    private static final long PIPE_DRAIN_TIMEOUT = 5000;
+
+    abstract class TailedFile {
+        final File file;
+        final HdrResult hdrResult;
+        final String shortName;
+        final Histogram progressHistogram = new Histogram(3);
+        final ArrayList<MovingWindowHistogram> sleHistograms = new ArrayList<>();
+        final StringBuilder line = new StringBuilder();
+        volatile InputStream in;
+        Thread pipeReader;
+        long firstStamp = -1;
+        long totalCount;
+        volatile boolean closed;
+
+        TailedFile(File file) {
+            this.file = file;
+            hdrResult = new HdrResult(file.getAbsolutePath(), config);
+            hdrResult.setRunArgs(runArgs);
+            hdrResult.metricInfo.rateUnits = rateUnits;
+            hdrResult.metricInfo.timeUnits = timeUnits;
+            shortName = HdrWriter.shortName(hdrResult);
+            if (config.sleConfig != null && !ErrorCategory.isErrorsMetric(hdrResult.metricName()) && !hdrResult.metricName().equals(HdrResult.SCHEDULE_LAG)) {
+                for (MovingWindowSLE sle : config.sleConfig) {
+                    sleHistograms.add(new MovingWindowHistogram(sle, hdrResult.hdrFactor()));
+                }
+            }
+        }
+
+        /**
+         * Opening a named pipe blocks until a writer connects, so it is done by the pipe reader thread
+         */
+        void open() throws IOException {
+            if (Files.isRegularFile(file.toPath())) {
+                in = new FileInputStream(file);
+            } else {
+                pipeReader = new Thread(this::readPipe, "tail-" + file.getName());
+                pipeReader.setDaemon(true);
+                pipeReader.start();
+            }
+        }
+
+        void readPipe() {
+            byte[] buf = new byte[64 * 1024];
+            try {
+                InputStream pipe = new FileInputStream(file);
+                in = pipe;
+                if (closed) {
+                    pipe.close();
+                    return;
+                }
+                int len;
+                while ((len = in.read(buf)) >= 0) {
+                    append(buf, len);
+                }
+            } catch (IOException e) {
+                if (!closed) {
+                    LoggerTool.logException(null, e);
+                }
+            }
+        }
+
+        void poll() throws IOException {
+            if (pipeReader != null) {
+                return;
+            }
+            byte[] buf = new byte[64 * 1024];
+            int len;
+            while ((len = in.read(buf)) > 0) {
+                append(buf, len);
+            }
+        }
+
+        synchronized void append(byte[] buf, int len) {
+            int from = 0;
+            for (int i = 0; i < len; i++) {
+                if (buf[i] == '\n') {
+                    line.append(new String(buf, from, i - from, StandardCharsets.UTF_8));
+                    processLine(line.toString().trim());
+                    line.setLength(0);
+                    from = i + 1;
+                }
+            }
+            line.append(new String(buf, from, len - from, StandardCharsets.UTF_8));
+        }
+
+        /**
+         * Pipe reader is given time to read the data left in the pipe until the writer's end of file
+         */
+        void close() {
+            if (pipeReader != null) {
+                if (in == null) {
+                    unblockPipe();
+                }
+                try {
+                    pipeReader.join(PIPE_DRAIN_TIMEOUT);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            closed = true;
+            synchronized (this) {
+                if (line.length() > 0) {
+                    processLine(line.toString().trim());
+                    line.setLength(0);
+                }
+                flush();
+                try {
+                    if (in != null) {
+                        in.close();
+                    }
+                } catch (IOException e) {
+                    ///
+                }
+            }
+        }
+
+        /**
+         * Releases the pipe reader waiting for a writer which never came (e.g. the process has died) by connecting as a writer
+         */
+        void unblockPipe() {
+            try {
+                new FileOutputStream(file).close();
+            } catch (IOException e) {
+                LoggerTool.logException(null, e);
+            }
+        }
+
+        void flush() {
+        }
+
+        abstract void processLine(String line);
+
+        String operationName() {
+            return hdrResult.operationName();
+        }
+
+        void addIntervalHistogram(Histogram histogram) {
+            totalCount += histogram.getTotalCount();
+            progressHistogram.add(histogram);
+            if (firstStamp < 0) {
+                firstStamp = histogram.getStartTimeStamp();
+            }
+            if (histogram.getStartTimeStamp() - firstStamp < config.hdrCutTime * 1000L) {
+                return;
+            }
+            for (MovingWindowHistogram mwh : sleHistograms) {
+                mwh.add(histogram.copy());
+                if (brokenSle == null && !mwh.checkSLE()) {
+                    brokenSle = String.format("%s %s %s", hdrResult.operationName(), hdrResult.metricName(), mwh.mwSLE.longName());
+                    log("SLE broken: %s, value %s %s", brokenSle, roundFormat(mwh.getValue()), hdrResult.timeUnits());
+                    if (onSleBroken != null) {
+                        onSleBroken.run();
+                    }
+                }
+            }
+        }
+
+        synchronized void printProgress() {
+            if (progressHistogram.getTotalCount() > 0) {
+                HdrWriter.printProgress(shortName, startTime, runArgs.runTime, totalCount, progressHistogram, hdrResult.hdrFactor());
+                progressHistogram.reset();
+            }
+        }
+    }
+
+    /**
+     * HdrHistogram log lines: comments, optional StartTime/BaseTime, header and [Tag=tag,]start,length,max,base64 records
+     */
+    class TailedHlog extends TailedFile {
+        double startTimeSec;
+        double baseTimeSec;
+        boolean hasBaseTime;
+
+        TailedHlog(File file) {
+            super(file);
+            hdrResult.startLoading(null, config.hdrCutTime > 0 ? new Interval[] { new Interval(config.hdrCutTime, Long.MAX_VALUE, "", false) } : null);
+        }
+
+        @Override
+        void processLine(String line) {
+            if (line.startsWith("#[StartTime: ")) {
+                startTimeSec = Double.parseDouble(line.substring(13).split(" ")[0]);
+            } else if (line.startsWith("#[BaseTime: ")) {
+                baseTimeSec = Double.parseDouble(line.substring(12).split(" ")[0]);
+                hasBaseTime = true;
+            } else if (!line.isEmpty() && !line.startsWith("#") && !line.startsWith("\"")) {
+                String[] parts = line.split(",");
+                int idx = parts[0].startsWith("Tag=") ? 1 : 0;
+                if (parts.length < idx + 4) {
+                    return;
+                }
+                double stamp = Double.parseDouble(parts[idx]);
+                double length = Double.parseDouble(parts[idx + 1]);
+                if (!hasBaseTime && stamp < MAX_RELATIVE_STAMP) {
+                    stamp += startTimeSec;
+                } else if (hasBaseTime) {
+                    stamp += baseTimeSec;
+                }
+                try {
+                    Histogram histogram = Histogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(Base64.getDecoder().decode(parts[idx + 3])), 0);
+                    histogram.setStartTimeStamp((long) (stamp * 1000));
+                    histogram.setEndTimeStamp((long) ((stamp + length) * 1000));
+                    hdrResult.addIntervalHistogram(histogram);
+                    addIntervalHistogram(histogram);
+                } catch (DataFormatException | IllegalArgumentException e) {
+                    log("Skipping malformed record in '%s': %s", file, e.getMessage());
+                }
+            }
+        }
+
+        @Override
+        void close() {
+            super.close();
+            hdrResult.finishLoading();
+        }
+    }
+
+    /**
+     * Samples lines: optional header, timestamp(s),value,.. or samples format 2 with service and response times in ms.
+     * Samples are recorded into HdrData the same way SamplesProcessor does, its results are taken after the run without re-reading the file,
+     * and are also merged into hdrInterval histograms for progress and SLE checks
+     */
+    class TailedSamples extends TailedFile {
+        final HdrData hdrData;
+        Histogram current = new Histogram(3);
+        long bucketStart = -1;
+        int stampsIdx = 0;
+        int valuesIdx = 1;
+        boolean firstLine = true;
+
+        TailedSamples(File file) {
+            super(file);
+            hdrData = new HdrData(new MetricInfo(operationName(), "", "", "", ""), runArgs, config, config.sleConfig);
+        }
+
+        @Override
+        String operationName() {
+            return Analyzer.getOperationName(file.getName());
+        }
+
+        @Override
+        void processLine(String line) {
+            if (line.isEmpty()) {
+                return;
+            }
+            String[] parts = line.split(",");
+            if (!Character.isDigit(parts[0].charAt(0))) {
+                if (firstLine) {
+                    parseHeader(parts);
+                }
+                firstLine = false;
+                return;
+            }
+            firstLine = false;
+            try {
+                long stamp;
+                long value;
+                if (parts.length > 5 && (parts[4].equalsIgnoreCase("true") || parts[4].equalsIgnoreCase("false"))) {
+                    if ((parts[5].equalsIgnoreCase("w") || parts[5].equalsIgnoreCase("warmup")) && !config.includeWarmup) {
+                        return;
+                    }
+                    stamp = Math.round(Double.parseDouble(parts[0]) * 1000);
+                    value = Math.round(Double.parseDouble(parts[3]) * 1000);
+                    long latency = parts.length > 6 ? Math.round(Double.parseDouble(parts[6]) * 1000) : 0;
+                    hdrData.recordValues(stamp, value, latency);
+                } else if (parts.length > Math.max(stampsIdx, valuesIdx)) {
+                    stamp = Math.round(Double.parseDouble(parts[stampsIdx]) * 1000);
+                    value = Long.parseLong(parts[valuesIdx]);
+                    hdrData.recordValues(stamp, value, -1);
+                } else {
+                    return;
+                }
+                if (bucketStart < 0) {
+                    bucketStart = stamp;
+                } else if (stamp >= bucketStart + config.hdrInterval) {
+                    flush();
+                    bucketStart = stamp;
+                }
+                current.recordValue(Math.max(value, 0));
+            } catch (NumberFormatException e) {
+                ///
+            }
+        }
+
+        /**
+         * Header columns containing 'stamp' and 'value' define the columns read, see SamplesProcessor
+         */
+        void parseHeader(String[] parts) {
+            for (int i = 0; i < parts.length; i++) {
+                String h = parts[i].toLowerCase();
+                if (h.indexOf("stamp") >= 1) {
+                    stampsIdx = i;
+                } else if (h.indexOf("value") >= 1) {
+                    valuesIdx = i;
+                }
+            }
+        }
+
+        @Override
+        void flush() {
+            if (current.getTotalCount() > 0) {
+                current.setStartTimeStamp(bucketStart);
+                current.setEndTimeStamp(bucketStart + config.hdrInterval);
+                addIntervalHistogram(current);
+                current = new Histogram(3);
+            }
+        }
+    }
+
+    private final Map<File, TailedFile> tailedFiles = new LinkedHashMap<>();
+    private final ResultsRecorder recorder;
+    private final RunnerConfig config;
+    private final RunArgs runArgs;
+    private final String dir;
+    private final Collection<String> fileMatches;
+    private final String rateUnits;
+    private final String timeUnits;
+    private final int pollInterval;
+    private Timer timer;
+    private long startTime;
+    private long lastProgressTime;
+    private boolean finished;
+    private volatile String brokenSle;
+    private Runnable onSleBroken;
+
+    public ResultsTailer(ResultsRecorder recorder, RunnerConfig config, RunArgs runArgs, String dir, Collection<String> fileMatches, String rateUnits, String timeUnits, int pollInterval) {
+        this.recorder = recorder;
+        this.config = config;
+        this.runArgs = runArgs;
+        this.dir = dir;
+        this.fileMatches = fileMatches;
+        this.rateUnits = rateUnits;
+        this.timeUnits = timeUnits;
+        this.pollInterval = pollInterval;
+    }
+
+    /**
+     * Action called once when any moving window SLE from runner's sleConfig is broken, e.g. stopping the external process
+     */
+    public void setOnSleBroken(Runnable onSleBroken) {
+        this.onSleBroken = onSleBroken;
+    }
+
+    public String getBrokenSle() {
+        return brokenSle;
+    }
+
+    public synchronized void start() {
+        startTime = System.currentTimeMillis();
+        lastProgressTime = startTime;
+        timer = new Timer("results-tailer", true);
+        timer.schedule(new TimerTask() {
+            @Override
+            public void run() {
+                poll();
+            }
+        }, pollInterval, pollInterval);
+    }
+
+    /**
+     * Stops tailing, reads remaining data and passes results to the recorder:
+     * incrementally loaded hlog results as they are, samples results from the tailed samples data, result files are not re-read
+     */
+    public void finish() throws TussleException {
+        if (timer != null) {
+            timer.cancel();
+        }
+        poll();
+        ArrayList<TailedFile> finishedFiles;
+        synchronized (this) {
+            finished = true;
+            finishedFiles = new ArrayList<>(tailedFiles.values());
+            tailedFiles.clear();
+        }
+        ArrayList<HdrResult> hdrResults = new ArrayList<>();
+        for (TailedFile tailed : finishedFiles) {
+            tailed.close();
+            if (!matchFilters(tailed.operationName(), config.operationsInclude, config.operationsExclude)) {
+                continue;
+            }
+            if (tailed instanceof TailedHlog) {
+                if (tailed.hdrResult.getCount() > 0) {
+                    log("Tailed HDR file: '%s', %s %s, rate %s %s", tailed.file, tailed.hdrResult.operationName(), tailed.hdrResult.metricName(), roundFormat(tailed.hdrResult.getRate()), tailed.hdrResult.rateUnits());
+                    hdrResults.add(tailed.hdrResult);
+                }
+            } else {
+                addSamplesResults(((TailedSamples) tailed).hdrData, hdrResults);
+            }
+        }
+        recorder.addResults(hdrResults, rateUnits, timeUnits);
+    }
+
+    protected void addSamplesResults(HdrData hdrData, Collection<HdrResult> hdrResults) throws TussleException {
+        hdrData.saveHdrs();
+        for (HdrResult hdrResult : hdrData.getHdrResults()) {
+            hdrResult.metricInfo.rateUnits = rateUnits;
+            hdrResult.metricInfo.timeUnits = timeUnits;
+            log("Tailed samples: %s %s, rate %s %s", hdrResult.operationName(), hdrResult.metricName(), roundFormat(hdrResult.getRate()), hdrResult.rateUnits());
+            hdrResults.add(hdrResult);
+        }
+    }
+
+    synchronized void poll() {
+        if (finished) {
+            return;
+        }
+        for (File file : FileTool.listFiles(dir, fileMatches)) {
+            if (!tailedFiles.containsKey(file)) {
+                TailedFile tailed = Analyzer.isSamplesFile(file.getName()) ? new TailedSamples(file) : new TailedHlog(file);
+                try {
+                    tailed.open();
+                    log("Tailing result file '%s'", file);
+                    tailedFiles.put(file, tailed);
+                } catch (IOException e) {
+                    LoggerTool.logException(null, e);
+                }
+            }
+        }
+        for (TailedFile tailed : tailedFiles.values()) {
+            try {
+                tailed.poll();
+            } catch (IOException e) {
+                LoggerTool.logException(null, e);
+            }
+        }
+        long now = System.currentTimeMillis();
+        if (config.progressInterval > 0 && now - lastProgressTime >= config.progressInterval) {
+            lastProgressTime = now;
+            tailedFiles.values().forEach(TailedFile::printProgress);
+        }
+    }
+}
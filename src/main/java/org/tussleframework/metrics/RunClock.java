@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2021-2023, Azul Systems
+ * 
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * 
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * 
+ * * Neither the name of [project] nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+
+package org.tussleframework.metrics;
+
+import static org.tussleframework.Globals.*;
+
+import org.HdrHistogram.AbstractHistogram;
+
+/**
+ * Run clock shared by a recorder and target runners: HDR intervals are fixed boundaries from the clock origin,
+ * the measured phase starts on a boundary and its end cuts the trailing interval, so interval histograms
+ * and RunResult time/rate describe the same window.
+ * All times are System.nanoTime based, histogram time stamps are converted to ms since epoch.
+ */
+public class RunClock {
+
+    private final long originNs;
+    private final long intervalNs;
+    private final int intervalMs;
+    private volatile long phaseStartNs;
+    private volatile long phaseEndNs;
+
+    public RunClock(int intervalMs) {
+        this(System.nanoTime(), intervalMs);
+    }
+
+    public RunClock(long originNs, int intervalMs) {
+        if (intervalMs <= 0) {
+            throw new IllegalArgumentException(String.format("Invalid intervalMs(%d) - should be positive", intervalMs));
+        }
+        this.originNs = originNs;
+        this.intervalMs = intervalMs;
+        this.intervalNs = intervalMs * NS_IN_MS;
+    }
+
+    public static long toEpochMs(long nanoTime) {
+        return (nanoTime + NANO_TIME_OFFSET) / NS_IN_MS;
+    }
+
+    public long getOriginNs() {
+        return originNs;
+    }
+
+    public long getStartTimeMs() {
+        return toEpochMs(originNs);
+    }
+
+    public int getIntervalMs() {
+        return intervalMs;
+    }
+
+    public long boundaryNs(long index) {
+        return originNs + index * intervalNs;
+    }
+
+    /**
+     * Index of the interval containing the given time
+     */
+    public long indexAt(long nanoTime) {
+        return Math.floorDiv(nanoTime - originNs, intervalNs);
+    }
+
+    /**
+     * Index of the interval containing the given time in ns since epoch, as passed to TimeRecorder.recordTimes
+     */
+    public long indexAtEpochNs(long epochNs) {
+        return indexAt(epochNs - NANO_TIME_OFFSET);
+    }
+
+    /**
+     * Index of the interval completed by a timer tick at the given time, the nearest boundary is used so tick jitter is ignored
+     */
+    public long completedIndex(long nanoTime) {
+        return Math.floorDiv(nanoTime - originNs + intervalNs / 2, intervalNs) - 1;
+    }
+
+    /**
+     * Timer delay to the next boundary, rounded up so that the tick never takes an interval before its end
+     */
+    public long delayToNextBoundaryMs(long nanoTime) {
+        return (boundaryNs(indexAt(nanoTime) + 1) - nanoTime + NS_IN_MS - 1) / NS_IN_MS;
+    }
+
+    /**
+     * Starts the measured phase on an interval boundary: the current one if it was passed less than 1/10 of interval ago, otherwise the next one.
+     * Runners sharing the clock (e.g. threads of a multi-threaded runner) join the already started phase.
+     *
+     * @return phase start time, System.nanoTime based, can be in the future
+     */
+    public synchronized long beginPhase(long nanoTime) {
+        if (phaseStartNs != 0 && phaseEndNs == 0) {
+            return phaseStartNs;
+        }
+        long start = boundaryNs(indexAt(nanoTime));
+        if (nanoTime - start > intervalNs / 10) {
+            start += intervalNs;
+        }
+        phaseStartNs = start;
+        phaseEndNs = 0;
+        return start;
+    }
+
+    /**
+     * Ends the measured phase, the latest end wins when the phase is shared by several runners
+     */
+    public synchronized void endPhase(long nanoTime) {
+        if (phaseStartNs != 0 && nanoTime > phaseEndNs) {
+            phaseEndNs = Math.max(nanoTime, phaseStartNs);
+        }
+    }
+
+    public boolean hasPhase() {
+        return phaseEndNs != 0;
+    }
+
+    public long getPhaseStartNs() {
+        return phaseStartNs;
+    }
+
+    public long getPhaseEndNs() {
+        return phaseEndNs;
+    }
+
+    public long getPhaseTimeMs() {
+        return hasPhase() ? (phaseEndNs - phaseStartNs) / NS_IN_MS : 0;
+    }
+
+    /**
+     * Sets histogram time stamps to the interval boundaries, the interval is cut at the measured phase end and at limitNs (if positive)
+     *
+     * @return false if the interval starts at or after the measured phase end, it holds only operations finished after the phase
+     * and should be dropped so that histograms describe the same window as RunResult
+     */
+    public boolean stamp(AbstractHistogram histogram, long index, long limitNs) {
+        long start = boundaryNs(index);
+        long end = boundaryNs(index + 1);
+        long phaseEnd = phaseEndNs;
+        if (phaseEnd != 0 && start >= phaseEnd) {
+            return false;
+        }
+        if (limitNs > 0 && end > limitNs) {
+            end = limitNs;
+        }
+        if (phaseEnd != 0 && end > phaseEnd) {
+            end = phaseEnd;
+        }
+        start = Math.min(start, end);
+        histogram.setStartTimeStamp(toEpochMs(start));
+        histogram.setEndTimeStamp(toEpochMs(end));
+        return true;
+    }
+
+    public boolean isPartial(AbstractHistogram histogram) {
+        return histogram.getEndTimeStamp() - histogram.getStartTimeStamp() < intervalMs;
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2021-2023, Azul Systems
+ * 
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * 
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * 
+ * * Neither the name of [project] nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+
+package org.tussleframework.metrics;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.HdrHistogram.AbstractHistogram;
+
+/**
+ * Evaluates SLE rules incrementally over interval histograms of one result in a single pass,
+ * a rule is broken as soon as its violations exceed the budget
+ */
+public class SleEngine {
+
+    private final SleRule[] rules;
+    private final Node[] roots;
+    private final boolean[] broken;
+    private final ArrayList<String> errorsMetrics = new ArrayList<>();
+    private int brokenCount;
+
+    /**
+     * @param rules - rules to check
+     * @param hdrFactor - factor of histogram values to ms
+     * @param targetRate - step target rate, base for relative throughput rules
+     */
+    public SleEngine(SleRule[] rules, double hdrFactor, double targetRate) {
+        this.rules = rules;
+        this.roots = new Node[rules.length];
+        this.broken = new boolean[rules.length];
+        for (int i = 0; i < rules.length; i++) {
+            roots[i] = createNode(rules[i], hdrFactor, targetRate);
+        }
+    }
+
+    /**
+     * @return errors metric names, errors counts passed to add are in this order
+     */
+    public String[] errorsMetrics() {
+        return errorsMetrics.toArray(new String[0]);
+    }
+
+    /**
+     * @param histogram - operations interval histogram, can be null when there are only errors in the interval
+     * @param errors - errors counts of the interval by errorsMetrics
+     * @return false if all rules are broken and there is no need in the next intervals
+     */
+    public boolean add(long startTimeStamp, long endTimeStamp, AbstractHistogram histogram, long[] errors) {
+        for (int i = 0; i < roots.length; i++) {
+            if (!broken[i] && !roots[i].add(startTimeStamp, endTimeStamp, histogram, errors)) {
+                broken[i] = true;
+                brokenCount++;
+            }
+        }
+        return brokenCount < roots.length;
+    }
+
+    public boolean isBroken(int i) {
+        return broken[i];
+    }
+
+    public List<SleRule> brokenRules() {
+        ArrayList<SleRule> list = new ArrayList<>();
+        for (int i = 0; i < rules.length; i++) {
+            if (broken[i]) {
+                list.add(rules[i]);
+            }
+        }
+        return list;
+    }
+
+    protected Node createNode(SleRule rule, double hdrFactor, double targetRate) {
+        switch (rule.type()) {
+        case PERCENTILE:
+            return new PercentileNode(rule, hdrFactor);
+        case ERROR_RATE:
+            String metric = rule.errorsMetricName();
+            if (!errorsMetrics.contains(metric)) {
+                errorsMetrics.add(metric);
+            }
+            return new ErrorRateNode(rule, errorsMetrics.indexOf(metric));
+        case THROUGHPUT:
+            return new ThroughputNode(rule, targetRate);
+        default:
+            Node[] children = new Node[rule.rules.length];
+            for (int i = 0; i < children.length; i++) {
+                children[i] = createNode(rule.rules[i], hdrFactor, targetRate);
+            }
+            return new CompositeNode(rule, children);
+        }
+    }
+
+    abstract static class Node {
+        final SleRule rule;
+        final ArrayDeque<Long> violations = new ArrayDeque<>();
+        final long movingWindowMs;
+        final long budgetWindowMs;
+        long lastViolation = Long.MIN_VALUE;
+
+        Node(SleRule rule) {
+            this.rule = rule;
+            this.movingWindowMs = rule.movingWindow * 1000L;
+            this.budgetWindowMs = rule.budgetWindow * 1000L;
+        }
+
+        /**
+         * @return true if the rule holds in the moving window ending with the interval
+         */
+        abstract boolean check(long startTimeStamp, long endTimeStamp, AbstractHistogram histogram, long[] errors);
+
+        /**
+         * @return true if the rule holds in the moving window or its violation fits the budget
+         */
+        boolean add(long startTimeStamp, long endTimeStamp, AbstractHistogram histogram, long[] errors) {
+            if (check(startTimeStamp, endTimeStamp, histogram, errors)) {
+                return true;
+            }
+            if (lastViolation == Long.MIN_VALUE || endTimeStamp - lastViolation >= movingWindowMs) {
+                lastViolation = endTimeStamp;
+                violations.add(endTimeStamp);
+            }
+            while (!violations.isEmpty() && violations.peek() <= endTimeStamp - budgetWindowMs) {
+                violations.remove();
+            }
+            return violations.size() <= rule.budget;
+        }
+    }
+
+    static class PercentileNode extends Node {
+        final MovingWindowHistogram mwHistogram;
+
+        PercentileNode(SleRule rule, double hdrFactor) {
+            super(rule);
+            mwHistogram = new MovingWindowHistogram(new MovingWindowSLE(rule.percentile, rule.maxValue, rule.movingWindow), hdrFactor);
+        }
+
+        @Override
+        boolean check(long startTimeStamp, long endTimeStamp, AbstractHistogram histogram, long[] errors) {
+            if (histogram != null) {
+                mwHistogram.add(histogram);
+            }
+            return mwHistogram.checkSLE();
+        }
+    }
+
+    static class ErrorRateNode extends Node {
+        final MovingWindowCounts counts;
+        final int errorsIndex;
+
+        ErrorRateNode(SleRule rule, int errorsIndex) {
+            super(rule);
+            this.counts = new MovingWindowCounts(rule.movingWindow);
+            this.errorsIndex = errorsIndex;
+        }
+
+        @Override
+        boolean check(long startTimeStamp, long endTimeStamp, AbstractHistogram histogram, long[] errors) {
+            counts.add(startTimeStamp, endTimeStamp, HdrResult.totalCount(histogram), errors[errorsIndex]);
+            return counts.getErrorRate() <= rule.maxErrorRate;
+        }
+    }
+
+    static class ThroughputNode extends Node {
+        final MovingWindowCounts counts;
+        final double minRate;
+
+        ThroughputNode(SleRule rule, double targetRate) {
+            super(rule);
+            this.counts = new MovingWindowCounts(rule.movingWindow);
+            this.minRate = rule.isRelativeRate() && targetRate <= 0 ? 0 : rule.minRate(targetRate);
+        }
+
+        @Override
+        boolean check(long startTimeStamp, long endTimeStamp, AbstractHistogram histogram, long[] errors) {
+            counts.add(startTimeStamp, endTimeStamp, HdrResult.totalCount(histogram), 0);
+            return counts.getOkRate() >= minRate;
+        }
+    }
+
+    static class CompositeNode extends Node {
+        final Node[] children;
+        final boolean all;
+
+        CompositeNode(SleRule rule, Node[] children) {
+            super(rule);
+            this.children = children;
+            this.all = rule.type() == SleRule.Type.ALL;
+        }
+
+        @Override
+        boolean check(long startTimeStamp, long endTimeStamp, AbstractHistogram histogram, long[] errors) {
+            // every child gets every interval to keep its moving window complete
+            int holds = 0;
+            for (Node child : children) {
+                if (child.add(startTimeStamp, endTimeStamp, histogram, errors)) {
+                    holds++;
+                }
+            }
+            return all ? holds == children.length : holds > 0;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2021-2023, Azul Systems
+ * 
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * 
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * 
+ * * Neither the name of [project] nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+
+package org.tussleframework.metrics;
+
+import static org.tussleframework.tools.FormatTool.format;
+import static org.tussleframework.tools.FormatTool.parseValue;
+
+import java.util.Locale;
+
+import org.tussleframework.ErrorCategory;
+
+/**
+ * SLE rule checked in moving windows: percentile value limit, error rate limit, min throughput,
+ * or composition of sub-rules where all (AND) or any (OR) of them must hold in each interval.
+ * Violations of a rule can be allowed by budget, e.g. 'except for 2 periods per hour' is budget 2 per budgetWindow 3600.
+ */
+public class SleRule implements ServiceLevelExpectation {
+
+    public enum Type {
+        PERCENTILE,
+        ERROR_RATE,
+        THROUGHPUT,
+        ALL,
+        ANY;
+
+        public static Type parse(String s) {
+            String name = s.trim().replace("-", "").replace("_", "");
+            for (Type type : values()) {
+                if (type.name().replace("_", "").equalsIgnoreCase(name)) {
+                    return type;
+                }
+            }
+            throw new IllegalArgumentException(String.format("Invalid SLE rule type(%s) - should be one of percentile, errorRate, throughput, all, any", s));
+        }
+    }
+
+    public String name = "";            // rule name used in metric names, generated when empty
+    public String type = "percentile";  // percentile, errorRate, throughput, all (every sub-rule holds), any (at least one sub-rule holds)
+    public double percentile;           // percentile rule: percentile
+    public double maxValue;             // percentile rule: max value in ms
+    public double maxErrorRate;         // errorRate rule: max percent of failed operations
+    public String category = "";        // errorRate rule: error category, empty - all errors
+    public String minRate = "";         // throughput rule: min rate of successful operations, absolute (10k) or percent of step's target rate (90%)
+    public int movingWindow = 10;       // in seconds
+    public int budget;                  // number of allowed violations per budgetWindow, overlapping violated windows count once
+    public int budgetWindow = 3600;     // in seconds
+    public SleRule[] rules = {};        // all/any rule: sub-rules
+
+    public Type type() {
+        return Type.parse(type);
+    }
+
+    public boolean isAllErrors() {
+        return category == null || category.isEmpty();
+    }
+
+    /**
+     * @return name of the errors metric an errorRate rule is checked against
+     */
+    public String errorsMetricName() {
+        return isAllErrors() ? ErrorCategory.ERRORS : ErrorCategory.parse(category).metricName();
+    }
+
+    public boolean isRelativeRate() {
+        return minRate.trim().endsWith("%");
+    }
+
+    /**
+     * @return min rate of successful operations per second for the given step target rate
+     */
+    public double minRate(double targetRate) {
+        String rate = minRate.trim();
+        if (isRelativeRate()) {
+            return parseValue(rate.substring(0, rate.length() - 1)) * targetRate / 100.0;
+        }
+        return parseValue(rate);
+    }
+
+    public void validate() {
+        Type t = type();
+        if (movingWindow <= 0) {
+            throw new IllegalArgumentException(String.format("Invalid movingWindow(%d) - should be positive", movingWindow));
+        }
+        if (budget < 0) {
+            throw new IllegalArgumentException(String.format("Invalid budget(%d) - should be non-negative", budget));
+        }
+        if (budget > 0 && budgetWindow < movingWindow) {
+            throw new IllegalArgumentException(String.format("Invalid budgetWindow(%d) - should not be less than movingWindow(%d)", budgetWindow, movingWindow));
+        }
+        if (t == Type.PERCENTILE && (percentile < 0 || percentile > 100)) {
+            throw new IllegalArgumentException(String.format("Invalid percentile(%s) - should be in [0, 100] range", percentile));
+        }
+        if (t == Type.ERROR_RATE) {
+            if (maxErrorRate < 0 || maxErrorRate > 100) {
+                throw new IllegalArgumentException(String.format("Invalid maxErrorRate(%s) - should be in [0, 100] range", maxErrorRate));
+            }
+            if (!isAllErrors()) {
+                ErrorCategory.parse(category);
+            }
+        }
+        if (t == Type.THROUGHPUT) {
+            if (minRate == null || minRate.trim().isEmpty()) {
+                throw new IllegalArgumentException("Missing minRate in throughput SLE rule");
+            }
+            minRate(0);
+        }
+        if (t == Type.ALL || t == Type.ANY) {
+            if (rules == null || rules.length == 0) {
+                throw new IllegalArgumentException(String.format("Missing sub-rules in %s SLE rule", type));
+            }
+            for (SleRule rule : rules) {
+                rule.validate();
+            }
+        }
+    }
+
+    @Override
+    public double markerValue() {
+        switch (type()) {
+        case PERCENTILE:
+            return maxValue;
+        case ERROR_RATE:
+            return maxErrorRate;
+        default:
+            return 0;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "rule " + longName();
+    }
+
+    // Format:
+    // p99-sle10ms-mw10s, errors-timeout-le1%-mw10s, rate-ge90%-mw10s, all-p99-sle10ms-mw10s-and-rate-ge10k-mw10s,
+    // budget suffix: p99-sle10ms-mw10s-b2per3600s
+    @Override
+    public String longName() {
+        if (name != null && !name.isEmpty()) {
+            return name;
+        }
+        Type t = type();
+        String window = t == Type.ALL || t == Type.ANY ? "" : "-mw" + movingWindow + "s";
+        return shortName() + window + (budget > 0 ? "-b" + budget + "per" + budgetWindow + "s" : "");
+    }
+
+    // Format:
+    // p99-sle10ms, errors-timeout-le1%, rate-ge90%, all-p99-sle10ms-mw10s-and-rate-ge10k-mw10s
+    @Override
+    public String markerName() {
+        if (name != null && !name.isEmpty()) {
+            return name;
+        }
+        return shortName();
+    }
+
+    protected String shortName() {
+        switch (type()) {
+        case PERCENTILE:
+            return "p" + format(percentile) + "-sle" + format(maxValue) + "ms";
+        case ERROR_RATE:
+            return errorsMetricName() + "-le" + format(maxErrorRate) + "%";
+        case THROUGHPUT:
+            return "rate-ge" + minRate.trim().toLowerCase(Locale.ROOT);
+        default:
+            StringBuilder sb = new StringBuilder(type().name().toLowerCase(Locale.ROOT));
+            for (int i = 0; i < rules.length; i++) {
+                sb.append(i == 0 ? "-" : type() == Type.ALL ? "-and-" : "-or-").append(rules[i].longName());
+            }
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2021-2023, Azul Systems
+ * 
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * 
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * 
+ * * Neither the name of [project] nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+
+package org.tussleframework.metrics;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.TimerTask;
+
+import org.tussleframework.RunArgs;
+import org.tussleframework.tools.FormatTool;
+import org.tussleframework.tools.LoggerTool;
+
+/**
+ * Base periodic sampler which appends one CSV row per timer tick to a stats file in histograms dir.
+ * Rows are formatted into a reused byte buffer, subclasses read their counters in readValues,
+ * write columns in putValues and remember counters for the next delta in storeValues.
+ */
+public abstract class StatsSampler extends TimerTask {
+
+    public static String formatFileName(String prefix, RunArgs runArgs) {
+        return String.format("%s_%s_%s_%d.csv", prefix, FormatTool.roundFormatPercent(runArgs.ratePercent), FormatTool.format(runArgs.targetRate), runArgs.runStep);
+    }
+
+    private final File outFile;
+    private final String[] columns;
+    private final RunArgs runArgs;
+    private final int interval;
+    private final byte[] row = new byte[512];
+    private int rowLen;
+    private long prevTime;
+    private OutputStream out;
+
+    protected StatsSampler(String prefix, String[] columns, String outDir, RunArgs runArgs, int interval) {
+        this.outFile = new File(outDir, formatFileName(prefix, runArgs));
+        this.columns = columns;
+        this.runArgs = runArgs;
+        this.interval = interval;
+    }
+
+    public File getOutFile() {
+        return outFile;
+    }
+
+    public synchronized void start(long startTime) throws IOException {
+        out = new FileOutputStream(outFile);
+        String header = String.format("# targetRate: %s, ratePercent: %s, step: %d, start: %d, interval: %d%n%s%n",
+                FormatTool.format(runArgs.targetRate),
+                FormatTool.format(runArgs.ratePercent),
+                runArgs.runStep,
+                startTime,
+                interval,
+                String.join(",", columns));
+        out.write(header.getBytes(StandardCharsets.US_ASCII));
+        readValues();
+        storeValues();
+        prevTime = startTime;
+    }
+
+    @Override
+    public synchronized void run() {
+        if (out == null) {
+            return;
+        }
+        long time = System.currentTimeMillis();
+        readValues();
+        rowLen = 0;
+        putLong(time);
+        putValues(Math.max(time - prevTime, 1) / 1000.0);
+        putByte('\n');
+        try {
+            out.write(row, 0, rowLen);
+            out.flush();
+        } catch (IOException e) {
+            LoggerTool.logException(null, e);
+            closeOut();
+        }
+        storeValues();
+        prevTime = time;
+    }
+
+    @Override
+    public synchronized boolean cancel() {
+        boolean result = super.cancel();
+        closeOut();
+        return result;
+    }
+
+    private void closeOut() {
+        OutputStream o = out;
+        out = null;
+        if (o != null) {
+            try {
+                o.close();
+            } catch (IOException e) {
+                ///
+            }
+        }
+    }
+
+    protected abstract void readValues();
+
+    protected abstract void putValues(double timeSec);
+
+    protected abstract void storeValues();
+
+    protected void putByte(char c) {
+        row[rowLen++] = (byte) c;
+    }
+
+    protected void putLong(long value) {
+        if (value < 0) {
+            putByte('-');
+            value = -value;
+        }
+        int start = rowLen;
+        do {
+            row[rowLen++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+        for (int i = start, j = rowLen - 1; i < j; i++, j--) {
+            byte b = row[i];
+            row[i] = row[j];
+            row[j] = b;
+        }
+    }
+
+    /**
+     * Writes ',' and value
+     */
+    protected void putColumn(long value) {
+        putByte(',');
+        putLong(value);
+    }
+
+    /**
+     * Writes ',' and non-negative value with two decimal digits
+     */
+    protected void putFixed(double value) {
+        long hundredths = Math.round(Math.max(value, 0) * 100);
+        putByte(',');
+        putLong(hundredths / 100);
+        putByte('.');
+        putByte((char) ('0' + hundredths / 10 % 10));
+        putByte((char) ('0' + hundredths % 10));
+    }
+
+    protected void putPercent(long part, long total) {
+        putFixed(total > 0 ? 100.0 * part / total : 0);
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2021-2023, Azul Systems
+ * 
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * 
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * 
+ * * Neither the name of [project] nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+package org.tussleframework.metrics;
+
+import static org.tussleframework.Globals.*;
+import static org.tussleframework.tools.FormatTool.roundFormat;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.logging.Level;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.tussleframework.TimeRecorder;
+import org.tussleframework.TussleRuntimeException;
+
+/**
+ * Detects warmup convergence by watching per-interval throughput, p50 and p99:
+ * warmup is considered complete when all of them stay within the tolerance
+ * of their mean over the last stableIntervals intervals.
+ * 
+ * Records response time if intended start time is known, service time otherwise.
+ */
+public class WarmupDetector implements TimeRecorder {
+
+    private static final java.util.logging.Logger logger = java.util.logging.Logger.getLogger(WarmupDetector.class.getName());
+
+    public static void log(String format, Object... args) {
+        if (logger.isLoggable(Level.INFO)) {
+            logger.info(String.format("[%s] %s", WarmupDetector.class.getSimpleName(), String.format(format, args)));
+        }
+    }
+
+    static class Sample {
+        double rate;
+        double p50;
+        double p99;
+    }
+
+    private final Recorder recorder = new Recorder(Long.MAX_VALUE, 3);
+    private final Deque<Sample> samples = new ArrayDeque<>();
+    private final double tolerance;
+    private final int stableIntervals;
+    private final long latencyFloor;
+    private Histogram intervalHistogram;
+    private long lastSampleTime = System.nanoTime();
+
+    /**
+     * @param tolerance - allowed relative deviation from the mean, e.g. 0.1 for 10%
+     * @param stableIntervals - number of consecutive intervals to be compared
+     * @param latencyFloor - latency deviations below this absolute value (ns) are treated as noise
+     */
+    public WarmupDetector(double tolerance, int stableIntervals, long latencyFloor) {
+        this.tolerance = tolerance;
+        this.stableIntervals = stableIntervals;
+        this.latencyFloor = latencyFloor;
+    }
+
+    @Override
+    public void recordTimes(String operationName, long startTime, long intendedStartTime, long finishTime, long count, boolean success) {
+        if (!success) {
+            return;
+        }
+        long value = finishTime - (intendedStartTime > 0 ? intendedStartTime : startTime);
+        if (value >= 0) {
+            recorder.recordValueWithCount(value, count);
+        }
+    }
+
+    /**
+     * Takes interval sample of the recorded values, should be called periodically
+     *
+     * @return true if the last stableIntervals samples are stable
+     */
+    public boolean sample() {
+        long now = System.nanoTime();
+        intervalHistogram = recorder.getIntervalHistogram(intervalHistogram);
+        Sample sample = new Sample();
+        sample.rate = now > lastSampleTime ? intervalHistogram.getTotalCount() * (double) NS_IN_S / (now - lastSampleTime) : 0;
+        sample.p50 = intervalHistogram.getValueAtPercentile(50);
+        sample.p99 = intervalHistogram.getValueAtPercentile(99);
+        lastSampleTime = now;
+        samples.addLast(sample);
+        while (samples.size() > stableIntervals) {
+            samples.removeFirst();
+        }
+        log("rate %s op/s, p50 %s ms, p99 %s ms", roundFormat(sample.rate), roundFormat(sample.p50 / NS_IN_MS), roundFormat(sample.p99 / NS_IN_MS));
+        return isStable();
+    }
+
+    public boolean isStable() {
+        if (samples.size() < stableIntervals) {
+            return false;
+        }
+        if (samples.stream().anyMatch(s -> s.rate <= 0)) {
+            return false;
+        }
+        return isStable(samples.stream().mapToDouble(s -> s.rate).toArray(), 0)
+                && isStable(samples.stream().mapToDouble(s -> s.p50).toArray(), latencyFloor)
+                && isStable(samples.stream().mapToDouble(s -> s.p99).toArray(), latencyFloor);
+    }
+
+    private boolean isStable(double[] values, double floor) {
+        double mean = 0;
+        for (double v : values) {
+            mean += v;
+        }
+        mean /= values.length;
+        if (mean <= 0) {
+            return true;
+        }
+        for (double v : values) {
+            if (Math.abs(v - mean) > Math.max(tolerance * mean, floor)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void startRecording(String operationName, String rateUnits, String timeUnits) {
+        ///
+    }
+
+    @Override
+    public void stopRecording() {
+        ///
+    }
+
+    @Override
+    public void addResults(Collection<?> results, String rateUnits, String timeUnits) {
+        throw new TussleRuntimeException(getClass().getSimpleName() + " - method 'addResults' not supported");
+    }
+}
@@ -32,12 +32,13 @@
 
 package org.tussleframework.runners;
 
+import static org.tussleframework.Globals.MS_IN_S;
 import static org.tussleframework.tools.FormatTool.parseTimeLength;
 import static org.tussleframework.tools.FormatTool.parseValue;
 import static org.tussleframework.tools.FormatTool.roundFormat;
 
-import java.util.ArrayList;
 import java.util.Collection;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -49,6 +50,7 @@ import org.tussleframework.TussleException;
 import org.tussleframework.metrics.HdrResult;
 import org.tussleframework.metrics.HdrWriter;
 import org.tussleframework.metrics.ResultsRecorder;
+import org.tussleframework.metrics.RunClock;
 import org.tussleframework.tools.Analyzer;
 import org.tussleframework.tools.AnalyzerConfig;
 import org.tussleframework.tools.ConfigLoader;
@@ -66,7 +68,7 @@ public class BasicRunner implements Runner {
     }
 
     protected RunnerConfig runnerConfig;
-    protected Collection<HdrResult> collectedHdrResults = new ArrayList<>();
+    protected Collection<HdrResult> collectedHdrResults = new CopyOnWriteArrayList<>();
 
     public BasicRunner() {
     }
@@ -111,7 +113,12 @@ public class BasicRunner implements Runner {
         analyzerConfig.reportDir = runnerConfig.reportDir;
         analyzerConfig.highBound = runnerConfig.highBound;
         analyzerConfig.sleConfig = runnerConfig.sleConfig;
+        analyzerConfig.errorSleConfig = runnerConfig.errorSleConfig;
+        analyzerConfig.sleRules = runnerConfig.sleRules;
         analyzerConfig.makeReport = true;
+        if (runnerConfig instanceof BasicRunnerConfig) {
+            analyzerConfig.repetitionStats = ((BasicRunnerConfig) runnerConfig).repetitionStats;
+        }
         try {
             new Analyzer().processResults(analyzerConfig, collectedHdrResults);
         } catch (Exception e) {
@@ -147,6 +154,11 @@ public class BasicRunner implements Runner {
         String timeUnits = benchmark.getConfig().timeUnits;
         log("Benchmark run at %s...", runArgs.format(rateUnits));
         RunResult runResult = benchmark.run(runArgs.targetRate, runArgs.warmupTime, runArgs.runTime, recorder);
+        RunClock clock = recorder.getClock();
+        if (clock != null && clock.hasPhase() && runResult.count > 0) {
+            runResult.time = clock.getPhaseTimeMs();
+            runResult.actualRate = runResult.time > 0 ? runResult.count / ((double) runResult.time / MS_IN_S) : 0;
+        }
         Collection<HdrResult> newHdrResults = recorder.getHdrResults();
         if (!newHdrResults.isEmpty()) {
             if (collect) {
@@ -180,11 +192,14 @@ public class BasicRunner implements Runner {
         log("Results (step %d)", step + 1);
         log("Count: %d", runResult.getCount());
         log("Time: %s s", roundFormat(runResult.time / 1000d));
+        if (runResult.warmupTime > 0) {
+            log("Warmup: %s s", roundFormat(runResult.warmupTime / 1000d));
+        }
         log("Rate: %s %s", roundFormat(runResult.actualRate), runResult.getRateUnits());
         log("Errors: %d", runResult.getErrors());
     }
 
-    public void logResults() {
+    public synchronized void logResults() {
         collectedHdrResults.stream().filter(r -> r.getCount() > 0).forEach(result -> {
             log(result.formatTime());
             double[] percentiles = runnerConfig.logPercentiles;
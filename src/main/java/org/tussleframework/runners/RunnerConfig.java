@@ -35,7 +35,9 @@ package org.tussleframework.runners;
 import java.io.File;
 
 import org.tussleframework.HdrConfig;
+import org.tussleframework.metrics.ErrorRateSLE;
 import org.tussleframework.metrics.MovingWindowSLE;
+import org.tussleframework.metrics.SleRule;
 import org.tussleframework.tools.FileTool;
 import org.tussleframework.tools.FormatTool;
 
@@ -57,6 +59,12 @@ public class RunnerConfig extends HdrConfig {
     public String[] collectOps = {};        // if set collect metrics for only specified operations
     public double[] logPercentiles = { 0, 50, 90, 99, 99.9, 99.99, 100 };
     public MovingWindowSLE[] sleConfig = {};
+    public ErrorRateSLE[] errorSleConfig = {}; // error rate limits checked along with sleConfig, e.g. [{maxErrorRate: 1, movingWindow: 10, category: timeout}]
+    public SleRule[] sleRules = {};         // composite, throughput and budgeted SLE rules, e.g. [{type: all, rules: [{percentile: 99, maxValue: 10}, {type: throughput, minRate: 90%}]}]
+    public double scheduleLagBudget = 0;    // warn if p99 of load generator schedule lag in an hdr interval exceeds it (in time units), 0 - disabled
+    public boolean osStats = false;         // sample cpu, disk, network and process rss from /proc during each run (Linux only)
+    public boolean jvmStats = false;        // sample GC, heap, allocation, JIT and safepoint counters of the benchmark JVM during each run
+    public int statsInterval = 0;           // osStats and jvmStats sampling interval in milliseconds, 0 - same as hdrInterval
 
     @Override
     public void validate(boolean runMode) {
@@ -64,11 +72,41 @@ public class RunnerConfig extends HdrConfig {
         if (FormatTool.parseValue(highBound) < 0) {
             throw new IllegalArgumentException(String.format("Invalid highBound(%s) - should be non-negative", highBound));
         }
+        if (scheduleLagBudget < 0) {
+            throw new IllegalArgumentException(String.format("Invalid scheduleLagBudget(%s) - should be non-negative", scheduleLagBudget));
+        }
+        if (errorSleConfig != null) {
+            for (ErrorRateSLE sle : errorSleConfig) {
+                sle.validate();
+            }
+        }
+        if (sleRules != null) {
+            for (SleRule rule : sleRules) {
+                rule.validate();
+            }
+        }
+        if (statsInterval < 0) {
+            throw new IllegalArgumentException(String.format("Invalid statsInterval(%d) - should be non-negative", statsInterval));
+        }
         if (runMode) {
-            FileTool.backupAndCreateDir(new File(histogramsDir));
+            File dir = new File(histogramsDir);
+            if (keepHistogramsDir()) {
+                if (!dir.exists() && !dir.mkdirs()) {
+                    throw new IllegalArgumentException(String.format("Failed to create dir '%s'", dir));
+                }
+            } else {
+                FileTool.backupAndCreateDir(dir);
+            }
             if (makeReport) {
                 FileTool.backupAndCreateDir(new File(reportDir));;
             }
         }
     }
+
+    /**
+     * @return true if results of a previous run in histogramsDir should be kept, e.g. for resuming the run
+     */
+    protected boolean keepHistogramsDir() {
+        return false;
+    }
 }
@@ -37,13 +37,29 @@ import static org.tussleframework.tools.FormatTool.parseValue;
 import static org.tussleframework.tools.FormatTool.roundFormat;
 import static org.tussleframework.tools.FormatTool.withS;
 
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.tussleframework.Benchmark;
+import org.tussleframework.MultiInstanceBenchmark;
 import org.tussleframework.RunArgs;
 import org.tussleframework.RunResult;
 import org.tussleframework.TussleException;
+import org.tussleframework.metrics.HdrResult;
+import org.tussleframework.metrics.MetricInfo;
 import org.yaml.snakeyaml.Yaml;
 
 public class StepRater extends BasicRunner {
@@ -58,6 +74,8 @@ public class StepRater extends BasicRunner {
         }
     }
 
+    protected StepRaterCheckpoint checkpoint = new StepRaterCheckpoint();
+
     public StepRater() {
     }
 
@@ -133,13 +151,23 @@ public class StepRater extends BasicRunner {
 
     public void iterateRates(Benchmark benchmark, double highBound, double startingRatePercent, double finishingRatePercent, double ratePercentStep, int finerRateSteps) throws TussleException {
         log("Iterating target rates agains high-bound %s from %s%% to %s%% (d=%s%%)...", roundFormat(highBound), roundFormat(startingRatePercent), roundFormat(finishingRatePercent), roundFormat(ratePercentStep));
+        iterateRates(benchmark, highBound, startingRatePercent, finishingRatePercent, ratePercentStep, finerRateSteps, startingRatePercent, 0, false);
+    }
+
+    /**
+     * Iterates target rates starting from the given rate percent and retry counter, e.g. restored from a checkpoint
+     */
+    protected void iterateRates(Benchmark benchmark, double highBound, double startingRatePercent, double finishingRatePercent, double ratePercentStep, int finerRateSteps,
+            double ratePercent, int retry, boolean reachedFinishingRate) throws TussleException {
+        if (benchmark instanceof MultiInstanceBenchmark && ((MultiInstanceBenchmark) benchmark).getInstances() > 1) {
+            iterateRatesConcurrently((MultiInstanceBenchmark) benchmark, highBound, startingRatePercent, finishingRatePercent, ratePercentStep, finerRateSteps, ratePercent, retry, reachedFinishingRate);
+            return;
+        }
         StepRaterConfig runnerConfig = (StepRaterConfig) this.runnerConfig;
-        int retry = 0;
         int runTime = parseTimeLength(runnerConfig.runTime);
         int warmupTime = parseTimeLength(runnerConfig.warmupTime);
         String rateUnits = benchmark.getConfig().rateUnits;
-        double ratePercent = startingRatePercent;
-        boolean reachedFinishingRate = false;
+        saveCheckpoint(null, highBound, startingRatePercent, finishingRatePercent, ratePercentStep, finerRateSteps, ratePercent, retry, reachedFinishingRate);
         while (!reachedFinishingRate) {
             double targetRate = (highBound * ratePercent) / 100.0;
             RunArgs runArgs = new RunArgs(targetRate, ratePercent, warmupTime, runTime, retry, "");
@@ -165,6 +193,129 @@ public class StepRater extends BasicRunner {
                 retry = 0;
                 ratePercent += ratePercentStep;
             }
+            saveCheckpoint(runArgs, highBound, startingRatePercent, finishingRatePercent, ratePercentStep, finerRateSteps, ratePercent, retry, reachedFinishingRate);
+        }
+        if (finerRateSteps > 0 && ratePercentStep < ratePercent) {
+            double finerStartRate = ratePercent - ratePercentStep;
+            double finerFinishRate = ratePercent;
+            double finerStep = (finerFinishRate - finerStartRate) / (finerRateSteps + 1);
+            log("Performing %s between %s%% and %s%% (d=%s%%)...", withS(finerRateSteps, "finer iteration"), roundFormat(finerStartRate), roundFormat(finerFinishRate), roundFormat(finerStep));
+            iterateRates(benchmark, highBound, finerStartRate + finerStep, finerFinishRate - finerStep, finerStep, 0);
+        }
+    }
+
+    /**
+     * Rate step running on a SUT instance
+     */
+    static class InstanceRun {
+        final int instance;
+        final RunArgs runArgs;
+
+        InstanceRun(int instance, RunArgs runArgs) {
+            this.instance = instance;
+            this.runArgs = runArgs;
+        }
+    }
+
+    /**
+     * Runs increasing target rates on free SUT instances at once, the same way as the sequential iteration:
+     * a failed rate is retried up to retriesMax times, its final failure stops dispatching higher rates.
+     * Results of higher rates which are already running are collected as well.
+     * Checkpoint keeps the lowest rate not completed yet, so resuming reruns the rates above it.
+     */
+    protected void iterateRatesConcurrently(MultiInstanceBenchmark benchmark, double highBound, double startingRatePercent, double finishingRatePercent, double ratePercentStep, int finerRateSteps,
+            double ratePercent, int retry, boolean reachedFinishingRate) throws TussleException {
+        StepRaterConfig runnerConfig = (StepRaterConfig) this.runnerConfig;
+        int runTime = parseTimeLength(runnerConfig.runTime);
+        int warmupTime = parseTimeLength(runnerConfig.warmupTime);
+        String rateUnits = benchmark.getConfig().rateUnits;
+        int instances = benchmark.getInstances();
+        log("Running rate steps on %s at once", withS(instances, "instance"));
+        saveCheckpoint(null, highBound, startingRatePercent, finishingRatePercent, ratePercentStep, finerRateSteps, ratePercent, retry, reachedFinishingRate);
+        Deque<Integer> freeInstances = new ArrayDeque<>();
+        for (int instance = 0; instance < instances; instance++) {
+            freeInstances.add(instance);
+        }
+        Deque<RunArgs> retries = new ArrayDeque<>();
+        Map<Future<RunResult>, InstanceRun> running = new HashMap<>();
+        double nextRatePercent = ratePercent;
+        int nextRetry = retry;
+        double lastRatePercent = ratePercent;
+        double maxRatePercent = Double.MAX_VALUE;
+        boolean stopped = reachedFinishingRate;
+        boolean dispatchedFinishingRate = reachedFinishingRate;
+        ExecutorService executor = Executors.newFixedThreadPool(instances);
+        CompletionService<RunResult> completionService = new ExecutorCompletionService<>(executor);
+        try {
+            while (true) {
+                while (!stopped && !freeInstances.isEmpty()) {
+                    RunArgs runArgs = retries.poll();
+                    if (runArgs == null) {
+                        if (dispatchedFinishingRate || nextRatePercent >= maxRatePercent) {
+                            break;
+                        }
+                        runArgs = new RunArgs((highBound * nextRatePercent) / 100.0, nextRatePercent, warmupTime, runTime, nextRetry, "");
+                        dispatchedFinishingRate = nextRatePercent >= finishingRatePercent;
+                        lastRatePercent = nextRatePercent;
+                        nextRatePercent += ratePercentStep;
+                        nextRetry = 0;
+                    }
+                    int instance = freeInstances.poll();
+                    RunArgs instanceRunArgs = runArgs;
+                    log("Iteration run (instance %d): %s", instance, instanceRunArgs);
+                    Future<RunResult> future = completionService.submit(() -> runOnce(benchmark.instance(instance), instanceRunArgs, true, runnerConfig.resetEachStep));
+                    running.put(future, new InstanceRun(instance, instanceRunArgs));
+                }
+                if (running.isEmpty()) {
+                    break;
+                }
+                Future<RunResult> future = completionService.take();
+                InstanceRun instanceRun = running.remove(future);
+                freeInstances.add(instanceRun.instance);
+                RunArgs runArgs = instanceRun.runArgs;
+                RunResult result = getResult(future);
+                log("Iteration result (instance %d): %s", instanceRun.instance, result);
+                if (result == null) {
+                    stopped = true;
+                    finerRateSteps = 0;
+                } else if (result.actualRate * runnerConfig.rateFactor <= runArgs.targetRate && runArgs.ratePercent < maxRatePercent) {
+                    if (runArgs.runStep < runnerConfig.retriesMax) {
+                        log("Retrying rate %s %s", roundFormat(runArgs.targetRate), rateUnits);
+                        retries.addFirst(new RunArgs(runArgs.targetRate, runArgs.ratePercent, warmupTime, runTime, runArgs.runStep + 1, ""));
+                    } else {
+                        maxRatePercent = runArgs.ratePercent;
+                        double maxRate = maxRatePercent;
+                        retries.removeIf(r -> r.ratePercent >= maxRate);
+                        log("Max rate found: %s %s", roundFormat(runArgs.targetRate), rateUnits);
+                    }
+                }
+                RunArgs pending = null;
+                for (InstanceRun r : running.values()) {
+                    pending = lowerRate(pending, r.runArgs);
+                }
+                for (RunArgs r : retries) {
+                    pending = lowerRate(pending, r);
+                }
+                if (!stopped && !dispatchedFinishingRate && nextRatePercent < maxRatePercent) {
+                    pending = lowerRate(pending, new RunArgs(0, nextRatePercent, 0, 0, nextRetry, ""));
+                }
+                if (pending != null) {
+                    saveCheckpoint(runArgs, highBound, startingRatePercent, finishingRatePercent, ratePercentStep, finerRateSteps, pending.ratePercent, pending.runStep, false);
+                } else {
+                    ratePercent = maxRatePercent < Double.MAX_VALUE ? maxRatePercent : lastRatePercent;
+                    saveCheckpoint(runArgs, highBound, startingRatePercent, finishingRatePercent, ratePercentStep, finerRateSteps, ratePercent, 0, true);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TussleException(e);
+        } finally {
+            executor.shutdownNow();
+        }
+        if (maxRatePercent < Double.MAX_VALUE) {
+            log("Stopped iterating (high-bound: %s) - max rate found at %s%%", roundFormat(highBound), roundFormat(maxRatePercent));
+        } else if (!reachedFinishingRate && !stopped) {
+            log("Stopped iterating (high-bound: %s, current ratePercent: %s%%) - reached finishing rate: %s", roundFormat(highBound), roundFormat(ratePercent), roundFormat(finishingRatePercent));
         }
         if (finerRateSteps > 0 && ratePercentStep < ratePercent) {
             double finerStartRate = ratePercent - ratePercentStep;
@@ -175,12 +326,78 @@ public class StepRater extends BasicRunner {
         }
     }
 
+    private static RunArgs lowerRate(RunArgs a, RunArgs b) {
+        return a == null || b.ratePercent < a.ratePercent ? b : a;
+    }
+
+    private static RunResult getResult(Future<RunResult> future) throws TussleException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof TussleException) {
+                throw (TussleException) e.getCause();
+            }
+            throw new TussleException(e);
+        }
+    }
+
+    /**
+     * Saves the sweep progress to histogramsDir, ratePercent and retry are of the next step
+     *
+     * @param runArgs - completed step, null if there is no new completed step
+     */
+    protected void saveCheckpoint(RunArgs runArgs, double highBound, double startingRatePercent, double finishingRatePercent, double ratePercentStep, int finerRateSteps,
+            double ratePercent, int retry, boolean reachedFinishingRate) throws TussleException {
+        checkpoint.highBound = highBound;
+        checkpoint.startingRatePercent = startingRatePercent;
+        checkpoint.finishingRatePercent = finishingRatePercent;
+        checkpoint.rateStepPercent = ratePercentStep;
+        checkpoint.finerRateSteps = finerRateSteps;
+        checkpoint.ratePercent = ratePercent;
+        checkpoint.retry = retry;
+        checkpoint.reachedFinishingRate = reachedFinishingRate;
+        if (runArgs != null) {
+            checkpoint.completedRuns.add(runArgs);
+        }
+        checkpoint.hdrFiles.clear();
+        collectedHdrResults.forEach(hdrResult -> checkpoint.hdrFiles.add(hdrResult.hdrFile()));
+        checkpoint.save(runnerConfig.histogramsDir);
+    }
+
+    /**
+     * Restores results collected by the interrupted sweep
+     *
+     * @return checkpoint or null if there is nothing to resume
+     */
+    protected StepRaterCheckpoint resume() throws TussleException {
+        StepRaterCheckpoint resumed = StepRaterCheckpoint.load(runnerConfig.histogramsDir);
+        if (resumed == null) {
+            log("No checkpoint found in '%s', starting from scratch", runnerConfig.histogramsDir);
+            return null;
+        }
+        Set<String> rerunSuffixes = new HashSet<>();
+        resumed.completedRuns.removeIf(runArgs -> resumed.isRerun(runArgs) && rerunSuffixes.add(MetricInfo.formatStepSuffix(runArgs, "hlog")));
+        for (String hdrFile : resumed.hdrFiles) {
+            if (rerunSuffixes.stream().anyMatch(hdrFile::endsWith)) {
+                log("Skipped result file '%s' of the step to be run again", hdrFile);
+            } else if (new File(hdrFile).exists()) {
+                collectedHdrResults.add(new HdrResult(hdrFile, runnerConfig));
+            } else {
+                log("Skipped missing result file '%s'", hdrFile);
+            }
+        }
+        log("Resuming from checkpoint: high-bound %s, %s completed, next rate %s%% (retry %d)", roundFormat(resumed.highBound), withS(resumed.completedRuns.size(), "step"),
+                roundFormat(resumed.ratePercent), resumed.retry);
+        checkpoint = resumed;
+        return resumed;
+    }
+
     /**
      * 
      * StepRater workflow:
      * 
      *  startup warmup
-     *  find high bound
+     *  find high bound (or take it from checkpoint when resuming)
      *  iterate target rates:
      *    target 1: [warmup][run] -> result 1
      *    target 2: [warmup][run] -> result 2
@@ -198,6 +415,7 @@ public class StepRater extends BasicRunner {
         StepRaterConfig runnerConfig = (StepRaterConfig) this.runnerConfig;
         log("Benchmark config: %s", new Yaml().dump(benchmark.getConfig()).trim());
         log("Runner config: %s", new Yaml().dump(runnerConfig).trim());
+        StepRaterCheckpoint resumed = runnerConfig.resume ? resume() : null;
         log("First benchmark reset...");
         benchmark.reset();
         int initialWarmupTime = parseTimeLength(runnerConfig.initialWarmupTime);
@@ -208,7 +426,10 @@ public class StepRater extends BasicRunner {
             runOnce(benchmark, new RunArgs(initialTargetRate, 0.0, initialWarmupTime, initialRunTime, 0, "initial_warmup"), false, false);
         }
         double highBound = parseValue(runnerConfig.highBound);
-        if (highBound == 0 || runnerConfig.highBoundOnly) {
+        if (resumed != null && resumed.highBound > 0) {
+            highBound = resumed.highBound;
+            log("High-bound from checkpoint %s op/s", roundFormat(highBound));
+        } else if (highBound == 0 || runnerConfig.highBoundOnly) {
             if (runnerConfig.highBoundFromMaxRate) {
                 highBound = highBoundFromMaxRate(benchmark);
             } else {
@@ -223,7 +444,12 @@ public class StepRater extends BasicRunner {
         }
         runnerConfig.highBound = roundFormat(highBound);
         if (highBound > 0) {
-            iterateRates(benchmark, highBound, runnerConfig.startingRatePercent, runnerConfig.finishingRatePercent, runnerConfig.rateStepPercent, runnerConfig.finerRateSteps);
+            if (resumed != null && resumed.highBound > 0) {
+                iterateRates(benchmark, highBound, resumed.startingRatePercent, resumed.finishingRatePercent, resumed.rateStepPercent, resumed.finerRateSteps,
+                        resumed.ratePercent, resumed.retry, resumed.reachedFinishingRate);
+            } else {
+                iterateRates(benchmark, highBound, runnerConfig.startingRatePercent, runnerConfig.finishingRatePercent, runnerConfig.rateStepPercent, runnerConfig.finerRateSteps);
+            }
             if (runnerConfig.makeReport) {
                 report();
             }
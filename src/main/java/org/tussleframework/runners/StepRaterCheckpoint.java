@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2021-2023, Azul Systems
+ * 
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * 
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * 
+ * * Neither the name of [project] nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+
+package org.tussleframework.runners;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+
+import org.tussleframework.RunArgs;
+import org.tussleframework.TussleException;
+import org.tussleframework.tools.JsonTool;
+
+/**
+ * StepRater progress saved to histogramsDir after each step, used for resuming an interrupted sweep
+ */
+public class StepRaterCheckpoint {
+    public static final String FILE_NAME = "steprater-checkpoint.json";
+    static final double RATE_EPS = 1e-6;
+
+    public double highBound;
+    public double startingRatePercent;  // current iteration, finer iteration has its own range
+    public double finishingRatePercent;
+    public double rateStepPercent;
+    public int finerRateSteps;
+    public double ratePercent;          // next rate percent to run
+    public int retry;                   // retry counter of the next rate
+    public boolean reachedFinishingRate; // current iteration is done, finer iteration (if any) is next
+    public ArrayList<RunArgs> completedRuns = new ArrayList<>();
+    public ArrayList<String> hdrFiles = new ArrayList<>();
+
+    /**
+     * Steps of the current iteration at or above the next step can be completed by concurrent iteration
+     * ahead of the lower ones, they are run again on resume
+     *
+     * @return true if the completed step is run again on resume
+     */
+    public boolean isRerun(RunArgs runArgs) {
+        if (reachedFinishingRate || runArgs.ratePercent >= finishingRatePercent + rateStepPercent - RATE_EPS) {
+            return false;
+        }
+        return runArgs.ratePercent > ratePercent || runArgs.ratePercent == ratePercent && runArgs.runStep >= retry;
+    }
+
+    public static File file(String histogramsDir) {
+        return new File(histogramsDir, FILE_NAME);
+    }
+
+    /**
+     * @return saved checkpoint or null if there is no checkpoint in histogramsDir
+     */
+    public static StepRaterCheckpoint load(String histogramsDir) throws TussleException {
+        File file = file(histogramsDir);
+        if (!file.exists()) {
+            return null;
+        }
+        try (FileInputStream in = new FileInputStream(file)) {
+            return JsonTool.readJson(in, StepRaterCheckpoint.class, false, false);
+        } catch (IOException e) {
+            throw new TussleException(e);
+        }
+    }
+
+    public void save(String histogramsDir) throws TussleException {
+        File file = file(histogramsDir);
+        File tmpFile = new File(histogramsDir, FILE_NAME + ".tmp");
+        JsonTool.printJson(this, tmpFile.getAbsolutePath());
+        if (!tmpFile.renameTo(file)) {
+            throw new TussleException(String.format("Failed to save checkpoint '%s'", file));
+        }
+    }
+}
@@ -60,6 +60,7 @@ public class StepRaterConfig extends BasicRunnerConfig {
     public String initialRunTime = "1m";
     public String initialTargetRate = "1k";
     public int[] highBoundSteps = { 20000, 10000, 5000, 1000 };
+    public boolean resume = false;          // continue an interrupted sweep from the checkpoint in histogramsDir keeping its results
 
     @Override
     public void validate(boolean runMode) {
@@ -109,4 +110,9 @@ public class StepRaterConfig extends BasicRunnerConfig {
         }
         return runnerConfig;
     }
+
+    @Override
+    protected boolean keepHistogramsDir() {
+        return resume;
+    }
 }
@@ -0,0 +1,291 @@
+/*
+ * Copyright (c) 2021-2023, Azul Systems
+ * 
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * 
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * 
+ * * Neither the name of [project] nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+
+package org.tussleframework.tools;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+
+import org.HdrHistogram.Histogram;
+import org.tussleframework.TussleException;
+import org.tussleframework.metrics.HdrResult;
+import org.tussleframework.metrics.Metric;
+import org.tussleframework.metrics.MetricData;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Per-file analysis state kept between Analyzer runs for incremental re-analysis:
+ * 
+ *  - for each hlog file: its size and modification time, prime histogram, records count,
+ *    metrics made from the file and SLE verdicts,
+ *  - for each operation and metric group: metrics made by processOperationResults and signature of the group files.
+ * 
+ * The index is stored as a JSON blob followed by all cached metrics in MetricsStore format.
+ * Cache made with different analysis settings is discarded.
+ */
+public class AnalysisCache {
+
+    private static final java.util.logging.Logger logger = java.util.logging.Logger.getLogger(AnalysisCache.class.getName());
+
+    public static final String FILE_NAME = "analysis-cache.bin";
+    private static final int MAGIC = 0x54414331; // TAC1
+
+    public static class FileEntry {
+        public String signature;
+        public int recordsCount;
+        public long primeStart;
+        public long primeFinish;
+        public byte[] primeHistogram;
+        public int primeMetric = -1;    // index of the prime interval metric in the file metrics
+        public int metricsCount;
+        public HashMap<String, Boolean> verdicts = new HashMap<>();
+    }
+
+    public static class GroupEntry {
+        public String signature;
+        public int metricsCount;
+    }
+
+    public static class Index {
+        public String fingerprint;
+        public LinkedHashMap<String, FileEntry> files = new LinkedHashMap<>();
+        public LinkedHashMap<String, GroupEntry> groups = new LinkedHashMap<>();
+    }
+
+    private final File file;
+    private final String fingerprint;
+    private final Index index = new Index();
+    private final HashMap<String, List<Metric>> fileMetrics = new HashMap<>();
+    private final HashMap<String, List<Metric>> groupMetrics = new HashMap<>();
+    private final HashSet<String> usedFiles = new HashSet<>();
+    private final HashSet<String> usedGroups = new HashSet<>();
+
+    public static void log(String format, Object... args) {
+        if (logger.isLoggable(Level.INFO)) {
+            logger.info(String.format("[%s] %s", AnalysisCache.class.getSimpleName(), String.format(format, args)));
+        }
+    }
+
+    /**
+     * @param fingerprint - analysis settings the cached state depends on
+     */
+    public AnalysisCache(File file, String fingerprint) {
+        this.file = file;
+        this.fingerprint = fingerprint;
+        index.fingerprint = fingerprint;
+    }
+
+    /**
+     * @return size and modification time of a regular file, null for files which can't be cached (archive entries, pipes)
+     */
+    public static String signature(String fileName) {
+        File f = new File(fileName);
+        return f.isFile() ? f.length() + ":" + f.lastModified() : null;
+    }
+
+    public void load() {
+        if (!file.exists()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC) {
+                throw new TussleException("Not an analysis cache file");
+            }
+            byte[] indexBytes = new byte[in.readInt()];
+            in.readFully(indexBytes);
+            Index loaded = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false).readValue(indexBytes, Index.class);
+            if (!fingerprint.equals(loaded.fingerprint)) {
+                log("Analysis settings changed, discarded cache %s", file);
+                return;
+            }
+            List<Metric> metrics = MetricsStore.read(in).getMetrics();
+            int pos = 0;
+            for (Map.Entry<String, FileEntry> entry : loaded.files.entrySet()) {
+                fileMetrics.put(entry.getKey(), new ArrayList<>(metrics.subList(pos, pos + entry.getValue().metricsCount)));
+                pos += entry.getValue().metricsCount;
+            }
+            for (Map.Entry<String, GroupEntry> entry : loaded.groups.entrySet()) {
+                groupMetrics.put(entry.getKey(), new ArrayList<>(metrics.subList(pos, pos + entry.getValue().metricsCount)));
+                pos += entry.getValue().metricsCount;
+            }
+            index.files.putAll(loaded.files);
+            index.groups.putAll(loaded.groups);
+            log("Loaded %d files and %d groups from %s", index.files.size(), index.groups.size(), file);
+        } catch (Exception e) {
+            log("Failed to load cache %s: %s", file, e.toString());
+            index.files.clear();
+            index.groups.clear();
+            fileMetrics.clear();
+            groupMetrics.clear();
+        }
+    }
+
+    /**
+     * Saves entries of the files and groups used by this run, entries of removed files are dropped
+     */
+    public void save() throws TussleException {
+        Index saved = new Index();
+        saved.fingerprint = fingerprint;
+        MetricData metricData = new MetricData();
+        index.files.forEach((name, entry) -> {
+            if (usedFiles.contains(name)) {
+                saved.files.put(name, entry);
+                metricData.getMetrics().addAll(fileMetrics.get(name));
+            }
+        });
+        index.groups.forEach((name, entry) -> {
+            if (usedGroups.contains(name)) {
+                saved.groups.put(name, entry);
+                metricData.getMetrics().addAll(groupMetrics.get(name));
+            }
+        });
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+            byte[] indexBytes = new ObjectMapper().writeValueAsBytes(saved);
+            out.writeInt(MAGIC);
+            out.writeInt(indexBytes.length);
+            out.write(indexBytes);
+            MetricsStore.write(metricData, out);
+        } catch (IOException e) {
+            throw new TussleException(e);
+        }
+        log("Saved %d files and %d groups to %s", saved.files.size(), saved.groups.size(), file);
+    }
+
+    /**
+     * Restores the result from the cache if the file has not changed since it was cached
+     * 
+     * @return metrics made from the file or null if the file is not cached
+     */
+    public List<Metric> restore(HdrResult result) {
+        String name = result.hdrFile();
+        FileEntry entry = index.files.get(name);
+        String signature = signature(name);
+        if (entry == null || signature == null || !signature.equals(entry.signature)) {
+            return null;
+        }
+        Histogram primeHistogram;
+        try {
+            primeHistogram = Histogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(entry.primeHistogram), 0);
+        } catch (Exception e) {
+            log("Failed to decode cached histogram of %s: %s", name, e.toString());
+            return null;
+        }
+        primeHistogram.setStartTimeStamp(entry.primeStart);
+        primeHistogram.setEndTimeStamp(entry.primeFinish);
+        List<Metric> metrics = fileMetrics.get(name);
+        result.restore(entry.recordsCount, primeHistogram, entry.primeMetric >= 0 ? metrics.get(entry.primeMetric) : null);
+        usedFiles.add(name);
+        return metrics;
+    }
+
+    /**
+     * Caches the loaded result and metrics made from it, SLE verdicts are added later by putVerdict
+     */
+    public void put(HdrResult result, List<Metric> metrics) {
+        String name = result.hdrFile();
+        String signature = signature(name);
+        if (signature == null) {
+            return;
+        }
+        Histogram primeHistogram = result.getPrimeHistogram();
+        ByteBuffer buffer = ByteBuffer.allocate(primeHistogram.getNeededByteBufferCapacity());
+        int length = primeHistogram.encodeIntoCompressedByteBuffer(buffer);
+        FileEntry entry = new FileEntry();
+        entry.signature = signature;
+        entry.recordsCount = result.recordsCount();
+        entry.primeStart = primeHistogram.getStartTimeStamp();
+        entry.primeFinish = primeHistogram.getEndTimeStamp();
+        entry.primeHistogram = Arrays.copyOf(buffer.array(), length);
+        entry.primeMetric = metrics.indexOf(result.getPrimeResult().getMetric());
+        entry.metricsCount = metrics.size();
+        index.files.put(name, entry);
+        fileMetrics.put(name, new ArrayList<>(metrics));
+        usedFiles.add(name);
+    }
+
+    /**
+     * @return cached SLE verdict for the result file or null if it was not checked yet
+     */
+    public Boolean getVerdict(HdrResult result, String key) {
+        FileEntry entry = usedFiles.contains(result.hdrFile()) ? index.files.get(result.hdrFile()) : null;
+        return entry != null && key != null ? entry.verdicts.get(key) : null;
+    }
+
+    public void putVerdict(HdrResult result, String key, boolean verdict) {
+        FileEntry entry = usedFiles.contains(result.hdrFile()) ? index.files.get(result.hdrFile()) : null;
+        if (entry != null && key != null) {
+            entry.verdicts.put(key, verdict);
+        }
+    }
+
+    /**
+     * @return cached metrics of the group or null if the group files have changed
+     */
+    public List<Metric> getGroup(String name, String signature) {
+        GroupEntry entry = index.groups.get(name);
+        if (entry == null || signature == null || !signature.equals(entry.signature)) {
+            return null;
+        }
+        usedGroups.add(name);
+        return groupMetrics.get(name);
+    }
+
+    public void putGroup(String name, String signature, List<Metric> metrics) {
+        if (signature == null) {
+            return;
+        }
+        GroupEntry entry = new GroupEntry();
+        entry.signature = signature;
+        entry.metricsCount = metrics.size();
+        index.groups.put(name, entry);
+        groupMetrics.put(name, new ArrayList<>(metrics));
+        usedGroups.add(name);
+    }
+}
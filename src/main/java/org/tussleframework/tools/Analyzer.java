@@ -44,25 +44,36 @@ import java.io.FileInputStream;
 import java.io.InputStream;
 import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.function.BooleanSupplier;
 import java.util.logging.Level;
 import java.util.stream.DoubleStream;
 
 import org.tussleframework.RunArgs;
+import org.tussleframework.RunProperties;
 import org.tussleframework.Tool;
 import org.tussleframework.TussleException;
 import org.tussleframework.metrics.HdrData;
 import org.tussleframework.metrics.HdrIntervalResult;
+import org.tussleframework.metrics.HdrMerger;
 import org.tussleframework.metrics.HdrResult;
 import org.tussleframework.metrics.Interval;
+import org.tussleframework.metrics.JvmStatsSampler;
+import org.tussleframework.metrics.LatencyAttribution;
 import org.tussleframework.metrics.Marker;
 import org.tussleframework.metrics.Metric;
 import org.tussleframework.metrics.MetricData;
@@ -70,14 +81,21 @@ import org.tussleframework.metrics.MetricInfo;
 import org.tussleframework.metrics.MetricType;
 import org.tussleframework.metrics.MetricValue;
 import org.tussleframework.metrics.MovingWindowSLE;
+import org.tussleframework.metrics.OsStatsSampler;
+import org.tussleframework.metrics.RepetitionStats;
 import org.tussleframework.metrics.ServiceLevelExpectation;
+import org.tussleframework.metrics.SleEngine;
+import org.tussleframework.metrics.SleRule;
 import org.tussleframework.tools.processors.CompileLogProcessor;
 import org.tussleframework.tools.processors.DataLogProcessor;
 import org.tussleframework.tools.processors.DiskstatProcessor;
+import org.tussleframework.tools.processors.GcLogProcessor;
 import org.tussleframework.tools.processors.HiccupProcessor;
 import org.tussleframework.tools.processors.IpstatProcessor;
+import org.tussleframework.tools.processors.JvmStatsProcessor;
 import org.tussleframework.tools.processors.MpstatProcessor;
 import org.tussleframework.tools.processors.OMBProcessor;
+import org.tussleframework.tools.processors.OsStatsProcessor;
 import org.tussleframework.tools.processors.PerfTestLogProcessor;
 import org.tussleframework.tools.processors.RunPropertiesProcessor;
 import org.tussleframework.tools.processors.SamplesProcessor;
@@ -99,6 +117,7 @@ public class Analyzer implements Tool {
     public static final java.util.logging.Logger logger = java.util.logging.Logger.getLogger(Analyzer.class.getName());
     public static final String[] EMPTY = {};
     private static final String SAMPLES2 = "samples_";
+    public static final String CLUSTER_HOST = "cluster";
 
     private static double[] percentilesBasic = {
             0, 50, 90, 99, 99.9, 99.99, 100
@@ -123,7 +142,9 @@ public class Analyzer implements Tool {
     protected AnalyzerConfig analyzerConfig;
     protected TreeSet<String> processedFiles;
     protected ArrayList<HdrResult> hdrResults;
+    protected Set<HdrResult> clusterMembers;
     protected Map<String, HdrData> hdrDataMap;
+    protected AnalysisCache cache;
     public RunArgs currentRunArgs;
 
     public static void log(String format, Object... args) {
@@ -161,7 +182,25 @@ public class Analyzer implements Tool {
         hdrDataMap = new HashMap<>();
         metricData = new MetricData();
         hdrResults = new ArrayList<>();
+        clusterMembers = new HashSet<>();
         processedFiles = new TreeSet<>();
+        cache = null;
+        if (analyzerConfig.incremental) {
+            cache = new AnalysisCache(new File(analyzerConfig.histogramsDir, AnalysisCache.FILE_NAME), cacheFingerprint());
+            cache.load();
+        }
+    }
+
+    /**
+     * Analysis settings the cached per-file and per-group state depends on
+     */
+    protected String cacheFingerprint() {
+        return new Yaml().dump(new Object[] {
+                analyzerConfig.intervals, analyzerConfig.sleConfig, analyzerConfig.errorSleConfig, analyzerConfig.sleRules, analyzerConfig.sleFor,
+                analyzerConfig.hdrFactor, analyzerConfig.hdrInterval, analyzerConfig.reportInterval, analyzerConfig.reportMaxPoints, analyzerConfig.reportLevelFactor,
+                analyzerConfig.allPercentiles, analyzerConfig.highBound, analyzerConfig.metricName, analyzerConfig.rateUnits, analyzerConfig.timeUnits,
+                analyzerConfig.repetitionStats, analyzerConfig.repetitionPercentiles, analyzerConfig.bootstrapSamples, analyzerConfig.confidenceLevel, analyzerConfig.outlierThreshold,
+        });
     }
 
     public AnalyzerConfig loadConfig(String[] args) throws TussleException {
@@ -183,9 +222,13 @@ public class Analyzer implements Tool {
         // TODO: pass run start and finish time
         metricData.getRunProperties().setProperty("start_time", FormatTool.formatIsoDatetime(Calendar.getInstance().getTime()));
         metricData.getRunProperties().setProperty("finish_time", FormatTool.formatIsoDatetime(Calendar.getInstance().getTime()));
+        applyCalibration();
         metricData.getMetrics().forEach(m -> m.scoreOn().forEach(s -> log("Score on %s", s)));
         File metricsJson = new File(analyzerConfig.histogramsDir, "metrics.json");
-        if (analyzerConfig.makeReport || analyzerConfig.saveMetrics) {
+        File metricsBin = MetricsStore.binFile(metricsJson);
+        boolean saveJson = !analyzerConfig.metricsFormat.equals("bin");
+        boolean saveBin = !analyzerConfig.metricsFormat.equals("json");
+        if ((analyzerConfig.makeReport || analyzerConfig.saveMetrics) && saveJson) {
             try (PrintStream out = new PrintStream(metricsJson)) {
                 if (analyzerConfig.doc) {
                     JsonTool.printJson(new MetricDataDoc(metricData), out);
@@ -196,8 +239,38 @@ public class Analyzer implements Tool {
                 throw new TussleException(e);
             }
         }
+        if ((analyzerConfig.makeReport || analyzerConfig.saveMetrics) && saveBin) {
+            MetricsStore.write(metricData, metricsBin.getAbsolutePath());
+        }
         if (analyzerConfig.makeReport) {
-            Reporter.make(analyzerConfig.reportDir, metricsJson.getAbsolutePath());
+            Reporter.make(analyzerConfig.reportDir, new String[] { (saveBin ? metricsBin : metricsJson).getAbsolutePath() }, analyzerConfig.reportMaxPoints);
+        }
+    }
+
+    /**
+     * Stores load generator calibration in run properties and flags steps with target rates above the generator's capacity
+     */
+    protected void applyCalibration() throws TussleException {
+        if (analyzerConfig.calibrationFile == null || analyzerConfig.calibrationFile.isEmpty()) {
+            return;
+        }
+        Calibrator.Calibration[] calibrations = Calibrator.load(analyzerConfig.calibrationFile);
+        double capacity = Calibrator.capacity(calibrations);
+        RunProperties runProperties = metricData.getRunProperties();
+        runProperties.setProperty("generator_calibration", calibrations);
+        runProperties.setProperty("generator_capacity", capacity);
+        TreeMap<Integer, Double> exceeded = new TreeMap<>();
+        hdrResults.stream().filter(result -> result.targetRate() > capacity).forEach(result -> exceeded.put(result.step(), result.targetRate()));
+        if (!exceeded.isEmpty()) {
+            List<Map<String, Object>> steps = new ArrayList<>();
+            exceeded.forEach((step, targetRate) -> {
+                log("WARNING: step %d target rate %s exceeds load generator capacity %s", step, FormatTool.roundFormat(targetRate), FormatTool.roundFormat(capacity));
+                Map<String, Object> props = new HashMap<>();
+                props.put("step", step);
+                props.put("targetRate", targetRate);
+                steps.add(props);
+            });
+            runProperties.setProperty("generator_capacity_exceeded", steps);
         }
     }
 
@@ -214,11 +287,81 @@ public class Analyzer implements Tool {
     public void processResults(AnalyzerConfig config) throws TussleException {
         init(config);
         processRecursive();
+        mergeClusterResults();
         getHdrDataMetrics();
         processSummary();
+        processAttribution();
         printResults();
     }
 
+    /**
+     * Picks up os and jvm stats files written by the runner next to its histograms
+     */
+    protected void processStats() throws TussleException {
+        File[] files = new File(analyzerConfig.histogramsDir).listFiles((dir, name) -> isOsStatsFile(name) || isJvmStatsFile(name));
+        if (files != null) {
+            for (File file : files) {
+                processFile(file);
+            }
+        }
+    }
+
+    /**
+     * Ranks concurrent series by deviation in intervals where moving window SLEs are broken
+     */
+    protected void processAttribution() {
+        if (!analyzerConfig.attribution || analyzerConfig.sleConfig.length == 0) {
+            return;
+        }
+        LatencyAttribution attribution = new LatencyAttribution(analyzerConfig.sleConfig, analyzerConfig.attributionSeries, analyzerConfig.attributionTop);
+        for (LatencyAttribution.Episode episode : attribution.analyze(metricData)) {
+            log("%s %s broken %s - %s, max %s", episode.latencyMetric, episode.operation, FormatTool.formatIsoDatetime(episode.start), FormatTool.formatIsoDatetime(episode.finish), FormatTool.roundFormat(episode.maxValue));
+            episode.causes.forEach(cause -> log("    %s: z-score %s, value %s, baseline %s", cause.series, FormatTool.roundFormat(cause.score), FormatTool.roundFormat(cause.value), FormatTool.roundFormat(cause.baseline)));
+            if (!episode.causes.isEmpty()) {
+                metricData.add(LatencyAttribution.toMetric(episode));
+            }
+        }
+    }
+
+    /**
+     * Merges per-host results of the same operation, metric and step into cluster-wide results,
+     * the summary and SLE evaluation then use the merged results instead of per-host ones
+     */
+    protected void mergeClusterResults() throws TussleException {
+        if (!analyzerConfig.clusterMerge) {
+            return;
+        }
+        LinkedHashMap<String, List<HdrResult>> groups = new LinkedHashMap<>();
+        for (HdrResult result : hdrResults) {
+            if (result.hostName() != null && !result.hostName().isEmpty()) {
+                String key = String.format("%s_%s_%s_%s_%d", result.operationName(), result.metricName(), FormatTool.format(result.ratePercent()), FormatTool.format(result.targetRate()), result.step());
+                groups.computeIfAbsent(key, k -> new ArrayList<>()).add(result);
+            }
+        }
+        HdrMerger merger = new HdrMerger(analyzerConfig.hdrInterval, analyzerConfig.clusterAlignStarts);
+        for (List<HdrResult> group : groups.values()) {
+            if (group.stream().map(HdrResult::hostName).distinct().count() < 2) {
+                continue;
+            }
+            if (group.stream().anyMatch(result -> !new File(result.hdrFile()).isFile())) {
+                log("Skipped cluster merge of %s %s - not all results are regular files", group.get(0).operationName(), group.get(0).metricName());
+                continue;
+            }
+            File mergedFile = new File(new File(analyzerConfig.histogramsDir, CLUSTER_HOST), FileTool.clearPath(group.get(0).hdrFile()));
+            long[] offsets = merger.merge(group, mergedFile);
+            for (int i = 0; i < group.size(); i++) {
+                log("Cluster merge %s %s step %d: host %s, clock offset %d ms", group.get(i).operationName(), group.get(i).metricName(), group.get(i).step(), group.get(i).hostName(), offsets[i]);
+            }
+            log("Cluster merge %s %s step %d: summary and SLE results of %d hosts are replaced by cluster-wide ones", group.get(0).operationName(), group.get(0).metricName(), group.get(0).step(), group.size());
+            clusterMembers.addAll(group);
+            try (InputStream inputStream = new FileInputStream(mergedFile)) {
+                processHdrStream(inputStream, CLUSTER_HOST, mergedFile.getAbsolutePath());
+            } catch (Exception e) {
+                throw new TussleException(e);
+            }
+        }
+    }
+
     protected void getHdrDataMetrics() {
         hdrDataMap.forEach((key, hdrData) -> hdrData.getMetrics(metricData, percentilesBasic));
     }
@@ -234,20 +377,97 @@ public class Analyzer implements Tool {
     public void processResults(AnalyzerConfig config, Collection<HdrResult> hdrResults) throws TussleException {
         init(config);
         withException(() -> hdrResults.forEach(hdrResult -> wrapException(() -> loadHdrData(hdrResult))));
+        processStats();
         processSummary();
+        processAttribution();
         printResults();
     }
 
-    protected void processSummary() {
+    protected void processSummary() throws TussleException {
         // split results by operation and metric names: reads response-time, reads service-time, writes response-time, etc.
         HashMap<String, ArrayList<HdrResult>> resultsMap = getResultsMap();
-        // process each metric group separately
-        resultsMap.forEach(this::processOperationResults);
+        if (cache == null) {
+            // process each metric group separately
+            resultsMap.forEach(this::processOperationResults);
+            return;
+        }
+        // groups having new or changed files are processed first so shared metrics (max_target_rate, high_bound) come from the fresh data
+        LinkedHashMap<String, List<Metric>> cachedGroups = new LinkedHashMap<>();
+        resultsMap.forEach((opAndMetricName, results) -> {
+            String signature = groupSignature(results.get(0).operationName());
+            List<Metric> metrics = cache.getGroup(opAndMetricName, signature);
+            if (metrics != null) {
+                cachedGroups.put(opAndMetricName, metrics);
+            } else {
+                int from = metricData.getMetrics().size();
+                processOperationResults(opAndMetricName, results);
+                cache.putGroup(opAndMetricName, signature, metricData.getMetrics().subList(from, metricData.getMetrics().size()));
+            }
+        });
+        cachedGroups.forEach((opAndMetricName, metrics) -> {
+            log("%s restored from cache", opAndMetricName);
+            metrics.stream().filter(metric -> metric.getOperation() != null || !hasMetric(metric.getName())).forEach(this::addMetric);
+        });
+        cache.save();
+    }
+
+    /**
+     * Signature of all the files of the operation, SLE checks of a group can use other metrics of its operation (e.g. errors)
+     *
+     * @return null if some of the files can't be cached
+     */
+    protected String groupSignature(String operationName) {
+        TreeSet<String> signatures = new TreeSet<>();
+        for (HdrResult result : hdrResults) {
+            if (Objects.equals(result.operationName(), operationName)) {
+                String signature = AnalysisCache.signature(result.hdrFile());
+                if (signature == null) {
+                    return null;
+                }
+                signatures.add(result.hdrFile() + ":" + signature);
+            }
+        }
+        return String.join(",", signatures);
+    }
+
+    /**
+     * Runs SLE check unless its verdict for the result file is cached
+     *
+     * @param key - verdict key, null if the verdict can't be cached
+     */
+    protected boolean checkSLE(HdrResult hdrResult, String key, BooleanSupplier check) {
+        Boolean verdict = cache != null ? cache.getVerdict(hdrResult, key) : null;
+        if (verdict == null) {
+            verdict = check.getAsBoolean();
+            if (cache != null) {
+                cache.putVerdict(hdrResult, key, verdict);
+            }
+        }
+        return verdict;
+    }
+
+    /**
+     * @return verdict key of an SLE checked along with errors results of the same operation and step, null if errors files can't be cached
+     */
+    protected String verdictKey(HdrResult hdrResult, String sleName, String... errorsMetricNames) {
+        StringBuilder key = new StringBuilder(sleName);
+        for (String errorsMetricName : errorsMetricNames) {
+            HdrResult errorsResult = findErrorsResult(hdrResult, errorsMetricName);
+            String signature = errorsResult != null ? AnalysisCache.signature(errorsResult.hdrFile()) : "none";
+            if (signature == null) {
+                return null;
+            }
+            key.append('|').append(errorsMetricName).append(':').append(signature);
+        }
+        return key.toString();
     }
 
     protected HashMap<String, ArrayList<HdrResult>> getResultsMap() {
         HashMap<String, ArrayList<HdrResult>> resultsMap = new HashMap<>();
         for (HdrResult result : hdrResults) {
+            if (clusterMembers.contains(result)) {
+                continue;
+            }
             if (FormatTool.matchFilters(result.metricName(), analyzerConfig.sleFor, null)) {
                 String name = result.operationName() + " " + result.metricName();
                 resultsMap.computeIfAbsent(name, key -> new ArrayList<>()).add(result);
@@ -266,7 +486,7 @@ public class Analyzer implements Tool {
             Iterator<MovingWindowSLE> iterator = unbrokenSleConfig.iterator();
             while (iterator.hasNext()) {
                 ServiceLevelExpectation sle = iterator.next();
-                if (!hdrResult.checkSLE(sle, analyzerConfig.intervals[0])) {
+                if (!checkSLE(hdrResult, sle.longName(), () -> hdrResult.checkSLE(sle, analyzerConfig.intervals[0]))) {
                     log("%s SLE for %s broken on %s %s", opAndMetricName, sle, FormatTool.format(hdrResult.targetRate()), hdrResult.rateUnits());
                     iterator.remove();
                     sleBroken.put(sle.longName(), hdrResult.targetRate());
@@ -275,9 +495,75 @@ public class Analyzer implements Tool {
             }
         }
         unbrokenSleConfig.forEach(sle -> log("%s SLE for %s was not broken", opAndMetricName, sle));
+        brokenRuleSLEs(opAndMetricName, hdrResults, sleMarkers, sleBroken);
         return sleBroken;
     }
 
+    protected void brokenRuleSLEs(String opAndMetricName, List<HdrResult> hdrResults, Collection<Marker> sleMarkers, HashMap<String, Double> sleBroken) {
+        SleRule[] sleRules = analyzerConfig.allSleRules();
+        if (sleRules.length == 0) {
+            return;
+        }
+        ArrayList<SleRule> unbrokenRules = new ArrayList<>();
+        Collections.addAll(unbrokenRules, sleRules);
+        for (HdrResult hdrResult : hdrResults) {
+            if (unbrokenRules.isEmpty()) {
+                break;
+            }
+            ArrayList<SleRule> brokenRules = new ArrayList<>();
+            ArrayList<SleRule> checkRules = new ArrayList<>();
+            HashMap<SleRule, String> keys = new HashMap<>();
+            for (SleRule rule : unbrokenRules) {
+                keys.put(rule, verdictKey(hdrResult, rule.longName(), new SleEngine(new SleRule[] { rule }, 1, 0).errorsMetrics()));
+                Boolean verdict = cache != null ? cache.getVerdict(hdrResult, keys.get(rule)) : null;
+                if (verdict == null) {
+                    checkRules.add(rule);
+                } else if (!verdict) {
+                    brokenRules.add(rule);
+                }
+            }
+            if (!checkRules.isEmpty()) {
+                SleEngine engine = new SleEngine(checkRules.toArray(new SleRule[0]), hdrResult.hdrFactor(), hdrResult.targetRate());
+                HashMap<String, HdrResult> errorsResults = new HashMap<>();
+                for (String errorsMetric : engine.errorsMetrics()) {
+                    errorsResults.put(errorsMetric, findErrorsResult(hdrResult, errorsMetric));
+                }
+                hdrResult.checkSLE(engine, errorsResults, analyzerConfig.intervals[0]);
+                for (int i = 0; i < checkRules.size(); i++) {
+                    if (cache != null) {
+                        cache.putVerdict(hdrResult, keys.get(checkRules.get(i)), !engine.isBroken(i));
+                    }
+                    if (engine.isBroken(i)) {
+                        brokenRules.add(checkRules.get(i));
+                    }
+                }
+            }
+            for (SleRule rule : brokenRules) {
+                log("%s SLE for %s broken on %s %s", opAndMetricName, rule, FormatTool.format(hdrResult.targetRate()), hdrResult.rateUnits());
+                unbrokenRules.remove(rule);
+                sleBroken.put(rule.longName(), hdrResult.targetRate());
+                sleMarkers.add(new Marker(rule.markerName(), hdrResult.targetRate(), rule.markerValue()));
+            }
+        }
+        unbrokenRules.forEach(rule -> log("%s SLE for %s was not broken", opAndMetricName, rule));
+    }
+
+    /**
+     * Finds errors result of the same operation, step and host as the given result
+     */
+    protected HdrResult findErrorsResult(HdrResult hdrResult, String errorsMetricName) {
+        for (HdrResult result : hdrResults) {
+            if (result.metricName().equals(errorsMetricName)
+                    && result.operationName().equals(hdrResult.operationName())
+                    && result.step() == hdrResult.step()
+                    && result.targetRate() == hdrResult.targetRate()
+                    && Objects.equals(result.hostName(), hdrResult.hostName())) {
+                return result;
+            }
+        }
+        return null;
+    }
+
     public void processOperationResults(String opAndMetricName, List<HdrResult> hdrResults) {
         ArrayList<Marker> sleMarkers = new ArrayList<>();
         HashMap<String, Double> sleBroken = brokenSLEs(opAndMetricName, hdrResults, sleMarkers);
@@ -372,6 +658,59 @@ public class Analyzer implements Tool {
 //                    .build()
 //                    .add(new MetricValue(sleTypes[i], valBuffersMW[i].build().toArray())));
         }
+        for (SleRule rule : analyzerConfig.allSleRules()) {
+            String sleName = rule.longName();
+            String mName = firstHdrResult.metricName() + " " + sleName;
+            if (sleBroken.containsKey(sleName)) {
+                addMetric(mName + " conforming_rate", opName, sleBroken.get(sleName), firstHdrResult.rateUnits());
+            } else {
+                addMetric(mName + " conforming_rate (unbroken)", opName, maxTargetRate, firstHdrResult.rateUnits());
+            }
+        }
+        if (analyzerConfig.repetitionStats) {
+            processRepetitions(firstHdrResult, hdrResults);
+        }
+    }
+
+    /**
+     * Aggregates repeated runs of the same target rate
+     */
+    protected void processRepetitions(HdrResult firstHdrResult, List<HdrResult> hdrResults) {
+        LinkedHashMap<Double, List<HdrResult>> repetitions = new LinkedHashMap<>();
+        hdrResults.stream().filter(result -> result.recordsCount() > 0).forEach(result -> repetitions.computeIfAbsent(result.targetRate(), rate -> new ArrayList<>()).add(result));
+        repetitions.values().removeIf(runs -> runs.size() < 2);
+        if (repetitions.isEmpty()) {
+            return;
+        }
+        RepetitionStats stats = new RepetitionStats(analyzerConfig.repetitionPercentiles, analyzerConfig.bootstrapSamples, analyzerConfig.confidenceLevel, analyzerConfig.outlierThreshold);
+        ArrayList<RepetitionStats.Result> results = new ArrayList<>();
+        repetitions.values().forEach(runs -> results.add(stats.compute(runs)));
+        String[] xValues = results.stream().map(r -> FormatTool.format(r.targetRate)).toArray(String[]::new);
+        String opName = firstHdrResult.operationName();
+        Metric mLatency = addMetric(firstHdrResult.metricName() + " repetitions", opName, firstHdrResult.timeUnits(), firstHdrResult.rateUnits(), xValues);
+        Metric mRate = addMetric(firstHdrResult.metricName() + " repetitions throughput", opName, firstHdrResult.rateUnits(), firstHdrResult.rateUnits(), xValues);
+        addEstimates(mRate, "RATE", results.stream().map(r -> r.rate).toArray(RepetitionStats.Estimate[]::new));
+        double[] percentiles = stats.getPercentiles();
+        for (int p = 0; p < percentiles.length; p++) {
+            final int idx = p;
+            addEstimates(mLatency, "P" + FormatTool.format(percentiles[p]), results.stream().map(r -> r.percentiles[idx]).toArray(RepetitionStats.Estimate[]::new));
+        }
+        for (RepetitionStats.Result r : results) {
+            log("%s %s at %s %s, %d runs: rate %s +- %s, %s%% CI [%s, %s]", opName, firstHdrResult.metricName(), FormatTool.format(r.targetRate), firstHdrResult.rateUnits(), r.runs,
+                    FormatTool.roundFormat(r.rate.mean), FormatTool.roundFormat(r.rate.stddev), FormatTool.format(analyzerConfig.confidenceLevel), FormatTool.roundFormat(r.rate.ciLow), FormatTool.roundFormat(r.rate.ciHigh));
+            for (int i = 0; i < r.outlierSteps.size(); i++) {
+                log("%s %s at %s %s: step %d is an outlier", opName, firstHdrResult.metricName(), FormatTool.format(r.targetRate), firstHdrResult.rateUnits(), r.outlierSteps.get(i) + 1);
+                mRate.addMarker(new Marker("outlier step " + (r.outlierSteps.get(i) + 1), r.targetRate, r.outlierRates.get(i)));
+            }
+        }
+    }
+
+    private static void addEstimates(Metric metric, String name, RepetitionStats.Estimate[] estimates) {
+        metric.add(new MetricValue(name + "_MEAN", Arrays.stream(estimates).mapToDouble(e -> e.mean).toArray()));
+        metric.add(new MetricValue(name + "_STDDEV", Arrays.stream(estimates).mapToDouble(e -> e.stddev).toArray()));
+        metric.add(new MetricValue(name + "_CI_LOW", Arrays.stream(estimates).mapToDouble(e -> e.ciLow).toArray()));
+        metric.add(new MetricValue(name + "_CI_HIGH", Arrays.stream(estimates).mapToDouble(e -> e.ciHigh).toArray()));
+        metric.add(new MetricValue(name + "_MERGED", Arrays.stream(estimates).mapToDouble(e -> e.merged).toArray()));
     }
 
 //    public static String[] getTypes(MovingWindowSLE[] slaConfig) {
@@ -440,6 +779,22 @@ public class Analyzer implements Tool {
         return name.startsWith("workload") && name.indexOf("OMB") >= 0 && name.endsWith(".json");
     }
 
+    public static boolean isOsStatsFile(String name) {
+        name = FileTool.clearExtPath(name);
+        return name.startsWith(OsStatsSampler.FILE_PREFIX) && name.endsWith(".csv");
+    }
+
+    public static boolean isJvmStatsFile(String name) {
+        name = FileTool.clearExtPath(name);
+        return name.startsWith(JvmStatsSampler.FILE_PREFIX) && name.endsWith(".csv");
+    }
+
+    public static boolean isGcLogFile(String name) {
+        name = FileTool.clearExtPath(name);
+        return (name.startsWith("gc") || name.endsWith("_gc.log") || name.endsWith("-gc.log"))
+                && (name.endsWith(".log") || name.matches(".*\\.log\\.\\d+"));
+    }
+
     public static boolean isCompileLog(String name) {
         name = FileTool.clearExtPath(name);
         return name.endsWith("_comp.log");
@@ -461,11 +816,14 @@ public class Analyzer implements Tool {
                 || isTLPStressResults(fileName)
                 || isSamplesFile(fileName)
                 || isOMBFile(fileName)
+                || isOsStatsFile(fileName)
+                || isJvmStatsFile(fileName)
+                || isGcLogFile(fileName)
                 || isCompileLog(fileName)
                 || isPerfTestLog(fileName);
     }
 
-    public String getOperationName(String fileName) {
+    public static String getOperationName(String fileName) {
         String name = FileTool.clearExtPath(fileName);
         int pos = name.indexOf(SAMPLES2);
         if (pos >= 0) {
@@ -479,7 +837,7 @@ public class Analyzer implements Tool {
 
     public boolean processResultStream(InputStream inputStream, String host, String fileName) {
         if (isHistogramFile(fileName)) {
-            processHdrStream(inputStream, fileName);
+            processHdrStream(inputStream, host, fileName);
             return true;
         } else if (isSamplesFile(fileName)) {
             processSamples(inputStream, host, fileName);
@@ -502,6 +860,12 @@ public class Analyzer implements Tool {
             processor = new TLPStressProcessor();
         } else if (isOMBFile(fileName)) {
             processor = new OMBProcessor();
+        } else if (isOsStatsFile(fileName)) {
+            processor = new OsStatsProcessor(analyzerConfig.reportInterval);
+        } else if (isJvmStatsFile(fileName)) {
+            processor = new JvmStatsProcessor(analyzerConfig.reportInterval);
+        } else if (isGcLogFile(fileName)) {
+            processor = new GcLogProcessor(analyzerConfig.reportInterval, analyzerConfig.allPercentiles ? percentilesLong : percentilesShort, new File(fileName).lastModified());
         } else if (isCompileLog(fileName)) {
             processor = new CompileLogProcessor();
         } else if (isPerfTestLog(fileName)) {
@@ -601,10 +965,26 @@ public class Analyzer implements Tool {
     }
 
     public void processHdrStream(InputStream inputStream, String fileName) {
-        log("Processing histogram file '%s'...", fileName);
+        processHdrStream(inputStream, "", fileName);
+    }
+
+    public void processHdrStream(InputStream inputStream, String host, String fileName) {
         HdrResult result = new HdrResult(fileName, analyzerConfig);
+        result.setHostName(host);
+        List<Metric> cachedMetrics = cache != null ? cache.restore(result) : null;
+        if (cachedMetrics != null) {
+            log("Restored histogram file '%s' from cache", fileName);
+            cachedMetrics.forEach(this::addMetric);
+            hdrResults.add(result);
+            return;
+        }
+        log("Processing histogram file '%s'...", fileName);
+        int from = metricData.getMetrics().size();
         result.loadHdrData(inputStream, analyzerConfig.sleConfig, analyzerConfig.intervals);
         result.getMetrics(metricData, analyzerConfig.allPercentiles ? percentilesLong : percentilesShort);
+        if (cache != null) {
+            cache.put(result, metricData.getMetrics().subList(from, metricData.getMetrics().size()));
+        }
         // TODO: result.unloadHdrData(); # need to unload in order to reduce memory consumption 
         hdrResults.add(result);
     }
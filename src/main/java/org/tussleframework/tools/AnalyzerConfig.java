@@ -33,12 +33,16 @@
 package org.tussleframework.tools;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
 
 import org.tussleframework.BasicProperties;
 import org.tussleframework.HdrConfig;
+import org.tussleframework.metrics.ErrorRateSLE;
 import org.tussleframework.metrics.HdrResult;
 import org.tussleframework.metrics.Interval;
 import org.tussleframework.metrics.MovingWindowSLE;
+import org.tussleframework.metrics.SleRule;
 
 public class AnalyzerConfig extends HdrConfig {
     public boolean doc = true;
@@ -46,11 +50,25 @@ public class AnalyzerConfig extends HdrConfig {
     public boolean saveMetrics = true;
     public boolean allPercentiles = true;
     public String reportDir = "./report";
+    public String metricsFormat = "json";   // results format: json - metrics.json, bin - compact binary metrics.bin, both
     public String highBound = "0";
     public Interval[] intervals = {};
     public MovingWindowSLE[] sleConfig = {};
+    public ErrorRateSLE[] errorSleConfig = {};                  // error rate limits, checked against errors histograms of the same operation and step
+    public SleRule[] sleRules = {};                             // composite, throughput and budgeted SLE rules checked in one pass over interval histograms
     public String[] sleFor = { HdrResult.RESPONSE_TIME };
     public BasicProperties processors;
+    public boolean repetitionStats = false;                     // aggregate repeated runs of the same target rate into mean, stddev and confidence intervals
+    public double[] repetitionPercentiles = { 50, 90, 99, 99.9 }; // percentiles estimated across repetitions
+    public int bootstrapSamples = 1000;                         // number of bootstrap resamples for confidence intervals
+    public double confidenceLevel = 95;                         // confidence level in percents
+    public double outlierThreshold = 3.5;                       // modified z-score above which a repetition is flagged as outlier
+    public boolean clusterMerge = false;                        // merge histograms of the same operation, metric and step from several hosts (node_* dirs) into cluster-wide results
+    public boolean clusterAlignStarts = false;                  // remove clock offsets between hosts by aligning their first intervals, otherwise trust absolute timestamps
+    public boolean attribution = false;                         // rank series deviated most in intervals where moving window SLEs are broken
+    public String[] attributionSeries = { "hiccup.*", "top", "mpstat.*", "disk", "network", "os_.*", "jvm_.*", "gc_.*" }; // regexps for metric names considered as causes
+    public int attributionTop = 5;                              // max number of causes reported per broken SLE interval
+    public boolean incremental = false;                         // keep per-file analysis state in histogramsDir/analysis-cache.bin, re-process only new or changed hlog files
 
     public AnalyzerConfig() {
     }
@@ -65,6 +83,28 @@ public class AnalyzerConfig extends HdrConfig {
         if (FormatTool.parseValue(highBound) < 0) {
             throw new IllegalArgumentException(String.format("Invalid highBound(%s) - should be non-negative", highBound));
         }
+        if (!metricsFormat.equals("json") && !metricsFormat.equals("bin") && !metricsFormat.equals("both")) {
+            throw new IllegalArgumentException(String.format("Invalid metricsFormat(%s) - should be json, bin or both", metricsFormat));
+        }
+        if (bootstrapSamples <= 0) {
+            throw new IllegalArgumentException(String.format("Invalid bootstrapSamples(%d) - should be positive", bootstrapSamples));
+        }
+        if (confidenceLevel <= 0 || confidenceLevel >= 100) {
+            throw new IllegalArgumentException(String.format("Invalid confidenceLevel(%s) - should be in (0, 100) range", confidenceLevel));
+        }
+        if (errorSleConfig != null) {
+            for (ErrorRateSLE sle : errorSleConfig) {
+                sle.validate();
+            }
+        }
+        if (sleRules != null) {
+            for (SleRule rule : sleRules) {
+                rule.validate();
+            }
+        }
+        if (attributionTop <= 0) {
+            throw new IllegalArgumentException(String.format("Invalid attributionTop(%d) - should be positive", attributionTop));
+        }
         if (runMode) {
             FileTool.backupAndCreateDir(new File(histogramsDir));
             if (makeReport) {
@@ -72,4 +112,20 @@ public class AnalyzerConfig extends HdrConfig {
             }
         }
     }
+
+    /**
+     * @return errorSleConfig as errorRate rules followed by sleRules, all of them are checked by SleEngine
+     */
+    public SleRule[] allSleRules() {
+        ArrayList<SleRule> rules = new ArrayList<>();
+        if (errorSleConfig != null) {
+            for (ErrorRateSLE sle : errorSleConfig) {
+                rules.add(sle.toRule());
+            }
+        }
+        if (sleRules != null) {
+            Collections.addAll(rules, sleRules);
+        }
+        return rules.toArray(new SleRule[0]);
+    }
 }
@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2021-2023, Azul Systems
+ * 
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * 
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * 
+ * * Neither the name of [project] nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+
+package org.tussleframework.tools;
+
+import static org.tussleframework.Globals.NS_IN_MS;
+import static org.tussleframework.Globals.NS_IN_S;
+import static org.tussleframework.tools.FormatTool.roundFormat;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.HdrHistogram.Histogram;
+import org.tussleframework.RunArgs;
+import org.tussleframework.RunResult;
+import org.tussleframework.RunnableWithError;
+import org.tussleframework.Tool;
+import org.tussleframework.TussleException;
+import org.tussleframework.metrics.HdrTimeRecorder;
+import org.tussleframework.metrics.ResultsRecorder;
+import org.tussleframework.runners.RunnerConfig;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Measures the load generator's own capacity: a no-op workload is run through each target runner
+ * at increasing target rates until the rate is not sustained anymore, i.e. the actual rate falls behind
+ * the target one or p99 schedule lag exceeds the limit.
+ * Reported per runner: max sustained rate, schedule lag percentiles at that rate and recording overhead
+ * per operation (ResultsRecorder vs no recorder at unthrottled rate).
+ * 
+ * Results are saved as json and can be passed as calibrationFile to runners or Analyzer, then they are stored
+ * in run properties and steps with target rates above the calibrated capacity are flagged.
+ */
+public class Calibrator implements Tool {
+
+    private static void log(String format, Object... args) {
+        LoggerTool.log(Calibrator.class.getSimpleName(), format, args);
+    }
+
+    @Data
+    @NoArgsConstructor
+    public static class Calibration {
+        public String runner;
+        public int threads;
+        public double maxRate;
+        public double lagP50;
+        public double lagP99;
+        public double lagP999;
+        public double lagMax;
+        public double recordingOverhead; // ns per operation
+        public String rateUnits = "op/s";
+        public String timeUnits = "ms";
+    }
+
+    static class Step {
+        double targetRate;
+        double actualRate;
+        Histogram lag;
+        boolean sustained;
+    }
+
+    private static final RunnableWithError NOOP = () -> true;
+
+    public static void main(String[] args) {
+        LoggerTool.init("calibrator");
+        try {
+            new Calibrator().calibrate(args);
+        } catch (Exception e) {
+            LoggerTool.logException(e);
+        }
+    }
+
+    public static Calibration[] load(String file) throws TussleException {
+        try (InputStream in = new FileInputStream(file)) {
+            return JsonTool.readJson(in, Calibration[].class, false, false);
+        } catch (IOException e) {
+            throw new TussleException(e);
+        }
+    }
+
+    /**
+     * @return generator capacity - the highest calibrated max rate
+     */
+    public static double capacity(Calibration[] calibrations) {
+        return Arrays.stream(calibrations).mapToDouble(c -> c.maxRate).max().orElse(0);
+    }
+
+    protected CalibratorConfig config;
+
+    public List<Calibration> calibrate(String[] args) throws TussleException {
+        return calibrate((CalibratorConfig) ConfigLoader.loadConfig(args, true, CalibratorConfig.class));
+    }
+
+    public List<Calibration> calibrate(CalibratorConfig config) throws TussleException {
+        this.config = config;
+        List<Calibration> calibrations = new ArrayList<>();
+        for (String runner : config.runners) {
+            calibrations.add(calibrate(runner));
+        }
+        File outputFile = new File(config.outputFile);
+        if (outputFile.getParentFile() != null) {
+            outputFile.getParentFile().mkdirs();
+        }
+        JsonTool.printJson(calibrations, config.outputFile);
+        log("Calibration results saved to %s", config.outputFile);
+        return calibrations;
+    }
+
+    protected Calibration calibrate(String runner) throws TussleException {
+        log("Calibrating %s runner...", runner);
+        double maxRate = FormatTool.parseValue(config.maxRate);
+        Step sustained = null;
+        Step failed = null;
+        for (double targetRate = FormatTool.parseValue(config.startRate); targetRate <= maxRate; targetRate *= config.rateFactor) {
+            Step step = runStep(runner, targetRate);
+            if (!step.sustained) {
+                failed = step;
+                break;
+            }
+            sustained = step;
+        }
+        if (sustained != null && failed != null) {
+            for (int i = 0; i < config.refineSteps; i++) {
+                Step step = runStep(runner, (sustained.targetRate + failed.targetRate) / 2);
+                if (step.sustained) {
+                    sustained = step;
+                } else {
+                    failed = step;
+                }
+            }
+        }
+        Calibration calibration = new Calibration();
+        calibration.runner = runner;
+        calibration.threads = runner.equals("st") ? 1 : config.threads;
+        if (sustained != null) {
+            calibration.maxRate = sustained.targetRate;
+            calibration.lagP50 = sustained.lag.getValueAtPercentile(50) / (double) NS_IN_MS;
+            calibration.lagP99 = sustained.lag.getValueAtPercentile(99) / (double) NS_IN_MS;
+            calibration.lagP999 = sustained.lag.getValueAtPercentile(99.9) / (double) NS_IN_MS;
+            calibration.lagMax = sustained.lag.getMaxValue() / (double) NS_IN_MS;
+        } else {
+            log("WARNING: %s runner has not sustained even the start rate %s op/s", runner, config.startRate);
+        }
+        calibration.recordingOverhead = recordingOverhead(runner, calibration.threads);
+        log("Calibrated %s runner: max rate %s op/s, schedule lag p50 %s ms, p99 %s ms, p99.9 %s ms, max %s ms, recording overhead %s ns/op",
+                runner, roundFormat(calibration.maxRate), roundFormat(calibration.lagP50), roundFormat(calibration.lagP99), roundFormat(calibration.lagP999), roundFormat(calibration.lagMax), roundFormat(calibration.recordingOverhead));
+        return calibration;
+    }
+
+    protected Step runStep(String runner, double targetRate) throws TussleException {
+        HdrTimeRecorder recorder = new HdrTimeRecorder();
+        RunResult result = createRunner(runner).runWorkload("calibration", targetRate, FormatTool.parseTimeLength(config.runTime) * 1000, NOOP, recorder);
+        Step step = new Step();
+        step.targetRate = targetRate;
+        step.actualRate = result != null ? result.actualRate : 0;
+        step.lag = recorder.scheduleLagRecorder.getIntervalHistogram();
+        double lagP99 = step.lag.getValueAtPercentile(99) / (double) NS_IN_MS;
+        step.sustained = step.actualRate >= targetRate * (1 - config.rateTolerance / 100) && lagP99 <= config.lagLimit;
+        log("%s runner, target rate %s op/s: actual rate %s op/s, schedule lag p99 %s ms - %s",
+                runner, roundFormat(targetRate), roundFormat(step.actualRate), roundFormat(lagP99), step.sustained ? "sustained" : "not sustained");
+        return step;
+    }
+
+    /**
+     * @return per operation cost of ResultsRecorder in ns measured at unthrottled rate
+     */
+    protected double recordingOverhead(String runner, int threads) throws TussleException {
+        double unthrottled = NS_IN_S;
+        int runTime = FormatTool.parseTimeLength(config.runTime) * 1000;
+        RunResult bare = createRunner(runner).runWorkload("calibration", unthrottled, runTime, NOOP, null);
+        RunnerConfig runnerConfig = new RunnerConfig();
+        runnerConfig.progressInterval = Integer.MAX_VALUE;
+        ResultsRecorder resultsRecorder = new ResultsRecorder(runnerConfig, new RunArgs(unthrottled, 0, 0, runTime / 1000, 0, "calibration"), false, true);
+        RunResult recorded;
+        try {
+            resultsRecorder.startRecording("calibration", "op/s", "ms");
+            recorded = createRunner(runner).runWorkload("calibration", unthrottled, runTime, NOOP, resultsRecorder);
+        } finally {
+            resultsRecorder.cancel();
+        }
+        if (bare == null || recorded == null || bare.actualRate <= 0 || recorded.actualRate <= 0) {
+            return 0;
+        }
+        return Math.max(0, threads * NS_IN_S / recorded.actualRate - threads * NS_IN_S / bare.actualRate);
+    }
+
+    protected TargetRunner createRunner(String runner) {
+        if (runner.equals("mt")) {
+            return new TargetRunnerMT(config.threads, config.pacing, 0);
+        } else if (runner.equals("async")) {
+            return new TargetRunnerAsync(config.threads);
+        } else {
+            return new TargetRunnerST(Pacer.create(config.pacing, 0));
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2021-2023, Azul Systems
+ * 
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * 
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * 
+ * * Neither the name of [project] nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+
+package org.tussleframework.tools;
+
+import org.tussleframework.AbstractConfig;
+
+public class CalibratorConfig implements AbstractConfig {
+    public String[] runners = { "st", "mt", "async" }; // calibrated target runners: st - TargetRunnerST, mt - TargetRunnerMT, async - TargetRunnerAsync
+    public int threads = 4;                            // threads used by mt and async runners
+    public String pacing;                              // Pacer mode used by st and mt runners, see Pacer.Mode
+    public String startRate = "10k";                   // first calibrated target rate
+    public String maxRate = "100M";                    // calibration stops at this target rate
+    public double rateFactor = 2;                      // target rate multiplier between calibration steps
+    public int refineSteps = 3;                        // bisection steps between the last sustained and the first failed rates
+    public String runTime = "3s";                      // run time of each calibration step
+    public double rateTolerance = 5;                   // actual rate may be lower than the target one by this percent for the rate to be sustained
+    public double lagLimit = 1;                        // p99 schedule lag limit in ms for the rate to be sustained
+    public String outputFile = "./calibration.json";   // location for calibration results, pass it as calibrationFile to runners or Analyzer
+
+    @Override
+    public void validate(boolean runMode) {
+        if (runners == null || runners.length == 0) {
+            throw new IllegalArgumentException("Missing or empty required parameter: runners");
+        }
+        for (String runner : runners) {
+            if (!runner.equals("st") && !runner.equals("mt") && !runner.equals("async")) {
+                throw new IllegalArgumentException(String.format("Invalid runner(%s) - should be st, mt or async", runner));
+            }
+        }
+        if (threads <= 0) {
+            throw new IllegalArgumentException(String.format("Invalid threads(%d) - should be positive", threads));
+        }
+        if (FormatTool.parseValue(startRate) <= 0) {
+            throw new IllegalArgumentException(String.format("Invalid startRate(%s) - should be positive", startRate));
+        }
+        if (FormatTool.parseValue(maxRate) < FormatTool.parseValue(startRate)) {
+            throw new IllegalArgumentException(String.format("Invalid maxRate(%s) - should be >= startRate(%s)", maxRate, startRate));
+        }
+        if (rateFactor <= 1) {
+            throw new IllegalArgumentException(String.format("Invalid rateFactor(%s) - should be > 1", rateFactor));
+        }
+        if (refineSteps < 0) {
+            throw new IllegalArgumentException(String.format("Invalid refineSteps(%d) - should be >= 0", refineSteps));
+        }
+        if (FormatTool.parseTimeLength(runTime) <= 0) {
+            throw new IllegalArgumentException(String.format("Invalid runTime(%s) - should be positive", runTime));
+        }
+        if (rateTolerance < 0 || rateTolerance >= 100) {
+            throw new IllegalArgumentException(String.format("Invalid rateTolerance(%s) - should be in [0, 100) range", rateTolerance));
+        }
+        if (lagLimit <= 0) {
+            throw new IllegalArgumentException(String.format("Invalid lagLimit(%s) - should be positive", lagLimit));
+        }
+    }
+}
@@ -0,0 +1,335 @@
+/*
+ * Copyright (c) 2021-2023, Azul Systems
+ * 
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * 
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * 
+ * * Neither the name of [project] nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+
+package org.tussleframework.tools;
+
+import static org.tussleframework.Globals.NS_IN_MS;
+import static org.tussleframework.Globals.NS_IN_US;
+import static org.tussleframework.metrics.ResultsRecorder.timeLen1;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.HdrHistogram.AbstractHistogram;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogReader;
+import org.HdrHistogram.Recorder;
+import org.tussleframework.Benchmark;
+import org.tussleframework.ErrorCategory;
+import org.tussleframework.HdrConfig;
+import org.tussleframework.Run;
+import org.tussleframework.RunResult;
+import org.tussleframework.TimeRecorder;
+import org.tussleframework.Tool;
+import org.tussleframework.TussleException;
+import org.tussleframework.TussleRuntimeException;
+import org.tussleframework.metrics.HdrResult;
+
+/**
+ * Worker JVM of the ClusterBenchmark, it connects to the coordinator and runs its share of the load:
+ * 
+ *   ClusterWorker {coordinator-host} {coordinator-port} {benchmark-class-name} [benchmark-args...]
+ * 
+ * Commands received from the coordinator, one per line:
+ * 
+ *   run {targetRate} {warmupTime} {runTime} {runStep} {startDelay} {hdrInterval}
+ *   reset
+ *   exit
+ * 
+ * While running, interval histograms are streamed back as they are recorded:
+ * 
+ *   @hist {operation} {metric} {startTime} {endTime} {base64 compressed histogram}
+ * 
+ * and each command is answered with '@done [RunResult json]' or '@error message' line.
+ */
+public class ClusterWorker implements Tool {
+
+    public static final String HIST = "@hist";
+
+    private static void log(String format, Object... args) {
+        LoggerTool.log(ClusterWorker.class.getSimpleName(), format, args);
+    }
+
+    public static void main(String[] args) {
+        LoggerTool.init("cluster-worker", "java.util.logging.ConsoleHandler");
+        if (args.length < 3) {
+            throw new IllegalArgumentException("Expected parameters: coordinator-host coordinator-port benchmark-class-name [benchmark-args...]");
+        }
+        try {
+            Benchmark benchmark = (Benchmark) Run.findTussleClass(args[2], null).getConstructor().newInstance();
+            benchmark.init(Arrays.copyOfRange(args, 3, args.length));
+            new ClusterWorker(benchmark).serve(args[0], Integer.parseInt(args[1]));
+        } catch (Exception e) {
+            LoggerTool.logException(e);
+            System.exit(1);
+        }
+    }
+
+    private final Benchmark benchmark;
+    private Writer out;
+
+    public ClusterWorker(Benchmark benchmark) {
+        this.benchmark = benchmark;
+    }
+
+    public void serve(String host, int port) throws TussleException {
+        log("Connecting to coordinator %s:%d", host, port);
+        try (Socket socket = new Socket(host, port)) {
+            socket.setTcpNoDelay(true);
+            out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] command = line.trim().split("\\s+");
+                if (command[0].equals("exit")) {
+                    break;
+                }
+                try {
+                    send(ProcSession.DONE + " " + execute(command));
+                } catch (Exception e) {
+                    LoggerTool.logException(e);
+                    send(ProcSession.ERROR + " " + String.valueOf(e.getMessage()).replace('\n', ' '));
+                }
+            }
+        } catch (IOException e) {
+            throw new TussleException(e);
+        } finally {
+            benchmark.cleanup();
+        }
+    }
+
+    protected String execute(String[] command) throws TussleException {
+        if (command[0].equals("reset")) {
+            benchmark.reset();
+            return "";
+        }
+        if (!command[0].equals("run") || command.length < 7) {
+            throw new TussleException("Unknown command: " + String.join(" ", command));
+        }
+        double targetRate = Double.parseDouble(command[1]);
+        int warmupTime = Integer.parseInt(command[2]);
+        int runTime = Integer.parseInt(command[3]);
+        int startDelay = Integer.parseInt(command[5]);
+        int hdrInterval = Integer.parseInt(command[6]);
+        SleepTool.sleep(startDelay * NS_IN_MS);
+        log("Running step %s: targetRate %s, warmup %ds, duration %ds", command[4], command[1], warmupTime, runTime);
+        StreamingRecorder recorder = new StreamingRecorder(hdrInterval);
+        RunResult result;
+        try {
+            result = benchmark.run(targetRate, warmupTime, runTime, recorder);
+        } finally {
+            recorder.close();
+        }
+        if (result == null) {
+            return "";
+        }
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        JsonTool.printJson(result, json);
+        return new String(json.toByteArray(), StandardCharsets.UTF_8).replaceAll("\\s*\\n\\s*", " ");
+    }
+
+    protected synchronized void send(String line) {
+        try {
+            out.write(line);
+            out.write('\n');
+            out.flush();
+        } catch (IOException e) {
+            throw new TussleRuntimeException(e);
+        }
+    }
+
+    protected void sendHistogram(String operation, String metric, AbstractHistogram histogram) {
+        if (histogram.getTotalCount() == 0) {
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        int len = histogram.encodeIntoCompressedByteBuffer(buffer);
+        String data = Base64.getEncoder().encodeToString(Arrays.copyOf(buffer.array(), len));
+        send(String.format("%s %s %s %d %d %s", HIST, operation, metric, histogram.getStartTimeStamp(), histogram.getEndTimeStamp(), data));
+    }
+
+    static final String[] BASE_METRICS = { HdrResult.RESPONSE_TIME, HdrResult.SERVICE_TIME, ErrorCategory.ERRORS, HdrResult.SCHEDULE_LAG };
+    static final String[] METRICS = new String[BASE_METRICS.length + ErrorCategory.count()];
+
+    static {
+        System.arraycopy(BASE_METRICS, 0, METRICS, 0, BASE_METRICS.length);
+        for (int i = 0; i < ErrorCategory.count(); i++) {
+            METRICS[BASE_METRICS.length + i] = ErrorCategory.get(i).metricName();
+        }
+    }
+
+    class OperationRecorder extends TimerTask {
+        final String operation;
+        final Recorder[] recorders = new Recorder[METRICS.length];
+        final Histogram[] intervals = new Histogram[METRICS.length];
+        long lastTime;
+
+        OperationRecorder(String operation) {
+            this.operation = operation;
+            this.lastTime = System.currentTimeMillis();
+            for (int i = 0; i < METRICS.length; i++) {
+                recorders[i] = new Recorder(Long.MAX_VALUE, 3);
+            }
+        }
+
+        void recordTimes(long startTime, long intendedStartTime, long finishTime, long count, boolean success) {
+            if (success) {
+                if (startTime > 0) {
+                    record(recorders[1], timeLen1(startTime, finishTime), count);
+                }
+                if (intendedStartTime > 0) {
+                    record(recorders[0], timeLen1(intendedStartTime, finishTime), count);
+                }
+            } else {
+                record(recorders[2], timeLen1(startTime, finishTime), count);
+            }
+            if (intendedStartTime > 0 && startTime > 0) {
+                recorders[3].recordValueWithCount(startTime > intendedStartTime ? (startTime - intendedStartTime) / NS_IN_US : 0, count);
+            }
+        }
+
+        void recordError(ErrorCategory category, long startTime, long intendedStartTime, long finishTime, long count) {
+            record(recorders[BASE_METRICS.length + category.ordinal()], timeLen1(startTime, finishTime), count);
+            recordTimes(startTime, intendedStartTime, finishTime, count, false);
+        }
+
+        void record(Recorder recorder, long value, long count) {
+            if (value > 0) {
+                recorder.recordValueWithCount(value, count);
+            }
+        }
+
+        @Override
+        public synchronized void run() {
+            long now = System.currentTimeMillis();
+            for (int i = 0; i < METRICS.length; i++) {
+                intervals[i] = recorders[i].getIntervalHistogram(intervals[i]);
+                intervals[i].setStartTimeStamp(lastTime);
+                intervals[i].setEndTimeStamp(now);
+                sendHistogram(operation, METRICS[i], intervals[i]);
+            }
+            lastTime = now;
+        }
+    }
+
+    /**
+     * Records benchmark times into per-operation interval histograms which are sent to the coordinator every hdrInterval
+     */
+    class StreamingRecorder implements TimeRecorder {
+        private final Map<String, OperationRecorder> operations = new ConcurrentHashMap<>();
+        private final Timer timer = new Timer("cluster-worker-hdr", true);
+        private final int hdrInterval;
+
+        StreamingRecorder(int hdrInterval) {
+            this.hdrInterval = hdrInterval;
+        }
+
+        @Override
+        public synchronized void startRecording(String operationName, String rateUnits, String timeUnits) {
+            operations.computeIfAbsent(operationName, name -> {
+                OperationRecorder opRecorder = new OperationRecorder(name);
+                timer.scheduleAtFixedRate(opRecorder, hdrInterval, hdrInterval);
+                return opRecorder;
+            });
+        }
+
+        @Override
+        public synchronized void stopRecording() {
+            operations.values().forEach(opRecorder -> {
+                opRecorder.cancel();
+                opRecorder.run();
+            });
+            operations.clear();
+        }
+
+        public void close() {
+            stopRecording();
+            timer.cancel();
+        }
+
+        @Override
+        public void recordTimes(String operationName, long startTime, long intendedStartTime, long finishTime, long count, boolean success) {
+            OperationRecorder opRecorder = operations.get(operationName);
+            if (opRecorder != null) {
+                opRecorder.recordTimes(startTime, intendedStartTime, finishTime, count, success);
+            }
+        }
+
+        @Override
+        public void recordError(String operationName, ErrorCategory category, long startTime, long intendedStartTime, long finishTime, long count) {
+            OperationRecorder opRecorder = operations.get(operationName);
+            if (opRecorder != null) {
+                opRecorder.recordError(category, startTime, intendedStartTime, finishTime, count);
+            }
+        }
+
+        /**
+         * Streams hlog result files produced by the benchmark, e.g. ProcBenchmark
+         */
+        @Override
+        public void addResults(Collection<?> results, String rateUnits, String timeUnits) throws TussleException {
+            for (Object result : results) {
+                if (!(result instanceof File) || Analyzer.isSamplesFile(((File) result).getName())) {
+                    log("Skipping unsupported result %s", result);
+                    continue;
+                }
+                File file = (File) result;
+                HdrResult names = new HdrResult(file.getAbsolutePath(), new HdrConfig());
+                try (HistogramLogReader reader = new HistogramLogReader(file)) {
+                    AbstractHistogram histogram;
+                    while ((histogram = (AbstractHistogram) reader.nextIntervalHistogram(0.0, Double.MAX_VALUE)) != null) {
+                        sendHistogram(names.operationName(), names.metricName(), histogram);
+                    }
+                } catch (FileNotFoundException e) {
+                    throw new TussleException(e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,660 @@
+/*
+ * Copyright (c) 2021-2023, Azul Systems
+ * 
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * 
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * 
+ * * Neither the name of [project] nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+package org.tussleframework.tools;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+
+import org.tussleframework.RunProperties;
+import org.tussleframework.Tool;
+import org.tussleframework.TussleException;
+import org.tussleframework.metrics.Marker;
+import org.tussleframework.metrics.Metric;
+import org.tussleframework.metrics.MetricData;
+import org.tussleframework.metrics.MetricLevel;
+import org.tussleframework.metrics.MetricValue;
+
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Compact columnar binary format for MetricData, an alternative to metrics.json:
+ * 
+ *  - all strings (names, operations, units, value types, x-values) are kept once in a dictionary
+ *    and referenced by index,
+ *  - each MetricValue series is stored as a column: values that are exact decimals with up to
+ *    MAX_SCALE fraction digits are scaled to integers and delta + zigzag varint encoded,
+ *    other series are stored as raw doubles,
+ *  - pre-aggregated resolution levels are stored as metric value columns of each level (since version 2),
+ *  - run properties are stored as a JSON blob.
+ * 
+ * Usage: MetricsStore metrics.bin [metrics.json] - exports binary metrics to JSON (stdout by default)
+ */
+public class MetricsStore implements Tool {
+
+    private static final java.util.logging.Logger logger = java.util.logging.Logger.getLogger(MetricsStore.class.getName());
+
+    public static void log(String format, Object... args) {
+        if (logger.isLoggable(Level.INFO)) {
+            logger.info(String.format("[%s] %s", MetricsStore.class.getSimpleName(), String.format(format, args)));
+        }
+    }
+
+    private static final int MAGIC = 0x544D5342; // TMSB
+    private static final int VERSION = 2;
+    private static final int MAX_SCALE = 6;
+    private static final int RAW_DOUBLES = 0xFF;
+    private static final double[] POW10 = { 1, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6 };
+
+    // metric field presence bits
+    private static final int F_START = 1;
+    private static final int F_FINISH = 1 << 1;
+    private static final int F_TOTAL_VALUES = 1 << 2;
+    private static final int F_DELAY = 1 << 3;
+    private static final int F_RETRY = 1 << 4;
+    private static final int F_NAME = 1 << 5;
+    private static final int F_HOST = 1 << 6;
+    private static final int F_TYPE = 1 << 7;
+    private static final int F_GROUP = 1 << 8;
+    private static final int F_UNITS = 1 << 9;
+    private static final int F_XUNITS = 1 << 10;
+    private static final int F_RATE_UNITS = 1 << 11;
+    private static final int F_OPERATION = 1 << 12;
+    private static final int F_HIGH_BOUND = 1 << 13;
+    private static final int F_TARGET_RATE = 1 << 14;
+    private static final int F_ACTUAL_RATE = 1 << 15;
+    private static final int F_VALUE = 1 << 16;
+    private static final int F_MEAN_VALUE = 1 << 17;
+    private static final int F_PERCENT_OF_HIGH_BOUND = 1 << 18;
+    private static final int F_XVALUES = 1 << 19;
+    private static final int F_MARKERS = 1 << 20;
+    private static final int F_METRIC_VALUES = 1 << 21;
+    private static final int F_LEVELS = 1 << 22;
+
+    // metric value field presence bits
+    private static final int V_TYPE = 1;
+    private static final int V_UNITS = 1 << 1;
+    private static final int V_VALUE = 1 << 2;
+    private static final int V_VALUES = 1 << 3;
+
+    private MetricsStore() {
+    }
+
+    public static void main(String[] args) {
+        LoggerTool.init("metrics-store");
+        try {
+            if (args.length > 1) {
+                try (OutputStream out = new FileOutputStream(args[1])) {
+                    exportJson(args[0], out, true);
+                }
+            } else {
+                exportJson(args[0], System.out, true);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    public static boolean isBinaryFile(String fileName) {
+        return fileName.endsWith(".bin");
+    }
+
+    public static void exportJson(String binFile, OutputStream out, boolean pretty) throws TussleException {
+        MetricData metricData = read(binFile);
+        ObjectMapper mapper = new ObjectMapper()
+                .setSerializationInclusion(Include.NON_NULL)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        try {
+            if (pretty) {
+                mapper.writer().withDefaultPrettyPrinter().writeValue(out, metricData);
+            } else {
+                mapper.writer().writeValue(out, metricData);
+            }
+        } catch (IOException e) {
+            throw new TussleException(e);
+        }
+    }
+
+    public static void write(MetricData metricData, String file) throws TussleException {
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file), 1 << 16)) {
+            write(metricData, out);
+        } catch (IOException e) {
+            throw new TussleException(e);
+        }
+    }
+
+    public static MetricData read(String file) throws TussleException {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file), 1 << 16)) {
+            return read(in);
+        } catch (IOException e) {
+            throw new TussleException(e);
+        }
+    }
+
+    public static void write(MetricData metricData, OutputStream outputStream) throws TussleException {
+        Dictionary dict = new Dictionary();
+        List<Metric> metrics = metricData.getMetrics() != null ? metricData.getMetrics() : new ArrayList<>();
+        metrics.forEach(dict::collect);
+        try {
+            DataOutputStream out = new DataOutputStream(outputStream);
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            byte[] props = metricData.getRunProperties() != null ? new ObjectMapper().writeValueAsBytes(metricData.getRunProperties()) : new byte[0];
+            writeVarLong(out, props.length);
+            out.write(props);
+            writeVarLong(out, dict.strings.size());
+            for (String s : dict.strings) {
+                byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+                writeVarLong(out, bytes.length);
+                out.write(bytes);
+            }
+            writeVarLong(out, metrics.size());
+            for (Metric m : metrics) {
+                writeMetric(out, m, dict);
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw new TussleException(e);
+        }
+    }
+
+    public static MetricData read(InputStream inputStream) throws TussleException {
+        try {
+            DataInputStream in = new DataInputStream(inputStream);
+            if (in.readInt() != MAGIC) {
+                throw new TussleException("Not a binary metrics file");
+            }
+            int version = in.readUnsignedByte();
+            if (version < 1 || version > VERSION) {
+                throw new TussleException("Unsupported binary metrics version " + version);
+            }
+            MetricData metricData = new MetricData();
+            byte[] props = new byte[(int) readVarLong(in)];
+            in.readFully(props);
+            if (props.length > 0) {
+                metricData.setRunProperties(new ObjectMapper().readValue(props, RunProperties.class));
+            }
+            String[] strings = new String[(int) readVarLong(in)];
+            for (int i = 0; i < strings.length; i++) {
+                byte[] bytes = new byte[(int) readVarLong(in)];
+                in.readFully(bytes);
+                strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            long count = readVarLong(in);
+            for (long i = 0; i < count; i++) {
+                metricData.add(readMetric(in, strings));
+            }
+            return metricData;
+        } catch (EOFException e) {
+            throw new TussleException("Truncated binary metrics data");
+        } catch (IOException e) {
+            throw new TussleException(e);
+        }
+    }
+
+    static class Dictionary {
+        final List<String> strings = new ArrayList<>();
+        final Map<String, Integer> index = new HashMap<>();
+
+        void add(String s) {
+            if (s != null && !index.containsKey(s)) {
+                index.put(s, strings.size());
+                strings.add(s);
+            }
+        }
+
+        int get(String s) {
+            return index.get(s);
+        }
+
+        void collect(Metric m) {
+            add(m.getName());
+            add(m.getHost());
+            add(m.getType());
+            add(m.getGroup());
+            add(m.getUnits());
+            add(m.getXunits());
+            add(m.getRateUnits());
+            add(m.getOperation());
+            if (m.getXValues() != null) {
+                for (String x : m.getXValues()) {
+                    add(x);
+                }
+            }
+            if (m.getMarkers() != null) {
+                m.getMarkers().forEach(marker -> add(marker.getName()));
+            }
+            collect(m.getMetricValues());
+            if (m.getLevels() != null) {
+                m.getLevels().forEach(level -> collect(level.getMetricValues()));
+            }
+        }
+
+        void collect(List<MetricValue> metricValues) {
+            if (metricValues != null) {
+                metricValues.forEach(mv -> {
+                    add(mv.getType());
+                    add(mv.getUnits());
+                });
+            }
+        }
+    }
+
+    private static int bit(Object o, int flag) {
+        return o != null ? flag : 0;
+    }
+
+    private static void writeMetric(DataOutputStream out, Metric m, Dictionary dict) throws IOException {
+        int flags = bit(m.getStart(), F_START) | bit(m.getFinish(), F_FINISH) | bit(m.getTotalValues(), F_TOTAL_VALUES)
+                | bit(m.getDelay(), F_DELAY) | bit(m.getRetry(), F_RETRY) | bit(m.getName(), F_NAME) | bit(m.getHost(), F_HOST)
+                | bit(m.getType(), F_TYPE) | bit(m.getGroup(), F_GROUP) | bit(m.getUnits(), F_UNITS) | bit(m.getXunits(), F_XUNITS)
+                | bit(m.getRateUnits(), F_RATE_UNITS) | bit(m.getOperation(), F_OPERATION) | bit(m.getHighBound(), F_HIGH_BOUND)
+                | bit(m.getTargetRate(), F_TARGET_RATE) | bit(m.getActualRate(), F_ACTUAL_RATE) | bit(m.getValue(), F_VALUE)
+                | bit(m.getMeanValue(), F_MEAN_VALUE) | bit(m.getPercentOfHighBound(), F_PERCENT_OF_HIGH_BOUND)
+                | bit(m.getXValues(), F_XVALUES) | bit(m.getMarkers(), F_MARKERS) | bit(m.getMetricValues(), F_METRIC_VALUES)
+                | bit(m.getLevels(), F_LEVELS);
+        writeVarLong(out, flags);
+        if (m.getStart() != null) {
+            writeVarLong(out, zigzag(m.getStart()));
+        }
+        if (m.getFinish() != null) {
+            writeVarLong(out, zigzag(m.getFinish() - (m.getStart() != null ? m.getStart() : 0)));
+        }
+        if (m.getTotalValues() != null) {
+            writeVarLong(out, zigzag(m.getTotalValues()));
+        }
+        if (m.getDelay() != null) {
+            writeVarLong(out, zigzag(m.getDelay()));
+        }
+        if (m.getRetry() != null) {
+            writeVarLong(out, zigzag(m.getRetry()));
+        }
+        if (m.getName() != null) {
+            writeVarLong(out, dict.get(m.getName()));
+        }
+        if (m.getHost() != null) {
+            writeVarLong(out, dict.get(m.getHost()));
+        }
+        if (m.getType() != null) {
+            writeVarLong(out, dict.get(m.getType()));
+        }
+        if (m.getGroup() != null) {
+            writeVarLong(out, dict.get(m.getGroup()));
+        }
+        if (m.getUnits() != null) {
+            writeVarLong(out, dict.get(m.getUnits()));
+        }
+        if (m.getXunits() != null) {
+            writeVarLong(out, dict.get(m.getXunits()));
+        }
+        if (m.getRateUnits() != null) {
+            writeVarLong(out, dict.get(m.getRateUnits()));
+        }
+        if (m.getOperation() != null) {
+            writeVarLong(out, dict.get(m.getOperation()));
+        }
+        if (m.getHighBound() != null) {
+            out.writeDouble(m.getHighBound());
+        }
+        if (m.getTargetRate() != null) {
+            out.writeDouble(m.getTargetRate());
+        }
+        if (m.getActualRate() != null) {
+            out.writeDouble(m.getActualRate());
+        }
+        if (m.getValue() != null) {
+            out.writeDouble(m.getValue());
+        }
+        if (m.getMeanValue() != null) {
+            out.writeDouble(m.getMeanValue());
+        }
+        if (m.getPercentOfHighBound() != null) {
+            out.writeDouble(m.getPercentOfHighBound());
+        }
+        if (m.getXValues() != null) {
+            writeVarLong(out, m.getXValues().length);
+            for (String x : m.getXValues()) {
+                writeVarLong(out, x != null ? dict.get(x) + 1L : 0);
+            }
+        }
+        if (m.getMarkers() != null) {
+            writeVarLong(out, m.getMarkers().size());
+            for (Marker marker : m.getMarkers()) {
+                int mflags = bit(marker.getName(), 1) | bit(marker.getXValue(), 2) | bit(marker.getYValue(), 4);
+                out.writeByte(mflags);
+                if (marker.getName() != null) {
+                    writeVarLong(out, dict.get(marker.getName()));
+                }
+                if (marker.getXValue() != null) {
+                    out.writeDouble(marker.getXValue());
+                }
+                if (marker.getYValue() != null) {
+                    out.writeDouble(marker.getYValue());
+                }
+            }
+        }
+        if (m.getMetricValues() != null) {
+            writeMetricValues(out, m.getMetricValues(), dict);
+        }
+        if (m.getLevels() != null) {
+            writeVarLong(out, m.getLevels().size());
+            for (MetricLevel level : m.getLevels()) {
+                int lflags = bit(level.getDelay(), 1) | bit(level.getPoints(), 2) | bit(level.getMetricValues(), 4);
+                out.writeByte(lflags);
+                if (level.getDelay() != null) {
+                    writeVarLong(out, zigzag(level.getDelay()));
+                }
+                if (level.getPoints() != null) {
+                    writeVarLong(out, level.getPoints());
+                }
+                if (level.getMetricValues() != null) {
+                    writeMetricValues(out, level.getMetricValues(), dict);
+                }
+            }
+        }
+    }
+
+    private static void writeMetricValues(DataOutputStream out, List<MetricValue> metricValues, Dictionary dict) throws IOException {
+        writeVarLong(out, metricValues.size());
+        for (MetricValue mv : metricValues) {
+            int vflags = bit(mv.getType(), V_TYPE) | bit(mv.getUnits(), V_UNITS) | bit(mv.getValue(), V_VALUE) | bit(mv.getValues(), V_VALUES);
+            out.writeByte(vflags);
+            if (mv.getType() != null) {
+                writeVarLong(out, dict.get(mv.getType()));
+            }
+            if (mv.getUnits() != null) {
+                writeVarLong(out, dict.get(mv.getUnits()));
+            }
+            if (mv.getValue() != null) {
+                out.writeDouble(mv.getValue());
+            }
+            if (mv.getValues() != null) {
+                writeSeries(out, mv.getValues());
+            }
+        }
+    }
+
+    private static Metric readMetric(DataInputStream in, String[] strings) throws IOException {
+        Metric m = new Metric();
+        int flags = (int) readVarLong(in);
+        if ((flags & F_START) != 0) {
+            m.setStart(unzigzag(readVarLong(in)));
+        }
+        if ((flags & F_FINISH) != 0) {
+            m.setFinish(unzigzag(readVarLong(in)) + (m.getStart() != null ? m.getStart() : 0));
+        }
+        if ((flags & F_TOTAL_VALUES) != 0) {
+            m.setTotalValues(unzigzag(readVarLong(in)));
+        }
+        if ((flags & F_DELAY) != 0) {
+            m.setDelay((int) unzigzag(readVarLong(in)));
+        }
+        if ((flags & F_RETRY) != 0) {
+            m.setRetry((int) unzigzag(readVarLong(in)));
+        }
+        if ((flags & F_NAME) != 0) {
+            m.setName(strings[(int) readVarLong(in)]);
+        }
+        if ((flags & F_HOST) != 0) {
+            m.setHost(strings[(int) readVarLong(in)]);
+        }
+        if ((flags & F_TYPE) != 0) {
+            m.setType(strings[(int) readVarLong(in)]);
+        }
+        if ((flags & F_GROUP) != 0) {
+            m.setGroup(strings[(int) readVarLong(in)]);
+        }
+        if ((flags & F_UNITS) != 0) {
+            m.setUnits(strings[(int) readVarLong(in)]);
+        }
+        if ((flags & F_XUNITS) != 0) {
+            m.setXunits(strings[(int) readVarLong(in)]);
+        }
+        if ((flags & F_RATE_UNITS) != 0) {
+            m.setRateUnits(strings[(int) readVarLong(in)]);
+        }
+        if ((flags & F_OPERATION) != 0) {
+            m.setOperation(strings[(int) readVarLong(in)]);
+        }
+        if ((flags & F_HIGH_BOUND) != 0) {
+            m.setHighBound(in.readDouble());
+        }
+        if ((flags & F_TARGET_RATE) != 0) {
+            m.setTargetRate(in.readDouble());
+        }
+        if ((flags & F_ACTUAL_RATE) != 0) {
+            m.setActualRate(in.readDouble());
+        }
+        if ((flags & F_VALUE) != 0) {
+            m.setValue(in.readDouble());
+        }
+        if ((flags & F_MEAN_VALUE) != 0) {
+            m.setMeanValue(in.readDouble());
+        }
+        if ((flags & F_PERCENT_OF_HIGH_BOUND) != 0) {
+            m.setPercentOfHighBound(in.readDouble());
+        }
+        if ((flags & F_XVALUES) != 0) {
+            String[] xValues = new String[(int) readVarLong(in)];
+            for (int i = 0; i < xValues.length; i++) {
+                int idx = (int) readVarLong(in);
+                xValues[i] = idx > 0 ? strings[idx - 1] : null;
+            }
+            m.setXValues(xValues);
+        }
+        if ((flags & F_MARKERS) != 0) {
+            int count = (int) readVarLong(in);
+            ArrayList<Marker> markers = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int mflags = in.readUnsignedByte();
+                Marker marker = new Marker();
+                if ((mflags & 1) != 0) {
+                    marker.setName(strings[(int) readVarLong(in)]);
+                }
+                if ((mflags & 2) != 0) {
+                    marker.setXValue(in.readDouble());
+                }
+                if ((mflags & 4) != 0) {
+                    marker.setYValue(in.readDouble());
+                }
+                markers.add(marker);
+            }
+            m.setMarkers(markers);
+        }
+        if ((flags & F_METRIC_VALUES) != 0) {
+            m.setMetricValues(readMetricValues(in, strings));
+        }
+        if ((flags & F_LEVELS) != 0) {
+            int count = (int) readVarLong(in);
+            ArrayList<MetricLevel> levels = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int lflags = in.readUnsignedByte();
+                MetricLevel level = new MetricLevel();
+                if ((lflags & 1) != 0) {
+                    level.setDelay((int) unzigzag(readVarLong(in)));
+                }
+                if ((lflags & 2) != 0) {
+                    level.setPoints((int) readVarLong(in));
+                }
+                if ((lflags & 4) != 0) {
+                    level.setMetricValues(readMetricValues(in, strings));
+                }
+                levels.add(level);
+            }
+            m.setLevels(levels);
+        }
+        return m;
+    }
+
+    private static ArrayList<MetricValue> readMetricValues(DataInputStream in, String[] strings) throws IOException {
+        int count = (int) readVarLong(in);
+        ArrayList<MetricValue> metricValues = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int vflags = in.readUnsignedByte();
+            MetricValue mv = new MetricValue();
+            if ((vflags & V_TYPE) != 0) {
+                mv.setType(strings[(int) readVarLong(in)]);
+            }
+            if ((vflags & V_UNITS) != 0) {
+                mv.setUnits(strings[(int) readVarLong(in)]);
+            }
+            if ((vflags & V_VALUE) != 0) {
+                mv.setValue(in.readDouble());
+            }
+            if ((vflags & V_VALUES) != 0) {
+                mv.setValues(readSeries(in));
+            }
+            metricValues.add(mv);
+        }
+        return metricValues;
+    }
+
+    /**
+     * Finds minimal decimal scale which represents all values as integers without loss
+     *
+     * @return scale or -1 if series should be stored as raw doubles
+     */
+    static int detectScale(double[] values) {
+        for (int scale = 0; scale <= MAX_SCALE; scale++) {
+            if (fitsScale(values, scale)) {
+                return scale;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean fitsScale(double[] values, int scale) {
+        double factor = POW10[scale];
+        for (double v : values) {
+            double scaled = v * factor;
+            if (Double.isNaN(scaled) || Math.abs(scaled) >= 1L << 52) {
+                return false;
+            }
+            long l = Math.round(scaled);
+            if (l / factor != v) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static void writeSeries(DataOutputStream out, double[] values) throws IOException {
+        writeVarLong(out, values.length);
+        int scale = detectScale(values);
+        if (scale < 0) {
+            out.writeByte(RAW_DOUBLES);
+            for (double v : values) {
+                out.writeDouble(v);
+            }
+            return;
+        }
+        out.writeByte(scale);
+        double factor = POW10[scale];
+        long prev = 0;
+        for (double v : values) {
+            long l = Math.round(v * factor);
+            writeVarLong(out, zigzag(l - prev));
+            prev = l;
+        }
+    }
+
+    static double[] readSeries(DataInputStream in) throws IOException {
+        double[] values = new double[(int) readVarLong(in)];
+        int scale = in.readUnsignedByte();
+        if (scale == RAW_DOUBLES) {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = in.readDouble();
+            }
+            return values;
+        }
+        if (scale > MAX_SCALE) {
+            throw new IOException("Invalid series scale " + scale);
+        }
+        double factor = POW10[scale];
+        long prev = 0;
+        for (int i = 0; i < values.length; i++) {
+            prev += unzigzag(readVarLong(in));
+            values[i] = prev / factor;
+        }
+        return values;
+    }
+
+    static long zigzag(long v) {
+        return (v << 1) ^ (v >> 63);
+    }
+
+    static long unzigzag(long v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    static void writeVarLong(DataOutputStream out, long v) throws IOException {
+        while ((v & ~0x7FL) != 0) {
+            out.writeByte((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.writeByte((int) v);
+    }
+
+    static long readVarLong(DataInputStream in) throws IOException {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return v;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    public static File binFile(File jsonFile) {
+        String name = jsonFile.getName();
+        return new File(jsonFile.getParentFile(), (name.endsWith(".json") ? name.substring(0, name.length() - 5) : name) + ".bin");
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2021-2023, Azul Systems
+ * 
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * 
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * 
+ * * Neither the name of [project] nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+package org.tussleframework.tools;
+
+import static org.tussleframework.Globals.*;
+
+import java.util.Locale;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * Operation start pacer with selectable waiting strategy and own schedule lateness histogram.
+ * 
+ * BATCH mode releases all operations due within a tick at the tick start, so it raises the instantaneous offered rate
+ * within a tick above the target one. Such early releases are not lateness, they are recorded in a separate earliness histogram.
+ * 
+ * Not thread safe, every pacing thread should use its own instance.
+ *
+ */
+public class Pacer {
+
+    public static final java.util.logging.Logger logger = java.util.logging.Logger.getLogger(Pacer.class.getName());
+
+    public static void log(String format, Object... args) {
+        if (logger.isLoggable(Level.INFO)) {
+            logger.info(String.format("[%s] %s", Pacer.class.getSimpleName(), String.format(format, args)));
+        }
+    }
+
+    public enum Mode {
+        HYBRID,     // park and then spin the last 50 us, see SleepTool.sleepUntil
+        PARK,       // park only, lowest CPU usage and highest jitter
+        SPIN,       // busy spin, lowest jitter, burns a full core
+        SPIN_YIELD, // spin with Thread.yield
+        CALIBRATED, // park with slack measured at startup, then spin with yield
+        BATCH;      // wake once per tick and dispatch all ops due within the tick, ops are released up to a tick early
+
+        public static Mode parse(String s) {
+            return valueOf(s.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        }
+    }
+
+    public static final long DEFAULT_TICK_NS = 100 * NS_IN_US;
+    private static final int CALIBRATION_COUNT = 200;
+    private static final long CALIBRATION_PARK_NS = 10 * NS_IN_US;
+    private static volatile long parkSlack = -1;
+
+    private final Mode mode;
+    private final long tick;
+    private final long slack;
+    private final Histogram lateness = new Histogram(3);
+    private final Histogram earliness = new Histogram(3);
+    private long origin;
+
+    public Pacer() {
+        this(Mode.HYBRID, 0);
+    }
+
+    /**
+     * @param mode - pacing strategy
+     * @param tick - BATCH mode tick in nanoseconds, 0 - use default
+     */
+    public Pacer(Mode mode, long tick) {
+        this.mode = mode;
+        this.tick = tick > 0 ? tick : DEFAULT_TICK_NS;
+        this.slack = mode == Mode.CALIBRATED ? getParkSlack() : 0;
+        this.origin = System.nanoTime();
+    }
+
+    public static Pacer create(String mode, long tickUs) {
+        return new Pacer(mode != null ? Mode.parse(mode) : Mode.HYBRID, tickUs * NS_IN_US);
+    }
+
+    /**
+     * Measures how much LockSupport.parkNanos overshoots on this system (99th percentile), measured once per JVM
+     */
+    public static long getParkSlack() {
+        if (parkSlack < 0) {
+            Histogram h = new Histogram(3);
+            for (int i = 0; i < CALIBRATION_COUNT; i++) {
+                long start = System.nanoTime();
+                LockSupport.parkNanos(CALIBRATION_PARK_NS);
+                long overshoot = System.nanoTime() - start - CALIBRATION_PARK_NS;
+                h.recordValue(Math.max(overshoot, 0));
+            }
+            parkSlack = h.getValueAtPercentile(99);
+            log("Calibrated park slack %d us", parkSlack / NS_IN_US);
+        }
+        return parkSlack;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public Histogram getLateness() {
+        return lateness;
+    }
+
+    /**
+     * @return histogram of how much earlier than intended operations were released, only BATCH mode releases them early
+     */
+    public Histogram getEarliness() {
+        return earliness;
+    }
+
+    /**
+     * Sets start of the schedule, BATCH ticks are aligned to it
+     * 
+     * @param origin - System.nanoTime's
+     */
+    public void start(long origin) {
+        this.origin = origin;
+        lateness.reset();
+        earliness.reset();
+    }
+
+    /**
+     * Waits until the operation intended start time and records lateness of the actual start, or its earliness if released early
+     *
+     * @param deadline - intended start time, System.nanoTime's
+     * @return actual time of the return, System.nanoTime's
+     */
+    public long awaitUntil(long deadline) {
+        long now;
+        switch (mode) {
+        case PARK:
+            now = System.nanoTime();
+            while (deadline - now > 0) {
+                LockSupport.parkNanos(deadline - now);
+                now = System.nanoTime();
+            }
+            break;
+        case SPIN:
+            do {
+                now = System.nanoTime();
+            } while (deadline - now > 0);
+            break;
+        case SPIN_YIELD:
+            now = spinYield(deadline);
+            break;
+        case CALIBRATED:
+            now = System.nanoTime();
+            while (deadline - now > slack) {
+                LockSupport.parkNanos(deadline - now - slack);
+                now = System.nanoTime();
+            }
+            now = spinYield(deadline);
+            break;
+        case BATCH:
+            now = System.nanoTime();
+            long release = deadline - Math.floorMod(deadline - origin, tick);
+            while (release - now > 0) {
+                LockSupport.parkNanos(release - now);
+                now = System.nanoTime();
+            }
+            break;
+        default:
+            SleepTool.sleepUntil(deadline);
+            now = System.nanoTime();
+        }
+        if (deadline - now > 0) {
+            earliness.recordValue(deadline - now);
+        } else {
+            lateness.recordValue(now - deadline);
+        }
+        return now;
+    }
+
+    private static long spinYield(long deadline) {
+        long now = System.nanoTime();
+        while (deadline - now > 0) {
+            Thread.yield();
+            now = System.nanoTime();
+        }
+        return now;
+    }
+
+    public static String latenessSummary(Histogram lateness, Histogram earliness) {
+        String summary = latenessSummary(lateness);
+        if (earliness.getTotalCount() == 0) {
+            return summary;
+        }
+        return summary + String.format(", released early %d ops: p50 %s, max %s",
+                earliness.getTotalCount(),
+                FormatTool.roundFormat(earliness.getValueAtPercentile(50) / (double) NS_IN_US),
+                FormatTool.roundFormat(earliness.getMaxValue() / (double) NS_IN_US));
+    }
+
+    public static String latenessSummary(Histogram h) {
+        return String.format("schedule lateness us: p50 %s, p99 %s, p99.9 %s, max %s",
+                FormatTool.roundFormat(h.getValueAtPercentile(50) / (double) NS_IN_US),
+                FormatTool.roundFormat(h.getValueAtPercentile(99) / (double) NS_IN_US),
+                FormatTool.roundFormat(h.getValueAtPercentile(99.9) / (double) NS_IN_US),
+                FormatTool.roundFormat(h.getMaxValue() / (double) NS_IN_US));
+    }
+}
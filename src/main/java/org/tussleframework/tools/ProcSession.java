@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2021-2023, Azul Systems
+ * 
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * 
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * 
+ * * Neither the name of [project] nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+package org.tussleframework.tools;
+
+import static org.tussleframework.tools.FormatTool.paramName;
+import static org.tussleframework.tools.FormatTool.paramValue;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.tussleframework.TussleException;
+import org.tussleframework.TussleTimeoutException;
+import org.tussleframework.tools.ProcTool.CmdVars;
+
+/**
+ * Long-lived external benchmark process driven by line commands over its stdin:
+ * 
+ *   run {targetRate} {warmupTime} {runTime} {runStep}
+ *   reset
+ *   stop   - finish current run earlier
+ *   exit
+ * 
+ * The process answers each command except 'stop' and 'exit' with a line on its stdout:
+ * 
+ *   @done [optional RunResult json]
+ *   @error message
+ * 
+ * 'stop' is a signal to the running 'run' command which answers as usual when finished earlier.
+ * Replies left over from previous commands are dropped before sending a new command.
+ * Any other output lines are passed to the log stream.
+ */
+public class ProcSession implements AutoCloseable {
+
+    public static final String DONE = "@done";
+    public static final String ERROR = "@error";
+
+    private static void log(String format, Object... args) {
+        LoggerTool.log(ProcSession.class.getSimpleName(), format, args);
+    }
+
+    private final String name;
+    private final CmdVars vars;
+    private final OutputStream log;
+    private final BlockingQueue<String> replies = new LinkedBlockingQueue<>();
+    private Process proc;
+    private Writer commands;
+
+    public ProcSession(String name, CmdVars vars, OutputStream log) {
+        this.name = name;
+        this.vars = vars;
+        this.log = log;
+    }
+
+    public String getDir() {
+        return vars.dir;
+    }
+
+    public boolean isAlive() {
+        return proc != null && proc.isAlive();
+    }
+
+    public synchronized void start() throws TussleException {
+        log("Starting session process '%s' [%s] (dir: %s)", name, FormatTool.join(" ", Arrays.asList(vars.cmd)), vars.dir != null ? vars.dir : ".");
+        try {
+            ProcessBuilder pb = new ProcessBuilder(new ArrayList<>(Arrays.asList(vars.cmd)));
+            if (vars.dir != null) {
+                File dir = new File(vars.dir);
+                dir.mkdirs();
+                pb.directory(dir);
+            }
+            Map<String, String> env = pb.environment();
+            Arrays.asList(vars.env).forEach(es -> env.put(paramName(es), paramValue(es)));
+            pb.redirectErrorStream(true);
+            proc = pb.start();
+            commands = new OutputStreamWriter(proc.getOutputStream(), StandardCharsets.UTF_8);
+            replies.clear();
+            Thread reader = new Thread(this::readOutput, "session-" + name);
+            reader.setDaemon(true);
+            reader.start();
+        } catch (IOException e) {
+            throw new TussleException(e);
+        }
+    }
+
+    private void readOutput() {
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(proc.getInputStream(), StandardCharsets.UTF_8))) {
+            PrintStream out = new PrintStream(log, true);
+            String line;
+            while ((line = br.readLine()) != null) {
+                String trimmed = line.trim();
+                if (trimmed.startsWith(DONE) || trimmed.startsWith(ERROR)) {
+                    replies.add(trimmed);
+                } else {
+                    out.println(line);
+                }
+            }
+        } catch (IOException e) {
+            log("Session '%s' output: %s", name, e.getMessage());
+        }
+    }
+
+    /**
+     * Sends command and waits for its reply
+     * 
+     * @return optional payload following the '@done' reply
+     * @throws TussleException - error reply, process exit or timeout
+     */
+    public String call(String command, int timeout) throws TussleException {
+        String stale;
+        while ((stale = replies.poll()) != null) {
+            log("Session '%s' dropped stale reply: %s", name, stale);
+        }
+        send(command);
+        long deadline = System.currentTimeMillis() + timeout * 1000L;
+        try {
+            while (true) {
+                String reply = replies.poll(100, TimeUnit.MILLISECONDS);
+                if (reply != null) {
+                    if (reply.startsWith(ERROR)) {
+                        throw new TussleException(String.format("Session '%s' command '%s' failed: %s", name, command, reply.substring(ERROR.length()).trim()));
+                    }
+                    return reply.substring(DONE.length()).trim();
+                }
+                if (!isAlive()) {
+                    throw new TussleException(String.format("Session '%s' process exited during command '%s'", name, command));
+                }
+                if (System.currentTimeMillis() > deadline) {
+                    throw new TussleTimeoutException(String.format("Session '%s' command '%s' has not finished during expected time %d seconds", name, command, timeout));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TussleException(e);
+        }
+    }
+
+    /**
+     * Sends command without waiting for reply, e.g. 'stop' from another thread
+     */
+    public synchronized void send(String command) throws TussleException {
+        if (!isAlive()) {
+            throw new TussleException(String.format("Session '%s' process is not running", name));
+        }
+        log("Session '%s' command: %s", name, command);
+        try {
+            commands.write(command);
+            commands.write('\n');
+            commands.flush();
+        } catch (IOException e) {
+            throw new TussleException(e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (proc == null) {
+            return;
+        }
+        try {
+            if (proc.isAlive()) {
+                send("exit");
+                if (!proc.waitFor(10, TimeUnit.SECONDS)) {
+                    log("Session '%s' process has not exited, destroying...", name);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (TussleException e) {
+            log("Session '%s' exit: %s", name, e.getMessage());
+        } finally {
+            proc.destroy();
+            proc = null;
+        }
+    }
+}
@@ -45,6 +45,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import org.tussleframework.TussleException;
 import org.tussleframework.TussleTimeoutException;
@@ -129,6 +130,17 @@ public class ProcTool {
         runProcess(name, vars.dir, Arrays.asList(vars.cmd), Arrays.asList(vars.env), FormatTool.parseTimeLength(vars.delay), os);
     }
 
+    /**
+     * Runs process passing it to onStart callback, e.g. for stopping the process earlier from another thread
+     */
+    public static void runProcess(String name, CmdVars vars, OutputStream os, Consumer<Process> onStart) throws TussleException {
+        runProcessCB(name, vars.dir, Arrays.asList(vars.cmd), Arrays.asList(vars.env), FormatTool.parseTimeLength(vars.delay), (proc, state) -> {
+            startStream(proc.getInputStream(), os, state);
+            startStream(proc.getErrorStream(), os, state);
+            onStart.accept(proc);
+        });
+    }
+
     public static void runProcess(String name, String procDir, Collection<String> args, Collection<String> env, int expectedRunTime, OutputStream os) throws TussleException {
         runProcess(name, procDir, args, env, expectedRunTime, os, os);
     }
@@ -0,0 +1,416 @@
+/*
+ * Copyright (c) 2021-2023, Azul Systems
+ * 
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * 
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * 
+ * * Neither the name of [project] nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+package org.tussleframework.tools;
+
+import static org.tussleframework.tools.FormatTool.matchFilters;
+import static org.tussleframework.tools.FormatTool.roundFormat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramIterationValue;
+import org.tussleframework.Tool;
+import org.tussleframework.TussleException;
+import org.tussleframework.metrics.HdrResult;
+import org.tussleframework.metrics.Interval;
+import org.tussleframework.metrics.Metric;
+import org.tussleframework.metrics.MetricData;
+import org.tussleframework.metrics.MetricValue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Compares results of several runs with the baseline one (the first result directory):
+ * results are aligned by operation, metric and target rate, percentile and conforming
+ * rate deltas are computed and latency distribution changes are checked by two-sample
+ * Kolmogorov-Smirnov test on the underlying histograms.
+ * 
+ * A change is reported as regression (or improvement) when it exceeds the threshold and,
+ * for latencies, the distributions differ significantly.
+ */
+public class RegressionComparator implements Tool {
+
+    private static final java.util.logging.Logger logger = java.util.logging.Logger.getLogger(RegressionComparator.class.getName());
+
+    public static void log(String format, Object... args) {
+        if (logger.isLoggable(Level.INFO)) {
+            logger.info(String.format("[%s] %s", RegressionComparator.class.getSimpleName(), String.format(format, args)));
+        }
+    }
+
+    public enum Verdict {
+        NO_CHANGE,
+        IMPROVEMENT,
+        REGRESSION
+    }
+
+    /**
+     * Merged histogram of all run steps of the same operation, metric and target rate
+     */
+    static class Aligned {
+        String operation;
+        String metric;
+        String timeUnits;
+        String rateUnits;
+        double targetRate;
+        double hdrFactor;
+        Histogram histogram = new Histogram(3);
+    }
+
+    static class RunData {
+        String label;
+        File dir;
+        Map<String, Aligned> results = new TreeMap<>();
+        Map<String, Double> conformingRates = new TreeMap<>();
+    }
+
+    public static void main(String[] args) {
+        LoggerTool.init("regression-comparator");
+        try {
+            new RegressionComparator().compare(args);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    protected RegressionComparatorConfig config;
+    protected MetricData metricData;
+
+    public Map<String, Verdict> compare(String[] args) throws TussleException {
+        return compare((RegressionComparatorConfig) ConfigLoader.loadConfig(args, false, RegressionComparatorConfig.class));
+    }
+
+    /**
+     * @return verdict for each compared result directory
+     */
+    public Map<String, Verdict> compare(RegressionComparatorConfig config) throws TussleException {
+        this.config = config;
+        this.metricData = new MetricData();
+        metricData.loadDefaultRunProperties();
+        metricData.getRunProperties().setProperty("benchmark_name", "regression comparison");
+        List<RunData> runs = loadRuns();
+        RunData baseline = runs.get(0);
+        Map<String, Verdict> verdicts = new TreeMap<>();
+        for (int i = 1; i < runs.size(); i++) {
+            RunData run = runs.get(i);
+            Verdict verdict = compare(baseline, run);
+            verdicts.put(run.label, verdict);
+            metricData.add(Metric.builder()
+                    .name("regression_verdict " + run.label)
+                    .type(verdict.name())
+                    .value((double) verdict.ordinal())
+                    .build());
+            log("Verdict for '%s' vs baseline '%s': %s", run.label, baseline.label, verdict);
+        }
+        saveResults(runs);
+        return verdicts;
+    }
+
+    protected List<RunData> loadRuns() throws TussleException {
+        int threads = config.threads > 0 ? config.threads : Runtime.getRuntime().availableProcessors();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, config.resultDirs.length));
+        try {
+            List<Future<RunData>> futures = new ArrayList<>();
+            for (int i = 0; i < config.resultDirs.length; i++) {
+                final int idx = i;
+                futures.add(executor.submit(() -> loadRun(config.resultDirs[idx], idx)));
+            }
+            List<RunData> runs = new ArrayList<>();
+            for (Future<RunData> future : futures) {
+                runs.add(future.get());
+            }
+            return runs;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TussleException(e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof TussleException ? (TussleException) e.getCause() : new TussleException(e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    protected RunData loadRun(String resultDir, int idx) throws TussleException {
+        RunData run = new RunData();
+        run.dir = new File(resultDir);
+        run.label = String.format("%d-%s", idx, run.dir.getAbsoluteFile().toPath().normalize().getFileName());
+        List<Path> files;
+        try (Stream<Path> stream = Files.walk(run.dir.toPath())) {
+            files = stream.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new TussleException(e);
+        }
+        Interval[] intervals = null;
+        if (config.hdrCutTime > 0) {
+            intervals = new Interval[] { new Interval(config.hdrCutTime, Long.MAX_VALUE, "", false) };
+        }
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            if (name.equals("metrics.json")) {
+                loadConformingRates(file, run.conformingRates);
+            } else if (name.equals("metrics.bin")) {
+                MetricsStore.read(file.toString()).getMetrics().stream()
+                        .filter(metric -> metric.getName() != null && metric.getName().contains("conforming_rate") && metric.getValue() != null)
+                        .forEach(metric -> run.conformingRates.put(conformingRateKey(metric.getOperation(), metric.getName()), metric.getValue()));
+            } else if (Analyzer.isHistogramFile(name)) {
+                HdrResult hdrResult = new HdrResult(file.toString(), config);
+                if (!matchFilters(hdrResult.operationName(), config.operationsInclude, config.operationsExclude) || !matchFilters(hdrResult.metricName(), config.metricsInclude, null)) {
+                    continue;
+                }
+                hdrResult.loadHdrFile(null, intervals);
+                if (hdrResult.getCount() == 0) {
+                    continue;
+                }
+                Aligned aligned = run.results.computeIfAbsent(alignKey(hdrResult.operationName(), hdrResult.metricName(), hdrResult.targetRate()), key -> new Aligned());
+                aligned.operation = hdrResult.operationName();
+                aligned.metric = hdrResult.metricName();
+                aligned.timeUnits = hdrResult.timeUnits();
+                aligned.rateUnits = hdrResult.rateUnits();
+                aligned.targetRate = hdrResult.targetRate();
+                aligned.hdrFactor = hdrResult.hdrFactor();
+                aligned.histogram.add(hdrResult.getPrimeHistogram());
+            }
+        }
+        log("Loaded '%s': %d results, %d conforming rates", resultDir, run.results.size(), run.conformingRates.size());
+        return run;
+    }
+
+    protected static String alignKey(String operation, String metric, double targetRate) {
+        return String.format("%s %s %s", operation, metric, FormatTool.format(targetRate));
+    }
+
+    protected static String conformingRateKey(String operation, String name) {
+        return ((operation != null ? operation : "") + " " + name.replace(" (unbroken)", "")).trim();
+    }
+
+    protected void loadConformingRates(Path metricsJson, Map<String, Double> conformingRates) throws TussleException {
+        try {
+            JsonNode root = new ObjectMapper().readTree(metricsJson.toFile());
+            if (root.has("doc")) {
+                root = root.get("doc");
+            }
+            for (JsonNode metric : root.path("metrics")) {
+                String name = metric.path("name").asText();
+                if (name.contains("conforming_rate") && metric.has("value")) {
+                    conformingRates.put(conformingRateKey(metric.path("operation").asText(null), name), metric.get("value").asDouble());
+                }
+            }
+        } catch (IOException e) {
+            throw new TussleException(e);
+        }
+    }
+
+    protected Verdict compare(RunData baseline, RunData run) {
+        int regressions = 0;
+        int improvements = 0;
+        for (Map.Entry<String, Aligned> entry : baseline.results.entrySet()) {
+            Aligned base = entry.getValue();
+            Aligned cand = run.results.get(entry.getKey());
+            if (cand == null) {
+                log("'%s': no results for %s", run.label, entry.getKey());
+                continue;
+            }
+            double[] ks = ksTest(base.histogram, cand.histogram);
+            boolean significant = ks[1] < config.significance;
+            double[] baseValues = new double[config.percentiles.length];
+            double[] candValues = new double[config.percentiles.length];
+            double[] deltas = new double[config.percentiles.length];
+            String[] xValues = new String[config.percentiles.length];
+            for (int i = 0; i < config.percentiles.length; i++) {
+                xValues[i] = "P" + FormatTool.format(config.percentiles[i]);
+                baseValues[i] = base.histogram.getValueAtPercentile(config.percentiles[i]) / base.hdrFactor;
+                candValues[i] = cand.histogram.getValueAtPercentile(config.percentiles[i]) / cand.hdrFactor;
+                deltas[i] = delta(baseValues[i], candValues[i]);
+                if (significant && deltas[i] > config.threshold) {
+                    regressions++;
+                    log("'%s': %s %s regressed by %s%% (%s -> %s %s, KS p-value %s)", run.label, entry.getKey(), xValues[i], roundFormat(deltas[i]), roundFormat(baseValues[i]), roundFormat(candValues[i]), base.timeUnits, ks[1]);
+                } else if (significant && deltas[i] < -config.threshold) {
+                    improvements++;
+                }
+            }
+            metricData.add(Metric.builder()
+                    .name(base.metric + " diff " + run.label)
+                    .operation(base.operation)
+                    .units(base.timeUnits)
+                    .xunits("percentile")
+                    .rateUnits(base.rateUnits)
+                    .targetRate(base.targetRate)
+                    .type(significant ? "significant" : "insignificant")
+                    .value(ks[1])
+                    .xValues(xValues)
+                    .build()
+                    .add(new MetricValue("BASELINE", baseValues))
+                    .add(new MetricValue("CANDIDATE", candValues))
+                    .add(new MetricValue("DELTA_PERCENT", deltas)));
+        }
+        for (Map.Entry<String, Double> entry : baseline.conformingRates.entrySet()) {
+            Double candRate = run.conformingRates.get(entry.getKey());
+            if (candRate == null) {
+                continue;
+            }
+            // higher conforming rate is better
+            double d = -delta(entry.getValue(), candRate);
+            if (d > config.threshold) {
+                regressions++;
+                log("'%s': %s dropped by %s%% (%s -> %s)", run.label, entry.getKey(), roundFormat(d), roundFormat(entry.getValue()), roundFormat(candRate));
+            } else if (d < -config.threshold) {
+                improvements++;
+            }
+            metricData.add(Metric.builder()
+                    .name(entry.getKey() + " diff " + run.label)
+                    .value(-d)
+                    .units("%")
+                    .build());
+        }
+        if (regressions > 0) {
+            return Verdict.REGRESSION;
+        }
+        return improvements > 0 ? Verdict.IMPROVEMENT : Verdict.NO_CHANGE;
+    }
+
+    /**
+     * @return relative change in percents
+     */
+    static double delta(double base, double value) {
+        if (base == 0) {
+            return value == 0 ? 0 : 100;
+        }
+        return (value - base) * 100 / base;
+    }
+
+    /**
+     * Two-sample Kolmogorov-Smirnov test over histogram distributions
+     *
+     * @return KS statistic D and its asymptotic p-value
+     */
+    public static double[] ksTest(Histogram a, Histogram b) {
+        long n1 = a.getTotalCount();
+        long n2 = b.getTotalCount();
+        if (n1 == 0 || n2 == 0) {
+            return new double[] { 0, 1 };
+        }
+        long[][] va = recordedValues(a);
+        long[][] vb = recordedValues(b);
+        int i = 0;
+        int j = 0;
+        long c1 = 0;
+        long c2 = 0;
+        double d = 0;
+        while (i < va[0].length || j < vb[0].length) {
+            long x = Math.min(i < va[0].length ? va[0][i] : Long.MAX_VALUE, j < vb[0].length ? vb[0][j] : Long.MAX_VALUE);
+            while (i < va[0].length && va[0][i] == x) {
+                c1 += va[1][i++];
+            }
+            while (j < vb[0].length && vb[0][j] == x) {
+                c2 += vb[1][j++];
+            }
+            d = Math.max(d, Math.abs((double) c1 / n1 - (double) c2 / n2));
+        }
+        double ne = (double) n1 * n2 / (n1 + n2);
+        double sqrtNe = Math.sqrt(ne);
+        double lambda = (sqrtNe + 0.12 + 0.11 / sqrtNe) * d;
+        return new double[] { d, kolmogorovQ(lambda) };
+    }
+
+    private static long[][] recordedValues(Histogram h) {
+        List<long[]> values = new ArrayList<>();
+        for (HistogramIterationValue v : h.recordedValues()) {
+            values.add(new long[] { h.highestEquivalentValue(v.getValueIteratedTo()), v.getCountAtValueIteratedTo() });
+        }
+        long[][] res = new long[2][values.size()];
+        for (int k = 0; k < values.size(); k++) {
+            res[0][k] = values.get(k)[0];
+            res[1][k] = values.get(k)[1];
+        }
+        return res;
+    }
+
+    /**
+     * Kolmogorov distribution complementary CDF
+     */
+    private static double kolmogorovQ(double lambda) {
+        if (lambda < 0.2) {
+            return 1;
+        }
+        double sum = 0;
+        double sign = 1;
+        for (int k = 1; k <= 100; k++) {
+            double term = sign * Math.exp(-2 * k * k * lambda * lambda);
+            sum += term;
+            if (Math.abs(term) < 1e-12) {
+                break;
+            }
+            sign = -sign;
+        }
+        return Math.max(0, Math.min(1, 2 * sum));
+    }
+
+    protected void saveResults(List<RunData> runs) throws TussleException {
+        try {
+            Files.createDirectories(Paths.get(config.outputDir));
+        } catch (IOException e) {
+            throw new TussleException(e);
+        }
+        File diffJson = new File(config.outputDir, "metrics.json");
+        JsonTool.printJson(metricData, diffJson.getAbsolutePath());
+        log("Comparison results saved to '%s'", diffJson);
+        if (config.makeReport) {
+            Collection<String> metricsJsons = new ArrayList<>();
+            runs.forEach(run -> {
+                File metricsJson = new File(run.dir, "metrics.json");
+                if (metricsJson.exists()) {
+                    metricsJsons.add(metricsJson.getAbsolutePath());
+                }
+            });
+            metricsJsons.add(diffJson.getAbsolutePath());
+            Reporter.make(config.reportDir, metricsJsons.toArray(new String[0]));
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2021-2023, Azul Systems
+ * 
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * 
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * 
+ * * Neither the name of [project] nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+package org.tussleframework.tools;
+
+import org.tussleframework.HdrConfig;
+
+public class RegressionComparatorConfig extends HdrConfig {
+    public String[] resultDirs = {};                         // result directories, the first one is the baseline, others are compared with it
+    public String[] metricsInclude = { ".*" };               // metric names to be compared
+    public double[] percentiles = { 50, 90, 99, 99.9, 100 }; // compared percentiles
+    public double threshold = 5;                             // relative change in percents treated as regression or improvement
+    public double significance = 0.01;                       // KS test significance level for latency distribution changes
+    public int threads = 0;                                  // threads used to load results, 0 - number of available processors
+    public String outputDir = "./comparison";                // location for comparison metrics.json
+    public boolean makeReport = false;
+    public String reportDir = "./comparison/report";
+
+    @Override
+    public void validate(boolean runMode) {
+        super.validate(runMode);
+        if (resultDirs == null || resultDirs.length < 2) {
+            throw new IllegalArgumentException("Invalid resultDirs - at least two result directories required");
+        }
+        if (threshold < 0) {
+            throw new IllegalArgumentException(String.format("Invalid threshold(%s) - should be non-negative", threshold));
+        }
+        if (significance <= 0 || significance >= 1) {
+            throw new IllegalArgumentException(String.format("Invalid significance(%s) - should be in (0, 1) range", significance));
+        }
+        if (threads < 0) {
+            throw new IllegalArgumentException(String.format("Invalid threads(%d) - should be non-negative", threads));
+        }
+    }
+}
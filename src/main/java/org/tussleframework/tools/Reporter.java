@@ -32,9 +32,9 @@
 
 package org.tussleframework.tools;
 
-import java.io.BufferedReader;
+import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileReader;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintStream;
@@ -42,11 +42,26 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.logging.Level;
 
+import org.tussleframework.HdrConfig;
 import org.tussleframework.Tool;
 import org.tussleframework.TussleException;
+import org.tussleframework.metrics.Metric;
+import org.tussleframework.metrics.MetricData;
+
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 
 public class Reporter implements Tool {
 
@@ -96,33 +111,156 @@ public class Reporter implements Tool {
     }
 
     public static void make(String reportDir, String[] metricsJsons) throws TussleException {
+        make(reportDir, metricsJsons, new HdrConfig().reportMaxPoints);
+    }
+
+    /**
+     * Makes html report, metrics having pre-aggregated levels get embedded the finest level
+     * that fits maxPoints while all levels are written to js/levels for lazy loading,
+     * metrics data is streamed, only metrics having levels are read as a whole one by one
+     */
+    public static void make(String reportDir, String[] metricsJsons, int maxPoints) throws TussleException {
         try {
             extractReportFiles(reportDir);
             int idx = 0;
+            ObjectMapper mapper = new ObjectMapper().setSerializationInclusion(Include.NON_NULL).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
             for (String metricsJson : metricsJsons) {
                 idx++;
                 File reportDirJs = new File(reportDir, "js");
                 File dataJs = new File(reportDirJs, String.format("data%d.js", idx));
+                File levelsDir = new File(reportDirJs, "levels");
+                String prefix = String.format("data%d", idx);
                 Files.deleteIfExists(dataJs.toPath());
                 log("Generating report data #%d js from '%s' ", idx, metricsJson);
-                try (PrintStream out = new PrintStream(dataJs); BufferedReader br = new BufferedReader(new FileReader(metricsJson))) {
+                int levelsCount;
+                try (PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(dataJs), 1 << 16))) {
                     out.printf("window.metricsData%d = [{ \"_source\": ", idx);
-                    String line = br.readLine();
-                    int i = 0;
-                    while (line != null) {
-                        if (i > 0) out.println();
-                        out.print(line);
-                        line = br.readLine();
-                        i++;
+                    JsonGenerator generator = mapper.getFactory().createGenerator(out);
+                    if (MetricsStore.isBinaryFile(metricsJson)) {
+                        levelsCount = writeMetricData(mapper, MetricsStore.read(metricsJson), generator, levelsDir, prefix, maxPoints);
+                    } else {
+                        try (JsonParser parser = mapper.getFactory().createParser(new File(metricsJson))) {
+                            levelsCount = copyMetricsJson(mapper, parser, generator, levelsDir, prefix, maxPoints);
+                        }
                     }
+                    generator.flush();
                     out.println(" }];");
                 }
+                if (levelsCount > 0) {
+                    log("Metrics with resolution levels: %d", levelsCount);
+                }
             }
         } catch (Exception e) {
             throw new TussleException(e);
         }
     }
 
+    static int writeMetricData(ObjectMapper mapper, MetricData metricData, JsonGenerator generator, File levelsDir, String prefix, int maxPoints) throws IOException {
+        int count = 0;
+        generator.writeStartObject();
+        if (metricData.getRunProperties() != null) {
+            generator.writeObjectField("runProperties", metricData.getRunProperties());
+        }
+        generator.writeArrayFieldStart("metrics");
+        List<Metric> metrics = metricData.getMetrics() != null ? metricData.getMetrics() : new ArrayList<>();
+        for (int m = 0; m < metrics.size(); m++) {
+            Metric metric = metrics.get(m);
+            if (metric.getLevels() == null || metric.getLevels().isEmpty()) {
+                mapper.writeValue(generator, metric);
+                continue;
+            }
+            ObjectNode node = mapper.valueToTree(metric);
+            if (makeLevels(mapper, node, levelsDir, String.format("%s_%d", prefix, m), maxPoints)) {
+                count++;
+            }
+            mapper.writeTree(generator, node);
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+        return count;
+    }
+
+    /**
+     * Copies metrics json token by token, metrics array items are read one by one and rewritten if they have levels
+     */
+    static int copyMetricsJson(ObjectMapper mapper, JsonParser parser, JsonGenerator generator, File levelsDir, String prefix, int maxPoints) throws IOException {
+        int count = 0;
+        while (parser.nextToken() != null) {
+            generator.copyCurrentEvent(parser);
+            if (parser.currentToken() != JsonToken.START_ARRAY || !isMetricsArray(parser.getParsingContext())) {
+                continue;
+            }
+            int m = 0;
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                if (parser.currentToken() == JsonToken.START_OBJECT) {
+                    ObjectNode metric = mapper.readTree(parser);
+                    if (makeLevels(mapper, metric, levelsDir, String.format("%s_%d", prefix, m), maxPoints)) {
+                        count++;
+                    }
+                    mapper.writeTree(generator, metric);
+                } else {
+                    generator.copyCurrentStructure(parser);
+                }
+                m++;
+            }
+            generator.copyCurrentEvent(parser);
+        }
+        return count;
+    }
+
+    /**
+     * @return true for 'metrics' array of the root object or of the root 'doc' object
+     */
+    private static boolean isMetricsArray(JsonStreamContext context) {
+        JsonStreamContext object = context.getParent();
+        if (object == null || !"metrics".equals(object.getCurrentName())) {
+            return false;
+        }
+        JsonStreamContext parent = object.getParent();
+        return parent.inRoot() || "doc".equals(parent.getCurrentName()) && parent.getParent().inRoot();
+    }
+
+    static boolean makeLevels(ObjectMapper mapper, ObjectNode metric, File levelsDir, String levelsRef, int maxPoints) throws IOException {
+        JsonNode levels = metric.get("levels");
+        if (levels == null || levels.size() == 0) {
+            return false;
+        }
+        ArrayNode all = mapper.createArrayNode();
+        ObjectNode full = all.addObject();
+        full.set("delay", metric.get("delay"));
+        full.put("points", seriesLength(metric.path("metricValues")));
+        full.set("metricValues", metric.get("metricValues"));
+        levels.forEach(all::add);
+        JsonNode chosen = all.get(all.size() - 1);
+        for (JsonNode level : all) {
+            if (maxPoints <= 0 || level.path("points").asInt() <= maxPoints) {
+                chosen = level;
+                break;
+            }
+        }
+        levelsDir.mkdirs();
+        try (PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(new File(levelsDir, levelsRef + ".js")), 1 << 16))) {
+            out.printf("window.tussleLevels = window.tussleLevels || {};%nwindow.tussleLevels[\"%s\"] = ", levelsRef);
+            mapper.writeValue(out, all);
+            out.println(";");
+        }
+        ArrayNode stubs = mapper.createArrayNode();
+        all.forEach(level -> stubs.addObject().put("delay", level.path("delay").asInt()).put("points", level.path("points").asInt()));
+        metric.set("delay", chosen.get("delay"));
+        metric.set("metricValues", chosen.get("metricValues"));
+        metric.set("levels", stubs);
+        metric.put("levelsRef", levelsRef);
+        return true;
+    }
+
+    private static int seriesLength(JsonNode metricValues) {
+        int len = 0;
+        for (JsonNode mv : metricValues) {
+            len = Math.max(len, mv.path("values").size());
+        }
+        return len;
+    }
+
     private static final String[] RES = {
             "index.html",
             "css/app.css",
@@ -40,4 +40,10 @@ import org.tussleframework.TussleException;
 
 public interface TargetRunner {
     RunResult runWorkload(String operationName, double targetRate, int runTime, Callable<Boolean> workload, TimeRecorder recorder) throws TussleException;
+
+    /**
+     * Requests running workload to finish before its run time elapses, can be called from another thread
+     */
+    default void stop() {
+    }
 }
@@ -35,6 +35,7 @@ package org.tussleframework.tools;
 import static org.tussleframework.tools.FormatTool.*;
 import static org.tussleframework.Globals.*;
 
+import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
@@ -42,11 +43,14 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.logging.Level;
 
+import org.tussleframework.ErrorCategory;
 import org.tussleframework.RunResult;
 import org.tussleframework.TimeRecorder;
 import org.tussleframework.TussleException;
+import org.tussleframework.metrics.RunClock;
 
 import lombok.AllArgsConstructor;
 
@@ -65,10 +69,11 @@ public class TargetRunnerAsync implements TargetRunner {
         }
     }
 
-    private final long timeOffset = System.currentTimeMillis() * NS_IN_MS - System.nanoTime();
     private final AtomicLong opsCount = new AtomicLong();
     private final AtomicLong errorsCount = new AtomicLong();
+    private volatile AtomicLongArray errorCounts = new AtomicLongArray(ErrorCategory.count());
     private final int threadsCount;
+    private volatile boolean stopped;
 
     public TargetRunnerAsync(int threads) {
         this.threadsCount = threads;
@@ -82,48 +87,65 @@ public class TargetRunnerAsync implements TargetRunner {
         long intendedStartTime;
         @Override
         public void run() {
-            boolean success;
+            ErrorCategory error;
             long startTime = System.nanoTime();
             try {
-                success = workload.call();
-            } catch (Exception e) {
-                success = false;
+                error = ErrorCategory.call(workload);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                error = ErrorCategory.EXCEPTION;
             }
             long finishTime = System.nanoTime();
             opsCount.incrementAndGet();
-            if (!success) {
+            if (error != null) {
                 errorsCount.incrementAndGet();
+                errorCounts.incrementAndGet(error.ordinal());
             }
-            if (recorder != null) {
-                recorder.recordTimes(operation, startTime + timeOffset, intendedStartTime + timeOffset, finishTime + timeOffset, 1, success);
+            if (recorder != null && error != null) {
+                recorder.recordError(operation, error, startTime + NANO_TIME_OFFSET, intendedStartTime + NANO_TIME_OFFSET, finishTime + NANO_TIME_OFFSET, 1);
+            } else if (recorder != null) {
+                recorder.recordTimes(operation, startTime + NANO_TIME_OFFSET, intendedStartTime + NANO_TIME_OFFSET, finishTime + NANO_TIME_OFFSET, 1, true);
             }
         }
     }
 
+    @Override
+    public void stop() {
+        stopped = true;
+    }
+
     @Override
     public RunResult runWorkload(String operationName, double targetRate, int runTime, Callable<Boolean> workload, TimeRecorder recorder) throws TussleException {
         if (targetRate <= 0) {
             throw new IllegalArgumentException(String.format("Ivalid targetRate=%f value for %s", targetRate, TargetRunnerAsync.class.getSimpleName()));
         }
         long delayBetweenOps = (long) (NS_IN_S / targetRate);
-        long startRunTime = System.nanoTime();
+        RunClock clock = recorder != null ? recorder.getClock() : null;
+        long startRunTime = clock != null ? clock.beginPhase(System.nanoTime()) : System.nanoTime();
+        SleepTool.sleepUntil(startRunTime);
+        long measuredFinishRunTime = startRunTime;
         ExecutorService executor = null;
         try {
             executor = Executors.newFixedThreadPool(threadsCount);
             log("Starting: target rate %s op/s, time %d ms, delayBetweenOps %d ns", roundFormat(targetRate), runTime, delayBetweenOps);
             opsCount.set(0);
             errorsCount.set(0);
+            errorCounts = new AtomicLongArray(ErrorCategory.count());
             long deadline = startRunTime + runTime * NS_IN_MS;
             long opIndex = 0;
             Future<?>[] lastOnes = new Future[1000];
             int lastOneIdx = 0;
-            while (deadline - System.nanoTime() > 0) {
+            while (deadline - System.nanoTime() > 0 && !stopped) {
                 long intendedStartTime = startRunTime + opIndex * delayBetweenOps;
                 lastOnes[(lastOneIdx++) % lastOnes.length] = executor.submit(new WorkloadCall(workload, recorder, operationName, intendedStartTime));
                 opIndex++;
                 long intendedNextStartTime = startRunTime + opIndex * delayBetweenOps;
                 SleepTool.sleepUntil(intendedNextStartTime);
             }
+            measuredFinishRunTime = Math.min(System.nanoTime(), deadline);
+            if (clock != null) {
+                clock.endPhase(measuredFinishRunTime);
+            }
             log("Finishing tasks...");
             for (Future<?> lastOne : lastOnes) {
                 if (lastOne != null) {
@@ -151,13 +173,13 @@ public class TargetRunnerAsync implements TargetRunner {
         }
         long ops = opsCount.get();
         long errs = errorsCount.get();
-        long actualFinishRunTime = System.nanoTime();
-        long time = (actualFinishRunTime - startRunTime) / NS_IN_MS;
+        long time = (measuredFinishRunTime - startRunTime) / NS_IN_MS;
         RunResult result = RunResult.builder()
                 .timeUnits("ms")
                 .time(time)
                 .count(ops)
                 .errors(errs)
+                .errorCategories(errorCategories())
                 .rateUnits("op/s")
                 .actualRate(ops > 0 ? ops / ((double) time / MS_IN_S) : 0)
                 .build();
@@ -165,4 +187,13 @@ public class TargetRunnerAsync implements TargetRunner {
         log("Result: " + result);
         return result;
     }
+
+    private Map<String, Long> errorCategories() {
+        AtomicLongArray counts = errorCounts;
+        long[] values = new long[counts.length()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = counts.get(i);
+        }
+        return ErrorCategory.toMap(values);
+    }
 }
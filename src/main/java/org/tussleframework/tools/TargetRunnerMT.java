@@ -35,10 +35,13 @@ package org.tussleframework.tools;
 import static org.tussleframework.tools.FormatTool.*;
 import static org.tussleframework.Globals.*;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 
+import org.HdrHistogram.Histogram;
 import org.tussleframework.RunResult;
 import org.tussleframework.TimeRecorder;
 import org.tussleframework.TussleException;
@@ -59,17 +62,45 @@ public class TargetRunnerMT implements TargetRunner {
     }
 
     private final int threadCount;
+    private final String pacing;
+    private final long pacingTick;
+    private volatile boolean stopped;
+    private volatile ThreadRunner[] threadRunners;
 
     public TargetRunnerMT(int threads) {
+        this(threads, null, 0);
+    }
+
+    /**
+     * @param threads - number of pacing threads
+     * @param pacing - Pacer mode, null - default
+     * @param pacingTick - Pacer tick in microseconds
+     */
+    public TargetRunnerMT(int threads, String pacing, long pacingTick) {
         this.threadCount = threads;
+        this.pacing = pacing;
+        this.pacingTick = pacingTick;
     }
     
+    @Override
+    public void stop() {
+        stopped = true;
+        ThreadRunner[] runners = threadRunners;
+        if (runners != null) {
+            for (ThreadRunner runner : runners) {
+                runner.runner.stop();
+            }
+        }
+    }
+
     class ThreadRunner {
         RunResult result;
         Exception error;
+        Pacer pacer = Pacer.create(pacing, pacingTick);
+        TargetRunnerST runner = new TargetRunnerST(pacer);
         void run(String operationName, double targetPerThread, int runTime, Callable<Boolean> workload, TimeRecorder recorder) {
             try {
-                result = new TargetRunnerST().runWorkload(operationName, targetPerThread, runTime, workload, recorder);
+                result = runner.runWorkload(operationName, targetPerThread, runTime, workload, recorder);
             } catch (Exception e) {
                 error = e;
                 result = RunResult.builder().build();
@@ -83,14 +114,28 @@ public class TargetRunnerMT implements TargetRunner {
         final ConcurrentHashMap<Integer, RunResult> runResults = new ConcurrentHashMap<>(threadCount);
         final Thread[] threads = new Thread[threadCount];
         final Exception[] errors = new Exception[threadCount];
+        final Histogram lateness = new Histogram(3);
+        final Histogram earliness = new Histogram(3);
         double targetPerThread = targetRate / threadCount;
+        final ThreadRunner[] runners = new ThreadRunner[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            runners[i] = new ThreadRunner();
+            if (stopped) {
+                runners[i].runner.stop();
+            }
+        }
+        threadRunners = runners;
         for (int i = 0; i < threadCount; i++) {
             final int idx = i;
             threads[i] = new Thread(() -> {
-                ThreadRunner tr = new ThreadRunner();
+                ThreadRunner tr = runners[idx];
                 tr.run(operationName, targetPerThread, runTime, workload, recorder);
                 runResults.put(idx, tr.result);
                 errors[idx] = tr.error;
+                synchronized (lateness) {
+                    lateness.add(tr.pacer.getLateness());
+                    earliness.add(tr.pacer.getEarliness());
+                }
             });
         }
         for (Thread thread : threads) {
@@ -112,12 +157,16 @@ public class TargetRunnerMT implements TargetRunner {
         long maxTime = 0;
         long countSum = 0;
         long errorSum = 0;
+        Map<String, Long> errorCategories = new LinkedHashMap<>();
         for (RunResult runResult : runResults.values()) {
             if (maxTime < runResult.time) {
                 maxTime = runResult.time;
             }
             countSum += runResult.count;
             errorSum += runResult.errors;
+            if (runResult.errorCategories != null) {
+                runResult.errorCategories.forEach((category, count) -> errorCategories.merge(category, count, Long::sum));
+            }
         }
         RunResult result = RunResult.builder()
                 .timeUnits("ms")
@@ -126,8 +175,12 @@ public class TargetRunnerMT implements TargetRunner {
                 .rateUnits("op/s")
                 .actualRate(maxTime > 0 ? countSum / ((double) maxTime / MS_IN_S) : 0)
                 .errors(errorSum)
+                .errorCategories(errorCategories)
                 .build();
         SleepTool.sleep(NS_IN_S);
+        if (targetRate > 0) {
+            log("Pacing %d threads, %s", threadCount, Pacer.latenessSummary(lateness, earliness));
+        }
         log("Result: " + result);
         return result;
     }
@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2021-2023, Azul Systems
+ * 
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * 
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * 
+ * * Neither the name of [project] nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+package org.tussleframework.tools;
+
+import static org.tussleframework.tools.FormatTool.*;
+import static org.tussleframework.Globals.*;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Level;
+
+import org.tussleframework.ErrorCategory;
+import org.tussleframework.RunResult;
+import org.tussleframework.TimeRecorder;
+import org.tussleframework.TussleException;
+
+/**
+ * Target runner issuing operations at the intended times taken from recorded trace (see TraceReader)
+ * 
+ * @author rus
+ *
+ */
+public class TargetRunnerReplay implements TargetRunner {
+
+    public static final java.util.logging.Logger logger = java.util.logging.Logger.getLogger(TargetRunnerReplay.class.getName());
+
+    public static void log(String format, Object... args) {
+        if (logger.isLoggable(Level.INFO)) {
+            logger.info(String.format("[%s] %s", TargetRunnerReplay.class.getSimpleName(), String.format(format, args)));
+        }
+    }
+
+    private final AtomicLong opsCount = new AtomicLong();
+    private final AtomicLong errorsCount = new AtomicLong();
+    private volatile AtomicLongArray errorCounts = new AtomicLongArray(ErrorCategory.count());
+    private final Map<String, Boolean> operationsMatch = new HashMap<>();
+    private final String traceFile;
+    private final double speed;
+    private final int threadsCount;
+    private final String[] operations;
+    private volatile boolean stopped;
+
+    /**
+     * @param traceFile  - trace file
+     * @param speed      - replay speed factor, e.g. 2 means twice faster than recorded, 
+     *                     non-positive means derive speed from target rate if it is set, otherwise replay as is
+     * @param threads    - number of threads performing operations, 1 means operations are called from the dispatching thread 
+     * @param operations - optional list of trace operations (regexp) to be replayed
+     */
+    public TargetRunnerReplay(String traceFile, double speed, int threads, String[] operations) {
+        this.traceFile = traceFile;
+        this.speed = speed;
+        this.threadsCount = threads;
+        this.operations = operations;
+    }
+
+    private boolean matchOperation(String operation) {
+        if (operations == null || operations.length == 0) {
+            return true;
+        }
+        return operationsMatch.computeIfAbsent(operation, op -> matchFilters(op, operations, null));
+    }
+
+    private void call(String operationName, Callable<Boolean> workload, long intendedStartTime, TimeRecorder recorder) {
+        ErrorCategory error;
+        long startTime = System.nanoTime();
+        try {
+            error = ErrorCategory.call(workload);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            error = ErrorCategory.EXCEPTION;
+        }
+        long finishTime = System.nanoTime();
+        opsCount.incrementAndGet();
+        if (error != null) {
+            errorsCount.incrementAndGet();
+            errorCounts.incrementAndGet(error.ordinal());
+        }
+        if (recorder != null && error != null) {
+            recorder.recordError(operationName, error, startTime + NANO_TIME_OFFSET, intendedStartTime + NANO_TIME_OFFSET, finishTime + NANO_TIME_OFFSET, 1);
+        } else if (recorder != null) {
+            recorder.recordTimes(operationName, startTime + NANO_TIME_OFFSET, intendedStartTime + NANO_TIME_OFFSET, finishTime + NANO_TIME_OFFSET, 1, true);
+        }
+    }
+
+    protected double getSpeed(double targetRate) throws TussleException {
+        if (speed > 0) {
+            return speed;
+        }
+        if (targetRate > 0) {
+            try {
+                double traceRate = TraceReader.averageRate(traceFile, this::matchOperation);
+                if (traceRate > 0) {
+                    log("Trace average rate %s op/s", roundFormat(traceRate));
+                    return targetRate / traceRate;
+                }
+            } catch (IOException e) {
+                throw new TussleException(e);
+            }
+        }
+        return 1.0;
+    }
+
+    @Override
+    public void stop() {
+        stopped = true;
+    }
+
+    @Override
+    public RunResult runWorkload(String operationName, double targetRate, int runTime, Callable<Boolean> workload, TimeRecorder recorder) throws TussleException {
+        if (runTime <= 0) {
+            return null;
+        }
+        double replaySpeed = getSpeed(targetRate);
+        log("Starting: trace '%s', speed x%s, time %d ms...", traceFile, roundFormat(replaySpeed), runTime);
+        opsCount.set(0);
+        errorsCount.set(0);
+        errorCounts = new AtomicLongArray(ErrorCategory.count());
+        ExecutorService executor = threadsCount > 1 ? Executors.newFixedThreadPool(threadsCount) : null;
+        long startRunTime = System.nanoTime();
+        long finishRunTime = startRunTime + runTime * NS_IN_MS;
+        boolean traceEnded = true;
+        try (TraceReader reader = new TraceReader(traceFile)) {
+            while (reader.next()) {
+                if (!matchOperation(reader.operation())) {
+                    continue;
+                }
+                long intendedStartTime = startRunTime + (long) (reader.timeNs() / replaySpeed);
+                if (intendedStartTime - finishRunTime >= 0 || stopped) {
+                    traceEnded = false;
+                    break;
+                }
+                SleepTool.sleepUntil(intendedStartTime);
+                if (executor != null) {
+                    executor.execute(() -> call(operationName, workload, intendedStartTime, recorder));
+                } else {
+                    call(operationName, workload, intendedStartTime, recorder);
+                }
+            }
+        } catch (IOException e) {
+            throw new TussleException(e);
+        } finally {
+            if (executor != null) {
+                log("Finishing tasks...");
+                executor.shutdown();
+                try {
+                    executor.awaitTermination(1, TimeUnit.MINUTES);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new TussleException(e);
+                } finally {
+                    executor.shutdownNow();
+                }
+            }
+        }
+        if (traceEnded) {
+            log("Trace ended before run time elapsed");
+        }
+        long ops = opsCount.get();
+        long errs = errorsCount.get();
+        long time = (System.nanoTime() - startRunTime) / NS_IN_MS;
+        RunResult result = RunResult.builder()
+                .timeUnits("ms")
+                .time(time)
+                .count(ops)
+                .errors(errs)
+                .errorCategories(errorCategories())
+                .rateUnits("op/s")
+                .actualRate(ops > 0 ? ops / ((double) time / MS_IN_S) : 0)
+                .build();
+        SleepTool.sleep(NS_IN_S);
+        log("Result: " + result);
+        return result;
+    }
+
+    private Map<String, Long> errorCategories() {
+        AtomicLongArray counts = errorCounts;
+        long[] values = new long[counts.length()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = counts.get(i);
+        }
+        return ErrorCategory.toMap(values);
+    }
+}
@@ -38,9 +38,11 @@ import static org.tussleframework.Globals.*;
 import java.util.concurrent.Callable;
 import java.util.logging.Level;
 
+import org.tussleframework.ErrorCategory;
 import org.tussleframework.RunResult;
 import org.tussleframework.TimeRecorder;
 import org.tussleframework.TussleException;
+import org.tussleframework.metrics.RunClock;
 
 /**
  * 
@@ -57,10 +59,24 @@ public class TargetRunnerST implements TargetRunner {
         }
     }
 
-    private final long timeOffset = System.currentTimeMillis() * NS_IN_MS - System.nanoTime();
+    private final Pacer pacer;
+    private volatile boolean stopped;
 
     public TargetRunnerST() {
-        ///
+        this(new Pacer());
+    }
+
+    public TargetRunnerST(Pacer pacer) {
+        this.pacer = pacer;
+    }
+
+    public Pacer getPacer() {
+        return pacer;
+    }
+
+    @Override
+    public void stop() {
+        stopped = true;
     }
 
     @Override
@@ -71,42 +87,63 @@ public class TargetRunnerST implements TargetRunner {
         log("Starting: target rate %s op/s, time %d ms...", roundFormat(targetRate), runTime);
         boolean throttled = targetRate > 0;
         long delayBetweenOps = (long) (throttled ? (NS_IN_S / targetRate) : 0);
-        long startRunTime = System.nanoTime();
+        RunClock clock = recorder != null ? recorder.getClock() : null;
+        long startRunTime = clock != null ? clock.beginPhase(System.nanoTime()) : System.nanoTime();
+        SleepTool.sleepUntil(startRunTime);
         long finishRunTime = startRunTime + runTime * NS_IN_MS;
         long opIndex = 0;
         long errs = 0;
+        long[] errorCounts = new long[ErrorCategory.count()];
         long startTime = startRunTime;
-        while (startTime < finishRunTime) {
+        pacer.start(startRunTime);
+        while (startTime < finishRunTime && !stopped) {
             long intendedStartTime = startRunTime + opIndex * delayBetweenOps;
-            boolean success;
+            ErrorCategory error;
             try {
-                success = workload.call();
-            } catch (Exception e) {
+                error = ErrorCategory.call(workload);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
                 throw new TussleException(e);
             }
             long finishTime = System.nanoTime();
             if (recorder != null) {
-                recorder.recordTimes(operationName, startTime + timeOffset, throttled ? intendedStartTime + timeOffset : 0, finishTime + timeOffset, 1, success);
+                // ops released early by BATCH pacing are measured from the actual start, their earliness is recorded by the pacer
+                long intended = throttled ? Math.min(intendedStartTime, startTime) + NANO_TIME_OFFSET : 0;
+                if (error == null) {
+                    recorder.recordTimes(operationName, startTime + NANO_TIME_OFFSET, intended, finishTime + NANO_TIME_OFFSET, 1, true);
+                } else {
+                    recorder.recordError(operationName, error, startTime + NANO_TIME_OFFSET, intended, finishTime + NANO_TIME_OFFSET, 1);
+                }
+            }
+            opIndex++;
+            if (error != null) {
+                errs++;
+                errorCounts[error.ordinal()]++;
             }
             if (throttled) {
-                long intendedNextStartTime = (startRunTime + (opIndex + 1) * delayBetweenOps);
-                SleepTool.sleepUntil(intendedNextStartTime);
+                startTime = pacer.awaitUntil(startRunTime + opIndex * delayBetweenOps);
+            } else {
+                startTime = System.nanoTime();
             }
-            opIndex++;
-            errs += success ? 0 : 1;
-            startTime = System.nanoTime();
         }
-        long actualFinishRunTime = System.nanoTime();
-        long time = (actualFinishRunTime - startRunTime) / NS_IN_MS;
+        long measuredFinishRunTime = Math.min(System.nanoTime(), finishRunTime);
+        if (clock != null) {
+            clock.endPhase(measuredFinishRunTime);
+        }
+        long time = (measuredFinishRunTime - startRunTime) / NS_IN_MS;
         RunResult result = RunResult.builder()
                 .timeUnits("ms")
                 .time(time)
                 .count(opIndex)
                 .errors(errs)
+                .errorCategories(ErrorCategory.toMap(errorCounts))
                 .rateUnits("op/s")
                 .actualRate(opIndex > 0 ? opIndex / ((double) time / MS_IN_S) : 0)
                 .build();
         SleepTool.sleep(NS_IN_S);
+        if (throttled) {
+            log("Pacing %s, %s", pacer.getMode(), Pacer.latenessSummary(pacer.getLateness(), pacer.getEarliness()));
+        }
         log("Result: " + result);
         return result;
     }
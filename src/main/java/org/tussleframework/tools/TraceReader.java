@@ -0,0 +1,289 @@
+/*
+ * Copyright (c) 2021-2023, Azul Systems
+ * 
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * 
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * 
+ * * Neither the name of [project] nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+package org.tussleframework.tools;
+
+import static org.tussleframework.Globals.*;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Predicate;
+
+/**
+ * Streaming reader of timestamped request traces based on memory-mapped file windows.
+ * 
+ * Supported formats:
+ *   - framework's raw data CSV (see ResultsRecorder rawData):
+ *       # abs start time: 1655401396792 ms since ZERO
+ *       start_time(us),intended_start_time(us),finish_time(us),count,...
+ *       000120,000100,000523,1,403,423,thread-1
+ *       ...
+ *   - simple trace CSV with timestamp in seconds and optional operation name:
+ *       1655401396.792424,GET
+ *       1655401396.801311,PUT
+ *       ...
+ * 
+ * Record times are reported relative to the first record time.
+ */
+public class TraceReader implements Closeable {
+
+    private static final long WINDOW_SIZE = 64L * 1024 * 1024;
+    private static final String RAW_HEADER = "start_time(us)";
+
+    private final FileChannel channel;
+    private final long fileSize;
+    private MappedByteBuffer window;
+    private long windowPos;
+    private byte[] line = new byte[256];
+    private int lineLen;
+    private boolean rawFormat;
+    private long firstStamp = Long.MIN_VALUE;
+    private long stamp;
+    private byte[] opBytes = new byte[64];
+    private int opLen;
+    private String operation = "";
+
+    public TraceReader(String traceFile) throws IOException {
+        channel = FileChannel.open(Paths.get(traceFile), StandardOpenOption.READ);
+        fileSize = channel.size();
+    }
+
+    /**
+     * Trace average rate in records per second 
+     */
+    public static double averageRate(String traceFile) throws IOException {
+        return averageRate(traceFile, null);
+    }
+
+    /**
+     * Trace average rate in records per second counting only records whose operation matches the filter
+     */
+    public static double averageRate(String traceFile, Predicate<String> operationFilter) throws IOException {
+        long count = 0;
+        long maxTime = 0;
+        try (TraceReader reader = new TraceReader(traceFile)) {
+            while (reader.next()) {
+                if (operationFilter == null || operationFilter.test(reader.operation())) {
+                    count++;
+                }
+                if (maxTime < reader.timeNs()) {
+                    maxTime = reader.timeNs();
+                }
+            }
+        }
+        return maxTime > 0 ? count / ((double) maxTime / NS_IN_S) : 0;
+    }
+
+    /**
+     * Advances to the next trace record
+     * 
+     * @return false if there are no more records
+     */
+    public boolean next() throws IOException {
+        while (readLine()) {
+            if (lineLen == 0 || line[0] == '#') {
+                continue;
+            }
+            if (!isDigit(line[0])) {
+                rawFormat = startsWith(RAW_HEADER);
+                continue;
+            }
+            if (parseRecord()) {
+                if (firstStamp == Long.MIN_VALUE) {
+                    firstStamp = stamp;
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return record time in nanoseconds relative to the first record 
+     */
+    public long timeNs() {
+        return stamp > firstStamp ? stamp - firstStamp : 0;
+    }
+
+    /**
+     * @return record operation name or empty string if it is not available in the trace
+     */
+    public String operation() {
+        return operation;
+    }
+
+    public boolean isRawFormat() {
+        return rawFormat;
+    }
+
+    private boolean readLine() throws IOException {
+        lineLen = 0;
+        boolean hasData = false;
+        while (true) {
+            if (window == null || !window.hasRemaining()) {
+                long pos = window != null ? windowPos + window.limit() : 0;
+                if (pos >= fileSize) {
+                    return hasData;
+                }
+                windowPos = pos;
+                window = channel.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(WINDOW_SIZE, fileSize - pos));
+            }
+            byte b = window.get();
+            hasData = true;
+            if (b == '\n') {
+                return true;
+            }
+            if (b != '\r') {
+                if (lineLen == line.length) {
+                    byte[] newLine = new byte[line.length * 2];
+                    System.arraycopy(line, 0, newLine, 0, lineLen);
+                    line = newLine;
+                }
+                line[lineLen++] = b;
+            }
+        }
+    }
+
+    private boolean parseRecord() {
+        int pos = 0;
+        if (rawFormat) {
+            // start_time(us),intended_start_time(us),...
+            long startTime = parseLong(pos);
+            pos = nextColumn(pos);
+            long intendedStartTime = pos < lineLen ? parseLong(pos) : 0;
+            stamp = (intendedStartTime > 0 ? intendedStartTime : startTime) * NS_IN_US;
+            return startTime >= 0;
+        }
+        // timestamp(s)[,operation]
+        long seconds = 0;
+        long nanos = 0;
+        long nanosScale = NS_IN_S;
+        boolean fraction = false;
+        while (pos < lineLen && line[pos] != ',') {
+            byte b = line[pos++];
+            if (b == '.') {
+                fraction = true;
+            } else if (isDigit(b)) {
+                if (!fraction) {
+                    seconds = seconds * 10 + (b - '0');
+                } else if (nanosScale > 1) {
+                    nanosScale /= 10;
+                    nanos += (b - '0') * nanosScale;
+                }
+            } else if (b != ' ') {
+                return false;
+            }
+        }
+        stamp = seconds * NS_IN_S + nanos;
+        parseOperation(nextColumn(pos));
+        return true;
+    }
+
+    private void parseOperation(int pos) {
+        if (pos >= lineLen) {
+            opLen = 0;
+            operation = "";
+            return;
+        }
+        int end = pos;
+        while (end < lineLen && line[end] != ',') {
+            end++;
+        }
+        int len = end - pos;
+        if (len == opLen && equalBytes(pos, len)) {
+            return;
+        }
+        if (opBytes.length < len) {
+            opBytes = new byte[len * 2];
+        }
+        System.arraycopy(line, pos, opBytes, 0, len);
+        opLen = len;
+        operation = new String(opBytes, 0, len).trim();
+    }
+
+    private boolean equalBytes(int pos, int len) {
+        for (int i = 0; i < len; i++) {
+            if (opBytes[i] != line[pos + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int nextColumn(int pos) {
+        while (pos < lineLen && line[pos] != ',') {
+            pos++;
+        }
+        return pos + 1;
+    }
+
+    private long parseLong(int pos) {
+        long value = 0;
+        boolean hasDigits = false;
+        while (pos < lineLen && line[pos] != ',') {
+            byte b = line[pos++];
+            if (isDigit(b)) {
+                value = value * 10 + (b - '0');
+                hasDigits = true;
+            } else if (b != ' ') {
+                return -1;
+            }
+        }
+        return hasDigits ? value : -1;
+    }
+
+    private boolean startsWith(String prefix) {
+        if (lineLen < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (line[i] != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+}
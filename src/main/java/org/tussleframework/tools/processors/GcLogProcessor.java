@@ -0,0 +1,451 @@
+/*
+ * Copyright (c) 2021-2023, Azul Systems
+ * 
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * 
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * 
+ * * Neither the name of [project] nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+
+package org.tussleframework.tools.processors;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.logging.Logger;
+import java.util.stream.DoubleStream;
+
+import org.HdrHistogram.Histogram;
+import org.tussleframework.BasicProperties;
+import org.tussleframework.metrics.HdrData;
+import org.tussleframework.metrics.Metric;
+import org.tussleframework.metrics.MetricData;
+import org.tussleframework.metrics.MetricType;
+import org.tussleframework.metrics.MetricValue;
+import org.tussleframework.tools.LoggerTool;
+
+public class GcLogProcessor implements DataLogProcessor {
+
+    private static final DateTimeFormatter GC_DATE = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSZ");
+    private static final byte[] GC_ID = bytes("GC(");
+    private static final byte[] PAUSE = bytes(" Pause ");
+    private static final byte[] ARROW = bytes("->");
+    private static final byte[] LEGACY_GC = bytes("[GC");
+    private static final byte[] LEGACY_FULL_GC = bytes("[Full GC");
+    private static final byte[] SECS = bytes(" secs]");
+    private static final byte[] TIMES = bytes("[Times");
+    private static final int MAX_LINE = 64 * 1024;
+    private static final double MB = 1024.0 * 1024.0;
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private final int reportInterval;
+    private final double[] percentiles;
+    private final long fileTime;
+    private final Histogram pauseHistogram = new Histogram(3); // pause times in us
+    private final DoubleStream.Builder maxPauses = DoubleStream.builder();
+    private final DoubleStream.Builder sumPauses = DoubleStream.builder();
+    private final DoubleStream.Builder countPauses = DoubleStream.builder();
+    private final DoubleStream.Builder allocRates = DoubleStream.builder();
+    private byte[] line = new byte[4096];
+    private int len;
+    private long jvmStartTime;
+    private long lastUptime;
+    private long maxUptime;
+    private long prevHeapAfter = -1;
+    private long interval;
+    private double intervalMaxPause;
+    private double intervalSumPause;
+    private long intervalCount;
+    private long intervalAllocated;
+
+    public GcLogProcessor(int reportInterval, double[] percentiles) {
+        this(reportInterval, percentiles, 0);
+    }
+
+    /**
+     * @param fileTime - GC log file modification time, used to estimate JVM start when the log has no wall clock time decoration, 0 - unknown
+     */
+    public GcLogProcessor(int reportInterval, double[] percentiles, long fileTime) {
+        this.reportInterval = reportInterval;
+        this.percentiles = percentiles;
+        this.fileTime = fileTime;
+    }
+
+    /**
+     * Supported formats, unified JVM logging (-Xlog:gc*) with uptime and optional time decorations:
+[2021-09-08T06:33:10.491+0000][12.345s][info][gc] GC(7) Pause Young (Normal) (G1 Evacuation Pause) 24M->3M(256M) 5.123ms
+[12.345s][info][gc,phases] GC(8) Pause Mark Start 0.012ms
+...
+     * and legacy -XX:+PrintGCDetails -XX:+PrintGCDateStamps output:
+2021-09-08T06:33:10.491+0000: 12.345: [GC (Allocation Failure) [PSYoungGen: 65536K->10720K(76288K)] 65536K->10728K(251392K), 0.0123456 secs] [Times: user=0.03 sys=0.01, real=0.01 secs]
+12.345: [Full GC (Ergonomics) [PSYoungGen: 10720K->0K(76288K)] 10728K->9876K(251392K), 0.1234567 secs]
+...
+     * Time series are split into reportInterval buckets counted from JVM start. Without a wall clock decoration (the default
+     * -Xlog:gc decorators are uptime,level,tags) JVM start is estimated as the file modification time minus the last logged uptime.
+     */
+    @Override
+    public boolean processData(MetricData metricData, HdrData hdrData, BasicProperties processorsProps, InputStream inputStream, String host, Logger logger) {
+        try {
+            scanLines(inputStream);
+        } catch (Exception e) {
+            LoggerTool.logException(logger, e);
+            return false;
+        }
+        if (pauseHistogram.getTotalCount() == 0) {
+            return true;
+        }
+        if (jvmStartTime == 0) {
+            if (fileTime > 0) {
+                jvmStartTime = fileTime - maxUptime;
+                LoggerTool.log(getClass().getSimpleName(), "WARNING: GC log has no wall clock time, JVM start is estimated from the file modification time, use -Xlog:gc*:file=gc.log:time,uptime for exact times");
+            } else {
+                LoggerTool.log(getClass().getSimpleName(), "WARNING: GC log has no wall clock time and file modification time is unknown, GC series are not aligned with other results");
+            }
+        }
+        finishInterval();
+        long start = jvmStartTime;
+        long finish = start + interval * reportInterval;
+        Metric metric = Metric.builder()
+                .name("gc_pause")
+                .units("ms")
+                .host(host)
+                .start(start)
+                .finish(finish)
+                .delay(reportInterval)
+                .totalValues(pauseHistogram.getTotalCount())
+                .meanValue(pauseHistogram.getMean() / 1000.0)
+                .build()
+                .add(new MetricValue(MetricType.VALUES, maxPauses.build().toArray()))
+                .add(new MetricValue(MetricType.COUNTS, countPauses.build().toArray()));
+        if (percentiles != null && percentiles.length > 0) {
+            DoubleStream.Builder buffPercentileValues = DoubleStream.builder();
+            DoubleStream.Builder buffPercentileCounts = DoubleStream.builder();
+            long highValue = pauseHistogram.getValueAtPercentile(100);
+            for (double p : percentiles) {
+                long pValue = pauseHistogram.getValueAtPercentile(p);
+                buffPercentileValues.add(pValue / 1000.0);
+                buffPercentileCounts.add(pauseHistogram.getCountBetweenValues(pValue, highValue));
+            }
+            metric.add(new MetricValue(MetricType.PERCENTILE_NAMES, percentiles));
+            metric.add(new MetricValue(MetricType.PERCENTILE_VALUES, buffPercentileValues.build().toArray()));
+            metric.add(new MetricValue(MetricType.PERCENTILE_COUNTS, buffPercentileCounts.build().toArray()));
+        }
+        metricData.add(metric);
+        metricData.add(Metric.builder()
+                .name("gc_pause_time")
+                .units("ms")
+                .host(host)
+                .start(start)
+                .finish(finish)
+                .delay(reportInterval)
+                .build()
+                .add(new MetricValue(MetricType.VALUES, sumPauses.build().toArray())));
+        metricData.add(Metric.builder()
+                .name("gc_alloc_rate")
+                .units("MB/s")
+                .host(host)
+                .start(start)
+                .finish(finish)
+                .delay(reportInterval)
+                .build()
+                .add(new MetricValue(MetricType.VALUES, allocRates.build().toArray())));
+        return true;
+    }
+
+    /**
+     * Reads lines into the reused line buffer without decoding them to Strings, too long lines are truncated
+     */
+    private void scanLines(InputStream inputStream) throws IOException {
+        byte[] buf = new byte[64 * 1024];
+        int n;
+        len = 0;
+        while ((n = inputStream.read(buf)) > 0) {
+            for (int i = 0; i < n; i++) {
+                byte b = buf[i];
+                if (b == '\n') {
+                    processLine();
+                    len = 0;
+                } else if (b != '\r' && len < MAX_LINE) {
+                    if (len == line.length) {
+                        byte[] newLine = new byte[line.length * 2];
+                        System.arraycopy(line, 0, newLine, 0, len);
+                        line = newLine;
+                    }
+                    line[len++] = b;
+                }
+            }
+        }
+        if (len > 0) {
+            processLine();
+        }
+    }
+
+    private void processLine() {
+        if (len > 0 && line[0] == '[') {
+            processUnifiedLine();
+        } else {
+            processLegacyLine();
+        }
+    }
+
+    private void processUnifiedLine() {
+        int pos = 0;
+        long uptime = -1;
+        int datePos = -1;
+        int dateEnd = -1;
+        while (pos < len && line[pos] == '[') {
+            int end = indexOf(line, len, (byte) ']', pos);
+            if (end < 0) {
+                return;
+            }
+            int s = pos + 1;
+            if (end - s >= 24 && line[s + 4] == '-' && line[s + 10] == 'T') {
+                datePos = s;
+                dateEnd = end;
+            } else if (end - s >= 2 && isDigit(line[s])) {
+                if (line[end - 1] == 's' && line[end - 2] == 'm') {
+                    long ms = (long) parseNumber(s, end - 2);
+                    if (ms < 1000000000000L) {
+                        uptime = ms;
+                    }
+                } else if (line[end - 1] == 's' && line[end - 2] != 'n') {
+                    uptime = (long) (parseNumber(s, end - 1) * 1000);
+                }
+            }
+            pos = end + 1;
+        }
+        maxUptime = Math.max(maxUptime, uptime);
+        int msg = pos;
+        if (uptime < 0 || len < 3 || line[len - 1] != 's' || line[len - 2] != 'm'
+                || indexOf(line, len, GC_ID, msg) < 0 || indexOf(line, len, PAUSE, msg) < 0) {
+            return;
+        }
+        int numEnd = len - 2;
+        int numStart = numEnd;
+        while (numStart > msg && line[numStart - 1] != ' ') {
+            numStart--;
+        }
+        double pause = parseNumber(numStart, numEnd);
+        if (datePos >= 0) {
+            setJvmStart(datePos, dateEnd, uptime);
+        }
+        addPause(uptime, pause, msg, numStart);
+    }
+
+    private void processLegacyLine() {
+        int gcPos = indexOf(line, len, LEGACY_GC, 0);
+        if (gcPos < 0) {
+            gcPos = indexOf(line, len, LEGACY_FULL_GC, 0);
+        }
+        if (gcPos < 2 || line[gcPos - 2] != ':') {
+            return;
+        }
+        int timesPos = indexOf(line, len, TIMES, gcPos);
+        int secsPos = lastIndexOf(line, timesPos > 0 ? timesPos : len, SECS, gcPos);
+        if (secsPos < 0) {
+            return;
+        }
+        int numStart = secsPos;
+        while (numStart > gcPos && line[numStart - 1] != ' ') {
+            numStart--;
+        }
+        double pause = parseNumber(numStart, secsPos) * 1000;
+        int upEnd = gcPos - 2;
+        int upStart = upEnd;
+        while (upStart > 0 && (isDigit(line[upStart - 1]) || line[upStart - 1] == '.')) {
+            upStart--;
+        }
+        long uptime = (long) (parseNumber(upStart, upEnd) * 1000);
+        maxUptime = Math.max(maxUptime, uptime);
+        if (upStart >= 26 && line[4] == '-' && line[10] == 'T') {
+            setJvmStart(0, upStart - 2, uptime);
+        }
+        addPause(uptime, pause, gcPos, numStart);
+    }
+
+    private void setJvmStart(int datePos, int dateEnd, long uptime) {
+        if (jvmStartTime == 0) {
+            try {
+                String date = new String(line, datePos, dateEnd - datePos, StandardCharsets.US_ASCII);
+                jvmStartTime = OffsetDateTime.parse(date, GC_DATE).toInstant().toEpochMilli() - uptime;
+            } catch (Exception e) {
+                ///
+            }
+        }
+    }
+
+    private void addPause(long uptime, double pauseMs, int from, int to) {
+        if (uptime < lastUptime) {
+            return;
+        }
+        lastUptime = uptime;
+        while (uptime >= (interval + 1) * reportInterval) {
+            finishInterval();
+        }
+        pauseHistogram.recordValue(Math.max(Math.round(pauseMs * 1000), 0));
+        intervalMaxPause = Math.max(intervalMaxPause, pauseMs);
+        intervalSumPause += pauseMs;
+        intervalCount++;
+        addHeapChange(from, to);
+    }
+
+    /**
+     * Finds whole heap occupancy before and after GC, e.g. 24M->3M(256M) or 65536K->10728K(251392K),
+     * generation and metaspace changes like [PSYoungGen: 65536K->10720K(76288K)] are skipped
+     */
+    private void addHeapChange(int from, int to) {
+        int arrowPos = lastIndexOf(line, to, ARROW, from);
+        while (arrowPos > 0) {
+            int beforeStart = arrowPos;
+            while (beforeStart > from && line[beforeStart - 1] != ' ') {
+                beforeStart--;
+            }
+            int prev = beforeStart - 1;
+            while (prev > from && line[prev] == ' ') {
+                prev--;
+            }
+            if (line[prev] != ':') {
+                long before = parseSize(beforeStart, arrowPos);
+                long after = parseSize(arrowPos + 2, to);
+                if (before >= 0 && after >= 0) {
+                    if (prevHeapAfter >= 0 && before > prevHeapAfter) {
+                        intervalAllocated += before - prevHeapAfter;
+                    }
+                    prevHeapAfter = after;
+                }
+                return;
+            }
+            arrowPos = lastIndexOf(line, beforeStart, ARROW, from);
+        }
+    }
+
+    private void finishInterval() {
+        maxPauses.add(intervalMaxPause);
+        sumPauses.add(intervalSumPause);
+        countPauses.add(intervalCount);
+        allocRates.add(intervalAllocated / MB * 1000.0 / reportInterval);
+        intervalMaxPause = 0;
+        intervalSumPause = 0;
+        intervalCount = 0;
+        intervalAllocated = 0;
+        interval++;
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private double parseNumber(int start, int end) {
+        long intPart = 0;
+        long fraction = 0;
+        long divider = 1;
+        boolean dot = false;
+        for (int i = start; i < end; i++) {
+            byte b = line[i];
+            if (isDigit(b)) {
+                if (dot) {
+                    fraction = fraction * 10 + (b - '0');
+                    divider *= 10;
+                } else {
+                    intPart = intPart * 10 + (b - '0');
+                }
+            } else if ((b == '.' || b == ',') && !dot) {
+                dot = true;
+            } else {
+                break;
+            }
+        }
+        return intPart + (double) fraction / divider;
+    }
+
+    /**
+     * Parses size like 24M, 65536K, 1.5G or 1024B into bytes, -1 if there is no size at start
+     */
+    private long parseSize(int start, int end) {
+        int i = start;
+        while (i < end && (isDigit(line[i]) || line[i] == '.')) {
+            i++;
+        }
+        if (i == start || i == end) {
+            return -1;
+        }
+        double value = parseNumber(start, i);
+        switch (line[i]) {
+        case 'B':
+            return (long) value;
+        case 'K':
+            return (long) (value * 1024);
+        case 'M':
+            return (long) (value * MB);
+        case 'G':
+            return (long) (value * MB * 1024);
+        default:
+            return -1;
+        }
+    }
+
+    private static int indexOf(byte[] data, int end, byte b, int from) {
+        for (int i = from; i < end; i++) {
+            if (data[i] == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int indexOf(byte[] data, int end, byte[] pattern, int from) {
+        for (int i = from; i <= end - pattern.length; i++) {
+            if (matches(data, i, pattern)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int lastIndexOf(byte[] data, int end, byte[] pattern, int from) {
+        for (int i = end - pattern.length; i >= from; i--) {
+            if (matches(data, i, pattern)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean matches(byte[] data, int pos, byte[] pattern) {
+        for (int j = 0; j < pattern.length; j++) {
+            if (data[pos + j] != pattern[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
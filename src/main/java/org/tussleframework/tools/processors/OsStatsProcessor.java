@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2021-2023, Azul Systems
+ * 
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * 
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * 
+ * * Neither the name of [project] nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+
+package org.tussleframework.tools.processors;
+
+/**
+ * Processes os_stats files written by OsStatsSampler
+ */
+public class OsStatsProcessor extends StatsCsvProcessor {
+
+    private static final String[][] METRICS = {
+            { "os_cpu", "user", "%cpu", MEAN },
+            { "os_cpu", "system", "%cpu", MEAN },
+            { "os_cpu", "iowait", "%cpu", MEAN },
+            { "os_cpu", "busy", "%cpu", MEAN },
+            { "os_disk", "read", "kB/s", MEAN },
+            { "os_disk", "write", "kB/s", MEAN },
+            { "os_net", "rx", "kB/s", MEAN },
+            { "os_net", "tx", "kB/s", MEAN },
+            { "os_rss", "process", "kB", MEAN },
+    };
+
+    public OsStatsProcessor(int reportInterval) {
+        super(reportInterval);
+    }
+
+    @Override
+    protected String[][] metrics() {
+        return METRICS;
+    }
+}
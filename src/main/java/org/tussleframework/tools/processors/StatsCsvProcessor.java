@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2021-2023, Azul Systems
+ * 
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * 
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * 
+ * * Neither the name of [project] nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+
+package org.tussleframework.tools.processors;
+
+import java.io.InputStream;
+import java.util.Scanner;
+import java.util.logging.Logger;
+import java.util.stream.DoubleStream;
+
+import org.tussleframework.BasicProperties;
+import org.tussleframework.metrics.HdrData;
+import org.tussleframework.metrics.Metric;
+import org.tussleframework.metrics.MetricData;
+import org.tussleframework.metrics.MetricType;
+import org.tussleframework.metrics.MetricValue;
+import org.tussleframework.tools.FormatTool;
+import org.tussleframework.tools.LoggerTool;
+
+/**
+ * Base processor for stats files written by StatsSampler subclasses
+ */
+public abstract class StatsCsvProcessor implements DataLogProcessor {
+
+    public static final String SUM = "sum";
+    public static final String MEAN = "mean";
+
+    private int reportInterval;
+
+    protected StatsCsvProcessor(int reportInterval) {
+        this.reportInterval = reportInterval;
+    }
+
+    /**
+     * @return metric name, operation, units and aggregation (SUM or MEAN) for each value column after the time column
+     */
+    protected abstract String[][] metrics();
+
+    private static String headerValue(String header, String name) {
+        int pos = header.indexOf(name + ":");
+        if (pos < 0) {
+            return null;
+        }
+        pos += name.length() + 1;
+        int end = header.indexOf(',', pos);
+        return header.substring(pos, end > 0 ? end : header.length()).trim();
+    }
+
+    /**
+     * Supported format:
+# targetRate: 1000, ratePercent: 100, step: 0, start: 1631082790491, interval: 1000
+time,column1,column2,...
+1631082791491,12.50,3.25,...
+...
+     * Rows are aggregated into reportInterval buckets the same way HDR intervals are grouped,
+     * columns with negative values are treated as not available and skipped
+     */
+    @Override
+    public boolean processData(MetricData metricData, HdrData hdrData, BasicProperties processorsProps, InputStream inputStream, String host, Logger logger) {
+        String[][] metrics = metrics();
+        long start = 0;
+        int interval = 1000;
+        int step = 0;
+        double targetRate = 0;
+        double ratePercent = 0;
+        int cols = metrics.length;
+        DoubleStream.Builder[] buffers = new DoubleStream.Builder[cols];
+        boolean[] unavailable = new boolean[cols];
+        double[] sums = new double[cols];
+        int group = 1;
+        int count = 0;
+        int buckets = 0;
+        for (int i = 0; i < cols; i++) {
+            buffers[i] = DoubleStream.builder();
+        }
+        try (Scanner scanner = new Scanner(inputStream)) {
+            while (scanner.hasNext()) {
+                String line = scanner.nextLine();
+                if (line.startsWith("#")) {
+                    start = Long.parseLong(headerValue(line, "start"));
+                    interval = Integer.parseInt(headerValue(line, "interval"));
+                    step = Integer.parseInt(headerValue(line, "step"));
+                    targetRate = FormatTool.parseValue(headerValue(line, "targetRate"));
+                    ratePercent = Double.parseDouble(headerValue(line, "ratePercent"));
+                    group = Math.max(1, reportInterval / interval);
+                } else if (line.length() > 0 && Character.isDigit(line.charAt(0))) {
+                    String[] s = line.split(",");
+                    for (int i = 0; i < cols; i++) {
+                        double value = Double.parseDouble(s[i + 1]);
+                        unavailable[i] |= value < 0;
+                        sums[i] += value;
+                    }
+                    if (++count == group) {
+                        for (int i = 0; i < cols; i++) {
+                            buffers[i].add(SUM.equals(metrics[i][3]) ? sums[i] : sums[i] / count);
+                            sums[i] = 0;
+                        }
+                        count = 0;
+                        buckets++;
+                    }
+                }
+            }
+        } catch (Exception e) {
+            LoggerTool.logException(logger, e);
+            return false;
+        }
+        int delay = interval * group;
+        for (int i = 0; i < cols; i++) {
+            if (unavailable[i]) {
+                continue;
+            }
+            metricData.add(Metric.builder()
+                    .name(metrics[i][0])
+                    .operation(metrics[i][1])
+                    .units(metrics[i][2])
+                    .host(host)
+                    .start(start)
+                    .finish(start + (long) buckets * delay)
+                    .delay(delay)
+                    .retry(step)
+                    .percentOfHighBound(ratePercent)
+                    .targetRate(targetRate)
+                    .build()
+                    .add(new MetricValue(MetricType.VALUES, buffers[i].build().toArray())));
+        }
+        return true;
+    }
+}
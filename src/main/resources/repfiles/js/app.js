@@ -116,6 +116,44 @@ function fixPath(path) {
     return path;
 }
 
+// Swaps embedded values of long metrics for finer pre-aggregated levels when charts have more than maxPoints
+// points of width, returns false if nothing is left to load (already loaded levels are applied at once),
+// otherwise onLoaded is called once all levels are loaded
+function loadReportLevels(docs, maxPoints, onLoaded) {
+    let pending = 1;
+    const done = () => {
+        if (--pending === 0) {
+            onLoaded();
+        }
+    };
+    docs.forEach(doc => (doc._source.metrics || []).forEach(metric => {
+        const current = metric.levels ? metric.levels.find(level => level.delay === metric.delay) : null;
+        if (current && current.points < maxPoints) {
+            pending++;
+            if (!loadMetricLevel(metric, maxPoints, null, done)) {
+                pending--;
+            }
+        }
+    }));
+    if (pending === 1) {
+        return false;
+    }
+    done();
+    return true;
+}
+
+// Smallest chart width which needs a finer level than loaded for some metric, 0 if there are no levels
+function reportLevelsWidth(docs) {
+    let width = 0;
+    docs.forEach(doc => (doc._source.metrics || []).forEach(metric => {
+        const idx = metric.levels ? metric.levels.findIndex(level => level.delay === metric.delay) : -1;
+        if (idx > 0 && (width === 0 || metric.levels[idx].points < width)) {
+            width = metric.levels[idx].points;
+        }
+    }));
+    return width;
+}
+
 function fixChartSize(x, isW) {
     const D = isW ? 120 : 48;
     if (isNaN(x) || x < D) {
@@ -1832,6 +1870,10 @@ module.controller('ISVViewerCtrl', ($scope, $http, $location, $window) => {
         $scope.chartHeight = fixChartSize($scope.chartHeight + dh, false);
         setCookie('chartWidth', $scope.chartWidth);
         setCookie('chartHeight', $scope.chartHeight);
+        if ($scope.localDocs && $scope.localLevelsWidth > 0 && $scope.chartWidth > $scope.localLevelsWidth) {
+            console.log(`changeChartSize: loading finer levels for chartWidth ${$scope.chartWidth}`);
+            $scope.showResults();
+        }
     }
     $scope.benchmarks = [];
     let benchmark = getCookie('benchmarks', '');
@@ -2512,22 +2554,36 @@ module.controller('ISVViewerCtrl', ($scope, $http, $location, $window) => {
             $scope.display = viewMode || DISPLAY_REPORT;
             console.log(`showResults: ${$scope.display}...`);
             let docs = [];
-            localMetrics.forEach(adoc => adoc.forEach(doc => {
-                if (doc._source.doc) {
-                    doc._source = doc._source.doc;
+            if ($scope.localDocs) {
+                docs = JSON.parse($scope.localDocs);
+            } else {
+                localMetrics.forEach(adoc => adoc.forEach(doc => {
+                    if (doc._source.doc) {
+                        doc._source = doc._source.doc;
+                    }
+                    docs.push(doc);
+                }));
+                if (localMetrics.length === 1) {
+                    $scope.chartWidth = 600;
+                    $scope.chartHeight = 240;
+                } else {
+                    $scope.chartWidth = 1200;
+                    $scope.chartHeight = 360;
+                }
+                if (reportLevelsWidth(docs) > 0) {
+                    // metrics are processed in place, keep the source to load finer levels for wider charts later
+                    $scope.localDocs = JSON.stringify(docs);
                 }
-                docs.push(doc);
-            }));
+            }
             $scope.groupByEnabled = false;
             $scope.showDataElements = ['.*response_time_summary_max'];
-            if (localMetrics.length === 1) {
-                $scope.chartWidth = 600;
-                $scope.chartHeight = 240;
-            } else {
-                $scope.chartWidth = 1200;
-                $scope.chartHeight = 360;
+            const render = () => {
+                $scope.localLevelsWidth = reportLevelsWidth(docs);
+                handleResultResponse({ data: { docs } });
+            };
+            if (!loadReportLevels(docs, $scope.chartWidth, () => $scope.$evalAsync(render))) {
+                render();
             }
-            handleResultResponse({ data: { docs } });
             return;
         }
         if ($location.search().r) {
@@ -2144,6 +2144,52 @@ function fixMetricValues(metric, showOpts) {
     metric.collectValues = () => metric.metricValues.filter(mv => mv.isValues);
 }
 
+// Loads pre-aggregated resolution level of a long metric (js/levels/*.js made by Reporter) on demand
+// and replaces metric values by the finest level which has no more than maxPoints points,
+// showOpts is null for raw metrics not fixed yet, onLoaded is called also if the level file fails to load,
+// returns false if the metric has no levels or already has the chosen one
+function loadMetricLevel(metric, maxPoints, showOpts, onLoaded) {
+    if (!metric.levelsRef || !metric.levels) {
+        return false;
+    }
+    let idx = metric.levels.findIndex(level => level.points <= maxPoints);
+    if (idx < 0) {
+        idx = metric.levels.length - 1;
+    }
+    if (metric.levels[idx].delay === metric.delay) {
+        return false;
+    }
+    const apply = () => {
+        const level = window.tussleLevels[metric.levelsRef][idx];
+        console.log(`loadMetricLevel: ${metric.name} ${metric.operation} delay ${metric.delay} -> ${level.delay}`);
+        metric.delay = level.delay;
+        metric.delayS = metric.delay > 0 && metric.delay !== 1000 ? metric.delay / 1000 : 1;
+        metric.metricValues = level.metricValues.map(mv => Object.assign({}, mv, { values: mv.values ? mv.values.slice() : mv.values }));
+        if (showOpts) {
+            fixMetricValues(metric, showOpts);
+        }
+        if (onLoaded) {
+            onLoaded(metric);
+        }
+    };
+    window.tussleLevels = window.tussleLevels || {};
+    if (window.tussleLevels[metric.levelsRef]) {
+        apply();
+    } else {
+        const script = document.createElement('script');
+        script.src = `js/levels/${metric.levelsRef}.js`;
+        script.onload = apply;
+        script.onerror = () => {
+            console.log(`loadMetricLevel: failed to load ${script.src}`);
+            if (onLoaded) {
+                onLoaded(metric);
+            }
+        };
+        document.head.appendChild(script);
+    }
+    return true;
+}
+
 function trimMetricValues(metric, showOpts) {
     const trimLeft = showOpts.trimLeft; 
     const trimRight = showOpts.trimRight;
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2021, Azul Systems
+ * 
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * 
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * 
+ * * Neither the name of [project] nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+
+import org.junit.Test;
+import org.tussleframework.metrics.SleRule;
+import org.tussleframework.tools.AnalysisCache;
+import org.tussleframework.tools.Analyzer;
+import org.tussleframework.tools.AnalyzerConfig;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class AnalysisCacheTest {
+
+    static ArrayList<String> analyze(Path dir, boolean incremental) throws Exception {
+        SleRule rule = new SleRule();
+        rule.type = "throughput";
+        rule.minRate = "150";
+        rule.movingWindow = 2;
+        AnalyzerConfig config = new AnalyzerConfig();
+        config.histogramsDir = dir.toString();
+        config.sleRules = new SleRule[] { rule };
+        config.incremental = incremental;
+        new Analyzer().processResults(config);
+        ArrayList<String> metrics = new ArrayList<>();
+        JsonNode root = new ObjectMapper().readTree(dir.resolve("metrics.json").toFile());
+        root.get("doc").get("metrics").forEach(metric -> metrics.add(metric.toString()));
+        Collections.sort(metrics);
+        return metrics;
+    }
+
+    static boolean hasMetric(ArrayList<String> metrics, String name, String value) {
+        return metrics.stream().anyMatch(metric -> metric.contains("\"name\":\"" + name + "\"") && metric.contains("\"value\":" + value));
+    }
+
+    @Test
+    public void testIncremental() throws Exception {
+        Path dir = Files.createTempDirectory("analysis_cache_test");
+        ErrorCategoryTest.writeHlog(dir, "test_response_time_100_1000_0.hlog", 200, 200, 200, 200);
+        ErrorCategoryTest.writeHlog(dir, "test_response_time_100_2000_1.hlog", 200, 200, 200, 200);
+        File other = ErrorCategoryTest.writeHlog(dir, "other_response_time_100_1000_0.hlog", 100, 100, 100, 100);
+        ArrayList<String> full = analyze(dir, true);
+        assertTrue(new File(dir.toFile(), AnalysisCache.FILE_NAME).exists());
+        assertTrue(hasMetric(full, "response_time rate-ge150-mw2s conforming_rate (unbroken)", "2000.0"));
+        assertTrue(hasMetric(full, "response_time rate-ge150-mw2s conforming_rate", "1000.0"));
+        // unchanged file is not read again: garble its content keeping size and modification time
+        long modified = other.lastModified();
+        try (RandomAccessFile raf = new RandomAccessFile(other, "rw")) {
+            raf.seek(0);
+            raf.write(new byte[(int) raf.length()]);
+        }
+        assertTrue(other.setLastModified(modified));
+        assertEquals(full, analyze(dir, true));
+        // a new step recomputes the groups of its operation only
+        ErrorCategoryTest.writeHlog(dir, "test_response_time_100_3000_2.hlog", 100, 100, 100, 100);
+        ArrayList<String> incremental = analyze(dir, true);
+        assertTrue(hasMetric(incremental, "response_time rate-ge150-mw2s conforming_rate", "3000.0"));
+        assertFalse(hasMetric(incremental, "response_time rate-ge150-mw2s conforming_rate (unbroken)", "2000.0"));
+        assertTrue(hasMetric(incremental, "response_time rate-ge150-mw2s conforming_rate", "1000.0"));
+        assertEquals(full.size() + 1, incremental.size());
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2021, Azul Systems
+ * 
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * 
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * 
+ * * Neither the name of [project] nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import org.junit.Test;
+import org.tussleframework.tools.Analyzer;
+import org.tussleframework.tools.AnalyzerConfig;
+import org.tussleframework.tools.Calibrator;
+import org.tussleframework.tools.CalibratorConfig;
+import org.tussleframework.tools.LoggerTool;
+
+public class CalibratorTest {
+
+    {
+        LoggerTool.init("", "java.util.logging.ConsoleHandler");
+    }
+
+    @Test
+    public void testCalibrate() throws Exception {
+        Path dir = Files.createTempDirectory("calibrator_test");
+        CalibratorConfig config = new CalibratorConfig();
+        config.runners = new String[] { "st" };
+        config.startRate = "1k";
+        config.maxRate = "4k";
+        config.rateFactor = 4;
+        config.runTime = "1s";
+        config.lagLimit = 50;
+        config.outputFile = dir.resolve("calibration.json").toString();
+        List<Calibrator.Calibration> calibrations = new Calibrator().calibrate(config);
+        assertEquals(1, calibrations.size());
+        Calibrator.Calibration calibration = calibrations.get(0);
+        assertEquals("st", calibration.runner);
+        assertEquals(4000, calibration.maxRate, 0);
+        assertTrue(calibration.lagP99 >= calibration.lagP50);
+        assertTrue(calibration.lagMax >= calibration.lagP999);
+        assertTrue(calibration.recordingOverhead >= 0);
+        Calibrator.Calibration[] loaded = Calibrator.load(config.outputFile);
+        assertEquals(1, loaded.length);
+        assertEquals(calibration, loaded[0]);
+    }
+
+    @Test
+    public void testAnalyzerFlagsExceededSteps() throws Exception {
+        Path dir = Files.createTempDirectory("calibrator_test");
+        String hlog = "WRITE_response_time_0_2000_0.hlog";
+        Files.copy(Paths.get("test_data/step_rate_analyser_test").resolve(hlog), dir.resolve(hlog));
+        Path calibration = dir.resolve("calibration.json");
+        Files.write(calibration, "[ { \"runner\" : \"st\", \"threads\" : 1, \"maxRate\" : 1000.0 } ]".getBytes());
+        AnalyzerConfig config = new AnalyzerConfig();
+        config.histogramsDir = dir.toString();
+        config.calibrationFile = calibration.toString();
+        new Analyzer().processResults(config);
+        String metrics = new String(Files.readAllBytes(dir.resolve("metrics.json")));
+        assertTrue(metrics.contains("generator_capacity_exceeded"));
+        assertTrue(metrics.contains("generator_calibration"));
+    }
+}
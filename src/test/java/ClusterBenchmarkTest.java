@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2021, Azul Systems
+ * 
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * 
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * 
+ * * Neither the name of [project] nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.HdrHistogram.AbstractHistogram;
+import org.HdrHistogram.HistogramLogReader;
+import org.junit.Test;
+import org.tussleframework.ClusterBenchmark;
+import org.tussleframework.ClusterConfig;
+import org.tussleframework.RunArgs;
+import org.tussleframework.RunResult;
+import org.tussleframework.metrics.HdrResult;
+import org.tussleframework.metrics.ResultsRecorder;
+import org.tussleframework.runners.RunnerConfig;
+import org.tussleframework.tools.LoggerTool;
+
+public class ClusterBenchmarkTest {
+
+    {
+        LoggerTool.init("", "java.util.logging.ConsoleHandler");
+    }
+
+    static long totalCount(String hdrFile) throws Exception {
+        long count = 0;
+        try (HistogramLogReader reader = new HistogramLogReader(hdrFile)) {
+            AbstractHistogram histogram;
+            while ((histogram = (AbstractHistogram) reader.nextIntervalHistogram(0.0, Double.MAX_VALUE)) != null) {
+                count += histogram.getTotalCount();
+            }
+        }
+        return count;
+    }
+
+    @Test
+    public void testLocalWorkers() {
+        try {
+            Path dir = Files.createTempDirectory("cluster");
+            ClusterConfig config = new ClusterConfig();
+            config.benchmark = "SleepBenchmark";
+            config.benchmarkArgs = new String[] { "sleep=1ms" };
+            config.workers = 2;
+            config.printLog = false;
+            config.resultsDir = dir.resolve("cluster").toString();
+            ClusterBenchmark benchmark = new ClusterBenchmark(config);
+            RunnerConfig runnerConfig = new RunnerConfig();
+            runnerConfig.histogramsDir = dir.resolve("histograms").toString();
+            try {
+                for (int step = 0; step < 2; step++) {
+                    benchmark.reset();
+                    double targetRate = 200 + step * 200;
+                    ResultsRecorder recorder = new ResultsRecorder(runnerConfig, new RunArgs(targetRate, 0, 0, 2, step, "run"), false, true);
+                    RunResult runResult = benchmark.run(targetRate, 0, 2, recorder);
+                    recorder.cancel();
+                    assertEquals(targetRate, runResult.actualRate, targetRate * 0.2);
+                    HdrResult responseTime = recorder.getHdrResults().stream()
+                            .filter(hdr -> hdr.operationName().equals("sleep") && hdr.metricName().equals(HdrResult.RESPONSE_TIME))
+                            .findFirst().orElse(null);
+                    assertTrue(responseTime != null);
+                    assertTrue(new File(responseTime.hdrFile()).getPath().contains("step" + step));
+                    assertEquals(runResult.count, totalCount(responseTime.hdrFile()));
+                    assertEquals(step, responseTime.step());
+                }
+            } finally {
+                benchmark.cleanup();
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail();
+        }
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2021, Azul Systems
+ * 
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * 
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * 
+ * * Neither the name of [project] nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.junit.Test;
+import org.tussleframework.CategorizedWorkload;
+import org.tussleframework.ErrorCategory;
+import org.tussleframework.HdrConfig;
+import org.tussleframework.RunResult;
+import org.tussleframework.metrics.ErrorRateSLE;
+import org.tussleframework.metrics.HdrResult;
+import org.tussleframework.metrics.HdrTimeRecorder;
+import org.tussleframework.metrics.Interval;
+import org.tussleframework.metrics.SleEngine;
+import org.tussleframework.metrics.SleRule;
+import org.tussleframework.tools.LoggerTool;
+import org.tussleframework.tools.TargetRunnerST;
+
+public class ErrorCategoryTest {
+
+    {
+        LoggerTool.init("", "java.util.logging.ConsoleHandler");
+    }
+
+    @Test
+    public void testCall() throws Exception {
+        assertNull(ErrorCategory.call(() -> true));
+        assertEquals(ErrorCategory.FAILED, ErrorCategory.call(() -> false));
+        assertEquals(ErrorCategory.TIMEOUT, ErrorCategory.call(() -> {
+            throw new SocketTimeoutException();
+        }));
+        assertEquals(ErrorCategory.REJECTED, ErrorCategory.call(() -> {
+            throw new RejectedExecutionException();
+        }));
+        assertEquals(ErrorCategory.EXCEPTION, ErrorCategory.call(() -> {
+            throw new IllegalStateException();
+        }));
+        CategorizedWorkload server = () -> ErrorCategory.SERVER;
+        assertEquals(ErrorCategory.SERVER, ErrorCategory.call(server));
+        assertFalse(server.call());
+        assertEquals(ErrorCategory.TIMEOUT, ErrorCategory.parse("timeout"));
+        assertTrue(ErrorCategory.isErrorsMetric("errors-timeout"));
+        assertFalse(ErrorCategory.isErrorsMetric(HdrResult.RESPONSE_TIME));
+    }
+
+    @Test
+    public void testCallLogging() throws Exception {
+        AtomicLong logged = new AtomicLong();
+        AtomicLong withStack = new AtomicLong();
+        Handler handler = new Handler() {
+            @Override
+            public void publish(LogRecord logRecord) {
+                if (logRecord.getMessage() != null && logRecord.getMessage().contains("'connection'")) {
+                    logged.incrementAndGet();
+                    if (logRecord.getThrown() != null) {
+                        withStack.incrementAndGet();
+                    }
+                }
+            }
+            @Override
+            public void flush() {
+                //
+            }
+            @Override
+            public void close() {
+                //
+            }
+        };
+        Logger.getGlobal().addHandler(handler);
+        try {
+            for (int i = 0; i < 1000; i++) {
+                assertEquals(ErrorCategory.CONNECTION, ErrorCategory.call(() -> {
+                    throw new ConnectException("refused");
+                }));
+            }
+        } finally {
+            Logger.getGlobal().removeHandler(handler);
+        }
+        assertEquals(1, logged.get());
+        assertEquals(1, withStack.get());
+    }
+
+    @Test
+    public void testRunner() throws Exception {
+        AtomicLong counter = new AtomicLong();
+        CategorizedWorkload workload = () -> {
+            long i = counter.incrementAndGet();
+            if (i % 10 == 0) {
+                throw new SocketTimeoutException();
+            }
+            return i % 5 == 0 ? ErrorCategory.SERVER : null;
+        };
+        HdrTimeRecorder recorder = new HdrTimeRecorder();
+        RunResult result = new TargetRunnerST().runWorkload("test", 10_000, 500, workload, recorder);
+        long timeouts = result.count / 10;
+        long serverErrors = result.count / 5 - timeouts;
+        assertEquals(timeouts + serverErrors, result.errors);
+        assertEquals(timeouts, (long) result.errorCategories.get("timeout"));
+        assertEquals(serverErrors, (long) result.errorCategories.get("server"));
+        assertEquals(timeouts, recorder.getErrorRecorder(ErrorCategory.TIMEOUT).getIntervalHistogram().getTotalCount());
+        assertEquals(serverErrors, recorder.getErrorRecorder(ErrorCategory.SERVER).getIntervalHistogram().getTotalCount());
+        assertEquals(result.errors, recorder.errorsRecorder.getIntervalHistogram().getTotalCount());
+    }
+
+    static File writeHlog(Path dir, String name, long... counts) throws Exception {
+        File file = dir.resolve(name).toFile();
+        HistogramLogWriter writer = new HistogramLogWriter(file);
+        try {
+            long start = 1_700_000_000_000L;
+            for (long count : counts) {
+                Histogram histogram = new Histogram(3);
+                if (count > 0) {
+                    histogram.recordValueWithCount(1000, count);
+                    histogram.setStartTimeStamp(start);
+                    histogram.setEndTimeStamp(start + 1000);
+                    writer.outputIntervalHistogram(histogram);
+                }
+                start += 1000;
+            }
+        } finally {
+            writer.close();
+        }
+        return file;
+    }
+
+    static boolean checkSLE(HdrResult ops, ErrorRateSLE sle, HdrResult errors) {
+        SleEngine engine = new SleEngine(new SleRule[] { sle.toRule() }, 1, 0);
+        HashMap<String, HdrResult> errorsResults = new HashMap<>();
+        errorsResults.put(sle.errorsMetricName(), errors);
+        ops.checkSLE(engine, errorsResults, new Interval());
+        return !engine.isBroken(0);
+    }
+
+    @Test
+    public void testErrorRateSLE() throws Exception {
+        Path dir = Files.createTempDirectory("error_category_test");
+        HdrConfig config = new HdrConfig();
+        HdrResult ops = new HdrResult(writeHlog(dir, "test_response_time_100_1000_0.hlog", 100, 100, 100, 100, 0, 100).getAbsolutePath(), config);
+        HdrResult errors = new HdrResult(writeHlog(dir, "test_errors_100_1000_0.hlog", 0, 1, 3, 2, 0, 0).getAbsolutePath(), config);
+        HdrResult timeouts = new HdrResult(writeHlog(dir, "test_errors-timeout_100_1000_0.hlog", 0, 1, 1, 0, 0, 0).getAbsolutePath(), config);
+        assertEquals("errors-timeout", timeouts.metricName());
+        assertTrue(checkSLE(ops, new ErrorRateSLE(3, 2, ""), errors));
+        assertFalse(checkSLE(ops, new ErrorRateSLE(2, 2, ""), errors));
+        HdrResult rejected = new HdrResult(writeHlog(dir, "test_errors-rejected_100_1000_0.hlog", 0, 0, 0, 0, 5, 0).getAbsolutePath(), config);
+        assertTrue(checkSLE(ops, new ErrorRateSLE(10, 1, "rejected"), errors));
+        assertFalse("interval having only errors breaks the SLE", checkSLE(ops, new ErrorRateSLE(10, 1, "rejected"), rejected));
+        assertTrue(checkSLE(ops, new ErrorRateSLE(1, 2, "timeout"), timeouts));
+        assertTrue(checkSLE(ops, new ErrorRateSLE(0, 1, ""), null));
+        assertEquals("errors-timeout-le1%-mw2s", new ErrorRateSLE(1, 2, "timeout").longName());
+        assertEquals("errors-timeout-le1%-mw2s", new ErrorRateSLE(1, 2, "timeout").toRule().longName());
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2021, Azul Systems
+ * 
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * 
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * 
+ * * Neither the name of [project] nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.time.OffsetDateTime;
+
+import org.junit.Test;
+import org.tussleframework.metrics.Metric;
+import org.tussleframework.metrics.MetricData;
+import org.tussleframework.metrics.MetricType;
+import org.tussleframework.tools.Analyzer;
+import org.tussleframework.tools.processors.GcLogProcessor;
+
+public class GcLogProcessorTest {
+
+    static final long JVM_START = OffsetDateTime.parse("2021-09-08T06:33:10.000Z").toInstant().toEpochMilli();
+
+    static final String UNIFIED_LOG = String.join("\n",
+            "[2021-09-08T06:33:10.491+0000][0.491s][info][gc] Using G1",
+            "[2021-09-08T06:33:10.600+0000][0.600s][info][gc,start] GC(0) Pause Young (Normal) (G1 Evacuation Pause)",
+            "[2021-09-08T06:33:10.605+0000][0.605s][info][gc,phases] GC(0)   Pre Evacuate Collection Set: 0.1ms",
+            "[2021-09-08T06:33:10.605+0000][0.605s][info][gc] GC(0) Pause Young (Normal) (G1 Evacuation Pause) 24M->4M(256M) 5.000ms",
+            "[2021-09-08T06:33:11.500+0000][1.500s][info][gc] GC(1) Pause Young (Normal) (G1 Evacuation Pause) 28M->6M(256M) 2.500ms",
+            "[2021-09-08T06:33:11.800+0000][1.800s][info][gc] GC(2) Pause Remark 10M->10M(256M) 1.000ms",
+            "[2021-09-08T06:33:11.900+0000][1.900s][info][gc] GC(2) Concurrent Mark Cycle 50.000ms",
+            "[2021-09-08T06:33:13.200+0000][3.200s][info][gc,phases] GC(3) Pause Mark Start 0.500ms");
+
+    static final String LEGACY_LOG = String.join("\r\n",
+            "2021-09-08T06:33:10.491+0000: 0.491: [GC (Allocation Failure) [PSYoungGen: 65536K->10720K(76288K)] 65536K->10728K(251392K), 0.0100000 secs] [Times: user=0.03 sys=0.01, real=0.01 secs] ",
+            "2021-09-08T06:33:11.491+0000: 1.491: [Full GC (Ergonomics) [PSYoungGen: 10720K->0K(76288K)] [ParOldGen: 8K->9876K(175104K)] 76264K->9876K(251392K), [Metaspace: 3000K->3000K(1056768K)], 0.1000000 secs] [Times: user=0.03 sys=0.01, real=0.10 secs] ",
+            "Total time for which application threads were stopped: 0.1000000 seconds");
+
+    static MetricData process(String log) {
+        MetricData metricData = new MetricData();
+        assertTrue(new GcLogProcessor(1000, new double[] { 0, 50, 100 }).processData(metricData, null, null, new ByteArrayInputStream(log.getBytes()), "host1", null));
+        return metricData;
+    }
+
+    static Metric find(MetricData metricData, String name) {
+        return metricData.getMetrics().stream().filter(m -> m.getName().equals(name)).findFirst().get();
+    }
+
+    @Test
+    public void testUnifiedLog() {
+        MetricData metricData = process(UNIFIED_LOG);
+        Metric pauses = find(metricData, "gc_pause");
+        assertEquals(JVM_START, pauses.getStart().longValue());
+        assertEquals(JVM_START + 4000, pauses.getFinish().longValue());
+        assertEquals(4, pauses.getTotalValues().longValue());
+        assertEquals("host1", pauses.getHost());
+        assertArrayEquals(new double[] { 5, 2.5, 0, 0.5 }, pauses.byType(MetricType.VALUES).getValues(), 0.001);
+        assertArrayEquals(new double[] { 1, 2, 0, 1 }, pauses.byType(MetricType.COUNTS).getValues(), 0);
+        assertArrayEquals(new double[] { 0.5, 1, 5 }, pauses.byType(MetricType.PERCENTILE_VALUES).getValues(), 0.01);
+        assertArrayEquals(new double[] { 5, 3.5, 0, 0.5 }, find(metricData, "gc_pause_time").byType(MetricType.VALUES).getValues(), 0.001);
+        assertArrayEquals(new double[] { 0, 28, 0, 0 }, find(metricData, "gc_alloc_rate").byType(MetricType.VALUES).getValues(), 0.001);
+    }
+
+    @Test
+    public void testUptimeOnlyLog() {
+        String log = String.join("\n",
+                "[0.491s][info][gc] Using G1",
+                "[0.605s][info][gc] GC(0) Pause Young (Normal) (G1 Evacuation Pause) 24M->4M(256M) 5.000ms",
+                "[1.500s][info][gc] GC(1) Pause Young (Normal) (G1 Evacuation Pause) 28M->6M(256M) 2.500ms",
+                "[2.750s][info][gc,heap,exit] Heap");
+        long fileTime = JVM_START + 2750;
+        MetricData metricData = new MetricData();
+        assertTrue(new GcLogProcessor(1000, null, fileTime).processData(metricData, null, null, new ByteArrayInputStream(log.getBytes()), "host1", null));
+        Metric pauses = find(metricData, "gc_pause");
+        assertEquals("JVM start is the file time minus the last uptime", JVM_START, pauses.getStart().longValue());
+        assertArrayEquals(new double[] { 5, 2.5 }, pauses.byType(MetricType.VALUES).getValues(), 0.001);
+        assertEquals(JVM_START, find(metricData, "gc_alloc_rate").getStart().longValue());
+    }
+
+    @Test
+    public void testLegacyLog() {
+        MetricData metricData = process(LEGACY_LOG);
+        Metric pauses = find(metricData, "gc_pause");
+        assertEquals(JVM_START, pauses.getStart().longValue());
+        assertArrayEquals(new double[] { 10, 100 }, pauses.byType(MetricType.VALUES).getValues(), 0.001);
+        assertArrayEquals(new double[] { 0, 64 }, find(metricData, "gc_alloc_rate").byType(MetricType.VALUES).getValues(), 0.001);
+    }
+
+    @Test
+    public void testGcLogFileNames() {
+        assertTrue(Analyzer.isGcLogFile("/results/gc.log"));
+        assertTrue(Analyzer.isGcLogFile("/results/gc.log.0"));
+        assertTrue(Analyzer.isGcLogFile("/results/node_1@host/broker_gc.log"));
+        assertTrue(Analyzer.isGcLogFile("results.zip:gc_12345.log"));
+        assertFalse(Analyzer.isGcLogFile("/results/top.log"));
+        assertFalse(Analyzer.isGcLogFile("/results/kafka_comp.log"));
+        assertFalse(Analyzer.isGcLogFile("/results/gc_stats.csv"));
+    }
+}
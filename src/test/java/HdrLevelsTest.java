@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2021, Azul Systems
+ * 
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * 
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * 
+ * * Neither the name of [project] nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import org.HdrHistogram.Histogram;
+import org.junit.Test;
+import org.tussleframework.metrics.HdrLevels;
+import org.tussleframework.metrics.Metric;
+import org.tussleframework.metrics.MetricData;
+import org.tussleframework.metrics.MetricLevel;
+import org.tussleframework.metrics.MetricType;
+import org.tussleframework.tools.Analyzer;
+import org.tussleframework.tools.AnalyzerConfig;
+import org.tussleframework.tools.LoggerTool;
+import org.tussleframework.tools.MetricsStore;
+import org.tussleframework.tools.Reporter;
+
+public class HdrLevelsTest {
+
+    {
+        LoggerTool.init("", "java.util.logging.ConsoleHandler");
+    }
+
+    static final MetricType[] TYPES = { MetricType.COUNTS, MetricType.P0_VALUES, MetricType.P100_VALUES };
+
+    @Test
+    public void testHistogramLevels() {
+        HdrLevels levels = new HdrLevels(4, 10, 1, TYPES);
+        for (int i = 1; i <= 100; i++) {
+            Histogram h = new Histogram(3);
+            h.recordValue(i);
+            h.recordValue(1000 + i);
+            levels.add(h);
+        }
+        List<MetricLevel> res = levels.getLevels(1000);
+        assertEquals(2, res.size());
+        MetricLevel l0 = res.get(0);
+        MetricLevel l1 = res.get(1);
+        assertEquals(4000, (int) l0.getDelay());
+        assertEquals(25, (int) l0.getPoints());
+        assertEquals(16000, (int) l1.getDelay());
+        assertEquals(7, (int) l1.getPoints());
+        double[] counts = l1.getMetricValues().get(0).getValues();
+        assertArrayEquals(new double[] { 32, 32, 32, 32, 32, 32, 8 }, counts, 0);
+        double[] mins = l1.getMetricValues().get(1).getValues();
+        double[] maxs = l1.getMetricValues().get(2).getValues();
+        assertEquals(1, mins[0], 0);
+        assertEquals(97, mins[6], 0);
+        assertEquals(1016, maxs[0], 0.5);
+        assertEquals(1100, maxs[6], 0.5);
+    }
+
+    @Test
+    public void testShortSeriesHasNoLevels() {
+        HdrLevels levels = new HdrLevels(4, 10, 1, TYPES);
+        for (int i = 0; i < 10; i++) {
+            Histogram h = new Histogram(3);
+            h.recordValue(i + 1);
+            levels.add(h);
+        }
+        assertTrue(levels.getLevels(1000).isEmpty());
+    }
+
+    @Test
+    public void testValueLevels() {
+        double[] values = new double[20];
+        double[] counts = new double[20];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i % 5 == 0 ? 100 : i;
+            counts[i] = 10;
+        }
+        List<MetricLevel> res = HdrLevels.getLevels(1000, 4, 3, MetricType.VALUES, values, counts);
+        assertEquals(2, res.size());
+        Metric metric = new Metric().addLevels(res);
+        MetricLevel l1 = metric.getLevels().get(1);
+        assertEquals(16000, (int) l1.getDelay());
+        assertArrayEquals(new double[] { 100, 19 }, l1.getMetricValues().get(1).getValues(), 0);
+        assertArrayEquals(new double[] { 1, 16 }, l1.getMetricValues().get(0).getValues(), 0);
+        assertArrayEquals(new double[] { 10, 10 }, l1.getMetricValues().get(3).getValues(), 0);
+    }
+
+    @Test
+    public void testReportLevels() {
+        String reportDir = "results/hdr_levels_test/report" + System.currentTimeMillis();
+        try {
+            Path dir = Files.createTempDirectory("hdr_levels");
+            Files.copy(Paths.get("test_data/step_rate_analyser_test/WRITE_response_time_0_2000_0.hlog"), dir.resolve("WRITE_response_time_0_2000_0.hlog"));
+            AnalyzerConfig config = new AnalyzerConfig();
+            config.histogramsDir = dir.toString();
+            config.reportInterval = config.hdrInterval;
+            config.reportMaxPoints = 5;
+            config.metricsFormat = "both";
+            config.makeReport = true;
+            config.reportDir = reportDir;
+            new Analyzer().processResults(config);
+            MetricData metricData = MetricsStore.read(dir.resolve("metrics.bin").toString());
+            Metric metric = metricData.getMetrics().stream().filter(m -> m.getLevels() != null).findFirst().orElse(null);
+            assertNotNull(metric);
+            MetricLevel last = metric.getLevels().get(metric.getLevels().size() - 1);
+            assertTrue(last.getPoints() <= 5);
+            assertEquals(metric.getTotalValues(), last.getMetricValues().get(0).sumValue(), 0);
+            assertNull(metricData.getMetrics().stream().filter(m -> m.getValue() != null && m.getLevels() != null).findFirst().orElse(null));
+            String dataJs = new String(Files.readAllBytes(Paths.get(reportDir, "js", "data1.js")));
+            assertTrue(dataJs.contains("\"levelsRef\":\"data1_"));
+            assertTrue(Files.list(Paths.get(reportDir, "js", "levels")).findAny().isPresent());
+            String jsonReportDir = reportDir + "_json";
+            Reporter.make(jsonReportDir, new String[] { dir.resolve("metrics.json").toString() }, 5);
+            String jsonDataJs = new String(Files.readAllBytes(Paths.get(jsonReportDir, "js", "data1.js")));
+            assertTrue(jsonDataJs.contains("\"levelsRef\":\"data1_"));
+            assertTrue(jsonDataJs.contains("\"runProperties\""));
+            assertTrue(Files.list(Paths.get(jsonReportDir, "js", "levels")).findAny().isPresent());
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail();
+        }
+    }
+}
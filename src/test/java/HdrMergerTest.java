@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2021, Azul Systems
+ * 
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * 
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * 
+ * * Neither the name of [project] nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import org.HdrHistogram.AbstractHistogram;
+import org.HdrHistogram.HistogramLogReader;
+import org.HdrHistogram.HistogramLogWriter;
+import org.junit.Test;
+import org.tussleframework.HdrConfig;
+import org.tussleframework.metrics.HdrMerger;
+import org.tussleframework.metrics.HdrResult;
+import org.tussleframework.tools.Analyzer;
+import org.tussleframework.tools.AnalyzerConfig;
+import org.tussleframework.tools.LoggerTool;
+
+public class HdrMergerTest {
+
+    {
+        LoggerTool.init("", "java.util.logging.ConsoleHandler");
+    }
+
+    static final String SOURCE_HLOG = "test_data/step_rate_analyser_test/WRITE_response_time_0_2000_0.hlog";
+    static final String HLOG_NAME = Paths.get(SOURCE_HLOG).getFileName().toString();
+
+    /**
+     * Copies hlog shifting all timestamps by offset ms - emulates a host with skewed clock
+     */
+    static void copyShifted(Path target, long offset) throws Exception {
+        Files.createDirectories(target.getParent());
+        HistogramLogWriter writer = new HistogramLogWriter(target.toFile());
+        try (HistogramLogReader reader = new HistogramLogReader(SOURCE_HLOG)) {
+            AbstractHistogram histogram;
+            while ((histogram = (AbstractHistogram) reader.nextIntervalHistogram(0.0, Double.MAX_VALUE)) != null) {
+                histogram.setStartTimeStamp(histogram.getStartTimeStamp() + offset);
+                histogram.setEndTimeStamp(histogram.getEndTimeStamp() + offset);
+                writer.outputIntervalHistogram(histogram);
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    static HdrResult load(String file) throws Exception {
+        HdrResult result = new HdrResult(file, new HdrConfig());
+        result.loadHdrFile(null, null);
+        return result;
+    }
+
+    @Test
+    public void testMergeWithClockOffset() throws Exception {
+        Path dir = Files.createTempDirectory("hdr_merger_test");
+        Path host1 = dir.resolve("node_a@host1").resolve(HLOG_NAME);
+        Path host2 = dir.resolve("node_b@host2").resolve(HLOG_NAME);
+        copyShifted(host1, 0);
+        copyShifted(host2, 3500);
+        HdrResult r1 = load(host1.toString());
+        HdrResult r2 = load(host2.toString());
+        File merged = dir.resolve("merged.hlog").toFile();
+        long[] offsets = new HdrMerger(1000, true).merge(Arrays.asList(r1, r2), merged);
+        assertArrayEquals(new long[] { 0, 3500 }, offsets);
+        HdrResult mergedResult = load(merged.getPath());
+        assertEquals(r1.getCount() * 2, mergedResult.getCount());
+        assertEquals(r1.getMaxValue(), mergedResult.getMaxValue(), r1.getMaxValue() * 0.001);
+        assertEquals(r1.getPrimeResult().getHistogram().getStartTimeStamp(), mergedResult.getPrimeResult().getHistogram().getStartTimeStamp());
+        assertEquals(r1.getRate() * 2, mergedResult.getRate(), r1.getRate() * 0.01);
+
+        File unaligned = dir.resolve("unaligned.hlog").toFile();
+        new HdrMerger(1000, false).merge(Arrays.asList(r1, r2), unaligned);
+        assertEquals(r1.getCount() * 2, load(unaligned.getPath()).getCount());
+        assertTrue(load(unaligned.getPath()).getTimeMs() > r1.getTimeMs());
+    }
+
+    @Test
+    public void testAnalyzerClusterMerge() throws Exception {
+        Path dir = Files.createTempDirectory("hdr_merger_test");
+        copyShifted(dir.resolve("node_a@host1").resolve(HLOG_NAME), 0);
+        copyShifted(dir.resolve("node_b@host2").resolve(HLOG_NAME), -1200);
+        AnalyzerConfig config = new AnalyzerConfig();
+        config.histogramsDir = dir.toString();
+        config.clusterMerge = true;
+        config.clusterAlignStarts = true;
+        new Analyzer().processResults(config);
+        Path merged = dir.resolve(Analyzer.CLUSTER_HOST).resolve(HLOG_NAME);
+        assertTrue(Files.exists(merged));
+        String metrics = new String(Files.readAllBytes(dir.resolve("metrics.json")));
+        assertTrue(metrics.contains("\"host\" : \"cluster\"") || metrics.contains("\"host\":\"cluster\""));
+        assertTrue(metrics.contains("host1"));
+        assertEquals(load(dir.resolve("node_a@host1").resolve(HLOG_NAME).toString()).getCount() * 2, load(merged.toString()).getCount());
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2021, Azul Systems
+ * 
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * 
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * 
+ * * Neither the name of [project] nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+import org.tussleframework.metrics.LatencyAttribution;
+import org.tussleframework.metrics.Metric;
+import org.tussleframework.metrics.MetricData;
+import org.tussleframework.metrics.MetricType;
+import org.tussleframework.metrics.MetricValue;
+import org.tussleframework.metrics.MovingWindowSLE;
+
+public class LatencyAttributionTest {
+
+    static final long START = 1631082790000L;
+    static final String[] SERIES = { "hiccup.*", "os_.*", "gc_.*" };
+
+    static Metric series(String name, String operation, String host, long start, int delay, double[] values) {
+        return Metric.builder().name(name).operation(operation).host(host).start(start).finish(start + values.length * delay).delay(delay).build()
+                .add(new MetricValue(MetricType.VALUES, values));
+    }
+
+    static double[] noise(int length, double base, double amplitude) {
+        double[] values = new double[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = base + amplitude * ((i * 7) % 5 - 2) / 2;
+        }
+        return values;
+    }
+
+    @Test
+    public void testRanking() {
+        MovingWindowSLE sle = new MovingWindowSLE(99, 10, 5);
+        double[] latency = noise(60, 5, 1);
+        latency[30] = 25;
+        latency[31] = 40;
+        latency[50] = 12;
+        double[] hiccups = noise(60, 1, 0.2);
+        hiccups[31] = 30;
+        double[] gc = new double[30];
+        gc[15] = 8;
+        double[] cpu = noise(60, 50, 10);
+        cpu[30] = 70;
+        double[] otherLatency = noise(60, 5, 1);
+        otherLatency[30] = 1000;
+        MetricData metricData = new MetricData();
+        metricData.add(series("response_time " + sle.longName(), "reads", "", START, 1000, latency));
+        metricData.add(series("response_time", "reads", "", START, 1000, otherLatency));
+        metricData.add(series("hiccup_times", null, "host1", START, 1000, hiccups));
+        metricData.add(series("gc_pause", null, "host1", START, 2000, gc));
+        metricData.add(series("os_cpu", "busy", "host2", START, 1000, cpu));
+        metricData.add(series("os_disk", "read", "host2", START, 1000, noise(60, 100, 10)));
+
+        List<LatencyAttribution.Episode> episodes = new LatencyAttribution(new MovingWindowSLE[] { sle }, SERIES, 2).analyze(metricData);
+        assertEquals(2, episodes.size());
+        LatencyAttribution.Episode episode = episodes.get(0);
+        assertEquals("reads", episode.operation);
+        assertEquals(START + 26000, episode.start);
+        assertEquals(START + 32000, episode.finish);
+        assertEquals(40, episode.maxValue, 0);
+        assertEquals(2, episode.causes.size());
+        assertEquals("hiccup_times@host1", episode.causes.get(0).series);
+        assertEquals("gc_pause@host1", episode.causes.get(1).series);
+        assertTrue(episode.causes.get(0).score > episode.causes.get(1).score);
+
+        Metric metric = LatencyAttribution.toMetric(episode);
+        assertEquals("sle_attribution " + sle.longName(), metric.getName());
+        assertEquals(2, metric.getXValues().length);
+        assertEquals(2, metric.byType(MetricType.VALUES).getValues().length);
+
+        LatencyAttribution.Episode second = episodes.get(1);
+        assertEquals(START + 51000, second.finish);
+        assertTrue(second.causes.isEmpty() || second.causes.get(0).score < 3);
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2021, Azul Systems
+ * 
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * 
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * 
+ * * Neither the name of [project] nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+
+import org.junit.Test;
+import org.tussleframework.metrics.Marker;
+import org.tussleframework.metrics.Metric;
+import org.tussleframework.metrics.MetricData;
+import org.tussleframework.metrics.MetricValue;
+import org.tussleframework.tools.Analyzer;
+import org.tussleframework.tools.AnalyzerConfig;
+import org.tussleframework.tools.JsonTool;
+import org.tussleframework.tools.LoggerTool;
+import org.tussleframework.tools.MetricsStore;
+
+public class MetricsStoreTest {
+
+    {
+        LoggerTool.init("", "java.util.logging.ConsoleHandler");
+    }
+
+    @Test
+    public void testRoundTrip() {
+        try {
+            Random random = new Random(1);
+            double[] millis = new double[10000];
+            double[] raw = new double[1000];
+            for (int i = 0; i < millis.length; i++) {
+                millis[i] = Math.round(random.nextDouble() * 100000) / 1000.0;
+            }
+            for (int i = 0; i < raw.length; i++) {
+                raw[i] = random.nextGaussian();
+            }
+            raw[1] = Double.NaN;
+            raw[2] = Double.POSITIVE_INFINITY;
+            MetricData metricData = new MetricData();
+            metricData.loadDefaultRunProperties();
+            metricData.getRunProperties().setProperty("benchmark_name", "store test");
+            metricData.add(Metric.builder()
+                    .name("response_time")
+                    .operation("reads")
+                    .units("ms")
+                    .start(1655401396792L)
+                    .finish(1655401496792L)
+                    .delay(1000)
+                    .actualRate(1234.5)
+                    .xValues(new String[] { "1000", "2000", null })
+                    .build()
+                    .add(new MetricValue("P50_VALUES", millis))
+                    .add(new MetricValue("RAW", raw))
+                    .add(new MetricValue("COUNTS", new double[] { 5, 3, 1000000, -2 }))
+                    .addMarker(new Marker("sle", 2000.0, 10.0)));
+            metricData.add(Metric.builder().name("max_rate").value(42.0).build());
+            ByteArrayOutputStream bout = new ByteArrayOutputStream();
+            MetricsStore.write(metricData, bout);
+            ByteArrayOutputStream jout = new ByteArrayOutputStream();
+            JsonTool.printJson(metricData, jout);
+            assertTrue("binary should be much smaller than json: " + bout.size() + " vs " + jout.size(), bout.size() * 2 < jout.size());
+            MetricData read = MetricsStore.read(new ByteArrayInputStream(bout.toByteArray()));
+            assertEquals("store test", read.getRunProperties().getProperty("benchmark_name"));
+            assertEquals(2, read.getMetrics().size());
+            Metric m = read.getMetrics().get(0);
+            assertEquals(metricData.getMetrics().get(0).getFinish(), m.getFinish());
+            assertEquals(1000, (int) m.getDelay());
+            assertArrayEquals(new String[] { "1000", "2000", null }, m.getXValues());
+            assertArrayEquals(millis, m.byType("P50_VALUES").getValues(), 0);
+            assertArrayEquals(raw, m.byType("RAW").getValues(), 0);
+            assertArrayEquals(new double[] { 5, 3, 1000000, -2 }, m.byType("COUNTS").getValues(), 0);
+            assertEquals("sle", m.getMarkers().get(0).getName());
+            assertNull(m.getHost());
+            assertEquals(42.0, read.find("max_rate").getValue(), 0);
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail();
+        }
+    }
+
+    @Test
+    public void testAnalyzerBinary() {
+        String reportDir = "results/metrics_store_test/report" + System.currentTimeMillis();
+        try {
+            Path dir = Files.createTempDirectory("metrics_store");
+            Files.copy(Paths.get("test_data/step_rate_analyser_test/WRITE_response_time_0_2000_0.hlog"), dir.resolve("WRITE_response_time_0_2000_0.hlog"));
+            AnalyzerConfig config = new AnalyzerConfig();
+            config.histogramsDir = dir.toString();
+            config.metricsFormat = "both";
+            config.makeReport = true;
+            config.reportDir = reportDir;
+            new Analyzer().processResults(config);
+            assertTrue(Files.exists(dir.resolve("metrics.bin")));
+            assertTrue(Files.size(dir.resolve("metrics.bin")) < Files.size(dir.resolve("metrics.json")));
+            String dataJs = new String(Files.readAllBytes(Paths.get(reportDir, "js", "data1.js")));
+            assertTrue(dataJs.startsWith("window.metricsData1 = [{ \"_source\": {"));
+            assertTrue(dataJs.contains("\"metrics\":["));
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail();
+        }
+    }
+}
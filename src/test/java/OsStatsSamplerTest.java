@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2021, Azul Systems
+ * 
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * 
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * 
+ * * Neither the name of [project] nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.Test;
+import org.tussleframework.RunArgs;
+import org.tussleframework.metrics.Metric;
+import org.tussleframework.metrics.MetricData;
+import org.tussleframework.metrics.JvmStatsSampler;
+import org.tussleframework.metrics.MetricType;
+import org.tussleframework.metrics.OsStatsSampler;
+import org.tussleframework.tools.Analyzer;
+import org.tussleframework.tools.processors.JvmStatsProcessor;
+import org.tussleframework.tools.processors.OsStatsProcessor;
+
+public class OsStatsSamplerTest {
+
+    static final String NET_HEADER = "Inter-|   Receive                                                |  Transmit\n"
+            + " face |bytes    packets errs drop fifo frame compressed multicast|bytes    packets errs drop fifo colls carrier compressed\n";
+
+    static void writeProc(Path proc, long cpuUser, long cpuIdle, long sectors, long rxBytes, long rss) throws Exception {
+        Files.write(proc.resolve("stat"), String.format("cpu  %d 0 %d %d %d 0 0 0 0 0%ncpu0 1 2 3 4 5 6 7 8 0 0%nintr 1 2 3%n", cpuUser, cpuUser / 2, cpuIdle, cpuUser / 2).getBytes());
+        Files.write(proc.resolve("diskstats"), String.format(
+                "   7       0 loop0 10 0 %d 0 0 0 0 0 0 0 0%n   8       0 sda 100 0 %d 10 50 0 %d 20 0 30 30%n   8       1 sda1 100 0 %d 10 50 0 %d 20 0 30 30%n",
+                sectors, sectors, sectors, sectors, sectors).getBytes());
+        Files.write(proc.resolve("net/dev"), (NET_HEADER + String.format(
+                "    lo: %d 10 0 0 0 0 0 0 %d 10 0 0 0 0 0 0%n  eth0: %d 10 0 0 0 0 0 0 %d 10 0 0 0 0 0 0%n",
+                rxBytes * 5, rxBytes * 5, rxBytes, rxBytes / 2)).getBytes());
+        Files.write(proc.resolve("self/status"), String.format("Name:\tjava%nVmPeak:\t 999999 kB%nVmRSS:\t %d kB%nThreads:\t10%n", rss).getBytes());
+    }
+
+    @Test
+    public void testSampleAndProcess() throws Exception {
+        Path dir = Files.createTempDirectory("os_stats_test");
+        Path proc = dir.resolve("proc");
+        Files.createDirectories(proc.resolve("net"));
+        Files.createDirectories(proc.resolve("self"));
+        Files.createDirectories(dir.resolve("block/sda"));
+        Files.createDirectories(dir.resolve("block/loop0"));
+        writeProc(proc, 1000, 10000, 0, 0, 1000);
+        RunArgs runArgs = new RunArgs(2000, 50, 0, 10, 1, "test");
+        OsStatsSampler sampler = new OsStatsSampler(proc.toString(), dir.resolve("block").toString(), dir.toString(), runArgs, 1000);
+        assertTrue(Analyzer.isOsStatsFile(sampler.getOutFile().getName()));
+        long startTime = System.currentTimeMillis() - 1000;
+        sampler.start(startTime);
+        // +100 user, +50 system, +800 idle, +50 iowait, +1MB disk read/write, +1MB net rx
+        writeProc(proc, 1100, 10800, 2048, 1024 * 1024, 12345);
+        sampler.run();
+        sampler.cancel();
+        sampler.run();
+        List<String> lines = Files.readAllLines(sampler.getOutFile().toPath());
+        assertEquals(3, lines.size());
+        assertEquals(String.join(",", OsStatsSampler.COLUMNS), lines.get(1));
+        String[] row = lines.get(2).split(",");
+        assertEquals(OsStatsSampler.COLUMNS.length, row.length);
+        assertEquals("10.00", row[1]);
+        assertEquals("5.00", row[2]);
+        assertEquals("5.00", row[3]);
+        assertEquals("15.00", row[4]);
+        assertEquals(1024, Double.parseDouble(row[5]), 50);
+        assertEquals(1024, Double.parseDouble(row[6]), 50);
+        assertEquals(1024, Double.parseDouble(row[7]), 50);
+        assertEquals(512, Double.parseDouble(row[8]), 25);
+        assertEquals("12345", row[9]);
+
+        MetricData metricData = new MetricData();
+        try (InputStream in = new FileInputStream(sampler.getOutFile())) {
+            assertTrue(new OsStatsProcessor(1000).processData(metricData, null, null, in, "host1", null));
+        }
+        Metric cpuBusy = metricData.getMetrics().stream().filter(m -> m.getName().equals("os_cpu") && m.getOperation().equals("busy")).findFirst().get();
+        assertEquals(startTime, cpuBusy.getStart().longValue());
+        assertEquals(1000, cpuBusy.getDelay().intValue());
+        assertEquals(2000, cpuBusy.getTargetRate(), 0);
+        assertEquals(1, cpuBusy.getRetry().intValue());
+        assertEquals("host1", cpuBusy.getHost());
+        double[] values = cpuBusy.byType(MetricType.VALUES).getValues();
+        assertEquals(1, values.length);
+        assertEquals(15.0, values[0], 0.001);
+    }
+
+    @Test
+    public void testRealProc() throws Exception {
+        if (!OsStatsSampler.isSupported("/proc")) {
+            return;
+        }
+        Path dir = Files.createTempDirectory("os_stats_test");
+        OsStatsSampler sampler = new OsStatsSampler("/proc", "/sys/block", dir.toString(), new RunArgs(100, 100, 0, 1, 0, "test"), 100);
+        sampler.start(System.currentTimeMillis());
+        Thread.sleep(100);
+        sampler.run();
+        sampler.cancel();
+        List<String> lines = Files.readAllLines(sampler.getOutFile().toPath());
+        assertEquals(3, lines.size());
+        String[] row = lines.get(2).split(",");
+        assertEquals(OsStatsSampler.COLUMNS.length, row.length);
+        double busy = Double.parseDouble(row[4]);
+        assertTrue(busy >= 0 && busy <= 100);
+        assertTrue(Long.parseLong(row[9]) > 0);
+    }
+
+    @Test
+    public void testJvmStats() throws Exception {
+        Path dir = Files.createTempDirectory("jvm_stats_test");
+        JvmStatsSampler sampler = new JvmStatsSampler(dir.toString(), new RunArgs(100, 100, 0, 1, 2, "test"), 50);
+        assertTrue(Analyzer.isJvmStatsFile(sampler.getOutFile().getName()));
+        long startTime = System.currentTimeMillis();
+        sampler.start(startTime);
+        for (int i = 0; i < 4; i++) {
+            byte[][] garbage = new byte[1000][];
+            for (int j = 0; j < garbage.length; j++) {
+                garbage[j] = new byte[1000];
+            }
+            System.gc();
+            Thread.sleep(50);
+            sampler.run();
+        }
+        sampler.cancel();
+        List<String> lines = Files.readAllLines(sampler.getOutFile().toPath());
+        assertEquals(6, lines.size());
+        assertEquals(String.join(",", JvmStatsSampler.COLUMNS), lines.get(1));
+        long gcCount = 0;
+        double safepointCount = 0;
+        for (String line : lines.subList(2, lines.size())) {
+            String[] row = line.split(",");
+            assertEquals(JvmStatsSampler.COLUMNS.length, row.length);
+            gcCount += Long.parseLong(row[1]);
+            assertTrue(Double.parseDouble(row[3]) > 0);
+            assertTrue(Double.parseDouble(row[4]) > 0);
+            if (sampler.hasSafepointStats()) {
+                assertTrue(Double.parseDouble(row[7]) >= 0);
+                assertTrue(Double.parseDouble(row[8]) >= 0);
+                safepointCount += Double.parseDouble(row[7]);
+            }
+        }
+        assertTrue(gcCount >= 4);
+        String vmName = System.getProperty("java.vm.name", "");
+        assertTrue("safepoint stats should be available on HotSpot", sampler.hasSafepointStats() || !vmName.contains("HotSpot") && !vmName.contains("OpenJDK"));
+        if (sampler.hasSafepointStats()) {
+            assertTrue("System.gc() pauses are safepoints", safepointCount >= 4);
+        }
+
+        MetricData metricData = new MetricData();
+        try (InputStream in = new FileInputStream(sampler.getOutFile())) {
+            assertTrue(new JvmStatsProcessor(100).processData(metricData, null, null, in, "", null));
+        }
+        Metric gcMetric = metricData.getMetrics().stream().filter(m -> m.getName().equals("jvm_gc") && m.getOperation().equals("count")).findFirst().get();
+        assertEquals(startTime, gcMetric.getStart().longValue());
+        assertEquals(100, gcMetric.getDelay().intValue());
+        assertEquals(2, gcMetric.getRetry().intValue());
+        double[] values = gcMetric.byType(MetricType.VALUES).getValues();
+        assertEquals(2, values.length);
+        assertEquals(gcCount, values[0] + values[1], 0);
+        assertTrue(metricData.getMetrics().stream().anyMatch(m -> m.getName().equals("jvm_heap")));
+    }
+}
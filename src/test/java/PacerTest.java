@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2021, Azul Systems
+ * 
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * 
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * 
+ * * Neither the name of [project] nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.tussleframework.RunResult;
+import org.tussleframework.tools.LoggerTool;
+import org.tussleframework.tools.Pacer;
+import org.tussleframework.tools.TargetRunnerMT;
+import org.tussleframework.tools.TargetRunnerST;
+
+public class PacerTest {
+
+    {
+        LoggerTool.init("", "java.util.logging.ConsoleHandler");
+    }
+
+    @Test
+    public void testModes() {
+        final long step = 100_000L;
+        final int count = 2000;
+        for (Pacer.Mode mode : Pacer.Mode.values()) {
+            Pacer pacer = new Pacer(mode, 0);
+            long start = System.nanoTime();
+            pacer.start(start);
+            for (int i = 1; i <= count; i++) {
+                pacer.awaitUntil(start + i * step);
+            }
+            long elapsed = System.nanoTime() - start;
+            Pacer.log("%s: elapsed %d ms, %s", mode, elapsed / 1_000_000, Pacer.latenessSummary(pacer.getLateness(), pacer.getEarliness()));
+            assertEquals(count, pacer.getLateness().getTotalCount() + pacer.getEarliness().getTotalCount());
+            assertTrue(mode + " finished too early", elapsed >= count * step - Pacer.DEFAULT_TICK_NS);
+        }
+    }
+
+    @Test
+    public void testBatchEarliness() {
+        final long step = 100_000L;
+        final long tick = 1_000_000L;
+        final int count = 200;
+        Pacer pacer = new Pacer(Pacer.Mode.BATCH, tick);
+        long start = System.nanoTime();
+        pacer.start(start);
+        for (int i = 1; i <= count; i++) {
+            pacer.awaitUntil(start + i * step);
+        }
+        Pacer.log("BATCH: %s", Pacer.latenessSummary(pacer.getLateness(), pacer.getEarliness()));
+        assertEquals(count, pacer.getLateness().getTotalCount() + pacer.getEarliness().getTotalCount());
+        assertTrue("ops due within a tick are released early", pacer.getEarliness().getTotalCount() > 0);
+        assertTrue(pacer.getEarliness().getMaxValue() < tick + tick / 100);
+    }
+
+    @Test
+    public void testModeParse() {
+        assertEquals(Pacer.Mode.SPIN_YIELD, Pacer.Mode.parse("spin-yield"));
+        assertEquals(Pacer.Mode.BATCH, Pacer.Mode.parse("batch"));
+        assertTrue(Pacer.getParkSlack() >= 0);
+    }
+
+    @Test
+    public void testRunners() throws Exception {
+        RunResult result = new TargetRunnerST(Pacer.create("batch", 1000)).runWorkload("test", 20_000, 1000, () -> true, null);
+        assertEquals(20_000, result.count, 2_000);
+        result = new TargetRunnerMT(2, "calibrated", 0).runWorkload("test", 20_000, 1000, () -> true, null);
+        assertEquals(20_000, result.count, 2_000);
+    }
+}
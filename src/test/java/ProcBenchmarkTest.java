@@ -30,12 +30,22 @@
  * 
  */
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
 import org.junit.Test;
 import org.tussleframework.ProcBenchmark;
 import org.tussleframework.ProcConfig;
+import org.tussleframework.RunArgs;
+import org.tussleframework.metrics.HdrResult;
+import org.tussleframework.metrics.ResultsRecorder;
 import org.tussleframework.runners.BasicRunner;
+import org.tussleframework.runners.RunnerConfig;
 import org.tussleframework.tools.LoggerTool;
 
 public class ProcBenchmarkTest {
@@ -95,4 +105,55 @@ public class ProcBenchmarkTest {
             fail();
         }
     }
+
+    @Test
+    public void testInstances() {
+        try {
+            Path dir = Files.createTempDirectory("proc_instances");
+            ProcConfig procConfig = new ProcConfig();
+            procConfig.name = "instances-test";
+            procConfig.instances = 2;
+            procConfig.run.dir = dir.toString();
+            procConfig.run.cmd = new String[] { "bash", "-c", String.format("cp %s WRITE_response_time_0_{targetRate}_0.hlog; sleep 1", Paths.get("test_data/step_rate_analyser_test/WRITE_response_time_0_2000_0.hlog").toAbsolutePath()) };
+            try {
+                new ProcBenchmark(procConfig);
+                fail("instances sharing result files should be rejected");
+            } catch (IllegalArgumentException e) {
+                assertTrue(e.getMessage().contains("{instance}"));
+            }
+            procConfig.run.dir = dir.resolve("{instance}").toString();
+            ProcBenchmark benchmark = new ProcBenchmark(procConfig);
+            RunnerConfig runnerConfig = new RunnerConfig();
+            runnerConfig.histogramsDir = dir.resolve("histograms").toString();
+            ResultsRecorder[] recorders = new ResultsRecorder[2];
+            Thread[] threads = new Thread[2];
+            Exception[] errors = new Exception[2];
+            for (int i = 0; i < 2; i++) {
+                final int instance = i;
+                double targetRate = 1000 * (i + 1);
+                recorders[i] = new ResultsRecorder(runnerConfig, new RunArgs(targetRate, 0, 0, 1, i, "run"), false, true);
+                threads[i] = new Thread(() -> {
+                    try {
+                        benchmark.run(instance, targetRate, 0, 1, recorders[instance]);
+                    } catch (Exception e) {
+                        errors[instance] = e;
+                    }
+                });
+                threads[i].start();
+            }
+            for (int i = 0; i < 2; i++) {
+                threads[i].join();
+                if (errors[i] != null) {
+                    throw errors[i];
+                }
+                assertEquals("instance gets only its own results", 1, recorders[i].getHdrResults().size());
+                HdrResult result = recorders[i].getHdrResults().iterator().next();
+                assertTrue(result.hdrFile().contains(dir.resolve(String.valueOf(i)).toString()));
+                recorders[i].cancel();
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail();
+        }
+    }
 }
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2021, Azul Systems
+ * 
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * 
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * 
+ * * Neither the name of [project] nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Timer;
+import java.util.TimerTask;
+
+import org.junit.Test;
+import org.tussleframework.ProcBenchmark;
+import org.tussleframework.ProcConfig;
+import org.tussleframework.RunArgs;
+import org.tussleframework.RunResult;
+import org.tussleframework.TussleException;
+import org.tussleframework.metrics.ResultsRecorder;
+import org.tussleframework.runners.RunnerConfig;
+import org.tussleframework.tools.LoggerTool;
+import org.tussleframework.tools.ProcSession;
+import org.tussleframework.tools.ProcTool.CmdVars;
+
+public class ProcSessionTest {
+
+    {
+        LoggerTool.init("", "java.util.logging.ConsoleHandler");
+    }
+
+    @Test
+    public void testSessionRuns() {
+        try {
+            Path dir = Files.createTempDirectory("proc_session");
+            ProcConfig procConfig = new ProcConfig();
+            procConfig.name = "session-test";
+            procConfig.printLog = true;
+            procConfig.session.dir = dir.toString();
+            procConfig.session.cmd = new String[] { "bash", Paths.get("test_data/proc_session_test/session.sh").toAbsolutePath().toString() };
+            procConfig.resultFiles = new String[] { ".*_{targetRate}_{runStep}.hlog" };
+            ProcBenchmark benchmark = new ProcBenchmark(procConfig);
+            RunnerConfig runnerConfig = new RunnerConfig();
+            runnerConfig.histogramsDir = dir.resolve("histograms").toString();
+            try {
+                for (int step = 0; step < 2; step++) {
+                    benchmark.reset();
+                    ResultsRecorder recorder = new ResultsRecorder(runnerConfig, new RunArgs(1000 + step, 0, 0, 1, step, "run"), false, true);
+                    RunResult runResult = benchmark.run(1000 + step, 0, 1, recorder);
+                    assertEquals(step + 1, runResult.count);
+                    assertEquals(1000 + step, runResult.actualRate, 0);
+                    assertEquals(1, recorder.getHdrResults().size());
+                    recorder.cancel();
+                }
+            } finally {
+                benchmark.cleanup();
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail();
+        }
+    }
+
+    @Test
+    public void testStop() throws Exception {
+        CmdVars vars = new CmdVars();
+        vars.cmd = new String[] { "bash", Paths.get("test_data/proc_session_test/stop_session.sh").toAbsolutePath().toString() };
+        try (ProcSession session = new ProcSession("stop-test", vars, LoggerTool.nullOutputStream())) {
+            session.start();
+            for (String stop : new String[] { "stop", "stop reply" }) {
+                Timer timer = new Timer(true);
+                timer.schedule(new TimerTask() {
+                    @Override
+                    public void run() {
+                        try {
+                            session.send(stop);
+                        } catch (TussleException e) {
+                            e.printStackTrace();
+                        }
+                    }
+                }, 500);
+                long start = System.currentTimeMillis();
+                assertEquals("{\"count\": 1, \"actualRate\": 0}", session.call("run 1000 0 30 0", 60));
+                assertTrue(System.currentTimeMillis() - start < 10000);
+                timer.cancel();
+                Thread.sleep(200);
+                assertEquals("reply to stop is not taken as reset reply", "reset", session.call("reset", 10));
+            }
+        }
+    }
+
+    @Test
+    public void testErrorReply() {
+        CmdVars vars = new CmdVars();
+        vars.cmd = new String[] { "bash", Paths.get("test_data/proc_session_test/session.sh").toAbsolutePath().toString() };
+        try (ProcSession session = new ProcSession("error-test", vars, LoggerTool.nullOutputStream())) {
+            session.start();
+            session.call("unknown", 10);
+            fail();
+        } catch (TussleException e) {
+            assertTrue(e.getMessage().contains("unknown command"));
+        }
+    }
+}
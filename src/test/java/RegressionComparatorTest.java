@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2021, Azul Systems
+ * 
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * 
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * 
+ * * Neither the name of [project] nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Random;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.junit.Test;
+import org.tussleframework.tools.LoggerTool;
+import org.tussleframework.tools.RegressionComparator;
+import org.tussleframework.tools.RegressionComparator.Verdict;
+import org.tussleframework.tools.RegressionComparatorConfig;
+
+public class RegressionComparatorTest {
+
+    {
+        LoggerTool.init("", "java.util.logging.ConsoleHandler");
+    }
+
+    static Histogram makeHistogram(Random random, double meanUs, long startMs) {
+        Histogram h = new Histogram(3);
+        for (int i = 0; i < 2000; i++) {
+            h.recordValue((long) (meanUs * (0.5 + random.nextDouble())));
+        }
+        h.setStartTimeStamp(startMs);
+        h.setEndTimeStamp(startMs + 1000);
+        return h;
+    }
+
+    static Path makeRun(Path parent, String name, double meanUs, long seed) throws Exception {
+        Path dir = Files.createDirectories(parent.resolve(name));
+        Random random = new Random(seed);
+        for (String op : new String[] { "reads", "writes" }) {
+            File hlog = dir.resolve(op + "_response-time_100_1000_0.hlog").toFile();
+            HistogramLogWriter writer = new HistogramLogWriter(hlog);
+            for (int i = 0; i < 10; i++) {
+                writer.outputIntervalHistogram(makeHistogram(random, meanUs, 1000L * i));
+            }
+            writer.close();
+        }
+        return dir;
+    }
+
+    @Test
+    public void testKS() {
+        Random random = new Random(1);
+        Histogram a = makeHistogram(random, 10_000, 0);
+        Histogram b = makeHistogram(random, 10_000, 0);
+        Histogram c = makeHistogram(random, 12_000, 0);
+        assertTrue(RegressionComparator.ksTest(a, a)[1] > 0.99);
+        assertTrue(RegressionComparator.ksTest(a, b)[1] > 0.01);
+        assertTrue(RegressionComparator.ksTest(a, c)[1] < 0.01);
+    }
+
+    @Test
+    public void testCompare() {
+        try {
+            Path parent = Files.createTempDirectory("comparator");
+            Path baseline = makeRun(parent, "baseline", 10_000, 1);
+            Path same = makeRun(parent, "same", 10_000, 2);
+            Path slower = makeRun(parent, "slower", 15_000, 3);
+            Path faster = makeRun(parent, "faster", 7_000, 4);
+            RegressionComparatorConfig config = new RegressionComparatorConfig();
+            config.resultDirs = new String[] { baseline.toString(), baseline.toString(), same.toString(), slower.toString(), faster.toString() };
+            config.outputDir = parent.resolve("comparison").toString();
+            config.validate(false);
+            Map<String, Verdict> verdicts = new RegressionComparator().compare(config);
+            assertEquals(4, verdicts.size());
+            assertEquals(Verdict.NO_CHANGE, verdicts.get("1-baseline"));
+            assertEquals(Verdict.NO_CHANGE, verdicts.get("2-same"));
+            assertEquals(Verdict.REGRESSION, verdicts.get("3-slower"));
+            assertEquals(Verdict.IMPROVEMENT, verdicts.get("4-faster"));
+            String metrics = new String(Files.readAllBytes(parent.resolve("comparison/metrics.json")));
+            assertTrue(metrics.contains("response_time diff 3-slower"));
+            assertTrue(metrics.contains("DELTA_PERCENT"));
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail();
+        }
+    }
+}
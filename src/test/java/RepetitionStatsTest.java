@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2021, Azul Systems
+ * 
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * 
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * 
+ * * Neither the name of [project] nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.junit.Test;
+import org.tussleframework.HdrConfig;
+import org.tussleframework.RunArgs;
+import org.tussleframework.metrics.HdrResult;
+import org.tussleframework.metrics.MetricInfo;
+import org.tussleframework.metrics.RepetitionStats;
+import org.tussleframework.tools.Analyzer;
+import org.tussleframework.tools.AnalyzerConfig;
+import org.tussleframework.tools.LoggerTool;
+
+public class RepetitionStatsTest {
+
+    {
+        LoggerTool.init("", "java.util.logging.ConsoleHandler");
+    }
+
+    static final long[] LATENCIES = { 10_000, 11_000, 10_500, 9_500, 50_000 }; // us, the last one is an outlier
+
+    static Histogram makeHistogram(long latency, long startMs, long count) {
+        Histogram h = new Histogram(3);
+        for (int i = 0; i < count; i++) {
+            h.recordValue(latency + i % 100);
+        }
+        h.setStartTimeStamp(startMs);
+        h.setEndTimeStamp(startMs + 10_000);
+        return h;
+    }
+
+    @Test
+    public void testStats() {
+        List<HdrResult> runs = new ArrayList<>();
+        for (int step = 0; step < LATENCIES.length; step++) {
+            HdrResult run = new HdrResult(new MetricInfo("op", HdrResult.RESPONSE_TIME, "op/s", "ms", ""), null, new RunArgs(1000, 100, 0, 10, step, ""), new HdrConfig());
+            run.add(makeHistogram(LATENCIES[step], 1_000_000L * step, 10_000));
+            runs.add(run);
+        }
+        RepetitionStats.Result result = new RepetitionStats(new double[] { 50, 99 }, 1000, 95, 3.5).compute(runs);
+        assertEquals(5, result.runs);
+        assertEquals(1000, result.rate.mean, 1);
+        assertEquals(1000, result.rate.merged, 1);
+        RepetitionStats.Estimate p50 = result.percentiles[0];
+        assertEquals((10 + 11 + 10.5 + 9.5 + 50) / 5, p50.mean, 0.2);
+        assertTrue(p50.stddev > 10);
+        assertTrue(p50.ciLow <= p50.mean && p50.mean <= p50.ciHigh);
+        assertEquals(1, result.outlierSteps.size());
+        assertEquals(4, (int) result.outlierSteps.get(0));
+        RepetitionStats.Result same = new RepetitionStats(new double[] { 50, 99 }, 1000, 95, 3.5).compute(runs);
+        assertEquals("bootstrap should be reproducible", p50.ciLow, same.percentiles[0].ciLow, 0);
+    }
+
+    @Test
+    public void testAnalyzer() {
+        try {
+            Path dir = Files.createTempDirectory("repetitions");
+            for (int step = 0; step < LATENCIES.length; step++) {
+                File hlog = dir.resolve(String.format("op_response-time_100_1000_%d.hlog", step)).toFile();
+                HistogramLogWriter writer = new HistogramLogWriter(hlog);
+                for (int i = 0; i < 10; i++) {
+                    writer.outputIntervalHistogram(makeHistogram(LATENCIES[step] * 1000, 1_000L * i, 1000));
+                }
+                writer.close();
+            }
+            AnalyzerConfig config = new AnalyzerConfig();
+            config.histogramsDir = dir.toString();
+            config.repetitionStats = true;
+            new Analyzer().processResults(config);
+            String metrics = new String(Files.readAllBytes(dir.resolve("metrics.json")));
+            assertTrue(metrics.contains("response_time repetitions"));
+            assertTrue(metrics.contains("P50_CI_LOW"));
+            assertTrue(metrics.contains("outlier step 5"));
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail();
+        }
+    }
+}
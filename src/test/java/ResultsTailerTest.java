@@ -0,0 +1,241 @@
+/*
+ * Copyright (c) 2021, Azul Systems
+ * 
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * 
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * 
+ * * Neither the name of [project] nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.tussleframework.ProcBenchmark;
+import org.tussleframework.ProcConfig;
+import org.tussleframework.RunArgs;
+import org.tussleframework.metrics.HdrResult;
+import org.tussleframework.metrics.MovingWindowSLE;
+import org.tussleframework.metrics.ResultsRecorder;
+import org.tussleframework.runners.RunnerConfig;
+import org.tussleframework.tools.LoggerTool;
+
+public class ResultsTailerTest {
+
+    {
+        LoggerTool.init("", "java.util.logging.ConsoleHandler");
+    }
+
+    static final String SOURCE_HLOG = "test_data/step_rate_analyser_test/WRITE_response_time_0_2000_0.hlog";
+    static final String SAMPLES_NAME = "samples_run_WRITE_0.csv";
+
+    ProcConfig procConfig(Path dir, String script) {
+        ProcConfig procConfig = new ProcConfig();
+        procConfig.name = "tail-test";
+        procConfig.run.dir = dir.toString();
+        procConfig.run.cmd = new String[] { "bash", "-c", script };
+        procConfig.resultFiles = new String[] { ".*.hlog" };
+        procConfig.tailResults = true;
+        procConfig.tailInterval = 50;
+        return procConfig;
+    }
+
+    RunnerConfig runnerConfig(Path dir) {
+        RunnerConfig runnerConfig = new RunnerConfig();
+        runnerConfig.histogramsDir = dir.resolve("histograms").toString();
+        runnerConfig.progressInterval = 200;
+        return runnerConfig;
+    }
+
+    @Test
+    public void testTailedResultsMatchFileResults() {
+        try {
+            Path dir = Files.createTempDirectory("results_tailer");
+            String script = String.format("while IFS= read -r line; do echo \"$line\" >> WRITE_response_time_0_2000_0.hlog; sleep 0.01; done < %s", Paths.get(SOURCE_HLOG).toAbsolutePath());
+            RunnerConfig runnerConfig = runnerConfig(dir);
+            ResultsRecorder recorder = new ResultsRecorder(runnerConfig, new RunArgs(2000, 0, 0, 1, 0, "run"), false, true);
+            new ProcBenchmark(procConfig(dir, script)).run(2000, 0, 1, recorder);
+            Collection<HdrResult> results = recorder.getHdrResults();
+            recorder.cancel();
+            assertEquals(1, results.size());
+            HdrResult tailed = results.iterator().next();
+            HdrResult loaded = new HdrResult(Paths.get(SOURCE_HLOG).toAbsolutePath().toString(), runnerConfig);
+            loaded.loadHdrFile(null, null);
+            assertEquals(loaded.getCount(), tailed.getCount());
+            assertEquals(loaded.getValueAtPercentile(99), tailed.getValueAtPercentile(99), 0);
+            assertEquals(loaded.recordsCount(), tailed.recordsCount());
+            assertEquals(HdrResult.RESPONSE_TIME, tailed.metricName());
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail();
+        }
+    }
+
+    @Test
+    public void testNamedPipe() {
+        try {
+            Path dir = Files.createTempDirectory("results_tailer");
+            String script = String.format("mkfifo WRITE_response_time_0_2000_0.hlog; sleep 0.5; cat %s > WRITE_response_time_0_2000_0.hlog", Paths.get(SOURCE_HLOG).toAbsolutePath());
+            RunnerConfig runnerConfig = runnerConfig(dir);
+            ResultsRecorder recorder = new ResultsRecorder(runnerConfig, new RunArgs(2000, 0, 0, 1, 0, "run"), false, true);
+            new ProcBenchmark(procConfig(dir, script)).run(2000, 0, 1, recorder);
+            Collection<HdrResult> results = recorder.getHdrResults();
+            recorder.cancel();
+            assertEquals(1, results.size());
+            HdrResult loaded = new HdrResult(Paths.get(SOURCE_HLOG).toAbsolutePath().toString(), runnerConfig);
+            loaded.loadHdrFile(null, null);
+            assertEquals(loaded.getCount(), results.iterator().next().getCount());
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail();
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void testNamedPipeWithoutWriter() {
+        try {
+            Path dir = Files.createTempDirectory("results_tailer");
+            RunnerConfig runnerConfig = runnerConfig(dir);
+            ResultsRecorder recorder = new ResultsRecorder(runnerConfig, new RunArgs(2000, 0, 0, 1, 0, "run"), false, true);
+            new ProcBenchmark(procConfig(dir, "mkfifo WRITE_response_time_0_2000_0.hlog; sleep 0.5")).run(2000, 0, 1, recorder);
+            assertTrue("the process has exited without opening the pipe", recorder.getHdrResults().isEmpty());
+            recorder.cancel();
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail();
+        }
+    }
+
+    /**
+     * Samples format 2 lines: stamp, progress, info, service time ms, success, warmup/measurement, response time ms
+     */
+    static Path writeSamples(Path dir) throws Exception {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            double serviceTime = 1 + (i * 7) % 50;
+            lines.add(String.format("%.6f,%.6f,[25 pages],%.6f,True,%s,%.6f", 1700000000 + i * 0.01, i / 600.0, serviceTime, i < 100 ? "W" : "M", serviceTime + i % 3));
+        }
+        Path source = dir.resolve("source.csv");
+        Files.write(source, lines);
+        return source;
+    }
+
+    static Map<String, HdrResult> byMetric(Collection<HdrResult> results) {
+        Map<String, HdrResult> map = new HashMap<>();
+        results.forEach(result -> map.put(result.metricName(), result));
+        return map;
+    }
+
+    void checkTailedSamples(Path dir, String script, Path source) throws Exception {
+        ProcConfig procConfig = procConfig(dir, script);
+        procConfig.resultFiles = new String[] { "samples.*.csv" };
+        Files.createDirectories(dir.resolve("histograms"));
+        Files.createDirectories(dir.resolve("loaded").resolve("histograms"));
+        ResultsRecorder recorder = new ResultsRecorder(runnerConfig(dir), new RunArgs(2000, 0, 0, 1, 0, "run"), false, true);
+        new ProcBenchmark(procConfig).run(2000, 0, 1, recorder);
+        Map<String, HdrResult> tailed = byMetric(recorder.getHdrResults());
+        recorder.cancel();
+        Path copy = dir.resolve("loaded").resolve(SAMPLES_NAME);
+        Files.copy(source, copy);
+        ResultsRecorder fileRecorder = new ResultsRecorder(runnerConfig(dir.resolve("loaded")), new RunArgs(2000, 0, 0, 1, 0, "run"), false, true);
+        fileRecorder.addResults(Collections.singletonList(copy.toFile()), "op/s", "ms");
+        Map<String, HdrResult> loaded = byMetric(fileRecorder.getHdrResults());
+        fileRecorder.cancel();
+        assertEquals(2, loaded.size());
+        assertEquals(loaded.keySet(), tailed.keySet());
+        loaded.forEach((metricName, result) -> {
+            assertTrue(result.getCount() > 400);
+            assertEquals(result.getCount(), tailed.get(metricName).getCount());
+            assertEquals(result.getValueAtPercentile(99), tailed.get(metricName).getValueAtPercentile(99), 0);
+            assertEquals("WRITE", tailed.get(metricName).operationName());
+        });
+    }
+
+    @Test
+    public void testSamplesFile() {
+        try {
+            Path dir = Files.createTempDirectory("results_tailer");
+            Path source = writeSamples(dir);
+            String script = String.format("while IFS= read -r line; do echo \"$line\" >> %s; done < %s", SAMPLES_NAME, source);
+            checkTailedSamples(dir, script, source);
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail();
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void testSamplesPipe() {
+        try {
+            Path dir = Files.createTempDirectory("results_tailer");
+            Path source = writeSamples(dir);
+            String script = String.format("mkfifo %s; sleep 0.5; cat %s > %s", SAMPLES_NAME, source, SAMPLES_NAME);
+            checkTailedSamples(dir, script, source);
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail();
+        }
+    }
+
+    @Test
+    public void testAbortOnSle() {
+        try {
+            Path dir = Files.createTempDirectory("results_tailer");
+            String script = String.format("cat %s > WRITE_response_time_0_2000_0.hlog; sleep 60", Paths.get(SOURCE_HLOG).toAbsolutePath());
+            ProcConfig procConfig = procConfig(dir, script);
+            procConfig.abortOnSle = true;
+            RunnerConfig runnerConfig = runnerConfig(dir);
+            MovingWindowSLE sle = new MovingWindowSLE();
+            sle.percentile = 99;
+            sle.maxValue = 0.001;
+            sle.movingWindow = 10;
+            runnerConfig.sleConfig = new MovingWindowSLE[] { sle };
+            ResultsRecorder recorder = new ResultsRecorder(runnerConfig, new RunArgs(2000, 0, 0, 60, 0, "run"), false, true);
+            long start = System.currentTimeMillis();
+            new ProcBenchmark(procConfig).run(2000, 0, 60, recorder);
+            assertTrue(System.currentTimeMillis() - start < 30000);
+            Collection<HdrResult> results = recorder.getHdrResults();
+            recorder.cancel();
+            assertEquals(1, results.size());
+            assertNotNull(results.iterator().next().getPrimeHistogram());
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2021, Azul Systems
+ * 
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * 
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * 
+ * * Neither the name of [project] nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+
+import org.HdrHistogram.Histogram;
+import org.junit.Test;
+import org.tussleframework.RunArgs;
+import org.tussleframework.RunResult;
+import org.tussleframework.metrics.HdrResult;
+import org.tussleframework.metrics.ResultsRecorder;
+import org.tussleframework.metrics.RunClock;
+import org.tussleframework.runners.RunnerConfig;
+import org.tussleframework.tools.LoggerTool;
+import org.tussleframework.tools.TargetRunnerMT;
+
+public class RunClockTest {
+
+    {
+        LoggerTool.init("", "java.util.logging.ConsoleHandler");
+    }
+
+    static final long MS = 1_000_000L;
+
+    @Test
+    public void testBoundaries() {
+        RunClock clock = new RunClock(1000 * MS, 100);
+        assertEquals(0, clock.indexAt(1000 * MS));
+        assertEquals(2, clock.indexAt(1250 * MS));
+        assertEquals(-1, clock.indexAt(999 * MS));
+        assertEquals(1, clock.completedIndex(1195 * MS));
+        assertEquals(1, clock.completedIndex(1204 * MS));
+        assertEquals(50, clock.delayToNextBoundaryMs(1250 * MS));
+        assertEquals(1000 * MS, clock.beginPhase(1005 * MS));
+        assertEquals(1000 * MS, clock.beginPhase(1050 * MS));
+        assertFalse(clock.hasPhase());
+        clock.endPhase(1250 * MS);
+        assertTrue(clock.hasPhase());
+        assertEquals(250, clock.getPhaseTimeMs());
+        assertEquals(1300 * MS, clock.beginPhase(1250 * MS));
+        assertFalse(clock.hasPhase());
+    }
+
+    @Test
+    public void testStamps() {
+        RunClock clock = new RunClock(1000 * MS, 100);
+        clock.beginPhase(1000 * MS);
+        Histogram histogram = new Histogram(3);
+        assertTrue(clock.stamp(histogram, 1, 0));
+        assertEquals(100, histogram.getEndTimeStamp() - histogram.getStartTimeStamp());
+        assertEquals(RunClock.toEpochMs(1100 * MS), histogram.getStartTimeStamp());
+        assertFalse(clock.isPartial(histogram));
+        clock.stamp(histogram, 2, 1230 * MS);
+        assertEquals(30, histogram.getEndTimeStamp() - histogram.getStartTimeStamp());
+        assertTrue(clock.isPartial(histogram));
+        clock.endPhase(1250 * MS);
+        clock.stamp(histogram, 2, 0);
+        assertEquals(RunClock.toEpochMs(1250 * MS), histogram.getEndTimeStamp());
+        assertFalse(clock.stamp(histogram, 3, 0));
+        assertEquals(RunClock.toEpochMs(1250 * MS), histogram.getEndTimeStamp());
+    }
+
+    @Test
+    public void testRunWindow() throws Exception {
+        Path dir = Files.createTempDirectory("run_clock_test");
+        RunnerConfig config = new RunnerConfig();
+        config.histogramsDir = dir.toString();
+        config.hdrInterval = 200;
+        config.progressInterval = 0;
+        ResultsRecorder recorder = new ResultsRecorder(config, new RunArgs(10_000, 100, 0, 1, 0, "run"), true, true);
+        recorder.startRecording("test", "op/s", "ms");
+        RunClock clock = recorder.getClock();
+        assertNotNull(clock);
+        RunResult result = new TargetRunnerMT(2, "calibrated", 0).runWorkload("test", 10_000, 1100, () -> true, recorder);
+        recorder.stopRecording();
+        assertTrue(clock.hasPhase());
+        assertEquals(1100, clock.getPhaseTimeMs(), 1);
+        assertEquals(clock.getPhaseTimeMs(), result.time, 1);
+        Collection<HdrResult> hdrResults = recorder.getHdrResults();
+        HdrResult lag = hdrResults.stream().filter(hdr -> HdrResult.SCHEDULE_LAG.equals(hdr.metricName())).findFirst().orElse(null);
+        assertNotNull(lag);
+        assertEquals(result.count, lag.getCount());
+        assertEquals(result.time, lag.getTimeMs(), 1);
+        assertEquals(result.actualRate, lag.getRate(), result.actualRate * 0.01);
+    }
+}
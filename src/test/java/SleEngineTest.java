@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2021, Azul Systems
+ * 
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * 
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * 
+ * * Neither the name of [project] nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+
+import org.HdrHistogram.Histogram;
+import org.junit.Test;
+import org.tussleframework.HdrConfig;
+import org.tussleframework.metrics.HdrResult;
+import org.tussleframework.metrics.Interval;
+import org.tussleframework.metrics.SleEngine;
+import org.tussleframework.metrics.SleRule;
+
+public class SleEngineTest {
+
+    static SleRule percentileRule(double percentile, double maxValue, int movingWindow) {
+        SleRule rule = new SleRule();
+        rule.percentile = percentile;
+        rule.maxValue = maxValue;
+        rule.movingWindow = movingWindow;
+        return rule;
+    }
+
+    static SleRule throughputRule(String minRate, int movingWindow) {
+        SleRule rule = new SleRule();
+        rule.type = "throughput";
+        rule.minRate = minRate;
+        rule.movingWindow = movingWindow;
+        return rule;
+    }
+
+    static SleRule compositeRule(String type, SleRule... rules) {
+        SleRule rule = new SleRule();
+        rule.type = type;
+        rule.rules = rules;
+        return rule;
+    }
+
+    /**
+     * Feeds 1s intervals with 100 values each, values[i] in interval i
+     */
+    static boolean feed(SleEngine engine, long... values) {
+        long start = 1_700_000_000_000L;
+        boolean more = true;
+        for (long value : values) {
+            Histogram histogram = new Histogram(3);
+            if (value > 0) {
+                histogram.recordValueWithCount(value, 100);
+            }
+            histogram.setStartTimeStamp(start);
+            histogram.setEndTimeStamp(start + 1000);
+            more = engine.add(start, start + 1000, histogram, new long[0]);
+            start += 1000;
+        }
+        return more;
+    }
+
+    @Test
+    public void testBudget() {
+        SleRule rule = percentileRule(99, 10, 2);
+        rule.budget = 1;
+        rule.validate();
+        assertEquals("p99-sle10ms-mw2s-b1per3600s", rule.longName());
+        assertEquals("p99-sle10ms", rule.markerName());
+        SleEngine engine = new SleEngine(new SleRule[] { rule }, 1, 0);
+        feed(engine, 1, 1, 50, 1, 1, 1, 1, 1, 1, 1);
+        assertFalse("one spike in overlapping windows fits the budget", engine.isBroken(0));
+        engine = new SleEngine(new SleRule[] { rule }, 1, 0);
+        assertFalse(feed(engine, 1, 1, 50, 1, 1, 1, 1, 1, 50, 1));
+        assertTrue(engine.isBroken(0));
+        rule.budgetWindow = 5;
+        engine = new SleEngine(new SleRule[] { rule }, 1, 0);
+        feed(engine, 1, 1, 50, 1, 1, 1, 1, 1, 50, 1);
+        assertFalse("the first violation is out of the budget window", engine.isBroken(0));
+        engine = new SleEngine(new SleRule[] { percentileRule(99, 10, 2) }, 1, 0);
+        feed(engine, 1, 1, 50, 1, 1);
+        assertTrue(engine.isBroken(0));
+    }
+
+    @Test
+    public void testComposition() {
+        SleRule latency = percentileRule(99, 10, 1);
+        SleRule throughput = throughputRule("50", 1);
+        SleRule any = compositeRule("any", latency, throughput);
+        SleRule all = compositeRule("all", latency, throughput);
+        all.validate();
+        assertEquals("all-p99-sle10ms-mw1s-and-rate-ge50-mw1s", all.longName());
+        assertEquals("any-p99-sle10ms-mw1s-or-rate-ge50-mw1s", any.longName());
+        SleEngine engine = new SleEngine(new SleRule[] { latency, throughput, any, all }, 1, 0);
+        assertTrue(feed(engine, 1, 1, 50, 1, 0, 1));
+        assertTrue(engine.isBroken(0));
+        assertTrue(engine.isBroken(1));
+        assertFalse("latency or throughput holds in each interval", engine.isBroken(2));
+        assertTrue(engine.isBroken(3));
+        assertEquals(3, engine.brokenRules().size());
+        engine = new SleEngine(new SleRule[] { compositeRule("any", latency, throughputRule("150", 1)) }, 1, 0);
+        assertFalse(feed(engine, 1, 50, 1));
+        assertTrue(engine.isBroken(0));
+    }
+
+    @Test
+    public void testErrorRateAndThroughput() throws Exception {
+        Path dir = Files.createTempDirectory("sle_engine_test");
+        HdrConfig config = new HdrConfig();
+        HdrResult ops = new HdrResult(ErrorCategoryTest.writeHlog(dir, "test_response_time_100_100_0.hlog", 100, 100, 100, 100, 90, 100).getAbsolutePath(), config);
+        HdrResult errors = new HdrResult(ErrorCategoryTest.writeHlog(dir, "test_errors_100_100_0.hlog", 0, 1, 3, 2, 0, 0).getAbsolutePath(), config);
+        assertEquals(100, ops.targetRate(), 0);
+        SleRule errorRate = new SleRule();
+        errorRate.type = "errorRate";
+        errorRate.maxErrorRate = 2;
+        errorRate.movingWindow = 2;
+        errorRate.validate();
+        assertEquals("errors-le2%-mw2s", errorRate.longName());
+        SleRule strict = throughputRule("95%", 1);
+        SleRule relaxed = throughputRule("85%", 1);
+        SleRule budgeted = throughputRule("95%", 1);
+        budgeted.budget = 1;
+        HashMap<String, HdrResult> errorsResults = new HashMap<>();
+        errorsResults.put("errors", errors);
+        SleEngine engine = new SleEngine(new SleRule[] { errorRate, strict, relaxed, budgeted }, ops.hdrFactor(), ops.targetRate());
+        assertEquals(1, engine.errorsMetrics().length);
+        ops.checkSLE(engine, errorsResults, new Interval());
+        assertTrue("5 errors of 205 operations in 2s", engine.isBroken(0));
+        assertTrue(engine.isBroken(1));
+        assertFalse(engine.isBroken(2));
+        assertFalse(engine.isBroken(3));
+        errorRate.maxErrorRate = 3;
+        engine = new SleEngine(new SleRule[] { errorRate }, ops.hdrFactor(), ops.targetRate());
+        ops.checkSLE(engine, errorsResults, new Interval());
+        assertFalse(engine.isBroken(0));
+    }
+}
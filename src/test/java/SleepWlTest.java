@@ -30,6 +30,7 @@
  * 
  */
 
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.util.Random;
@@ -142,6 +143,21 @@ public class SleepWlTest {
         }
     }
 
+    @Test
+    public void testScheduleLag() {
+        try {
+            final HdrTimeRecorder timeRecorder = new HdrTimeRecorder();
+            new TargetRunnerST().runWorkload("sleep", 200, 1000, () -> sleep(10), timeRecorder);
+            Histogram lag = timeRecorder.scheduleLagRecorder.getIntervalHistogram();
+            log(" overloaded scheduleLag(ms): " + formatPercentiles(lag));
+            assertTrue(lag.getTotalCount() > 0);
+            assertTrue("generator should fall behind schedule", lag.getValueAtPercentile(90) > 100_000_000L);
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail();
+        }
+    }
+
     public void sleepWorkload(double targetRate, int timeInMs) throws Exception {
         RunnableWithError workload = () -> sleep(10);
         runWorkload(targetRate, timeInMs, workload);
@@ -164,6 +180,7 @@ public class SleepWlTest {
         log(" actualThroughput(op/sec): " + actualThroughput);
         log(" serviceTime(ms): " + formatPercentiles(timeRecorder.serviceTimeRecorder.getIntervalHistogram()));
         log(" latency(ms): " + formatPercentiles(timeRecorder.responseTimeRecorder.getIntervalHistogram()));
+        log(" scheduleLag(ms): " + formatPercentiles(timeRecorder.scheduleLagRecorder.getIntervalHistogram()));
     }
 
     public void runWorkloadMT(double targetRate, int timeInMs, int threads, RunnableWithError workload) throws Exception {
@@ -173,6 +190,7 @@ public class SleepWlTest {
         log(" actualThroughput(op/sec): " + actualThroughput);
         log(" serviceTime(ms): " + formatPercentiles(timeRecorder.serviceTimeRecorder.getIntervalHistogram()));
         log(" latency(ms): " + formatPercentiles(timeRecorder.responseTimeRecorder.getIntervalHistogram()));
+        log(" scheduleLag(ms): " + formatPercentiles(timeRecorder.scheduleLagRecorder.getIntervalHistogram()));
     }
 
     public void runWorkloadAsync(double targetRate, int timeInMs, int threads, RunnableWithError workload) throws Exception {
@@ -182,5 +200,6 @@ public class SleepWlTest {
         log(" actualThroughput(op/sec): " + actualThroughput);
         log(" serviceTime(ms): " + formatPercentiles(timeRecorder.serviceTimeRecorder.getIntervalHistogram()));
         log(" latency(ms): " + formatPercentiles(timeRecorder.responseTimeRecorder.getIntervalHistogram()));
+        log(" scheduleLag(ms): " + formatPercentiles(timeRecorder.scheduleLagRecorder.getIntervalHistogram()));
     }
 }
@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2021, Azul Systems
+ * 
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * 
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * 
+ * * Neither the name of [project] nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.tussleframework.BenchmarkConfig;
+import org.tussleframework.MultiInstanceBenchmark;
+import org.tussleframework.RunResult;
+import org.tussleframework.TimeRecorder;
+import org.tussleframework.TussleException;
+import org.tussleframework.runners.StepRater;
+import org.tussleframework.runners.StepRaterCheckpoint;
+import org.tussleframework.runners.StepRaterConfig;
+
+public class StepRaterConcurrentTest {
+
+    /**
+     * Each instance sustains up to 1500 op/s, a run takes 300 ms (slowRate 900 ms), the first crashRate run fails
+     */
+    static class InstancesBenchmark implements MultiInstanceBenchmark {
+        final BenchmarkConfig config = new BenchmarkConfig();
+        final List<Double> targetRates = Collections.synchronizedList(new ArrayList<>());
+        final List<Integer> resets = Collections.synchronizedList(new ArrayList<>());
+        final AtomicInteger active = new AtomicInteger();
+        final AtomicInteger maxActive = new AtomicInteger();
+        final boolean[] busy;
+        final double slowRate;
+        double crashRate;
+
+        InstancesBenchmark(int instances) {
+            this(instances, -1, -1);
+        }
+
+        InstancesBenchmark(int instances, double slowRate, double crashRate) {
+            busy = new boolean[instances];
+            this.slowRate = slowRate;
+            this.crashRate = crashRate;
+        }
+
+        @Override
+        public void init(String[] args) {
+        }
+
+        @Override
+        public void reset() {
+        }
+
+        @Override
+        public void reset(int instance) {
+            resets.add(instance);
+        }
+
+        @Override
+        public void cleanup() {
+        }
+
+        @Override
+        public String getName() {
+            return "instances";
+        }
+
+        @Override
+        public BenchmarkConfig getConfig() {
+            return config;
+        }
+
+        @Override
+        public int getInstances() {
+            return busy.length;
+        }
+
+        @Override
+        public RunResult run(double targetRate, int warmupTime, int runTime, TimeRecorder recorder) throws TussleException {
+            return run(0, targetRate, warmupTime, runTime, recorder);
+        }
+
+        @Override
+        public RunResult run(int instance, double targetRate, int warmupTime, int runTime, TimeRecorder recorder) throws TussleException {
+            synchronized (busy) {
+                if (busy[instance]) {
+                    throw new TussleException("instance is busy");
+                }
+                busy[instance] = true;
+            }
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            try {
+                if (targetRate == crashRate) {
+                    crashRate = -1;
+                    throw new TussleException("crash");
+                }
+                targetRates.add(targetRate);
+                recorder.startRecording("op", config.rateUnits, config.timeUnits);
+                long now = System.currentTimeMillis() * 1_000_000L;
+                recorder.recordTimes("op", now, now, now + 1_000_000L, 1, true);
+                Thread.sleep(targetRate == slowRate ? 900 : 300);
+                recorder.stopRecording();
+                RunResult result = new RunResult();
+                result.actualRate = Math.min(targetRate, 1500);
+                result.count = (long) result.actualRate * runTime;
+                result.time = runTime * 1000L;
+                return result;
+            } catch (InterruptedException e) {
+                throw new TussleException(e);
+            } finally {
+                active.decrementAndGet();
+                synchronized (busy) {
+                    busy[instance] = false;
+                }
+            }
+        }
+    }
+
+    static StepRaterConfig config(String dir) {
+        StepRaterConfig config = new StepRaterConfig();
+        config.histogramsDir = dir;
+        config.highBound = "2000";
+        config.initialRunTime = "0";
+        config.runTime = "1s";
+        config.warmupTime = "0";
+        config.startingRatePercent = 50;
+        config.finishingRatePercent = 110;
+        config.rateStepPercent = 20;
+        config.retriesMax = 1;
+        return config;
+    }
+
+    static long responseTimeFiles(List<String> hdrFiles) {
+        return hdrFiles.stream().filter(file -> new File(file).getName().startsWith("op_response_time_")).count();
+    }
+
+    @Test
+    public void testConcurrentRates() throws Exception {
+        String dir = Files.createTempDirectory("steprater_concurrent_test").resolve("histograms").toString();
+        StepRaterConfig config = config(dir);
+        InstancesBenchmark benchmark = new InstancesBenchmark(2);
+        new StepRater(config).run(benchmark);
+        assertEquals(2, benchmark.maxActive.get());
+        assertTrue(benchmark.targetRates.contains(1000.0));
+        assertTrue(benchmark.targetRates.contains(1400.0));
+        assertEquals("failed rate is retried once", 2, Collections.frequency(benchmark.targetRates, 1800.0));
+        assertTrue(benchmark.resets.contains(0));
+        assertTrue(benchmark.resets.contains(1));
+        StepRaterCheckpoint checkpoint = StepRaterCheckpoint.load(dir);
+        assertTrue(checkpoint.reachedFinishingRate);
+        assertEquals(90, checkpoint.ratePercent, 0);
+        assertEquals(benchmark.targetRates.size(), checkpoint.completedRuns.size());
+        assertEquals(benchmark.targetRates.size(), responseTimeFiles(checkpoint.hdrFiles));
+    }
+
+    @Test
+    public void testConcurrentResume() throws Exception {
+        String dir = Files.createTempDirectory("steprater_concurrent_resume_test").resolve("histograms").toString();
+        InstancesBenchmark crashing = new InstancesBenchmark(2, 1000, 1800);
+        try {
+            new StepRater(config(dir)).run(crashing);
+            fail();
+        } catch (TussleException e) {
+            assertEquals("crash", e.getMessage());
+        }
+        StepRaterCheckpoint checkpoint = StepRaterCheckpoint.load(dir);
+        assertEquals("1000 is still running when 1400 is completed", 50, checkpoint.ratePercent, 0);
+        assertEquals(1, checkpoint.completedRuns.size());
+        assertEquals(1400, checkpoint.completedRuns.get(0).targetRate, 0);
+        assertEquals(1, responseTimeFiles(checkpoint.hdrFiles));
+
+        StepRaterConfig config = config(dir);
+        config.resume = true;
+        InstancesBenchmark resumed = new InstancesBenchmark(2);
+        new StepRater(config).run(resumed);
+        assertEquals("1400 is run again", 1, Collections.frequency(resumed.targetRates, 1400.0));
+        checkpoint = StepRaterCheckpoint.load(dir);
+        assertTrue(checkpoint.reachedFinishingRate);
+        assertEquals(resumed.targetRates.size(), checkpoint.completedRuns.size());
+        assertEquals(1, checkpoint.completedRuns.stream().filter(runArgs -> runArgs.targetRate == 1400).count());
+        assertEquals("restored results of the rerun step are dropped", checkpoint.completedRuns.size(), responseTimeFiles(checkpoint.hdrFiles));
+        assertEquals(checkpoint.hdrFiles.size(), checkpoint.hdrFiles.stream().distinct().count());
+    }
+}
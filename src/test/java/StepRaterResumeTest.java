@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2021, Azul Systems
+ * 
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * 
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * 
+ * * Neither the name of [project] nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.tussleframework.Benchmark;
+import org.tussleframework.BenchmarkConfig;
+import org.tussleframework.RunResult;
+import org.tussleframework.TimeRecorder;
+import org.tussleframework.TussleException;
+import org.tussleframework.runners.StepRater;
+import org.tussleframework.runners.StepRaterCheckpoint;
+import org.tussleframework.runners.StepRaterConfig;
+
+public class StepRaterResumeTest {
+
+    /**
+     * Runs at the target rate exactly (1k op/s when unthrottled), fails on the given run
+     */
+    static class RateBenchmark implements Benchmark {
+        final BenchmarkConfig config = new BenchmarkConfig();
+        final ArrayList<Double> targetRates = new ArrayList<>();
+        final int failOnRun;
+
+        RateBenchmark(int failOnRun) {
+            this.failOnRun = failOnRun;
+        }
+
+        @Override
+        public void init(String[] args) {
+        }
+
+        @Override
+        public void reset() {
+        }
+
+        @Override
+        public void cleanup() {
+        }
+
+        @Override
+        public String getName() {
+            return "rate";
+        }
+
+        @Override
+        public BenchmarkConfig getConfig() {
+            return config;
+        }
+
+        @Override
+        public RunResult run(double targetRate, int warmupTime, int runTime, TimeRecorder recorder) throws TussleException {
+            if (targetRates.size() == failOnRun) {
+                throw new TussleException("crash");
+            }
+            targetRates.add(targetRate);
+            recorder.startRecording("op", config.rateUnits, config.timeUnits);
+            long now = System.currentTimeMillis() * 1_000_000L;
+            recorder.recordTimes("op", now, now, now + 1_000_000L, 1, true);
+            recorder.stopRecording();
+            RunResult result = new RunResult();
+            result.actualRate = targetRate > 0 ? targetRate : 1000;
+            result.count = (long) result.actualRate * runTime;
+            result.time = runTime * 1000L;
+            return result;
+        }
+    }
+
+    static StepRaterConfig config(String histogramsDir, boolean resume) {
+        StepRaterConfig config = new StepRaterConfig();
+        config.histogramsDir = histogramsDir;
+        config.highBoundFromMaxRate = true;
+        config.highBoundRunTime = "1s";
+        config.initialRunTime = "0";
+        config.runTime = "1s";
+        config.warmupTime = "0";
+        config.startingRatePercent = 50;
+        config.finishingRatePercent = 110;
+        config.rateStepPercent = 20;
+        config.resume = resume;
+        return config;
+    }
+
+    @Test
+    public void testResume() throws Exception {
+        String dir = Files.createTempDirectory("steprater_resume_test").resolve("histograms").toString();
+        RateBenchmark crashing = new RateBenchmark(3);
+        try {
+            new StepRater(config(dir, false)).run(crashing);
+            fail();
+        } catch (TussleException e) {
+            assertEquals("crash", e.getMessage());
+        }
+        assertEquals(Arrays.asList(0.0, 1000.0, 1400.0), crashing.targetRates);
+        StepRaterCheckpoint checkpoint = StepRaterCheckpoint.load(dir);
+        assertEquals(2000, checkpoint.highBound, 0);
+        assertEquals(2, checkpoint.completedRuns.size());
+        assertEquals(90, checkpoint.ratePercent, 0);
+        int stepFiles = checkpoint.hdrFiles.size() / 2;
+        assertTrue(stepFiles > 0);
+        checkpoint.hdrFiles.forEach(file -> assertTrue(new File(file).exists()));
+
+        RateBenchmark resumed = new RateBenchmark(-1);
+        new StepRater(config(dir, true)).run(resumed);
+        assertEquals("high-bound search is skipped", Arrays.asList(1800.0, 2200.0), resumed.targetRates);
+        checkpoint = StepRaterCheckpoint.load(dir);
+        assertEquals(4, checkpoint.completedRuns.size());
+        assertEquals(2200, checkpoint.completedRuns.get(3).targetRate, 0);
+        assertTrue(checkpoint.reachedFinishingRate);
+        assertEquals(4 * stepFiles, checkpoint.hdrFiles.size());
+        checkpoint.hdrFiles.forEach(file -> assertTrue(new File(file).exists()));
+
+        RateBenchmark finished = new RateBenchmark(-1);
+        new StepRater(config(dir, true)).run(finished);
+        assertTrue("finished sweep has nothing to run", finished.targetRates.isEmpty());
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2021, Azul Systems
+ * 
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * 
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * 
+ * * Neither the name of [project] nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+
+import org.junit.Test;
+import org.tussleframework.RunResult;
+import org.tussleframework.WlBenchmark;
+import org.tussleframework.metrics.HdrTimeRecorder;
+import org.tussleframework.tools.LoggerTool;
+import org.tussleframework.tools.TargetRunnerReplay;
+import org.tussleframework.tools.TraceReader;
+
+public class TargetRunnerReplayTest {
+
+    {
+        LoggerTool.init("", "java.util.logging.ConsoleHandler");
+    }
+
+    File makeTrace(int count, long stepUs, boolean raw) throws IOException {
+        File trace = Files.createTempFile("trace", ".csv").toFile();
+        trace.deleteOnExit();
+        try (PrintStream out = new PrintStream(trace)) {
+            if (raw) {
+                out.println("# abs start time: 1655401396792 ms since ZERO");
+                out.println("start_time(us),intended_start_time(us),finish_time(us),count,finish_time-start_time(us),finish_time-intended_start_time(us),thread_name");
+            } else {
+                out.println("timestamp,operation");
+            }
+            for (int i = 0; i < count; i++) {
+                long t = 1000 + i * stepUs;
+                if (raw) {
+                    out.printf("%06d,%06d,%d,1,100,100,main%n", t + 5, t, t + 105);
+                } else {
+                    out.printf("1655401396.%06d,%s%n", t, i % 2 == 0 ? "GET" : "PUT");
+                }
+            }
+        }
+        return trace;
+    }
+
+    @Test
+    public void testTraceReader() {
+        try {
+            File trace = makeTrace(100, 10_000, false);
+            int count = 0;
+            long lastTime = 0;
+            try (TraceReader reader = new TraceReader(trace.getAbsolutePath())) {
+                while (reader.next()) {
+                    assertEquals(count % 2 == 0 ? "GET" : "PUT", reader.operation());
+                    lastTime = reader.timeNs();
+                    count++;
+                }
+            }
+            assertEquals(100, count);
+            assertEquals(99 * 10_000_000L, lastTime);
+            assertEquals(100.0, TraceReader.averageRate(trace.getAbsolutePath()), 2.0);
+            assertEquals(50.0, TraceReader.averageRate(trace.getAbsolutePath(), "GET"::equals), 1.0);
+            File rawTrace = makeTrace(50, 20_000, true);
+            try (TraceReader reader = new TraceReader(rawTrace.getAbsolutePath())) {
+                count = 0;
+                while (reader.next()) {
+                    assertTrue(reader.isRawFormat());
+                    lastTime = reader.timeNs();
+                    count++;
+                }
+            }
+            assertEquals(50, count);
+            assertEquals(49 * 20_000_000L, lastTime);
+        } catch (IOException e) {
+            e.printStackTrace();
+            fail();
+        }
+    }
+
+    @Test
+    public void testTraceMissingOperation() {
+        try {
+            File trace = Files.createTempFile("trace", ".csv").toFile();
+            trace.deleteOnExit();
+            try (PrintStream out = new PrintStream(trace)) {
+                out.println("timestamp,operation");
+                out.println("1655401396.001000,GET");
+                out.println("1655401396.002000");
+                out.println("1655401396.003000,PUT");
+            }
+            try (TraceReader reader = new TraceReader(trace.getAbsolutePath())) {
+                assertTrue(reader.next());
+                assertEquals("GET", reader.operation());
+                assertTrue(reader.next());
+                assertEquals("", reader.operation());
+                assertTrue(reader.next());
+                assertEquals("PUT", reader.operation());
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            fail();
+        }
+    }
+
+    @Test
+    public void testReplay() {
+        try {
+            File trace = makeTrace(200, 5_000, false);
+            RunResult result = new TargetRunnerReplay(trace.getAbsolutePath(), 1, 1, null).runWorkload("replay", 0, 5000, () -> true, new HdrTimeRecorder());
+            assertEquals(200, result.count);
+            assertTrue("replay should take about 1s", result.time >= 900 && result.time < 3000);
+            result = new TargetRunnerReplay(trace.getAbsolutePath(), 1, 2, new String[] { "GET" }).runWorkload("replay", 0, 5000, () -> true, null);
+            assertEquals(100, result.count);
+            result = new TargetRunnerReplay(trace.getAbsolutePath(), 0, 1, null).runWorkload("replay", 400, 5000, () -> true, null);
+            assertEquals(200, result.count);
+            assertTrue("replay should take about 0.5s", result.time < 900);
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail();
+        }
+    }
+
+    @Test
+    public void testReplayBenchmark() {
+        try {
+            File trace = makeTrace(100, 10_000, true);
+            WlBenchmark benchmark = WlBenchmark.createBenchmark(() -> {}, "replay", new String[] { "replayTrace=" + trace.getAbsolutePath() });
+            RunResult result = benchmark.run(0, 0, 2, null);
+            assertEquals(100, result.count);
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2021, Azul Systems
+ * 
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * 
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * 
+ * * Neither the name of [project] nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+import org.tussleframework.RunResult;
+import org.tussleframework.WlBenchmark;
+import org.tussleframework.metrics.WarmupDetector;
+import org.tussleframework.tools.LoggerTool;
+import org.tussleframework.tools.SleepTool;
+
+public class WarmupDetectorTest {
+
+    {
+        LoggerTool.init("", "java.util.logging.ConsoleHandler");
+    }
+
+    void record(WarmupDetector detector, int count, long latency) {
+        long now = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            detector.recordTimes("op", now, now, now + latency, 1, true);
+        }
+    }
+
+    @Test
+    public void testDetector() {
+        WarmupDetector detector = new WarmupDetector(0.1, 3, 0);
+        long[] latencies = { 50_000_000, 20_000_000, 10_000_000, 5_000_000, 5_000_000, 5_000_000 };
+        boolean[] stable = { false, false, false, false, false, true };
+        for (int i = 0; i < latencies.length; i++) {
+            record(detector, 1000, latencies[i]);
+            SleepTool.sleep(100_000_000L);
+            assertEquals("interval " + i, stable[i], detector.sample());
+        }
+        SleepTool.sleep(100_000_000L);
+        assertFalse("no operations recorded in the last interval", detector.sample());
+    }
+
+    @Test
+    public void testAdaptiveWarmup() {
+        try {
+            WlBenchmark benchmark = WlBenchmark.createBenchmark(() -> SleepTool.sleepSpinning(20_000), "warmup", new String[] { "adaptiveWarmup=true", "warmupInterval=200", "warmupTolerance=0.2" });
+            RunResult result = benchmark.run(1000, 20, 1, null);
+            assertTrue("warmup should converge before max time", result.warmupTime > 0 && result.warmupTime < 15_000);
+            assertTrue(result.count > 0);
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail();
+        }
+    }
+}
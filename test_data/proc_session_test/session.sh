@@ -0,0 +1,30 @@
+#!/bin/bash
+
+# Test session process: reads commands from stdin, replies with @done lines
+
+SCRIPT_DIR=$(cd $(dirname ${BASH_SOURCE[0]}) && pwd -P)
+runs=0
+
+while read -r cmd args
+do
+    case "$cmd" in
+        run)
+            read -r target warmup time step <<< "$args"
+            runs=$(( runs + 1 ))
+            echo "Run ${runs}: target ${target}, warmup ${warmup}, time ${time}, step ${step}"
+            cp "${SCRIPT_DIR}/../step_rate_analyser_test/WRITE_response_time_0_2000_0.hlog" "WRITE_response_time_0_${target}_${step}.hlog"
+            echo "@done {\"count\": ${runs}, \"actualRate\": ${target}}"
+            ;;
+        reset)
+            echo "Reset"
+            echo "@done"
+            ;;
+        exit)
+            echo "Exit"
+            exit 0
+            ;;
+        *)
+            echo "@error unknown command ${cmd}"
+            ;;
+    esac
+done
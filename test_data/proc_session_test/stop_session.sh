@@ -0,0 +1,39 @@
+#!/bin/bash
+
+# Test session process: runs in background until their time passes or 'stop' comes,
+# 'stop' gets no reply of its own, the stopped run replies with the time it has run
+
+runpid=
+runtime=0
+
+while read -r cmd args
+do
+    case "$cmd" in
+        run)
+            read -r target warmup time step <<< "$args"
+            runtime=$(( time * 10 ))
+            ( for (( i = 0; i < runtime; i++ )); do sleep 0.1; done; echo "@done {\"count\": ${runtime}, \"actualRate\": ${target}}" ) &
+            runpid=$!
+            ;;
+        stop)
+            echo "Stop"
+            if [ -n "$runpid" ] && kill "$runpid" 2>/dev/null; then
+                wait "$runpid"
+                echo "@done {\"count\": 1, \"actualRate\": 0}"
+            fi
+            runpid=
+            if [ "$args" == "reply" ]; then
+                echo "@done stop"
+            fi
+            ;;
+        reset)
+            echo "@done reset"
+            ;;
+        exit)
+            exit 0
+            ;;
+        *)
+            echo "@error unknown command ${cmd}"
+            ;;
+    esac
+done